@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import jakarta.inject.Provider;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@code MapFactory#get()} and {@code MapProviderFactory#get()}, which back {@code
+ * Map<K, V>} and {@code Map<K, Provider<V>>} multibindings respectively.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MapFactoryBenchmark {
+  @Param({"1", "10", "100", "1000"})
+  public int contributions;
+
+  private MapFactory<String, Object> mapFactory;
+  private MapProviderFactory<String, Object> mapProviderFactory;
+
+  @Setup
+  public void setUp() {
+    MapFactory.Builder<String, Object> mapBuilder = MapFactory.builder(contributions);
+    MapProviderFactory.Builder<String, Object> mapProviderBuilder =
+        MapProviderFactory.builder(contributions);
+    for (int i = 0; i < contributions; i++) {
+      Provider<Object> provider = InstanceFactory.create(new Object());
+      mapBuilder.put("key" + i, provider);
+      mapProviderBuilder.put("key" + i, provider);
+    }
+    mapFactory = mapBuilder.build();
+    mapProviderFactory = mapProviderBuilder.build();
+  }
+
+  @Benchmark
+  public Map<String, Object> mapOfValues() {
+    return mapFactory.get();
+  }
+
+  @Benchmark
+  public Map<String, Provider<Object>> mapOfProviders() {
+    return mapProviderFactory.get();
+  }
+}
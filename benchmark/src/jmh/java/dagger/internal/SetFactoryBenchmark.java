@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@code SetFactory#get()}, with the contributions coming either from individual
+ * {@code @IntoSet} providers or from a single {@code @ElementsIntoSet} provider.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SetFactoryBenchmark {
+  @Param({"1", "10", "100", "1000"})
+  public int contributions;
+
+  private SetFactory<String> individual;
+  private SetFactory<String> collection;
+
+  @Setup
+  public void setUp() {
+    SetFactory.Builder<String> individualBuilder = SetFactory.builder(contributions, 0);
+    List<String> elements = new ArrayList<>(contributions);
+    for (int i = 0; i < contributions; i++) {
+      String element = "element" + i;
+      individualBuilder.addProvider(InstanceFactory.create(element));
+      elements.add(element);
+    }
+    individual = individualBuilder.build();
+    collection =
+        SetFactory.<String>builder(0, 1)
+            .addCollectionProvider(InstanceFactory.create(elements))
+            .build();
+  }
+
+  @Benchmark
+  public Set<String> individualProviders() {
+    return individual.get();
+  }
+
+  @Benchmark
+  public Set<String> collectionProvider() {
+    return collection.get();
+  }
+}
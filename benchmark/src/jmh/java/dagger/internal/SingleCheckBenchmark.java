@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import jakarta.inject.Provider;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Benchmarks for {@code SingleCheck}, mirroring {@code DoubleCheckBenchmark}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SingleCheckBenchmark {
+  private final Provider<Object> delegate = Object::new;
+
+  private Provider<Object> initialized;
+
+  @Setup(Level.Trial)
+  public void setUpInitialized() {
+    initialized = SingleCheck.provider(delegate);
+    initialized.get();
+  }
+
+  @Benchmark
+  public Object uncontendedGet() {
+    return initialized.get();
+  }
+
+  @Benchmark
+  @Group("contended")
+  @GroupThreads(8)
+  public Object contendedGet() {
+    return initialized.get();
+  }
+
+  @Benchmark
+  public Object firstGet(Fresh state) {
+    return state.fresh.get();
+  }
+
+  @Benchmark
+  public Object createAndFirstGet() {
+    return SingleCheck.provider(delegate).get();
+  }
+
+  /** A provider that has not been called yet, as in {@code DoubleCheckBenchmark.Fresh}. */
+  @State(Scope.Thread)
+  public static class Fresh {
+    private final Provider<Object> delegate = Object::new;
+
+    Provider<Object> fresh;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+      fresh = SingleCheck.provider(delegate);
+    }
+  }
+}
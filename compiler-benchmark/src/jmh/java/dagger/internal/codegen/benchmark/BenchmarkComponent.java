@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The entry points of the components generated by {@code RuntimeGraphSources}. The generated
+ * component interface extends this interface, so that the benchmarks can call it without
+ * reflection.
+ */
+public interface BenchmarkComponent {
+  /** Returns the last binding of the unscoped chain. */
+  Object unscoped();
+
+  /** Returns the last binding of the scoped chain. */
+  Object scoped();
+
+  Set<String> set();
+
+  Map<String, Integer> map();
+
+  /** Returns a binding of a newly created subcomponent. */
+  Object subcomponentBinding();
+
+  /** Returns an instance created by an {@code @AssistedFactory}. */
+  Object assisted(int id);
+}
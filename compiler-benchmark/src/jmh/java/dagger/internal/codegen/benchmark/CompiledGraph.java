@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import dagger.internal.codegen.ComponentProcessor;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/** The classes of a {@code RuntimeGraphSources} graph, compiled in a given {@code CompilerMode}. */
+final class CompiledGraph implements AutoCloseable {
+  private final Path classesDirectory;
+
+  private CompiledGraph(Path classesDirectory) {
+    this.classesDirectory = classesDirectory;
+  }
+
+  static CompiledGraph compile(CompilerMode compilerMode, int bindings) {
+    Path classesDirectory = ProcessorRunner.createTempDirectory();
+    ProcessorRunner.compile(
+        RuntimeGraphSources.generate(bindings),
+        new ComponentProcessor(),
+        compilerMode.javacopts(),
+        classesDirectory);
+    return new CompiledGraph(classesDirectory);
+  }
+
+  /**
+   * Loads the graph in a new class loader, so that the classes of the graph are loaded again.
+   * Classes from the benchmark's class path, like the dapper runtime, are shared.
+   */
+  GraphClassLoader newClassLoader() {
+    try {
+      return new GraphClassLoader(
+          new URL[] {classesDirectory.toUri().toURL()}, getClass().getClassLoader());
+    } catch (MalformedURLException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    ProcessorRunner.deleteRecursively(classesDirectory);
+  }
+
+  /** A class loader for the graph that counts the classes that it loads. */
+  static final class GraphClassLoader extends URLClassLoader {
+    private int loadedClasses;
+
+    GraphClassLoader(URL[] urls, ClassLoader parent) {
+      super(urls, parent);
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      Class<?> result = super.findClass(name);
+      loadedClasses++;
+      return result;
+    }
+
+    /** Returns the number of graph classes loaded so far. */
+    int loadedClasses() {
+      return loadedClasses;
+    }
+
+    /** Returns a new instance of the {@code RootComponentSupplier} of the graph. */
+    @SuppressWarnings("unchecked")
+    Supplier<BenchmarkComponent> componentSupplier() {
+      try {
+        return (Supplier<BenchmarkComponent>)
+            loadClass(RuntimeGraphSources.SUPPLIER).getConstructor().newInstance();
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
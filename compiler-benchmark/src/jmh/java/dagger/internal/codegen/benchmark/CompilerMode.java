@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import java.util.List;
+
+/** The compiler modes that generate different code for the same component. */
+public enum CompilerMode {
+  DEFAULT_MODE,
+  FAST_INIT_MODE("-Adagger.fastInit=enabled");
+
+  private final List<String> javacopts;
+
+  CompilerMode(String... javacopts) {
+    this.javacopts = List.of(javacopts);
+  }
+
+  /** Returns the javacopts for this compiler mode. */
+  List<String> javacopts() {
+    return javacopts;
+  }
+}
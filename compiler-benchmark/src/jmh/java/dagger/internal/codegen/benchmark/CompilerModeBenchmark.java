@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Steady-state benchmarks of the code generated for the same component in each {@code
+ * CompilerMode}: component construction and requests for each kind of binding. Allocation per
+ * operation is reported by the {@code gc} profiler that is enabled in the build file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class CompilerModeBenchmark {
+  @Param({"DEFAULT_MODE", "FAST_INIT_MODE"})
+  public CompilerMode compilerMode;
+
+  @Param({"100", "1000"})
+  public int bindings;
+
+  private CompiledGraph graph;
+  private Supplier<BenchmarkComponent> componentSupplier;
+  private BenchmarkComponent component;
+
+  @Setup
+  public void setUp() {
+    graph = CompiledGraph.compile(compilerMode, bindings);
+    componentSupplier = graph.newClassLoader().componentSupplier();
+    component = componentSupplier.get();
+  }
+
+  @TearDown
+  public void tearDown() {
+    graph.close();
+  }
+
+  @Benchmark
+  public BenchmarkComponent construct() {
+    return componentSupplier.get();
+  }
+
+  @Benchmark
+  public Object unscoped() {
+    return component.unscoped();
+  }
+
+  @Benchmark
+  public Object scoped() {
+    return component.scoped();
+  }
+
+  @Benchmark
+  public Set<String> set() {
+    return component.set();
+  }
+
+  @Benchmark
+  public Map<String, Integer> map() {
+    return component.map();
+  }
+
+  @Benchmark
+  public Object subcomponentBinding() {
+    return component.subcomponentBinding();
+  }
+
+  @Benchmark
+  public Object assisted() {
+    return component.assisted(42);
+  }
+}
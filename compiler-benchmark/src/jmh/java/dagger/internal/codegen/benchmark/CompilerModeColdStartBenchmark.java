@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cold-start benchmark of the code generated in each {@code CompilerMode}: every invocation loads
+ * the graph in a fresh class loader, constructs the component and requests the unscoped chain once.
+ * The number of graph classes loaded by the invocation is reported as an auxiliary counter.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@State(Scope.Benchmark)
+public class CompilerModeColdStartBenchmark {
+  @Param({"DEFAULT_MODE", "FAST_INIT_MODE"})
+  public CompilerMode compilerMode;
+
+  @Param({"100", "1000"})
+  public int bindings;
+
+  private CompiledGraph graph;
+
+  @Setup
+  public void setUp() {
+    graph = CompiledGraph.compile(compilerMode, bindings);
+  }
+
+  @TearDown
+  public void tearDown() {
+    graph.close();
+  }
+
+  /** A fresh class loader for each invocation. */
+  @State(Scope.Thread)
+  public static class FreshClassLoader {
+    CompiledGraph.GraphClassLoader classLoader;
+
+    @Setup(Level.Invocation)
+    public void setUp(CompilerModeColdStartBenchmark benchmark) {
+      classLoader = benchmark.graph.newClassLoader();
+    }
+  }
+
+  /** Counters reported next to the timing results. */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class ClassCounters {
+    public long loadedClasses;
+  }
+
+  @Benchmark
+  public Object constructAndFirstRequest(FreshClassLoader fresh, ClassCounters counters) {
+    Object result = fresh.classLoader.componentSupplier().get().unscoped();
+    counters.loadedClasses += fresh.classLoader.loadedClasses();
+    return result;
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import dagger.internal.codegen.ComponentProcessor;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * End-to-end benchmark of the {@code ComponentProcessor} on synthetic graphs. Allocation is
+ * reported by the {@code gc} profiler that is enabled in the build file.
+ *
+ * <p>The sources are processed with {@code -proc:only}, so the measurement does not include
+ * compiling the generated code.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ComponentProcessorBenchmark {
+  static final List<String> OPTIONS = List.of("-proc:only");
+
+  @Param({
+    "modules=10,bindingsPerModule=10,subcomponentDepth=1,multibindingFanIn=10",
+    "modules=50,bindingsPerModule=20,subcomponentDepth=3,multibindingFanIn=100",
+    "modules=200,bindingsPerModule=20,subcomponentDepth=5,multibindingFanIn=1000",
+  })
+  public String shape;
+
+  private Map<String, String> sources;
+
+  @Setup
+  public void setUp() {
+    sources = GraphSources.generate(GraphShape.parse(shape));
+  }
+
+  @Benchmark
+  public void process() {
+    ProcessorRunner.compile(sources, new ComponentProcessor(), OPTIONS);
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import static dagger.internal.codegen.base.Preconditions.checkArgument;
+
+/**
+ * The size of a synthetic component graph.
+ *
+ * <p>A shape can be parsed from a string like {@code
+ * "modules=50,bindingsPerModule=20,subcomponentDepth=3,multibindingFanIn=100"}. Missing keys keep
+ * their default values.
+ */
+final class GraphShape {
+  final int modules;
+  final int bindingsPerModule;
+  final int subcomponentDepth;
+  final int multibindingFanIn;
+
+  GraphShape(int modules, int bindingsPerModule, int subcomponentDepth, int multibindingFanIn) {
+    checkArgument(modules > 0, "modules must be positive: %s", modules);
+    checkArgument(bindingsPerModule > 0, "bindingsPerModule must be positive: %s", bindingsPerModule);
+    checkArgument(subcomponentDepth >= 0, "negative subcomponentDepth: %s", subcomponentDepth);
+    checkArgument(multibindingFanIn >= 0, "negative multibindingFanIn: %s", multibindingFanIn);
+    this.modules = modules;
+    this.bindingsPerModule = bindingsPerModule;
+    this.subcomponentDepth = subcomponentDepth;
+    this.multibindingFanIn = multibindingFanIn;
+  }
+
+  static GraphShape parse(String spec) {
+    int modules = 10;
+    int bindingsPerModule = 10;
+    int subcomponentDepth = 1;
+    int multibindingFanIn = 10;
+    for (String pair : spec.split(",")) {
+      if (pair.isBlank()) {
+        continue;
+      }
+      String[] keyValue = pair.split("=", 2);
+      checkArgument(keyValue.length == 2, "expecting key=value: %s", pair);
+      int value = Integer.parseInt(keyValue[1].trim());
+      switch (keyValue[0].trim()) {
+        case "modules":
+          modules = value;
+          break;
+        case "bindingsPerModule":
+          bindingsPerModule = value;
+          break;
+        case "subcomponentDepth":
+          subcomponentDepth = value;
+          break;
+        case "multibindingFanIn":
+          multibindingFanIn = value;
+          break;
+        default:
+          throw new IllegalArgumentException("unknown key: " + keyValue[0]);
+      }
+    }
+    return new GraphShape(modules, bindingsPerModule, subcomponentDepth, multibindingFanIn);
+  }
+
+  @Override
+  public String toString() {
+    return "modules=" + modules
+        + ",bindingsPerModule=" + bindingsPerModule
+        + ",subcomponentDepth=" + subcomponentDepth
+        + ",multibindingFanIn=" + multibindingFanIn;
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Synthesizes the sources of a root component for a {@code GraphShape}.
+ *
+ * <p>Each module contributes a chain of bindings where each binding depends on the previous one.
+ * Even bindings use {@code @Inject} constructors and odd bindings use {@code @Provides} methods, so
+ * both the inject and module processing steps see work. Every fourth binding is scoped. The
+ * multibinding contributions are spread over all modules, and the subcomponents form a chain where
+ * each level depends on a binding of its parent.
+ */
+final class GraphSources {
+  static final String PACKAGE = "bench";
+  static final String ROOT_COMPONENT = PACKAGE + ".RootComponent";
+
+  private final GraphShape shape;
+  private final Map<String, String> sources = new LinkedHashMap<>();
+
+  private GraphSources(GraphShape shape) {
+    this.shape = shape;
+  }
+
+  /** Returns the generated sources, keyed by qualified class name. */
+  static Map<String, String> generate(GraphShape shape) {
+    GraphSources graphSources = new GraphSources(shape);
+    for (int m = 0; m < shape.modules; m++) {
+      graphSources.addModule(m);
+    }
+    for (int d = 0; d < shape.subcomponentDepth; d++) {
+      graphSources.addSubcomponent(d);
+    }
+    graphSources.addRootComponent();
+    return graphSources.sources;
+  }
+
+  private static String bindingName(int module, int binding) {
+    return "Binding_" + module + "_" + binding;
+  }
+
+  private void addModule(int m) {
+    StringBuilder module = new StringBuilder();
+    module.append("@Module\n");
+    module.append("interface Module_").append(m).append(" {\n");
+    for (int b = 0; b < shape.bindingsPerModule; b++) {
+      String name = bindingName(m, b);
+      String dependency = b == 0 ? null : bindingName(m, b - 1);
+      boolean scoped = b % 4 == 3;
+      StringBuilder binding = new StringBuilder();
+      if (b % 2 == 0) {
+        binding.append(scoped ? "@Singleton\n" : "");
+        binding.append("final class ").append(name).append(" {\n");
+        binding.append("  @Inject ").append(name).append("(")
+            .append(dependency == null ? "" : dependency + " dep").append(") {}\n");
+      } else {
+        binding.append("final class ").append(name).append(" {\n");
+        binding.append("  ").append(name).append("(")
+            .append(dependency == null ? "" : dependency + " dep").append(") {}\n");
+        module.append("  @Provides").append(scoped ? " @Singleton" : "")
+            .append(" static ").append(name).append(" provide").append(name).append("(")
+            .append(dependency == null ? "" : dependency + " dep").append(") {\n")
+            .append("    return new ").append(name).append("(")
+            .append(dependency == null ? "" : "dep").append(");\n")
+            .append("  }\n");
+      }
+      binding.append("}\n");
+      add(name, binding);
+    }
+    for (int k = m; k < shape.multibindingFanIn; k += shape.modules) {
+      module.append("  @Provides @IntoSet static String contribution").append(k).append("() {\n")
+          .append("    return \"").append(k).append("\";\n")
+          .append("  }\n");
+      module.append("  @Provides @IntoMap @StringKey(\"").append(k).append("\")")
+          .append(" static Integer mapContribution").append(k).append("() {\n")
+          .append("    return ").append(k).append(";\n")
+          .append("  }\n");
+    }
+    module.append("}\n");
+    add("Module_" + m, module);
+  }
+
+  private void addSubcomponent(int d) {
+    String parentDependency =
+        d == 0 ? bindingName(0, shape.bindingsPerModule - 1) : "SubBinding_" + (d - 1);
+    add("SubBinding_" + d, new StringBuilder()
+        .append("final class SubBinding_").append(d).append(" {\n")
+        .append("  @Inject SubBinding_").append(d).append("(")
+        .append(parentDependency).append(" dep) {}\n")
+        .append("}\n"));
+    StringBuilder subcomponent = new StringBuilder()
+        .append("@Subcomponent\n")
+        .append("interface Sub_").append(d).append(" {\n")
+        .append("  SubBinding_").append(d).append(" subBinding();\n");
+    if (d + 1 < shape.subcomponentDepth) {
+      subcomponent.append("  Sub_").append(d + 1).append(" sub();\n");
+    }
+    subcomponent.append("}\n");
+    add("Sub_" + d, subcomponent);
+  }
+
+  private void addRootComponent() {
+    StringBuilder component = new StringBuilder();
+    component.append("@Singleton\n");
+    component.append("@Component(modules = {");
+    for (int m = 0; m < shape.modules; m++) {
+      component.append(m == 0 ? "" : ", ").append("Module_").append(m).append(".class");
+    }
+    component.append("})\n");
+    component.append("interface RootComponent {\n");
+    for (int m = 0; m < shape.modules; m++) {
+      String binding = bindingName(m, shape.bindingsPerModule - 1);
+      component.append("  ").append(binding).append(" binding").append(m).append("();\n");
+    }
+    if (shape.multibindingFanIn > 0) {
+      component.append("  Set<String> contributions();\n");
+      component.append("  Map<String, Integer> mapContributions();\n");
+    }
+    if (shape.subcomponentDepth > 0) {
+      component.append("  Sub_0 sub();\n");
+    }
+    component.append("}\n");
+    add("RootComponent", component);
+  }
+
+  private void add(String simpleName, CharSequence body) {
+    sources.put(
+        PACKAGE + "." + simpleName,
+        "package " + PACKAGE + ";\n"
+            + "\n"
+            + "import dagger.Component;\n"
+            + "import dagger.Module;\n"
+            + "import dagger.Provides;\n"
+            + "import dagger.Subcomponent;\n"
+            + "import dagger.multibindings.IntoMap;\n"
+            + "import dagger.multibindings.IntoSet;\n"
+            + "import dagger.multibindings.StringKey;\n"
+            + "import jakarta.inject.Inject;\n"
+            + "import jakarta.inject.Singleton;\n"
+            + "import java.util.Map;\n"
+            + "import java.util.Set;\n"
+            + "\n"
+            + body);
+  }
+}
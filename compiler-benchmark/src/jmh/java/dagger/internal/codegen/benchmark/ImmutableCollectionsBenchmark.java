@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import dagger.internal.codegen.collect.ImmutableSet;
+import dagger.internal.codegen.collect.ImmutableSetMultimap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for the processor's own {@code ImmutableSet} and {@code ImmutableSetMultimap}, next to
+ * the {@code LinkedHashSet}-based structures they used to wrap. Allocation is reported by the
+ * {@code gc} profiler that is enabled in the build file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ImmutableCollectionsBenchmark {
+  @Param({"3", "10", "100", "1000"})
+  public int size;
+
+  private String[] elements;
+  private ImmutableSet<String> immutableSet;
+  private Set<String> linkedHashSet;
+
+  @Setup
+  public void setUp() {
+    elements = new String[size];
+    for (int i = 0; i < size; i++) {
+      elements[i] = "element" + i;
+    }
+    immutableSet = ImmutableSet.copyOf(elements);
+    linkedHashSet = new LinkedHashSet<>(Arrays.asList(elements));
+  }
+
+  @Benchmark
+  public ImmutableSet<String> buildImmutableSet() {
+    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    for (String element : elements) {
+      builder.add(element);
+    }
+    return builder.build();
+  }
+
+  @Benchmark
+  public Set<String> buildLinkedHashSet() {
+    Set<String> set = new LinkedHashSet<>();
+    for (String element : elements) {
+      set.add(element);
+    }
+    return set;
+  }
+
+  @Benchmark
+  public ImmutableSet<String> smallImmutableSetOf() {
+    return ImmutableSet.of(elements[0], elements[1], elements[2]);
+  }
+
+  @Benchmark
+  public Set<String> smallLinkedHashSetOf() {
+    return new LinkedHashSet<>(Arrays.asList(elements[0], elements[1], elements[2]));
+  }
+
+  @Benchmark
+  public int containsImmutableSet() {
+    int found = 0;
+    for (String element : elements) {
+      if (immutableSet.contains(element)) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  @Benchmark
+  public int containsLinkedHashSet() {
+    int found = 0;
+    for (String element : elements) {
+      if (linkedHashSet.contains(element)) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  @Benchmark
+  public int hashCodeImmutableSet() {
+    return immutableSet.hashCode();
+  }
+
+  @Benchmark
+  public int hashCodeLinkedHashSet() {
+    return linkedHashSet.hashCode();
+  }
+
+  /** Three values for each of {@code size / 3} keys. */
+  @Benchmark
+  public ImmutableSetMultimap<String, String> buildImmutableSetMultimap() {
+    ImmutableSetMultimap.Builder<String, String> builder = ImmutableSetMultimap.builder();
+    for (int i = 0; i < elements.length; i++) {
+      builder.put(elements[i / 3], elements[i]);
+    }
+    return builder.build();
+  }
+
+  /** Three values for each of {@code size / 3} keys. */
+  @Benchmark
+  public Map<String, Set<String>> buildLinkedHashSetMultimap() {
+    Map<String, Set<String>> map = new LinkedHashMap<>();
+    for (int i = 0; i < elements.length; i++) {
+      map.computeIfAbsent(elements[i / 3], key -> new LinkedHashSet<>()).add(elements[i]);
+    }
+    return map;
+  }
+}
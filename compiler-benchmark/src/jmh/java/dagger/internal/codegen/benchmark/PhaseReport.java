@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Processes a synthetic graph several times and prints the average wall time and allocation of
+ * each processing step.
+ *
+ * <p>Usage: {@code PhaseReport [shape] [warmupRuns] [measuredRuns]}, where {@code shape} is parsed
+ * by {@code GraphShape#parse}.
+ */
+public final class PhaseReport {
+  private PhaseReport() {}
+
+  public static void main(String[] args) {
+    GraphShape shape = GraphShape.parse(args.length > 0 ? args[0] : "");
+    int warmupRuns = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    int measuredRuns = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+    Map<String, String> sources = GraphSources.generate(shape);
+
+    for (int i = 0; i < warmupRuns; i++) {
+      run(sources, new PhaseTimings());
+    }
+    PhaseTimings timings = new PhaseTimings();
+    for (int i = 0; i < measuredRuns; i++) {
+      run(sources, timings);
+    }
+    print(shape, sources.size(), measuredRuns, timings);
+  }
+
+  static void run(Map<String, String> sources, PhaseTimings timings) {
+    timings.time(
+        "total",
+        () ->
+            ProcessorRunner.compile(
+                sources,
+                new StepTimingProcessor(timings),
+                ComponentProcessorBenchmark.OPTIONS));
+  }
+
+  private static void print(
+      GraphShape shape, int sourceFiles, int measuredRuns, PhaseTimings timings) {
+    System.out.printf("%s (%d source files), average of %d runs%n", shape, sourceFiles, measuredRuns);
+    System.out.printf("%-40s %12s %12s %12s%n", "phase", "calls/run", "ms/run", "MB/run");
+    Map<String, PhaseTimings.Phase> phases = new LinkedHashMap<>(timings.phases());
+    // print the total last
+    PhaseTimings.Phase total = phases.remove("total");
+    phases.put("total", total);
+    phases.forEach(
+        (name, phase) ->
+            System.out.printf(
+                "%-40s %12.1f %12.1f %12.1f%n",
+                name,
+                (double) phase.invocations / measuredRuns,
+                phase.nanos / 1e6 / measuredRuns,
+                phase.allocatedBytes / (1024.0 * 1024.0) / measuredRuns));
+  }
+}
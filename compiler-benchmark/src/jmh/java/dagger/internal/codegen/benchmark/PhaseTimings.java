@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/** Accumulates wall time and allocated bytes of the current thread per named phase. */
+final class PhaseTimings {
+  private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  /** Wall time and allocation of one phase, summed over all of its invocations. */
+  static final class Phase {
+    long invocations;
+    long nanos;
+    long allocatedBytes;
+  }
+
+  private final Map<String, Phase> phases = new LinkedHashMap<>();
+
+  <T> T time(String phaseName, Supplier<T> action) {
+    long startBytes = allocatedBytes();
+    long startNanos = System.nanoTime();
+    try {
+      return action.get();
+    } finally {
+      long nanos = System.nanoTime() - startNanos;
+      long bytes = allocatedBytes() - startBytes;
+      Phase phase = phases.computeIfAbsent(phaseName, name -> new Phase());
+      phase.invocations++;
+      phase.nanos += nanos;
+      phase.allocatedBytes += bytes;
+    }
+  }
+
+  void time(String phaseName, Runnable action) {
+    time(
+        phaseName,
+        () -> {
+          action.run();
+          return null;
+        });
+  }
+
+  Map<String, Phase> phases() {
+    return phases;
+  }
+
+  private static long allocatedBytes() {
+    return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
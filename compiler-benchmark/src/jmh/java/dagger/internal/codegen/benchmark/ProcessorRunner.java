@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+/** Runs javac with a given annotation processor over in-memory sources. */
+final class ProcessorRunner {
+  private static final JavaCompiler COMPILER = ToolProvider.getSystemJavaCompiler();
+
+  private ProcessorRunner() {}
+
+  /**
+   * Compiles {@code sources} with {@code processor} into a fresh temporary directory, which is
+   * deleted afterwards.
+   *
+   * @throws IllegalStateException if the compilation reports an error
+   */
+  static void compile(Map<String, String> sources, Processor processor, List<String> options) {
+    Path outputDirectory = createTempDirectory();
+    try {
+      compile(sources, processor, options, outputDirectory);
+    } finally {
+      deleteRecursively(outputDirectory);
+    }
+  }
+
+  /**
+   * Compiles {@code sources} with {@code processor}, writing generated sources and class files to
+   * {@code outputDirectory}.
+   *
+   * @throws IllegalStateException if the compilation reports an error
+   */
+  static void compile(
+      Map<String, String> sources,
+      Processor processor,
+      List<String> options,
+      Path outputDirectory) {
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager fileManager =
+        COMPILER.getStandardFileManager(diagnostics, null, null)) {
+      fileManager.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(outputDirectory));
+      fileManager.setLocationFromPaths(StandardLocation.SOURCE_OUTPUT, List.of(outputDirectory));
+      List<String> javacOptions = new ArrayList<>(options);
+      javacOptions.add("-classpath");
+      javacOptions.add(System.getProperty("java.class.path"));
+      List<JavaFileObject> compilationUnits = new ArrayList<>();
+      sources.forEach((name, source) -> compilationUnits.add(new SourceFile(name, source)));
+      JavaCompiler.CompilationTask task =
+          COMPILER.getTask(null, fileManager, diagnostics, javacOptions, null, compilationUnits);
+      task.setProcessors(List.of(processor));
+      boolean success = task.call();
+      if (!success) {
+        StringBuilder message = new StringBuilder("Compilation failed:");
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+          if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+            message.append('\n').append(diagnostic);
+          }
+        }
+        throw new IllegalStateException(message.toString());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static Path createTempDirectory() {
+    try {
+      return Files.createTempDirectory("dapper-benchmark");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static void deleteRecursively(Path directory) {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static final class SourceFile extends SimpleJavaFileObject {
+    private final String source;
+
+    SourceFile(String qualifiedName, String source) {
+      super(
+          URI.create("string:///" + qualifiedName.replace('.', '/') + Kind.SOURCE.extension),
+          Kind.SOURCE);
+      this.source = source;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return source;
+    }
+  }
+}
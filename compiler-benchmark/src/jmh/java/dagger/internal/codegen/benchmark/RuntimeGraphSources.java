@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import static dagger.internal.codegen.base.Preconditions.checkArgument;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Synthesizes the sources of a root component whose generated code is benchmarked at runtime.
+ *
+ * <p>The component has a scoped and an unscoped chain of {@code bindings} bindings each, where
+ * every other binding is provided by a {@code @Provides} method instead of an {@code @Inject}
+ * constructor. It also has set and map multibindings with one contribution per ten bindings (half
+ * of them scoped), a subcomponent and an assisted factory. The component interface extends {@code
+ * BenchmarkComponent}, and the public class {@code RootComponentSupplier} creates new component
+ * instances.
+ */
+final class RuntimeGraphSources {
+  static final String PACKAGE = "bench";
+  static final String SUPPLIER = PACKAGE + ".RootComponentSupplier";
+
+  private final int bindings;
+  private final Map<String, String> sources = new LinkedHashMap<>();
+
+  private RuntimeGraphSources(int bindings) {
+    checkArgument(bindings > 0, "bindings must be positive: %s", bindings);
+    this.bindings = bindings;
+  }
+
+  /** Returns the generated sources, keyed by qualified class name. */
+  static Map<String, String> generate(int bindings) {
+    RuntimeGraphSources graphSources = new RuntimeGraphSources(bindings);
+    StringBuilder module = new StringBuilder();
+    for (int i = 0; i < bindings; i++) {
+      graphSources.addChainBinding("Scoped", i, module);
+      graphSources.addChainBinding("Unscoped", i, module);
+    }
+    graphSources.addMultibindings(module);
+    graphSources.add(
+        "RootModule",
+        "@Module\n"
+            + "interface RootModule {\n"
+            + module
+            + "}\n");
+    graphSources.addSubcomponentAndAssistedFactory();
+    graphSources.addRootComponent();
+    return graphSources.sources;
+  }
+
+  private void addChainBinding(String chain, int i, StringBuilder module) {
+    boolean scoped = chain.equals("Scoped");
+    String name = chain + "_" + i;
+    // Unscoped bindings also depend on the scoped binding at the same position.
+    String parameters =
+        (i == 0 ? "" : chain + "_" + (i - 1) + " previous")
+            + (scoped ? "" : (i == 0 ? "" : ", ") + "Scoped_" + i + " scoped");
+    String arguments =
+        (i == 0 ? "" : "previous") + (scoped ? "" : (i == 0 ? "" : ", ") + "scoped");
+    if (i % 2 == 0) {
+      add(
+          name,
+          (scoped ? "@Singleton\n" : "")
+              + "final class " + name + " {\n"
+              + "  @Inject " + name + "(" + parameters + ") {}\n"
+              + "}\n");
+    } else {
+      add(
+          name,
+          "final class " + name + " {\n"
+              + "  " + name + "(" + parameters + ") {}\n"
+              + "}\n");
+      module
+          .append("  @Provides").append(scoped ? " @Singleton" : "")
+          .append(" static ").append(name).append(" provide").append(name)
+          .append("(").append(parameters).append(") {\n")
+          .append("    return new ").append(name).append("(").append(arguments).append(");\n")
+          .append("  }\n");
+    }
+  }
+
+  private void addMultibindings(StringBuilder module) {
+    int contributions = Math.max(1, bindings / 10);
+    for (int k = 0; k < contributions; k++) {
+      String scope = k % 2 == 0 ? " @Singleton" : "";
+      module
+          .append("  @Provides @IntoSet").append(scope)
+          .append(" static String contribution").append(k).append("() {\n")
+          .append("    return \"").append(k).append("\";\n")
+          .append("  }\n");
+      module
+          .append("  @Provides @IntoMap @StringKey(\"").append(k).append("\")").append(scope)
+          .append(" static Integer mapContribution").append(k).append("() {\n")
+          .append("    return ").append(k).append(";\n")
+          .append("  }\n");
+    }
+  }
+
+  private void addSubcomponentAndAssistedFactory() {
+    String last = String.valueOf(bindings - 1);
+    add(
+        "ChildBinding",
+        "final class ChildBinding {\n"
+            + "  @Inject ChildBinding(Unscoped_" + last + " unscoped, Scoped_" + last + " scoped) {}\n"
+            + "}\n");
+    add(
+        "Child",
+        "@Subcomponent\n"
+            + "interface Child {\n"
+            + "  ChildBinding childBinding();\n"
+            + "}\n");
+    add(
+        "AssistedBinding",
+        "final class AssistedBinding {\n"
+            + "  @AssistedInject AssistedBinding(@Assisted int id, Scoped_" + last + " scoped) {}\n"
+            + "}\n");
+    add(
+        "AssistedBindingFactory",
+        "@AssistedFactory\n"
+            + "interface AssistedBindingFactory {\n"
+            + "  AssistedBinding create(int id);\n"
+            + "}\n");
+  }
+
+  private void addRootComponent() {
+    String last = String.valueOf(bindings - 1);
+    add(
+        "RootComponent",
+        "@Singleton\n"
+            + "@Component(modules = RootModule.class)\n"
+            + "interface RootComponent extends BenchmarkComponent {\n"
+            + "  @Override Unscoped_" + last + " unscoped();\n"
+            + "  @Override Scoped_" + last + " scoped();\n"
+            + "  @Override Set<String> set();\n"
+            + "  @Override Map<String, Integer> map();\n"
+            + "  Child child();\n"
+            + "  AssistedBindingFactory assistedBindingFactory();\n"
+            + "\n"
+            + "  @Override\n"
+            + "  default Object subcomponentBinding() {\n"
+            + "    return child().childBinding();\n"
+            + "  }\n"
+            + "\n"
+            + "  @Override\n"
+            + "  default Object assisted(int id) {\n"
+            + "    return assistedBindingFactory().create(id);\n"
+            + "  }\n"
+            + "}\n");
+    add(
+        "RootComponentSupplier",
+        "public final class RootComponentSupplier implements Supplier<BenchmarkComponent> {\n"
+            + "  @Override\n"
+            + "  public BenchmarkComponent get() {\n"
+            + "    return DaggerRootComponent.create();\n"
+            + "  }\n"
+            + "}\n");
+  }
+
+  private void add(String simpleName, String body) {
+    sources.put(
+        PACKAGE + "." + simpleName,
+        "package " + PACKAGE + ";\n"
+            + "\n"
+            + "import dagger.Component;\n"
+            + "import dagger.Module;\n"
+            + "import dagger.Provides;\n"
+            + "import dagger.Subcomponent;\n"
+            + "import dagger.assisted.Assisted;\n"
+            + "import dagger.assisted.AssistedFactory;\n"
+            + "import dagger.assisted.AssistedInject;\n"
+            + "import dagger.internal.codegen.benchmark.BenchmarkComponent;\n"
+            + "import dagger.multibindings.IntoMap;\n"
+            + "import dagger.multibindings.IntoSet;\n"
+            + "import dagger.multibindings.StringKey;\n"
+            + "import jakarta.inject.Inject;\n"
+            + "import jakarta.inject.Singleton;\n"
+            + "import java.util.Map;\n"
+            + "import java.util.Set;\n"
+            + "import java.util.function.Supplier;\n"
+            + "\n"
+            + body);
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import dagger.internal.codegen.ComponentProcessor;
+import dagger.internal.codegen.collect.ImmutableList;
+import dagger.internal.codegen.xprocessing.JavacBasicAnnotationProcessor;
+import dagger.internal.codegen.xprocessing.XElement;
+import dagger.internal.codegen.xprocessing.XProcessingEnv;
+import dagger.internal.codegen.xprocessing.XProcessingEnvConfig;
+import dagger.internal.codegen.xprocessing.XProcessingStep;
+import dagger.internal.codegen.xprocessing.XRoundEnv;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.SourceVersion;
+
+/**
+ * A processor that runs the steps of a {@code ComponentProcessor} and records the wall time and
+ * allocation of each step, keyed by the simple name of the step's class.
+ */
+final class StepTimingProcessor extends JavacBasicAnnotationProcessor {
+  // Same as the config of ComponentProcessor
+  private static final XProcessingEnvConfig PROCESSING_ENV_CONFIG =
+      new XProcessingEnvConfig.Builder().disableAnnotatedElementValidation(true).build();
+
+  private final ComponentProcessor delegate = new ComponentProcessor();
+  private final PhaseTimings timings;
+
+  StepTimingProcessor(PhaseTimings timings) {
+    super(options -> PROCESSING_ENV_CONFIG);
+    this.timings = timings;
+  }
+
+  @Override
+  public void initialize(XProcessingEnv env) {
+    timings.time("initialize", () -> delegate.initialize(env));
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return delegate.getSupportedSourceVersion();
+  }
+
+  @Override
+  public Set<String> getSupportedOptions() {
+    return delegate.getSupportedOptions();
+  }
+
+  @Override
+  public Iterable<XProcessingStep> processingSteps() {
+    ImmutableList.Builder<XProcessingStep> steps = ImmutableList.builder();
+    for (XProcessingStep step : delegate.processingSteps()) {
+      steps.add(new TimedStep(step));
+    }
+    return steps.build();
+  }
+
+  @Override
+  public void preRound(XProcessingEnv env, XRoundEnv roundEnv) {
+    timings.time("preRound", () -> delegate.preRound(env, roundEnv));
+  }
+
+  @Override
+  public void postRound(XProcessingEnv env, XRoundEnv roundEnv) {
+    timings.time("postRound", () -> delegate.postRound(env, roundEnv));
+  }
+
+  private final class TimedStep implements XProcessingStep {
+    private final XProcessingStep step;
+    private final String name;
+
+    TimedStep(XProcessingStep step) {
+      this.step = step;
+      this.name = step.getClass().getSimpleName();
+    }
+
+    @Override
+    public Set<XElement> process(
+        XProcessingEnv env, Map<String, ? extends Set<? extends XElement>> elementsByAnnotation) {
+      return timings.time(name, () -> step.process(env, elementsByAnnotation));
+    }
+
+    @Override
+    public void processOver(
+        XProcessingEnv env, Map<String, ? extends Set<? extends XElement>> elementsByAnnotation) {
+      timings.time(name, () -> step.processOver(env, elementsByAnnotation));
+    }
+
+    @Override
+    public Set<String> annotations() {
+      return step.annotations();
+    }
+  }
+}
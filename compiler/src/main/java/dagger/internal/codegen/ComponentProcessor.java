@@ -88,6 +88,11 @@ public final class ComponentProcessor extends JavacBasicAnnotationProcessor {
     return delegate.processingSteps();
   }
 
+  @Override
+  public void preRound(XProcessingEnv env, XRoundEnv roundEnv) {
+    delegate.preRound(env, roundEnv);
+  }
+
   @Override
   public void postRound(XProcessingEnv env, XRoundEnv roundEnv) {
     delegate.postRound(env, roundEnv);
@@ -16,10 +16,12 @@
 
 package dagger.internal.codegen;
 
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
 
 import dagger.BindsInstance;
 import dagger.Component;
 import dagger.internal.codegen.base.ClearableCache;
+import dagger.internal.codegen.base.ProcessorInstrumentation;
 import dagger.internal.codegen.base.SourceFileGenerationException;
 import dagger.internal.codegen.base.SourceFileGenerator;
 import dagger.internal.codegen.binding.InjectBindingRegistry;
@@ -28,9 +30,11 @@ import dagger.internal.codegen.binding.ProvisionBinding;
 import dagger.internal.codegen.bindinggraphvalidation.BindingGraphValidationModule;
 import dagger.internal.codegen.collect.ImmutableList;
 import dagger.internal.codegen.collect.ImmutableSet;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.componentgenerator.ComponentGeneratorModule;
 import dagger.internal.codegen.errorprone.CheckReturnValue;
 import dagger.internal.codegen.processingstep.ProcessingStepsModule;
+import dagger.internal.codegen.processingstep.RoundTypes;
 import dagger.internal.codegen.validation.BindingMethodValidatorsModule;
 import dagger.internal.codegen.validation.ExternalBindingGraphPlugins;
 import dagger.internal.codegen.validation.InjectBindingRegistryModule;
@@ -42,6 +46,7 @@ import dagger.internal.codegen.xprocessing.XRoundEnv;
 import dagger.spi.model.BindingGraphPlugin;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import java.util.Optional;
 import java.util.Set;
 
 /** An implementation of Dagger's component processor that is shared between Javac and KSP. */
@@ -56,6 +61,10 @@ final class DelegateComponentProcessor {
   @Inject ValidationBindingGraphPlugins validationBindingGraphPlugins;
   @Inject ExternalBindingGraphPlugins externalBindingGraphPlugins;
   @Inject Set<ClearableCache> clearableCaches;
+  @Inject ProcessorInstrumentation instrumentation;
+  @Inject CompilerOptions compilerOptions;
+  @Inject ParallelRenderingFiler parallelRenderingFiler;
+  @Inject RoundTypes roundTypes;
 
   // TODO(bcorso): Add support for external plugins with dagger.spi.model.BindingGraphPlugin
   public void initialize(
@@ -69,24 +78,48 @@ final class DelegateComponentProcessor {
     validationBindingGraphPlugins.initializePlugins();
     externalBindingGraphPlugins.initializePlugins();
 
-    return processingSteps;
+    if (!compilerOptions.parallelSourceRendering()) {
+      return processingSteps;
+    }
+    return processingSteps.stream()
+        .map(parallelRenderingFiler::flushingOnFailure)
+        .collect(toImmutableList());
+  }
+
+  public void preRound(XProcessingEnv env, XRoundEnv roundEnv) {
+    roundTypes.startRound(roundEnv);
   }
 
   public void postRound(XProcessingEnv env, XRoundEnv roundEnv) {
     if (!roundEnv.isProcessingOver()) {
       try {
-        injectBindingRegistry.generateSourcesForRequiredBindings(
-            factoryGenerator, membersInjectorGenerator);
-      } catch (SourceFileGenerationException e) {
-        e.printMessageTo(env.getMessager());
+        instrumentation.time(
+            Optional.empty(),
+            "InjectBindingRegistry.generateSourcesForRequiredBindings",
+            () -> generateSourcesForRequiredBindings(env));
+      } finally {
+        parallelRenderingFiler.flush();
       }
     } else {
+      parallelRenderingFiler.close();
       validationBindingGraphPlugins.endPlugins();
       externalBindingGraphPlugins.endPlugins();
+      env.typeElementStoreCounters()
+          .forEach((counter, count) -> instrumentation.count("XTypeElementStore." + counter, count));
+      instrumentation.writeReport();
     }
     clearableCaches.forEach(ClearableCache::clearCache);
   }
 
+  private void generateSourcesForRequiredBindings(XProcessingEnv env) {
+    try {
+      injectBindingRegistry.generateSourcesForRequiredBindings(
+          factoryGenerator, membersInjectorGenerator);
+    } catch (SourceFileGenerationException e) {
+      e.printMessageTo(env.getMessager());
+    }
+  }
+
   @Singleton
   @Component(
       modules = {
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+import dagger.internal.codegen.xprocessing.XElement;
+import dagger.internal.codegen.xprocessing.XFiler;
+import dagger.internal.codegen.xprocessing.XProcessingEnv;
+import dagger.internal.codegen.xprocessing.XProcessingStep;
+import io.jbock.javapoet.AnnotationSpec;
+import io.jbock.javapoet.CodeBlock;
+import io.jbock.javapoet.JavaFile;
+import io.jbock.javapoet.TypeName;
+import io.jbock.javapoet.TypeSpec;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.Element;
+import javax.tools.JavaFileObject;
+
+/**
+ * An {@code XFiler} that renders Java files to text on a fork-join pool.
+ *
+ * <p>A source file is created as soon as it's written, so that a generator still sees errors such
+ * as a duplicate file, but its text is only written to it when the filer is {@linkplain #flush()
+ * flushed} on the processing thread. The filer is flushed at the end of each round and whenever a
+ * processing step throws, so that no source file is left empty.
+ *
+ * <p>Rendering must not call back into javac. JavaPoet converts the arguments of {@code $T}, {@code
+ * $N} and {@code $S} when a code block is built, but it keeps {@code $L} arguments as they are and
+ * formats them when the file is rendered. So a file is only rendered on the pool if all of its
+ * {@code $L} arguments are strings, primitives, or JavaPoet specs and type names. Any other file,
+ * say one with a key or an element as an {@code $L} argument, is rendered on the processing thread
+ * when the filer is flushed. So is every file if the arguments of code blocks can't be read.
+ */
+@Singleton
+final class ParallelRenderingFiler implements XFiler {
+  private static final Field CODE_BLOCK_ARGS = codeBlockArgs();
+
+  private final XProcessingEnv processingEnv;
+  private final List<PendingFile> pendingFiles = new ArrayList<>();
+  private ForkJoinPool renderingPool;
+
+  @Inject
+  ParallelRenderingFiler(XProcessingEnv processingEnv) {
+    this.processingEnv = processingEnv;
+  }
+
+  @Override
+  public void write(JavaFile javaFile) {
+    String fileName =
+        javaFile.packageName.isEmpty()
+            ? javaFile.typeSpec.name
+            : javaFile.packageName + "." + javaFile.typeSpec.name;
+    Element[] originatingElements = javaFile.typeSpec.originatingElements.toArray(new Element[0]);
+    JavaFileObject sourceFile;
+    try {
+      sourceFile = toJavac().createSourceFile(fileName, originatingElements);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    Supplier<String> text;
+    if (rendersWithoutJavac(javaFile)) {
+      if (renderingPool == null) {
+        renderingPool = new ForkJoinPool();
+      }
+      text = renderingPool.submit(javaFile::toString)::join;
+    } else {
+      text = javaFile::toString;
+    }
+    pendingFiles.add(new PendingFile(fileName, sourceFile, originatingElements, text));
+  }
+
+  /** Returns true if {@code javaFile} can be rendered without calling javac. */
+  static boolean rendersWithoutJavac(JavaFile javaFile) {
+    return CODE_BLOCK_ARGS != null
+        && rendersWithoutJavac(javaFile.fileComment)
+        && rendersWithoutJavac(javaFile.typeSpec);
+  }
+
+  private static boolean rendersWithoutJavac(TypeSpec type) {
+    return rendersWithoutJavac(type.javadoc)
+        && type.annotations.stream().allMatch(ParallelRenderingFiler::rendersWithoutJavac)
+        && rendersWithoutJavac(type.anonymousTypeArguments)
+        && type.enumConstants.values().stream()
+            .allMatch(ParallelRenderingFiler::rendersWithoutJavac)
+        && type.fieldSpecs.stream()
+            .allMatch(
+                field ->
+                    rendersWithoutJavac(field.javadoc)
+                        && field.annotations.stream()
+                            .allMatch(ParallelRenderingFiler::rendersWithoutJavac)
+                        && rendersWithoutJavac(field.initializer))
+        && rendersWithoutJavac(type.staticBlock)
+        && rendersWithoutJavac(type.initializerBlock)
+        && type.methodSpecs.stream()
+            .allMatch(
+                method ->
+                    rendersWithoutJavac(method.javadoc)
+                        && method.annotations.stream()
+                            .allMatch(ParallelRenderingFiler::rendersWithoutJavac)
+                        && method.parameters.stream()
+                            .allMatch(
+                                parameter ->
+                                    parameter.annotations.stream()
+                                        .allMatch(ParallelRenderingFiler::rendersWithoutJavac))
+                        && rendersWithoutJavac(method.defaultValue)
+                        && rendersWithoutJavac(method.code))
+        && type.typeSpecs.stream().allMatch(ParallelRenderingFiler::rendersWithoutJavac);
+  }
+
+  private static boolean rendersWithoutJavac(AnnotationSpec annotation) {
+    return annotation.members.values().stream()
+        .flatMap(List::stream)
+        .allMatch(ParallelRenderingFiler::rendersWithoutJavac);
+  }
+
+  private static boolean rendersWithoutJavac(CodeBlock codeBlock) {
+    if (codeBlock == null) {
+      return true;
+    }
+    List<?> args;
+    try {
+      args = (List<?>) CODE_BLOCK_ARGS.get(codeBlock);
+    } catch (IllegalAccessException e) {
+      return false;
+    }
+    for (Object arg : args) {
+      if (arg instanceof CodeBlock) {
+        if (!rendersWithoutJavac((CodeBlock) arg)) {
+          return false;
+        }
+      } else if (arg instanceof TypeSpec) {
+        if (!rendersWithoutJavac((TypeSpec) arg)) {
+          return false;
+        }
+      } else if (arg instanceof AnnotationSpec) {
+        if (!rendersWithoutJavac((AnnotationSpec) arg)) {
+          return false;
+        }
+      } else if (!(arg == null
+          || arg instanceof String
+          || arg instanceof Integer
+          || arg instanceof Long
+          || arg instanceof Short
+          || arg instanceof Byte
+          || arg instanceof Character
+          || arg instanceof Boolean
+          || arg instanceof Float
+          || arg instanceof Double
+          || (arg instanceof TypeName && !((TypeName) arg).isAnnotated()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the field with the arguments of a {@code CodeBlock}, or null if it can't be read. */
+  private static Field codeBlockArgs() {
+    try {
+      Field args = CodeBlock.class.getDeclaredField("args");
+      args.setAccessible(true);
+      return List.class.isAssignableFrom(args.getType()) ? args : null;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public Filer toJavac() {
+    return processingEnv.toJavac().getFiler();
+  }
+
+  /**
+   * Writes the text of the files that were written since the last flush, in the order in which
+   * they were written, waiting for it to be rendered if necessary.
+   */
+  void flush() {
+    Messager messager = processingEnv.toJavac().getMessager();
+    for (PendingFile pendingFile : pendingFiles) {
+      pendingFile.writeText(messager);
+    }
+    pendingFiles.clear();
+  }
+
+  /** Returns a step that runs {@code step}, and flushes the filer if {@code step} throws. */
+  XProcessingStep flushingOnFailure(XProcessingStep step) {
+    return new XProcessingStep() {
+      @Override
+      public Set<XElement> process(
+          XProcessingEnv env, Map<String, ? extends Set<? extends XElement>> elementsByAnnotation) {
+        try {
+          return step.process(env, elementsByAnnotation);
+        } catch (RuntimeException | Error e) {
+          flush();
+          throw e;
+        }
+      }
+
+      @Override
+      public void processOver(
+          XProcessingEnv env, Map<String, ? extends Set<? extends XElement>> elementsByAnnotation) {
+        try {
+          step.processOver(env, elementsByAnnotation);
+        } catch (RuntimeException | Error e) {
+          flush();
+          throw e;
+        }
+      }
+
+      @Override
+      public Set<String> annotations() {
+        return step.annotations();
+      }
+    };
+  }
+
+  /** Flushes the filer and shuts its pool down. */
+  void close() {
+    flush();
+    if (renderingPool != null) {
+      renderingPool.shutdown();
+      renderingPool = null;
+    }
+  }
+
+  private static final class PendingFile {
+    private final String fileName;
+    private final JavaFileObject sourceFile;
+    private final Element[] originatingElements;
+    private final Supplier<String> text;
+
+    PendingFile(
+        String fileName,
+        JavaFileObject sourceFile,
+        Element[] originatingElements,
+        Supplier<String> text) {
+      this.fileName = fileName;
+      this.sourceFile = sourceFile;
+      this.originatingElements = originatingElements;
+      this.text = text;
+    }
+
+    void writeText(Messager messager) {
+      try (Writer writer = sourceFile.openWriter()) {
+        writer.write(text.get());
+      } catch (IOException | RuntimeException e) {
+        sourceFile.delete();
+        String message = String.format("Could not generate %s: %s.", fileName, e.getMessage());
+        if (originatingElements.length > 0) {
+          messager.printMessage(ERROR, message, originatingElements[0]);
+        } else {
+          messager.printMessage(ERROR, message);
+        }
+      }
+    }
+  }
+}
@@ -20,12 +20,14 @@ import dagger.Binds;
 import dagger.Module;
 import dagger.Provides;
 import dagger.Reusable;
+import dagger.internal.codegen.base.DiagnosticRecorder;
 import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions;
 import dagger.internal.codegen.compileroption.ProcessingOptions;
 import dagger.internal.codegen.xprocessing.XFiler;
 import dagger.internal.codegen.xprocessing.XMessager;
 import dagger.internal.codegen.xprocessing.XProcessingEnv;
+import jakarta.inject.Provider;
 import java.util.Map;
 
 /** Bindings that depend on the {@code XProcessingEnv}. */
@@ -43,12 +45,27 @@ interface ProcessingEnvironmentModule {
   }
 
   @Provides
-  static XMessager messager(XProcessingEnv xProcessingEnv) {
-    return xProcessingEnv.getMessager();
+  static XMessager messager(
+      XProcessingEnv xProcessingEnv,
+      @ProcessingOptions Map<String, String> processingOptions,
+      DiagnosticRecorder diagnosticRecorder) {
+    // The compiler options report invalid options with this messager, so they can't be injected.
+    // Diagnostics are only recorded for the binding graph cache.
+    boolean cachesBindingGraphs =
+        ProcessingEnvironmentCompilerOptions.bindingGraphCacheDirectory(processingOptions)
+            .isPresent();
+    return cachesBindingGraphs
+        ? diagnosticRecorder.recordingMessager(xProcessingEnv.getMessager())
+        : xProcessingEnv.getMessager();
   }
 
   @Provides
-  static XFiler filer(CompilerOptions compilerOptions, XProcessingEnv xProcessingEnv) {
-    return xProcessingEnv.getFiler();
+  static XFiler filer(
+      CompilerOptions compilerOptions,
+      XProcessingEnv xProcessingEnv,
+      Provider<ParallelRenderingFiler> parallelRenderingFiler) {
+    return compilerOptions.parallelSourceRendering()
+        ? parallelRenderingFiler.get()
+        : xProcessingEnv.getFiler();
   }
 }
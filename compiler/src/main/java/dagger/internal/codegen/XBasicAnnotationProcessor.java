@@ -35,6 +35,9 @@ public interface XBasicAnnotationProcessor {
     return List.of();
   }
 
+  /** Called at the start of a processing round before any [processingSteps] are executed. */
+  default void preRound(XProcessingEnv env, XRoundEnv round) {}
+
   /** Called at the end of a processing round after all [processingSteps] have been executed. */
   default void postRound(XProcessingEnv env, XRoundEnv round) {}
 }
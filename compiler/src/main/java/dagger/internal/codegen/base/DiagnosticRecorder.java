@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.base;
+
+import static dagger.internal.codegen.base.Preconditions.checkState;
+
+import dagger.internal.codegen.collect.ImmutableList;
+import dagger.internal.codegen.xprocessing.XAnnotation;
+import dagger.internal.codegen.xprocessing.XAnnotationValue;
+import dagger.internal.codegen.xprocessing.XElement;
+import dagger.internal.codegen.xprocessing.XMessager;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.processing.Messager;
+import javax.tools.Diagnostic;
+
+/**
+ * Records the diagnostics that are printed with an {@code XMessager} while a root component is
+ * processed, so that they can be printed again if its sources are restored from the {@code
+ * BindingGraphCache} in a later compilation.
+ *
+ * <p>Only diagnostics without an element or on the component itself can be printed again, since
+ * other elements and annotations can't be found by name in a later compilation. A recording that
+ * contains any other diagnostic, or an error, is not {@linkplain Recording#isReplayable()
+ * replayable}.
+ */
+@Singleton
+public final class DiagnosticRecorder {
+  private Recording recording;
+
+  @Inject
+  DiagnosticRecorder() {}
+
+  /** Returns a messager that prints to {@code messager} and records what it prints. */
+  public XMessager recordingMessager(XMessager messager) {
+    return new RecordingMessager(messager);
+  }
+
+  /** Starts recording the diagnostics of the root component {@code component}. */
+  public Recording start(XElement component) {
+    checkState(recording == null, "Already recording the diagnostics of %s", component);
+    recording = new Recording(component);
+    return recording;
+  }
+
+  /** Stops the recording that was started last. */
+  public void stop() {
+    recording = null;
+  }
+
+  private void record(
+      Diagnostic.Kind kind, String message, XElement element, boolean hasAnnotation) {
+    if (recording != null) {
+      recording.record(kind, message, element, hasAnnotation);
+    }
+  }
+
+  /** The diagnostics that were printed while a root component was processed. */
+  public static final class Recording {
+    private final XElement component;
+    private final List<RecordedDiagnostic> diagnostics = new ArrayList<>();
+    private boolean replayable = true;
+
+    private Recording(XElement component) {
+      this.component = component;
+    }
+
+    private void record(
+        Diagnostic.Kind kind, String message, XElement element, boolean hasAnnotation) {
+      if (kind == Diagnostic.Kind.ERROR
+          || hasAnnotation
+          || (element != null && !element.equals(component))) {
+        replayable = false;
+      }
+      diagnostics.add(new RecordedDiagnostic(kind, message, element != null));
+    }
+
+    /**
+     * Returns {@code true} if the diagnostics can be printed again by {@code
+     * RecordedDiagnostic#printTo(XMessager, XElement)}.
+     */
+    public boolean isReplayable() {
+      return replayable;
+    }
+
+    /** Returns the recorded diagnostics in the order they were printed. */
+    public ImmutableList<RecordedDiagnostic> diagnostics() {
+      return ImmutableList.copyOf(diagnostics);
+    }
+  }
+
+  /** A diagnostic without an element, or on the component that it was recorded for. */
+  public static final class RecordedDiagnostic {
+    private final Diagnostic.Kind kind;
+    private final String message;
+    private final boolean onComponent;
+
+    public RecordedDiagnostic(Diagnostic.Kind kind, String message, boolean onComponent) {
+      this.kind = kind;
+      this.message = message;
+      this.onComponent = onComponent;
+    }
+
+    public Diagnostic.Kind kind() {
+      return kind;
+    }
+
+    public String message() {
+      return message;
+    }
+
+    /** Returns {@code true} if the diagnostic was printed on the component. */
+    public boolean onComponent() {
+      return onComponent;
+    }
+
+    /** Prints this diagnostic to {@code messager}, on {@code component} if it was on one. */
+    public void printTo(XMessager messager, XElement component) {
+      if (onComponent) {
+        messager.printMessage(kind, message, component);
+      } else {
+        messager.printMessage(kind, message);
+      }
+    }
+  }
+
+  private final class RecordingMessager implements XMessager {
+    private final XMessager delegate;
+
+    RecordingMessager(XMessager delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void printMessage(Diagnostic.Kind kind, String msg) {
+      record(kind, msg, null, false);
+      delegate.printMessage(kind, msg);
+    }
+
+    @Override
+    public void printMessage(Diagnostic.Kind kind, String msg, XElement element) {
+      record(kind, msg, element, false);
+      delegate.printMessage(kind, msg, element);
+    }
+
+    @Override
+    public void printMessage(
+        Diagnostic.Kind kind, String msg, XElement element, XAnnotation annotation) {
+      record(kind, msg, element, true);
+      delegate.printMessage(kind, msg, element, annotation);
+    }
+
+    @Override
+    public void printMessage(
+        Diagnostic.Kind kind,
+        String msg,
+        XElement element,
+        XAnnotation annotation,
+        XAnnotationValue annotationValue) {
+      record(kind, msg, element, true);
+      delegate.printMessage(kind, msg, element, annotation, annotationValue);
+    }
+
+    @Override
+    public Messager toJavac() {
+      return delegate.toJavac();
+    }
+  }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.base;
+
+import static dagger.internal.codegen.xprocessing.XElements.closestEnclosingTypeElement;
+
+import dagger.internal.codegen.cache.CacheStats;
+import dagger.internal.codegen.cache.StatsCounter;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.xprocessing.XElement;
+import dagger.internal.codegen.xprocessing.XFiler;
+import dagger.internal.codegen.xprocessing.XMessager;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Records the wall time and the allocated bytes of the processor's phases, per element, if {@code
+ * CompilerOptions#processorInstrumentation()} is enabled. Otherwise, all methods simply run the
+ * given action.
+ *
+ * <p>Allocation is measured for the current thread, so phases that are timed from within other
+ * timed phases are included in the outer measurement.
+ *
+ * <p>The report also contains the statistics of the caches that record them with a counter from
+ * {@code #cacheStatsCounter(String)}, and the values of the counters incremented with {@code
+ * #count(String, long)}.
+ */
+@Singleton
+public final class ProcessorInstrumentation {
+  /** The location of the report, relative to the class output. */
+  public static final String REPORT_NAME = "META-INF/dagger/processor-instrumentation.json";
+
+  private final CompilerOptions compilerOptions;
+  private final XFiler filer;
+  private final XMessager messager;
+  private final Map<PhaseKey, Measurement> measurements = new LinkedHashMap<>();
+  private final Map<String, StatsCounter> cacheStatsCounters = new LinkedHashMap<>();
+  private final Map<String, Long> counters = new LinkedHashMap<>();
+
+  @Inject
+  ProcessorInstrumentation(CompilerOptions compilerOptions, XFiler filer, XMessager messager) {
+    this.compilerOptions = compilerOptions;
+    this.filer = filer;
+    this.messager = messager;
+  }
+
+  /** Returns {@code true} if measurements are recorded. */
+  public boolean isEnabled() {
+    return compilerOptions.processorInstrumentation();
+  }
+
+  /**
+   * Runs {@code action} and records its measurements for {@code phase} of {@code element}.
+   *
+   * @param element the qualified name of the type that the phase is about, or empty if the phase
+   *     is not about any particular type
+   */
+  public <T> T time(Optional<String> element, String phase, Supplier<T> action) {
+    if (!isEnabled()) {
+      return action.get();
+    }
+    long startBytes = allocatedBytes();
+    long startNanos = System.nanoTime();
+    try {
+      return action.get();
+    } finally {
+      long nanos = System.nanoTime() - startNanos;
+      long bytes = startBytes < 0 ? -1 : allocatedBytes() - startBytes;
+      record(new PhaseKey(element, phase), nanos, bytes);
+    }
+  }
+
+  /** Same as {@code #time(Optional, String, Supplier)}, for phases about a single type. */
+  public <T> T time(String element, String phase, Supplier<T> action) {
+    return time(Optional.of(element), phase, action);
+  }
+
+  /**
+   * Same as {@code #time(Optional, String, Supplier)}, for phases about the closest enclosing type
+   * of {@code element}.
+   */
+  public <T> T time(XElement element, String phase, Supplier<T> action) {
+    if (!isEnabled()) {
+      return action.get();
+    }
+    return time(closestEnclosingTypeElement(element).getQualifiedName(), phase, action);
+  }
+
+  /** Same as {@code #time(Optional, String, Supplier)}, for actions without a result. */
+  public void time(String element, String phase, Runnable action) {
+    time(Optional.of(element), phase, action);
+  }
+
+  /** Same as {@code #time(XElement, String, Supplier)}, for actions without a result. */
+  public void time(XElement element, String phase, Runnable action) {
+    time(
+        element,
+        phase,
+        () -> {
+          action.run();
+          return null;
+        });
+  }
+
+  /** Same as {@code #time(Optional, String, Supplier)}, for actions without a result. */
+  public void time(Optional<String> element, String phase, Runnable action) {
+    time(
+        element,
+        phase,
+        () -> {
+          action.run();
+          return null;
+        });
+  }
+
+  /**
+   * Returns the counter that all caches named {@code cacheName} should record their statistics in.
+   */
+  public synchronized StatsCounter cacheStatsCounter(String cacheName) {
+    return cacheStatsCounters.computeIfAbsent(cacheName, name -> new StatsCounter());
+  }
+
+  /** Adds {@code delta} to the counter named {@code counter}, if measurements are recorded. */
+  public synchronized void count(String counter, long delta) {
+    if (isEnabled()) {
+      counters.merge(counter, delta, Long::sum);
+    }
+  }
+
+  private synchronized void record(PhaseKey key, long nanos, long bytes) {
+    measurements.computeIfAbsent(key, k -> new Measurement()).add(nanos, bytes);
+  }
+
+  /** Writes the report to {@code #REPORT_NAME} in the class output, if enabled. */
+  public synchronized void writeReport() {
+    if (!isEnabled()) {
+      return;
+    }
+    try {
+      FileObject report =
+          filer.toJavac().createResource(StandardLocation.CLASS_OUTPUT, "", REPORT_NAME);
+      try (Writer writer = report.openWriter()) {
+        writer.write(reportJson());
+      }
+    } catch (IOException | RuntimeException e) {
+      messager.printMessage(
+          Diagnostic.Kind.WARNING, "Could not write " + REPORT_NAME + ": " + e.getMessage());
+    }
+  }
+
+  private String reportJson() {
+    Map<String, Measurement> totals = new LinkedHashMap<>();
+    measurements.forEach(
+        (key, measurement) ->
+            totals.computeIfAbsent(key.phase, phase -> new Measurement()).add(measurement));
+    StringBuilder json = new StringBuilder();
+    json.append("{\n  \"phases\": [");
+    String separator = "\n";
+    for (Map.Entry<PhaseKey, Measurement> entry : measurements.entrySet()) {
+      json.append(separator).append("    {");
+      entry.getKey().element.ifPresent(
+          element -> json.append("\"element\": ").append(quote(element)).append(", "));
+      json.append("\"phase\": ").append(quote(entry.getKey().phase)).append(", ");
+      entry.getValue().appendTo(json);
+      json.append("}");
+      separator = ",\n";
+    }
+    json.append("\n  ],\n  \"totals\": [");
+    separator = "\n";
+    for (Map.Entry<String, Measurement> entry : totals.entrySet()) {
+      json.append(separator).append("    {");
+      json.append("\"phase\": ").append(quote(entry.getKey())).append(", ");
+      entry.getValue().appendTo(json);
+      json.append("}");
+      separator = ",\n";
+    }
+    json.append("\n  ],\n  \"caches\": [");
+    separator = "\n";
+    for (Map.Entry<String, StatsCounter> entry : cacheStatsCounters.entrySet()) {
+      CacheStats stats = entry.getValue().snapshot();
+      json.append(separator).append("    {");
+      json.append("\"cache\": ").append(quote(entry.getKey()))
+          .append(", \"hits\": ").append(stats.hitCount())
+          .append(", \"misses\": ").append(stats.missCount())
+          .append(", \"evictions\": ").append(stats.evictionCount());
+      json.append("}");
+      separator = ",\n";
+    }
+    json.append("\n  ],\n  \"counters\": [");
+    separator = "\n";
+    for (Map.Entry<String, Long> entry : counters.entrySet()) {
+      json.append(separator).append("    {");
+      json.append("\"counter\": ").append(quote(entry.getKey()))
+          .append(", \"count\": ").append(entry.getValue());
+      json.append("}");
+      separator = ",\n";
+    }
+    json.append("\n  ]\n}\n");
+    return json.toString();
+  }
+
+  private static String quote(String s) {
+    StringBuilder result = new StringBuilder("\"");
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        result.append('\\').append(c);
+      } else if (c < 0x20) {
+        result.append(String.format("\\u%04x", (int) c));
+      } else {
+        result.append(c);
+      }
+    }
+    return result.append('"').toString();
+  }
+
+  /**
+   * Returns the number of bytes allocated by the current thread so far, or {@code -1} if the JVM
+   * cannot measure it.
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+      if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  private static final class PhaseKey {
+    final Optional<String> element;
+    final String phase;
+
+    PhaseKey(Optional<String> element, String phase) {
+      this.element = element;
+      this.phase = phase;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PhaseKey)) {
+        return false;
+      }
+      PhaseKey other = (PhaseKey) o;
+      return element.equals(other.element) && phase.equals(other.phase);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(element, phase);
+    }
+  }
+
+  private static final class Measurement {
+    long invocations;
+    long nanos;
+    long allocatedBytes;
+
+    void add(long nanos, long allocatedBytes) {
+      this.invocations++;
+      this.nanos += nanos;
+      this.allocatedBytes = sumOfBytes(this.allocatedBytes, allocatedBytes);
+    }
+
+    void add(Measurement other) {
+      this.invocations += other.invocations;
+      this.nanos += other.nanos;
+      this.allocatedBytes = sumOfBytes(this.allocatedBytes, other.allocatedBytes);
+    }
+
+    // -1 means "unknown"
+    private static long sumOfBytes(long a, long b) {
+      return a < 0 || b < 0 ? -1 : a + b;
+    }
+
+    void appendTo(StringBuilder json) {
+      json.append("\"invocations\": ").append(invocations)
+          .append(", \"wallNanos\": ").append(nanos)
+          .append(", \"allocatedBytes\": ").append(allocatedBytes);
+    }
+  }
+}
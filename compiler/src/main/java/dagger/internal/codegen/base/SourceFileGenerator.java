@@ -33,6 +33,7 @@ import dagger.internal.codegen.xprocessing.XProcessingEnv;
 import io.jbock.javapoet.AnnotationSpec;
 import io.jbock.javapoet.JavaFile;
 import io.jbock.javapoet.TypeSpec;
+import java.io.IOException;
 import java.util.Optional;
 
 /**
@@ -72,14 +73,26 @@ public abstract class SourceFileGenerator<T> {
   /** Generates a source file to be compiled for {@code T}. */
   public void generate(T input) throws SourceFileGenerationException {
     for (TypeSpec.Builder type : topLevelTypes(input)) {
-      try {
-        filer.write(buildJavaFile(input, type), XFiler.Mode.Isolating);
-      } catch (Exception e) {
-        // if the code above threw a SFGE, use that
-        Throwables.propagateIfPossible(e, SourceFileGenerationException.class);
-        // otherwise, throw a new one
-        throw new SourceFileGenerationException(Optional.empty(), e, originatingElement(input));
-      }
+      write(input, type, javaFile -> filer.write(javaFile, XFiler.Mode.Isolating));
+    }
+  }
+
+  /**
+   * Writes the source file of {@code type}, a top-level type generated for {@code input}.
+   *
+   * <p>The file is rendered only once the whole type has been generated. JavaPoet can't stream a
+   * file as its members are generated, since it collects the imports from the whole type before it
+   * writes any of it.
+   */
+  protected final void write(T input, TypeSpec.Builder type, JavaFileWriter writer)
+      throws SourceFileGenerationException {
+    try {
+      writer.write(buildJavaFile(input, type));
+    } catch (Exception e) {
+      // if the code above threw a SFGE, use that
+      Throwables.propagateIfPossible(e, SourceFileGenerationException.class);
+      // otherwise, throw a new one
+      throw new SourceFileGenerationException(Optional.empty(), e, originatingElement(input));
     }
   }
 
@@ -125,4 +138,9 @@ public abstract class SourceFileGenerator<T> {
   protected ImmutableSet<Suppression> warningSuppressions() {
     return ImmutableSet.of();
   }
+
+  /** Writes a generated source file. */
+  protected interface JavaFileWriter {
+    void write(JavaFile javaFile) throws IOException;
+  }
 }
@@ -16,94 +16,185 @@
 
 package dagger.internal.codegen.base;
 
-import static dagger.internal.codegen.base.Preconditions.checkState;
 import static java.lang.Math.min;
 
 import dagger.internal.codegen.collect.ImmutableCollection;
 import dagger.internal.codegen.collect.ImmutableSet;
 import dagger.internal.codegen.collect.Maps;
-import dagger.internal.codegen.collect.Sets;
 import io.jbock.common.graph.SuccessorsFunction;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.function.IntFunction;
 
 /**
  * An implementation of Tarjan's algorithm for finding the SCC of a graph. This is based on the
  * psuedo code algorithm here:
  * http://en.wikipedia.org/wiki/Tarjan%27s_strongly_connected_components_algorithm
+ *
+ * <p>The search runs on dense node ids with {@code int[]} indexes and low links, and keeps its own
+ * stack of frames instead of recursing, so it doesn't overflow the stack on very deep graphs.
  */
 public final class TarjanSCCs {
 
   /** Returns the set of strongly connected components in reverse topological order. */
   public static <NodeT> ImmutableSet<ImmutableSet<NodeT>> compute(
       ImmutableCollection<NodeT> nodes, SuccessorsFunction<NodeT> successorsFunction) {
-    return new TarjanSCC<>(nodes, successorsFunction).compute();
+    // Number the nodes, and look up the successors of each node once, in the order the successors
+    // function returns them. Successors outside of the given nodes are numbered as they're found.
+    List<NodeT> nodeList = new ArrayList<>(nodes.size());
+    Map<NodeT, Integer> ids = Maps.newHashMapWithExpectedSize(nodes.size());
+    for (NodeT node : nodes) {
+      if (ids.putIfAbsent(node, ids.size()) == null) {
+        nodeList.add(node);
+      }
+    }
+    List<int[]> successorIds = new ArrayList<>(nodeList.size());
+    for (int id = 0; id < nodeList.size(); id++) {
+      Iterable<? extends NodeT> successors = successorsFunction.successors(nodeList.get(id));
+      int[] ofNode = new int[8];
+      int count = 0;
+      for (NodeT successor : successors) {
+        Integer successorId = ids.get(successor);
+        if (successorId == null) {
+          successorId = ids.size();
+          ids.put(successor, successorId);
+          nodeList.add(successor);
+        }
+        if (count == ofNode.length) {
+          ofNode = Arrays.copyOf(ofNode, count * 2);
+        }
+        ofNode[count++] = successorId;
+      }
+      successorIds.add(Arrays.copyOf(ofNode, count));
+    }
+
+    ImmutableSet.Builder<ImmutableSet<NodeT>> stronglyConnectedComponents = ImmutableSet.builder();
+    for (int[] component : compute(nodeList.size(), successorIds::get)) {
+      ImmutableSet.Builder<NodeT> scc = ImmutableSet.builder();
+      for (int id : component) {
+        scc.add(nodeList.get(id));
+      }
+      stronglyConnectedComponents.add(scc.build());
+    }
+    return stronglyConnectedComponents.build();
   }
 
-  private static class TarjanSCC<NodeT> {
-    private final ImmutableCollection<NodeT> nodes;
-    private final SuccessorsFunction<NodeT> successorsFunction;
-    private final Deque<NodeT> stack;
-    private final Set<NodeT> onStack;
-    private final Map<NodeT, Integer> indexes;
-    private final Map<NodeT, Integer> lowLinks;
-    private final List<ImmutableSet<NodeT>> stronglyConnectedComponents = new ArrayList<>();
-
-    TarjanSCC(ImmutableCollection<NodeT> nodes, SuccessorsFunction<NodeT> successorsFunction) {
-      this.nodes = nodes;
-      this.successorsFunction = successorsFunction;
-      this.stack = new ArrayDeque<>(nodes.size());
-      this.onStack = Sets.newHashSetWithExpectedSize(nodes.size());
-      this.indexes = Maps.newHashMapWithExpectedSize(nodes.size());
-      this.lowLinks = Maps.newHashMapWithExpectedSize(nodes.size());
+  /**
+   * Returns the strongly connected components of the graph of nodes {@code 0} to {@code nodeCount
+   * - 1} in reverse topological order, as arrays of node ids.
+   *
+   * <p>Nodes are visited in ascending order, and the successors of each node in the order of the
+   * array returned by {@code successorIds}, which is called at most once per node. Within a
+   * component, nodes are in the order they're popped off the stack, i.e. the root of the component
+   * is last.
+   */
+  public static int[][] compute(int nodeCount, IntFunction<int[]> successorIds) {
+    return new TarjanSCC(nodeCount, successorIds).compute();
+  }
+
+  private static final class TarjanSCC {
+    private final int nodeCount;
+    private final IntFunction<int[]> successorIds;
+
+    /** The order each node was visited in, or {@code -1} if it hasn't been visited yet. */
+    private final int[] indexes;
+    private final int[] lowLinks;
+    private final int[] stack;
+    private final BitSet onStack;
+    private int stackSize;
+    private int nextIndex;
+
+    /** The nodes currently being visited, each with its successors and the next one to visit. */
+    private final int[] visiting;
+    private final int[][] visitingSuccessors;
+    private final int[] nextSuccessor;
+    private int depth;
+
+    private final List<int[]> stronglyConnectedComponents = new ArrayList<>();
+
+    TarjanSCC(int nodeCount, IntFunction<int[]> successorIds) {
+      this.nodeCount = nodeCount;
+      this.successorIds = successorIds;
+      this.indexes = new int[nodeCount];
+      this.lowLinks = new int[nodeCount];
+      this.stack = new int[nodeCount];
+      this.onStack = new BitSet(nodeCount);
+      this.visiting = new int[nodeCount];
+      this.visitingSuccessors = new int[nodeCount][];
+      this.nextSuccessor = new int[nodeCount];
+      Arrays.fill(indexes, -1);
     }
 
-    private ImmutableSet<ImmutableSet<NodeT>> compute() {
-      checkState(indexes.isEmpty(), "TarjanSCC#compute() can only be called once per instance!");
-      for (NodeT node : nodes) {
-        if (!indexes.containsKey(node)) {
+    private int[][] compute() {
+      for (int node = 0; node < nodeCount; node++) {
+        if (indexes[node] < 0) {
           stronglyConnect(node);
         }
       }
-      return ImmutableSet.copyOf(stronglyConnectedComponents);
+      return stronglyConnectedComponents.toArray(new int[0][]);
     }
 
-    private void stronglyConnect(NodeT node) {
-      // Set the index and lowLink for node to the smallest unused index and add it to the stack
-      lowLinks.put(node, indexes.size());
-      indexes.put(node, indexes.size());
-      stack.push(node);
-      onStack.add(node);
-
-      for (NodeT successor : successorsFunction.successors(node)) {
-        if (!indexes.containsKey(successor)) {
-          // Successor has not been processed.
-          stronglyConnect(successor);
-          lowLinks.put(node, min(lowLinks.get(node), lowLinks.get(successor)));
-        } else if (onStack.contains(successor)) {
-          // Successor is on the stack and hence in the current SCC.
-          lowLinks.put(node, min(lowLinks.get(node), indexes.get(successor)));
-        } else {
-          // Successor is not on the stack and hence in an already processed SCC, so ignore.
+    private void stronglyConnect(int root) {
+      startVisiting(root);
+      while (depth > 0) {
+        int node = visiting[depth - 1];
+        int[] successors = visitingSuccessors[depth - 1];
+        if (nextSuccessor[depth - 1] < successors.length) {
+          int successor = successors[nextSuccessor[depth - 1]++];
+          if (indexes[successor] < 0) {
+            // Successor has not been processed.
+            startVisiting(successor);
+          } else if (onStack.get(successor)) {
+            // Successor is on the stack and hence in the current SCC.
+            lowLinks[node] = min(lowLinks[node], indexes[successor]);
+          } else {
+            // Successor is not on the stack and hence in an already processed SCC, so ignore.
+          }
+          continue;
         }
-      }
 
-      // If node is the root of the SCC, pop the stack until reaching the root to get all SCC nodes.
-      if (lowLinks.get(node).equals(indexes.get(node))) {
-        ImmutableSet.Builder<NodeT> scc = ImmutableSet.builder();
-        NodeT currNode;
-        do {
-          currNode = stack.pop();
-          onStack.remove(currNode);
-          scc.add(currNode);
-        } while (!node.equals(currNode));
-        stronglyConnectedComponents.add(scc.build());
+        // All successors have been processed.
+        depth--;
+        visitingSuccessors[depth] = null;
+        // If node is the root of the SCC, pop the stack until reaching the root to get all SCC
+        // nodes.
+        if (lowLinks[node] == indexes[node]) {
+          int rootPosition = stackSize - 1;
+          while (stack[rootPosition] != node) {
+            rootPosition--;
+          }
+          int[] scc = new int[stackSize - rootPosition];
+          for (int i = 0; i < scc.length; i++) {
+            scc[i] = stack[--stackSize];
+            onStack.clear(scc[i]);
+          }
+          stronglyConnectedComponents.add(scc);
+        }
+        if (depth > 0) {
+          int parent = visiting[depth - 1];
+          lowLinks[parent] = min(lowLinks[parent], lowLinks[node]);
+        }
       }
     }
+
+    /**
+     * Sets the index and lowLink for node to the smallest unused index, adds it to the stack, and
+     * starts visiting its successors.
+     */
+    private void startVisiting(int node) {
+      indexes[node] = nextIndex;
+      lowLinks[node] = nextIndex;
+      nextIndex++;
+      stack[stackSize++] = node;
+      onStack.set(node);
+      visiting[depth] = node;
+      visitingSuccessors[depth] = successorIds.apply(node);
+      nextSuccessor[depth] = 0;
+      depth++;
+    }
   }
 
   private TarjanSCCs() {}
@@ -31,7 +31,6 @@ import dagger.internal.codegen.collect.ImmutableListMultimap;
 import dagger.internal.codegen.collect.ImmutableMap;
 import dagger.internal.codegen.collect.ImmutableSet;
 import dagger.internal.codegen.collect.ImmutableSetMultimap;
-import dagger.internal.codegen.collect.Maps;
 import dagger.internal.codegen.collect.Multimaps;
 import dagger.internal.codegen.collect.Sets;
 import dagger.internal.codegen.xprocessing.XExecutableParameterElement;
@@ -45,9 +44,9 @@ import dagger.spi.model.DependencyRequest;
 import dagger.spi.model.Key;
 import io.jbock.auto.value.AutoValue;
 import io.jbock.auto.value.extension.memoized.Memoized;
+import io.jbock.common.graph.EndpointPair;
 import io.jbock.common.graph.ImmutableNetwork;
 import io.jbock.common.graph.Traverser;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -68,10 +67,9 @@ public abstract class BindingGraph {
    */
   @AutoValue
   public abstract static class TopLevelBindingGraph extends dagger.spi.model.BindingGraph {
-    static TopLevelBindingGraph create(
-        ImmutableNetwork<Node, Edge> network, boolean isFullBindingGraph) {
+    static TopLevelBindingGraph create(CompactNetwork network, boolean isFullBindingGraph) {
       TopLevelBindingGraph topLevelBindingGraph =
-          new AutoValue_BindingGraph_TopLevelBindingGraph(network, isFullBindingGraph);
+          new AutoValue_BindingGraph_TopLevelBindingGraph(isFullBindingGraph, network);
 
       ImmutableMap<ComponentPath, ComponentNode> componentNodes =
           topLevelBindingGraph.componentNodes().stream()
@@ -92,7 +90,7 @@ public abstract class BindingGraph {
       topLevelBindingGraph.componentNodes = componentNodes;
       topLevelBindingGraph.subcomponentNodes = subcomponentNodesBuilder.build();
       topLevelBindingGraph.frameworkTypeBindings =
-          frameworkRequestBindingSet(network, topLevelBindingGraph.bindings());
+          frameworkRequestBindingSet(topLevelBindingGraph, topLevelBindingGraph.bindings());
       return topLevelBindingGraph;
     }
 
@@ -102,6 +100,64 @@ public abstract class BindingGraph {
 
     TopLevelBindingGraph() {}
 
+    /** The nodes and edges of this graph, which all the graph queries below go through. */
+    abstract CompactNetwork compactNetwork();
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The network is built from the compact representation the first time it's requested,
+     * which is usually only by external plugins.
+     */
+    @Override
+    @Memoized
+    public ImmutableNetwork<Node, Edge> network() {
+      return compactNetwork().asNetwork();
+    }
+
+    // The graph queries below override dagger.spi.model.BindingGraph so that they don't build
+    // the network.
+
+    @Override
+    public Set<Node> nodes() {
+      return compactNetwork().nodes();
+    }
+
+    @Override
+    public Set<Edge> edges() {
+      return compactNetwork().edges();
+    }
+
+    @Override
+    public Set<Edge> outEdges(Node node) {
+      return compactNetwork().outEdges(node);
+    }
+
+    @Override
+    public Set<Edge> inEdges(Node node) {
+      return compactNetwork().inEdges(node);
+    }
+
+    @Override
+    public Set<Node> successors(Node node) {
+      return compactNetwork().successors(node);
+    }
+
+    @Override
+    public Set<Node> predecessors(Node node) {
+      return compactNetwork().predecessors(node);
+    }
+
+    @Override
+    public Set<Edge> edgesConnecting(Node source, Node target) {
+      return compactNetwork().edgesConnecting(source, target);
+    }
+
+    @Override
+    public EndpointPair<Node> incidentNodes(Edge edge) {
+      return compactNetwork().incidentNodes(edge);
+    }
+
     // This overrides dagger.spi.model.BindingGraph with a more efficient implementation.
     @Override
     public Optional<ComponentNode> componentNode(ComponentPath componentPath) {
@@ -130,27 +186,22 @@ public abstract class BindingGraph {
       return Multimaps.index(transform(bindings(), BindingNode.class::cast), Node::componentPath);
     }
 
-    /** Returns a {@code Comparator} in the same order as {@code Network#nodes()}. */
-    @Memoized
-    Comparator<Node> nodeOrder() {
-      Map<Node, Integer> nodeOrderMap = Maps.newHashMapWithExpectedSize(network().nodes().size());
-      int i = 0;
-      for (Node node : network().nodes()) {
-        nodeOrderMap.put(node, i++);
-      }
-      return (n1, n2) -> nodeOrderMap.get(n1).compareTo(nodeOrderMap.get(n2));
-    }
-
     /** Returns the set of strongly connected nodes in this graph in reverse topological order. */
     @Memoized
     public ImmutableSet<ImmutableSet<Node>> stronglyConnectedNodes() {
-      return TarjanSCCs.<Node>compute(
-          ImmutableSet.copyOf(network().nodes()),
-          // NetworkBuilder does not have a stable successor order, so we have to roll our own
-          // based on the node order, which is stable.
-          // TODO(bcorso): Fix once https://github.com/google/guava/issues/2650 is fixed.
-          node ->
-              network().successors(node).stream().sorted(nodeOrder()).collect(toImmutableList()));
+      // Node ids and successor ids are both in node order, which is stable.
+      CompactNetwork compactNetwork = compactNetwork();
+      int[][] components =
+          TarjanSCCs.compute(compactNetwork.nodeCount(), compactNetwork::successorIds);
+      ImmutableSet.Builder<ImmutableSet<Node>> stronglyConnectedNodes = ImmutableSet.builder();
+      for (int[] component : components) {
+        ImmutableSet.Builder<Node> scc = ImmutableSet.builder();
+        for (int id : component) {
+          scc.add(compactNetwork.node(id));
+        }
+        stronglyConnectedNodes.add(scc.build());
+      }
+      return stronglyConnectedNodes.build();
     }
 
     public boolean hasFrameworkRequest(Binding binding) {
@@ -158,11 +209,11 @@ public abstract class BindingGraph {
     }
 
     private static ImmutableSet<Binding> frameworkRequestBindingSet(
-        ImmutableNetwork<Node, Edge> network, ImmutableSet<dagger.spi.model.Binding> bindings) {
+        TopLevelBindingGraph graph, ImmutableSet<dagger.spi.model.Binding> bindings) {
       Set<Binding> frameworkRequestBindings = new HashSet<>();
       for (dagger.spi.model.Binding binding : bindings) {
         ImmutableList<DependencyEdge> edges =
-            network.inEdges(binding).stream()
+            graph.inEdges(binding).stream()
                 .flatMap(instancesOf(DependencyEdge.class))
                 .collect(toImmutableList());
         for (DependencyEdge edge : edges) {
@@ -349,7 +400,7 @@ public abstract class BindingGraph {
    */
   // TODO(b/73294201): Consider returning the resolved ExecutableType for the factory method.
   public final Optional<XMethodElement> factoryMethod() {
-    return topLevelBindingGraph().network().inEdges(componentNode()).stream()
+    return topLevelBindingGraph().inEdges(componentNode()).stream()
         .filter(edge -> edge instanceof ChildFactoryMethodEdge)
         .map(edge -> ((ChildFactoryMethodEdge) edge).factoryMethod().xprocessing())
         // Factory methods are represented by XMethodElement (rather than XConstructorElement)
@@ -0,0 +1,577 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.binding;
+
+import static dagger.internal.codegen.binding.AssistedInjectionAnnotations.assistedInjectedConstructors;
+import static dagger.internal.codegen.binding.InjectionAnnotations.injectedConstructors;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import dagger.internal.codegen.base.DiagnosticRecorder;
+import dagger.internal.codegen.base.DiagnosticRecorder.RecordedDiagnostic;
+import dagger.internal.codegen.base.DiagnosticRecorder.Recording;
+import dagger.internal.codegen.base.ProcessorInstrumentation;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.xprocessing.XFiler;
+import dagger.internal.codegen.xprocessing.XMessager;
+import dagger.internal.codegen.xprocessing.XProcessingEnv;
+import dagger.internal.codegen.xprocessing.XType;
+import dagger.internal.codegen.xprocessing.XTypeElement;
+import dagger.spi.model.BindingGraph.Node;
+import io.jbock.javapoet.JavaFile;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * Stores the generated sources of root components in {@code
+ * CompilerOptions#bindingGraphCacheDirectory()}, together with a fingerprint of the types that their
+ * binding graphs were resolved from, so that a later compilation can write the same sources
+ * without resolving the graph again if none of those types changed.
+ *
+ * <p>The inputs of a component are its component, subcomponent, creator, module and dependency
+ * types, the types of all keys with bindings in its graph and the types that declare those
+ * bindings, and the supertypes of all of them, including interfaces. The fingerprint covers the
+ * signatures and annotations of these types and their members, the processor options and the
+ * processor itself. The binding graph itself can't be stored, since it refers to the elements of
+ * one compilation, so a cache entry holds the names of the inputs and the generated source, and
+ * what resolving the graph did besides generating the source:
+ *
+ * <ul>
+ *   <li>The types whose {@code Inject} constructors and members the graph uses. Their factories
+ *       and members injectors are generated again if they don't exist, as for a resolved graph.
+ *   <li>The diagnostics that were printed, including those of the binding graph plugins. A
+ *       component is only stored if they can all be printed again, which excludes errors and
+ *       diagnostics on elements other than the component.
+ * </ul>
+ */
+@Singleton
+public final class BindingGraphCache {
+  /** Changed whenever the format of an entry or of the fingerprint changes. */
+  private static final int FORMAT_VERSION = 3;
+
+  private final CompilerOptions compilerOptions;
+  private final XProcessingEnv processingEnv;
+  private final XFiler filer;
+  private final XMessager messager;
+  private final DiagnosticRecorder diagnosticRecorder;
+  private final InjectBindingRegistry injectBindingRegistry;
+  private final ProcessorInstrumentation instrumentation;
+  /** The component whose processing is {@linkplain #record recorded}, if any. */
+  private XTypeElement recordedComponent;
+  /** The source that was written for the recorded component, if any. */
+  private PendingEntry pendingEntry;
+
+  @Inject
+  BindingGraphCache(
+      CompilerOptions compilerOptions,
+      XProcessingEnv processingEnv,
+      XFiler filer,
+      XMessager messager,
+      DiagnosticRecorder diagnosticRecorder,
+      InjectBindingRegistry injectBindingRegistry,
+      ProcessorInstrumentation instrumentation) {
+    this.compilerOptions = compilerOptions;
+    this.processingEnv = processingEnv;
+    this.filer = filer;
+    this.messager = messager;
+    this.diagnosticRecorder = diagnosticRecorder;
+    this.injectBindingRegistry = injectBindingRegistry;
+    this.instrumentation = instrumentation;
+  }
+
+  /** Returns {@code true} if a cache directory was configured. */
+  public boolean isEnabled() {
+    return compilerOptions.bindingGraphCacheDirectory().isPresent();
+  }
+
+  /**
+   * Writes the cached source of {@code component}, prints its diagnostics and registers its
+   * required {@code Inject} bindings if the cache has an entry for it whose fingerprint matches the
+   * current inputs, and returns {@code true} if it did.
+   */
+  public boolean restore(ComponentDescriptor component) {
+    if (!isEnabled()) {
+      return false;
+    }
+    XTypeElement componentType = component.typeElement();
+    DataInputStream in;
+    try {
+      in =
+          new DataInputStream(
+              new BufferedInputStream(Files.newInputStream(entryFile(componentType))));
+    } catch (IOException e) {
+      instrumentation.count("BindingGraphCache.misses", 1);
+      return false;
+    }
+    try (in) {
+      Optional<Entry> entry = readEntry(in);
+      if (!entry.isPresent()
+          || !fingerprint(entry.get().inputs).equals(Optional.of(entry.get().fingerprint))) {
+        instrumentation.count("BindingGraphCache.misses", 1);
+        return false;
+      }
+      registerInjectBindings(entry.get());
+      entry.get().diagnostics.forEach(diagnostic -> diagnostic.printTo(messager, componentType));
+      // The rest of the entry is the source.
+      Reader source = new InputStreamReader(in, UTF_8);
+      filer.writeSource(entry.get().fileName, out -> copy(source, out), componentType.toJavac());
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    instrumentation.count("BindingGraphCache.hits", 1);
+    return true;
+  }
+
+  /**
+   * Runs {@code processing}, which resolves the binding graph of the root component {@code
+   * component} and generates its source, and stores the source that it {@linkplain #writeAndStore
+   * writes} together with the diagnostics that it prints.
+   */
+  public void record(ComponentDescriptor component, Runnable processing) {
+    if (!isEnabled()) {
+      processing.run();
+      return;
+    }
+    recordedComponent = component.typeElement();
+    Recording recording = diagnosticRecorder.start(recordedComponent);
+    try {
+      processing.run();
+      if (pendingEntry != null && recording.isReplayable()) {
+        store(pendingEntry, recording.diagnostics());
+      }
+    } finally {
+      diagnosticRecorder.stop();
+      recordedComponent = null;
+      if (pendingEntry != null) {
+        deleteQuietly(pendingEntry.sourceFile);
+        pendingEntry = null;
+      }
+    }
+  }
+
+  /**
+   * Writes the source file of {@code javaFile}, which was generated for the root component of
+   * {@code graph}, with its rendered {@code text}. If the component is {@linkplain #record
+   * recorded}, the text is written to a temporary file first, from which it's copied to the source
+   * file and to the cache entry.
+   */
+  public void writeAndStore(BindingGraph graph, JavaFile javaFile, XFiler.SourceText text)
+      throws IOException {
+    String fileName =
+        javaFile.packageName.isEmpty()
+            ? javaFile.typeSpec.name
+            : javaFile.packageName + "." + javaFile.typeSpec.name;
+    XTypeElement componentType = graph.componentTypeElement();
+    if (!componentType.equals(recordedComponent) || pendingEntry != null) {
+      filer.writeSource(fileName, text, componentType.toJavac());
+      return;
+    }
+    Path sourceFile;
+    try {
+      sourceFile = spool(entryFile(componentType).getParent(), text);
+    } catch (IOException e) {
+      warnNotStored(fileName, e);
+      filer.writeSource(fileName, text, componentType.toJavac());
+      return;
+    }
+    Set<String> injectedTypes = new TreeSet<>();
+    Set<String> membersInjectedTypes = new TreeSet<>();
+    addInjectBindings(graph, injectedTypes, membersInjectedTypes);
+    pendingEntry =
+        new PendingEntry(inputs(graph), injectedTypes, membersInjectedTypes, fileName, sourceFile);
+    filer.writeSource(
+        fileName,
+        out -> {
+          try (Reader source = Files.newBufferedReader(sourceFile, UTF_8)) {
+            copy(source, out);
+          }
+        },
+        componentType.toJavac());
+  }
+
+  /** Writes {@code text} to a new temporary file in {@code directory}. */
+  private static Path spool(Path directory, XFiler.SourceText text) throws IOException {
+    Files.createDirectories(directory);
+    Path file = Files.createTempFile(directory, "dagger", ".java.tmp");
+    try (Writer writer = Files.newBufferedWriter(file, UTF_8)) {
+      text.appendTo(writer);
+    } catch (IOException | RuntimeException e) {
+      deleteQuietly(file);
+      throw e;
+    }
+    return file;
+  }
+
+  private void store(PendingEntry pending, List<RecordedDiagnostic> diagnostics) {
+    Optional<String> fingerprint = fingerprint(pending.inputs);
+    if (!fingerprint.isPresent()) {
+      return;
+    }
+    Path entryFile = entryFile(recordedComponent);
+    try {
+      Path tempFile = Files.createTempFile(entryFile.getParent(), "dagger", ".tmp");
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        out.writeInt(FORMAT_VERSION);
+        writeStrings(out, pending.inputs);
+        out.writeUTF(fingerprint.get());
+        writeStrings(out, pending.injectedTypes);
+        writeStrings(out, pending.membersInjectedTypes);
+        out.writeInt(diagnostics.size());
+        for (RecordedDiagnostic diagnostic : diagnostics) {
+          out.writeUTF(diagnostic.kind().name());
+          writeString(out, diagnostic.message());
+          out.writeBoolean(diagnostic.onComponent());
+        }
+        out.writeUTF(pending.fileName);
+        Files.copy(pending.sourceFile, out);
+      } catch (IOException | RuntimeException e) {
+        deleteQuietly(tempFile);
+        throw e;
+      }
+      Files.move(tempFile, entryFile, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      warnNotStored(pending.fileName, e);
+    }
+  }
+
+  private void warnNotStored(String fileName, IOException e) {
+    messager.printMessage(
+        Diagnostic.Kind.WARNING,
+        String.format("Could not store %s in the binding graph cache: %s", fileName, e));
+  }
+
+  /**
+   * Registers the {@code Inject} bindings of {@code entry}, so that their factories and members
+   * injectors are generated if they don't exist yet.
+   */
+  private void registerInjectBindings(Entry entry) {
+    for (String injectedType : entry.injectedTypes) {
+      XTypeElement type = processingEnv.requireTypeElement(injectedType);
+      injectedConstructors(type).forEach(injectBindingRegistry::tryRegisterInjectConstructor);
+      assistedInjectedConstructors(type)
+          .forEach(injectBindingRegistry::tryRegisterInjectConstructor);
+    }
+    for (String membersInjectedType : entry.membersInjectedTypes) {
+      injectBindingRegistry.tryRegisterMembersInjectedType(
+          processingEnv.requireTypeElement(membersInjectedType));
+    }
+  }
+
+  /**
+   * Adds the types whose {@code Inject} constructors and members are used by the bindings of
+   * {@code graph}.
+   */
+  private static void addInjectBindings(
+      BindingGraph graph, Set<String> injectedTypes, Set<String> membersInjectedTypes) {
+    for (Node node : graph.topLevelBindingGraph().nodes()) {
+      if (node instanceof BindingNode) {
+        Binding binding = ((BindingNode) node).delegate();
+        switch (binding.kind()) {
+          case INJECTION:
+          case ASSISTED_INJECTION:
+            injectedTypes.add(binding.bindingTypeElement().get().getQualifiedName());
+            break;
+          case MEMBERS_INJECTION:
+            membersInjectedTypes.add(binding.bindingTypeElement().get().getQualifiedName());
+            break;
+          default:
+            break;
+        }
+      }
+    }
+  }
+
+  private Path entryFile(XTypeElement component) {
+    return compilerOptions
+        .bindingGraphCacheDirectory()
+        .get()
+        .resolve(component.getQualifiedName() + ".graph");
+  }
+
+  /**
+   * Reads an entry up to its source, or returns empty if it has a different format or is
+   * truncated or corrupt. Such an entry is simply a miss, and it's replaced once the graph is
+   * resolved.
+   */
+  private static Optional<Entry> readEntry(DataInputStream in) {
+    try {
+      if (in.readInt() != FORMAT_VERSION) {
+        return Optional.empty();
+      }
+      Set<String> inputs = readStrings(in);
+      String fingerprint = in.readUTF();
+      Set<String> injectedTypes = readStrings(in);
+      Set<String> membersInjectedTypes = readStrings(in);
+      List<RecordedDiagnostic> diagnostics = new ArrayList<>();
+      for (int i = in.readInt(); i > 0; i--) {
+        diagnostics.add(
+            new RecordedDiagnostic(
+                Diagnostic.Kind.valueOf(in.readUTF()), readString(in), in.readBoolean()));
+      }
+      String fileName = in.readUTF();
+      return Optional.of(
+          new Entry(
+              inputs, fingerprint, injectedTypes, membersInjectedTypes, diagnostics, fileName));
+    } catch (IOException | IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static void writeStrings(DataOutputStream out, Set<String> strings) throws IOException {
+    out.writeInt(strings.size());
+    for (String string : strings) {
+      out.writeUTF(string);
+    }
+  }
+
+  private static Set<String> readStrings(DataInputStream in) throws IOException {
+    Set<String> strings = new TreeSet<>();
+    for (int i = in.readInt(); i > 0; i--) {
+      strings.add(in.readUTF());
+    }
+    return strings;
+  }
+
+  // DataOutput#writeUTF() is limited to 64K bytes, which is not enough for every diagnostic.
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private static void copy(Reader in, Appendable out) throws IOException {
+    char[] buffer = new char[8192];
+    for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+      out.append(CharBuffer.wrap(buffer, 0, n));
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // The file is in the cache directory, where it does no harm.
+    }
+  }
+
+  /** Returns the qualified names of the types that {@code graph} was resolved from. */
+  private static Set<String> inputs(BindingGraph graph) {
+    Set<String> inputs = new TreeSet<>();
+    for (ComponentDescriptor component : graph.componentDescriptorsByPath().values()) {
+      addInput(inputs, component.typeElement());
+      component.moduleTypes().forEach(module -> addInput(inputs, module));
+      component.dependencies().forEach(dependency -> addInput(inputs, dependency.typeElement()));
+      component.creatorDescriptor().ifPresent(creator -> addInput(inputs, creator.typeElement()));
+    }
+    for (Node node : graph.topLevelBindingGraph().nodes()) {
+      if (node instanceof BindingNode) {
+        Binding binding = ((BindingNode) node).delegate();
+        binding.bindingTypeElement().ifPresent(type -> addInput(inputs, type));
+        binding.contributingModule().ifPresent(module -> addInput(inputs, module));
+        XType keyType = binding.key().type().xprocessing();
+        if (keyType.toJavac().getKind() == TypeKind.DECLARED) {
+          addInput(inputs, keyType.getTypeElement());
+        }
+      }
+    }
+    return inputs;
+  }
+
+  /**
+   * Adds {@code type} and all of its supertypes to {@code inputs}, since a component or module
+   * inherits the methods of its super-interfaces as well as those of its superclasses.
+   */
+  private static void addInput(Set<String> inputs, XTypeElement type) {
+    Deque<TypeElement> pending = new ArrayDeque<>();
+    pending.add(type.toJavac());
+    while (!pending.isEmpty()) {
+      TypeElement input = pending.remove();
+      if (!inputs.add(input.getQualifiedName().toString())) {
+        continue;
+      }
+      if (input.getSuperclass().getKind() == TypeKind.DECLARED) {
+        pending.add((TypeElement) ((DeclaredType) input.getSuperclass()).asElement());
+      }
+      for (TypeMirror superinterface : input.getInterfaces()) {
+        pending.add((TypeElement) ((DeclaredType) superinterface).asElement());
+      }
+    }
+  }
+
+  /**
+   * Returns the fingerprint of {@code inputs} in the current compilation, or empty if one of them
+   * doesn't exist.
+   */
+  private Optional<String> fingerprint(Set<String> inputs) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+    StringBuilder header = new StringBuilder().append(FORMAT_VERSION).append('\n');
+    CodeSource processor = BindingGraphCache.class.getProtectionDomain().getCodeSource();
+    if (processor != null) {
+      header.append(processor.getLocation()).append('\n');
+      try {
+        header.append(Files.getLastModifiedTime(Path.of(processor.getLocation().toURI())));
+      } catch (Exception e) {
+        // The location is not a file. The processor can't change during a build then.
+      }
+    }
+    new TreeMap<>(processingEnv.getOptions())
+        .forEach((key, value) -> header.append('\n').append(key).append('=').append(value));
+    digest.update(header.toString().getBytes(UTF_8));
+    for (String input : inputs) {
+      TypeElement type = processingEnv.getElementUtils().getTypeElement(input);
+      if (type == null) {
+        return Optional.empty();
+      }
+      digest.update(signature(type).getBytes(UTF_8));
+    }
+    StringBuilder fingerprint = new StringBuilder();
+    for (byte b : digest.digest()) {
+      fingerprint.append(String.format("%02x", b));
+    }
+    return Optional.of(fingerprint.toString());
+  }
+
+  /** Returns the declarations of {@code type} and its members, with their annotations. */
+  private static String signature(TypeElement type) {
+    StringBuilder signature = new StringBuilder();
+    signature
+        .append('\n')
+        .append(type.getModifiers())
+        .append(' ')
+        .append(type.getKind())
+        .append(' ')
+        .append(type.asType());
+    for (TypeParameterElement typeParameter : type.getTypeParameters()) {
+      signature.append(' ').append(typeParameter).append(typeParameter.getBounds());
+    }
+    signature
+        .append(" extends ")
+        .append(type.getSuperclass())
+        .append(" implements ")
+        .append(type.getInterfaces())
+        .append(' ')
+        .append(type.getAnnotationMirrors());
+    for (Element member : type.getEnclosedElements()) {
+      signature
+          .append("\n  ")
+          .append(member.getAnnotationMirrors())
+          .append(' ')
+          .append(member.getModifiers())
+          .append(' ')
+          .append(member.getKind())
+          .append(' ')
+          .append(member.getSimpleName())
+          .append(' ')
+          .append(member.asType());
+      if (member instanceof ExecutableElement) {
+        for (VariableElement parameter : ((ExecutableElement) member).getParameters()) {
+          signature.append(' ').append(parameter.getAnnotationMirrors());
+        }
+      }
+    }
+    return signature.toString();
+  }
+
+  private static final class Entry {
+    private final Set<String> inputs;
+    private final String fingerprint;
+    private final Set<String> injectedTypes;
+    private final Set<String> membersInjectedTypes;
+    private final List<RecordedDiagnostic> diagnostics;
+    private final String fileName;
+
+    Entry(
+        Set<String> inputs,
+        String fingerprint,
+        Set<String> injectedTypes,
+        Set<String> membersInjectedTypes,
+        List<RecordedDiagnostic> diagnostics,
+        String fileName) {
+      this.inputs = inputs;
+      this.fingerprint = fingerprint;
+      this.injectedTypes = injectedTypes;
+      this.membersInjectedTypes = membersInjectedTypes;
+      this.diagnostics = diagnostics;
+      this.fileName = fileName;
+    }
+  }
+
+  /** An entry whose source was written, but whose diagnostics are not known yet. */
+  private static final class PendingEntry {
+    private final Set<String> inputs;
+    private final Set<String> injectedTypes;
+    private final Set<String> membersInjectedTypes;
+    private final String fileName;
+    private final Path sourceFile;
+
+    PendingEntry(
+        Set<String> inputs,
+        Set<String> injectedTypes,
+        Set<String> membersInjectedTypes,
+        String fileName,
+        Path sourceFile) {
+      this.inputs = inputs;
+      this.injectedTypes = injectedTypes;
+      this.membersInjectedTypes = membersInjectedTypes;
+      this.fileName = fileName;
+      this.sourceFile = sourceFile;
+    }
+  }
+}
@@ -18,7 +18,6 @@ package dagger.internal.codegen.binding;
 
 import static dagger.internal.codegen.base.Verify.verify;
 import static dagger.internal.codegen.binding.BindingRequest.bindingRequest;
-import static dagger.internal.codegen.extension.DaggerGraphs.unreachableNodes;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
 import static dagger.spi.model.BindingKind.SUBCOMPONENT_CREATOR;
 
@@ -26,7 +25,6 @@ import dagger.internal.codegen.binding.BindingGraph.TopLevelBindingGraph;
 import dagger.internal.codegen.binding.ComponentDescriptor.ComponentMethodDescriptor;
 import dagger.internal.codegen.collect.ImmutableList;
 import dagger.internal.codegen.collect.ImmutableSet;
-import dagger.internal.codegen.collect.Iterables;
 import dagger.internal.codegen.collect.Iterators;
 import dagger.internal.codegen.xprocessing.XMethodElement;
 import dagger.internal.codegen.xprocessing.XType;
@@ -43,10 +41,6 @@ import dagger.spi.model.DependencyRequest;
 import dagger.spi.model.Key;
 import io.jbock.auto.value.AutoValue;
 import io.jbock.auto.value.extension.memoized.Memoized;
-import io.jbock.common.graph.ImmutableNetwork;
-import io.jbock.common.graph.MutableNetwork;
-import io.jbock.common.graph.Network;
-import io.jbock.common.graph.NetworkBuilder;
 import jakarta.inject.Inject;
 import java.util.ArrayDeque;
 import java.util.Deque;
@@ -69,37 +63,25 @@ final class BindingGraphConverter {
    * {@code BindingGraph}.
    */
   BindingGraph convert(LegacyBindingGraph legacyBindingGraph, boolean isFullBindingGraph) {
-    MutableNetwork<Node, Edge> network = asNetwork(legacyBindingGraph);
-    ComponentNode rootNode = rootComponentNode(network);
+    Converter converter = new Converter();
+    converter.visitRootComponent(legacyBindingGraph);
+    ComponentNode rootNode = converter.rootComponentNode;
 
     // When bindings are copied down into child graphs because they transitively depend on local
     // multibindings or optional bindings, the parent-owned binding is still there. If that
     // parent-owned binding is not reachable from its component, it doesn't need to be in the graph
-    // because it will never be used. So remove all nodes that are not reachable from the root
+    // because it will never be used. So leave out all nodes that are not reachable from the root
     // component—unless we're converting a full binding graph.
-    if (!isFullBindingGraph) {
-      unreachableNodes(network.asGraph(), rootNode).forEach(network::removeNode);
-    }
+    CompactNetwork network =
+        isFullBindingGraph
+            ? converter.network.build()
+            : converter.network.buildReachableFrom(rootNode);
 
     TopLevelBindingGraph topLevelBindingGraph =
-        TopLevelBindingGraph.create(ImmutableNetwork.copyOf(network), isFullBindingGraph);
+        TopLevelBindingGraph.create(network, isFullBindingGraph);
     return BindingGraph.create(rootNode, topLevelBindingGraph);
   }
 
-  private MutableNetwork<Node, Edge> asNetwork(LegacyBindingGraph graph) {
-    Converter converter = new Converter();
-    converter.visitRootComponent(graph);
-    return converter.network;
-  }
-
-  // TODO(dpb): Example of BindingGraph logic applied to derived networks.
-  private ComponentNode rootComponentNode(Network<Node, Edge> network) {
-    return (ComponentNode)
-        Iterables.find(
-            network.nodes(),
-            node -> node instanceof ComponentNode && node.componentPath().atRoot());
-  }
-
   /**
    * Used as a cache key to make sure resolved bindings are cached per component path.
    * This is required so that binding nodes are not reused across different branches of the
@@ -124,8 +106,8 @@ final class BindingGraphConverter {
     /** The {@code ComponentPath} for each component in {@code #bindingGraphPath}. */
     private final Deque<ComponentPath> componentPaths = new ArrayDeque<>();
 
-    private final MutableNetwork<Node, Edge> network =
-        NetworkBuilder.directed().allowsParallelEdges(true).allowsSelfLoops(true).build();
+    private final CompactNetwork.Builder network = new CompactNetwork.Builder();
+    private ComponentNode rootComponentNode;
     private final Set<BindingNode> bindings = new HashSet<>();
 
     private final Map<ResolvedBindingsWithPath, ImmutableSet<BindingNode>> resolvedBindingsMap =
@@ -165,6 +147,9 @@ final class BindingGraphConverter {
           ComponentNodeImpl.create(componentPath(), graph.componentDescriptor());
 
       network.addNode(currentComponent);
+      if (parentComponent == null) {
+        rootComponentNode = currentComponent;
+      }
 
       for (ComponentMethodDescriptor entryPointMethod :
           graph.componentDescriptor().entryPointMethods()) {
@@ -304,10 +289,8 @@ final class BindingGraphConverter {
     private boolean hasDependencyEdge(
         Node source, Node dependency, DependencyRequest dependencyRequest) {
       // An iterative approach is used instead of a Stream because this method is called in a hot
-      // loop, and the Stream calculates the size of network.edgesConnecting(), which is slow. This
-      // seems to be because caculating the edges connecting two nodes in a Network that supports
-      // parallel edges is must check the equality of many nodes, and BindingNode's equality
-      // semantics drag in the equality of many other expensive objects
+      // loop. The builder only walks the out-edges of source, comparing targets by index, so
+      // BindingNode's expensive equality semantics only come into play for the node lookups.
       for (Edge edge : network.edgesConnecting(source, dependency)) {
         if (edge instanceof DependencyEdge) {
           if (((DependencyEdge) edge).dependencyRequest().equals(dependencyRequest)) {
@@ -39,6 +39,7 @@ import dagger.internal.codegen.base.DaggerSuperficialValidation;
 import dagger.internal.codegen.base.Keys;
 import dagger.internal.codegen.base.MapType;
 import dagger.internal.codegen.base.OptionalType;
+import dagger.internal.codegen.base.ProcessorInstrumentation;
 import dagger.internal.codegen.collect.HashMultimap;
 import dagger.internal.codegen.collect.ImmutableList;
 import dagger.internal.codegen.collect.ImmutableMap;
@@ -77,8 +78,9 @@ public final class BindingGraphFactory implements ClearableCache {
   private final BindingFactory bindingFactory;
   private final ModuleDescriptor.Factory moduleDescriptorFactory;
   private final BindingGraphConverter bindingGraphConverter;
-  private final Map<Key, ImmutableSet<Key>> keysMatchingRequestCache = new HashMap<>();
+  private final Map<Key, ImmutableList<MatchingKey>> keysMatchingRequestCache = new HashMap<>();
   private final CompilerOptions compilerOptions;
+  private final ProcessorInstrumentation instrumentation;
 
   @Inject
   BindingGraphFactory(
@@ -88,7 +90,8 @@ public final class BindingGraphFactory implements ClearableCache {
       BindingFactory bindingFactory,
       ModuleDescriptor.Factory moduleDescriptorFactory,
       BindingGraphConverter bindingGraphConverter,
-      CompilerOptions compilerOptions) {
+      CompilerOptions compilerOptions,
+      ProcessorInstrumentation instrumentation) {
     this.processingEnv = processingEnv;
     this.injectBindingRegistry = injectBindingRegistry;
     this.keyFactory = keyFactory;
@@ -96,6 +99,7 @@ public final class BindingGraphFactory implements ClearableCache {
     this.moduleDescriptorFactory = moduleDescriptorFactory;
     this.bindingGraphConverter = bindingGraphConverter;
     this.compilerOptions = compilerOptions;
+    this.instrumentation = instrumentation;
   }
 
   /**
@@ -106,9 +110,14 @@ public final class BindingGraphFactory implements ClearableCache {
    */
   public BindingGraph create(
       ComponentDescriptor componentDescriptor, boolean createFullBindingGraph) {
-    return bindingGraphConverter.convert(
-        createLegacyBindingGraph(Optional.empty(), componentDescriptor, createFullBindingGraph),
-        createFullBindingGraph);
+    return instrumentation.time(
+        componentDescriptor.typeElement(),
+        createFullBindingGraph ? "BindingGraphFactory.create(full)" : "BindingGraphFactory.create",
+        () ->
+            bindingGraphConverter.convert(
+                createLegacyBindingGraph(
+                    Optional.empty(), componentDescriptor, createFullBindingGraph),
+                createFullBindingGraph));
   }
 
   private LegacyBindingGraph createLegacyBindingGraph(
@@ -308,6 +317,13 @@ public final class BindingGraphFactory implements ClearableCache {
     final ImmutableSetMultimap<Key, DelegateDeclaration> delegateDeclarations;
     final ImmutableSetMultimap<Key, OptionalBindingDeclaration> optionalBindingDeclarations;
     final ImmutableSetMultimap<Key, DelegateDeclaration> delegateMultibindingDeclarations;
+    /**
+     * The keys of the multibinding contributions and declarations, subcomponent declarations and
+     * optional binding declarations in this and all ancestor resolvers.
+     */
+    final ImmutableSet<Key> lineageDeclarationKeys;
+    /** The optional binding declarations in this and all ancestor resolvers, from parent to child. */
+    final ImmutableSetMultimap<Key, OptionalBindingDeclaration> lineageOptionalBindingDeclarations;
     final Map<Key, ResolvedBindings> resolvedContributionBindings = new LinkedHashMap<>();
     final Map<Key, ResolvedBindings> resolvedMembersInjectionBindings = new LinkedHashMap<>();
     final Deque<Key> cycleStack = new ArrayDeque<>();
@@ -334,6 +350,23 @@ public final class BindingGraphFactory implements ClearableCache {
       this.explicitMultibindings = multibindingContributionsByMultibindingKey(explicitBindingsSet);
       this.delegateMultibindingDeclarations =
           multibindingContributionsByMultibindingKey(delegateDeclarations.values());
+      ImmutableSet.Builder<Key> declarationKeys = ImmutableSet.builder();
+      ImmutableSetMultimap.Builder<Key, OptionalBindingDeclaration> lineageOptionals =
+          ImmutableSetMultimap.builder();
+      parentResolver.ifPresent(
+          parent -> {
+            declarationKeys.addAll(parent.lineageDeclarationKeys);
+            parent.lineageOptionalBindingDeclarations.asMap().forEach(lineageOptionals::putAll);
+          });
+      declarationKeys
+          .addAll(explicitMultibindings.keySet())
+          .addAll(delegateMultibindingDeclarations.keySet())
+          .addAll(multibindingDeclarations.keySet())
+          .addAll(subcomponentDeclarations.keySet())
+          .addAll(optionalBindingDeclarations.keySet());
+      optionalBindingDeclarations.asMap().forEach(lineageOptionals::putAll);
+      this.lineageDeclarationKeys = declarationKeys.build();
+      this.lineageOptionalBindingDeclarations = lineageOptionals.build();
       subcomponentsToResolve.addAll(
           componentDescriptor.childComponentsDeclaredByFactoryMethods().values());
       subcomponentsToResolve.addAll(
@@ -363,16 +396,23 @@ public final class BindingGraphFactory implements ClearableCache {
       Set<SubcomponentDeclaration> subcomponentDeclarations = new LinkedHashSet<>();
 
       // Gather all bindings, multibindings, optional, and subcomponent declarations/contributions.
-      ImmutableSet<Key> keysMatchingRequest = keysMatchingRequest(requestKey);
+      // Most requests have no matching key with declarations anywhere in the lineage, so those
+      // keys aren't looked up in each resolver.
+      ImmutableList.Builder<MatchingKey> declaredKeysBuilder = ImmutableList.builder();
+      for (MatchingKey key : keysMatchingRequest(requestKey)) {
+        if (hasDeclarationsInLineage(key)) {
+          declaredKeysBuilder.add(key);
+        }
+      }
+      ImmutableList<MatchingKey> declaredKeys = declaredKeysBuilder.build();
       for (Resolver resolver : getResolverLineage()) {
         bindings.addAll(resolver.getLocalExplicitBindings(requestKey));
 
-        for (Key key : keysMatchingRequest) {
+        for (MatchingKey key : declaredKeys) {
           multibindingContributions.addAll(resolver.getLocalExplicitMultibindings(key));
-          multibindingDeclarations.addAll(resolver.multibindingDeclarations.get(key));
-          subcomponentDeclarations.addAll(resolver.subcomponentDeclarations.get(key));
-          // The optional binding declarations are keyed by the unwrapped type.
-          keyFactory.unwrapOptional(key)
+          multibindingDeclarations.addAll(resolver.multibindingDeclarations.get(key.key));
+          subcomponentDeclarations.addAll(resolver.subcomponentDeclarations.get(key.key));
+          key.optionalBindingKey
               .map(resolver.optionalBindingDeclarations::get)
               .ifPresent(optionalBindingDeclarations::addAll);
         }
@@ -499,12 +539,12 @@ public final class BindingGraphFactory implements ClearableCache {
      *       javac users)
      * </ul>
      */
-    private ImmutableSet<Key> keysMatchingRequest(Key requestKey) {
+    private ImmutableList<MatchingKey> keysMatchingRequest(Key requestKey) {
       return keysMatchingRequestCache.computeIfAbsent(
           requestKey, this::keysMatchingRequestUncached);
     }
 
-    private ImmutableSet<Key> keysMatchingRequestUncached(Key requestKey) {
+    private ImmutableList<MatchingKey> keysMatchingRequestUncached(Key requestKey) {
       ImmutableSet.Builder<Key> keys = ImmutableSet.builder();
       keys.add(requestKey);
       keyFactory.unwrapSetKey(requestKey, TypeNames.PRODUCED).ifPresent(keys::add);
@@ -515,7 +555,35 @@ public final class BindingGraphFactory implements ClearableCache {
           .rewrapMapKey(requestKey, TypeNames.PROVIDER, TypeNames.PRODUCER)
           .ifPresent(keys::add);
       keys.addAll(keyFactory.implicitFrameworkMapKeys(requestKey));
-      return keys.build();
+      ImmutableList.Builder<MatchingKey> matchingKeys = ImmutableList.builder();
+      for (Key key : keys.build()) {
+        matchingKeys.add(
+            new MatchingKey(
+                key,
+                // @Binds @IntoMap declarations have key Map<K, V>, unlike @Provides @IntoMap or
+                // @Produces @IntoMap, which have Map<K, Provider/Producer<V>> keys. So unwrap the
+                // key's type's value type if it's a Map<K, Provider/Producer<V>> before looking in
+                // delegateMultibindingDeclarations. createDelegateBindings() will create bindings
+                // with the properly wrapped key type.
+                !MapType.isMap(key)
+                        || MapType.from(key).isRawType()
+                        || MapType.from(key).valuesAreFrameworkType()
+                    ? Optional.of(keyFactory.unwrapMapValueType(key))
+                    : Optional.empty(),
+                // The optional binding declarations are keyed by the unwrapped type.
+                keyFactory.unwrapOptional(key)));
+      }
+      return matchingKeys.build();
+    }
+
+    /**
+     * Returns {@code true} if this or an ancestor resolver may have declarations or contributions
+     * for {@code key}.
+     */
+    private boolean hasDeclarationsInLineage(MatchingKey key) {
+      return lineageDeclarationKeys.contains(key.key)
+          || key.delegateMultibindingKey.filter(lineageDeclarationKeys::contains).isPresent()
+          || key.optionalBindingKey.filter(lineageDeclarationKeys::contains).isPresent();
     }
 
     private ImmutableSet<ContributionBinding> createDelegateBindings(
@@ -713,21 +781,13 @@ public final class BindingGraphFactory implements ClearableCache {
      * Returns the explicit multibinding contributions that contribute to the map or set requested
      * by {@code key} from this resolver.
      */
-    private ImmutableSet<ContributionBinding> getLocalExplicitMultibindings(Key key) {
+    private ImmutableSet<ContributionBinding> getLocalExplicitMultibindings(MatchingKey key) {
       ImmutableSet.Builder<ContributionBinding> multibindings = ImmutableSet.builder();
-      multibindings.addAll(explicitMultibindings.get(key));
-      if (!MapType.isMap(key)
-          || MapType.from(key).isRawType()
-          || MapType.from(key).valuesAreFrameworkType()) {
-        // @Binds @IntoMap declarations have key Map<K, V>, unlike @Provides @IntoMap or @Produces
-        // @IntoMap, which have Map<K, Provider/Producer<V>> keys. So unwrap the key's type's
-        // value type if it's a Map<K, Provider/Producer<V>> before looking in
-        // delegateMultibindingDeclarations. createDelegateBindings() will create bindings with the
-        // properly wrapped key type.
-        multibindings.addAll(
-            createDelegateBindings(
-                delegateMultibindingDeclarations.get(keyFactory.unwrapMapValueType(key))));
-      }
+      multibindings.addAll(explicitMultibindings.get(key.key));
+      key.delegateMultibindingKey.ifPresent(
+          delegateKey ->
+              multibindings.addAll(
+                  createDelegateBindings(delegateMultibindingDeclarations.get(delegateKey))));
       return multibindings.build();
     }
 
@@ -740,11 +800,7 @@ public final class BindingGraphFactory implements ClearableCache {
       if (!unwrapped.isPresent()) {
         return ImmutableSet.of();
       }
-      ImmutableSet.Builder<OptionalBindingDeclaration> declarations = ImmutableSet.builder();
-      for (Resolver resolver : getResolverLineage()) {
-        declarations.addAll(resolver.optionalBindingDeclarations.get(unwrapped.get()));
-      }
-      return declarations.build();
+      return lineageOptionalBindingDeclarations.get(unwrapped.get());
     }
 
     /**
@@ -928,6 +984,7 @@ public final class BindingGraphFactory implements ClearableCache {
       private boolean hasLocalMultibindingContributions(Key requestKey) {
         return keysMatchingRequest(requestKey)
             .stream()
+            .filter(Resolver.this::hasDeclarationsInLineage)
             .anyMatch(key -> !getLocalExplicitMultibindings(key).isEmpty());
       }
 
@@ -953,6 +1010,24 @@ public final class BindingGraphFactory implements ClearableCache {
     }
   }
 
+  /**
+   * A key that matches a request key, with the keys under which the declarations for it are
+   * indexed when they differ from the key itself.
+   */
+  private static final class MatchingKey {
+    final Key key;
+    /** The key of the {@code @Binds} multibinding contributions to {@code key}, if any can exist. */
+    final Optional<Key> delegateMultibindingKey;
+    /** The key of the {@code @BindsOptionalOf} declarations for {@code key}, if it's optional. */
+    final Optional<Key> optionalBindingKey;
+
+    MatchingKey(Key key, Optional<Key> delegateMultibindingKey, Optional<Key> optionalBindingKey) {
+      this.key = key;
+      this.delegateMultibindingKey = delegateMultibindingKey;
+      this.optionalBindingKey = optionalBindingKey;
+    }
+  }
+
   /**
    * A multimap of those {@code declarations} that are multibinding contribution declarations,
    * indexed by the key of the set or map to which they contribute.
@@ -0,0 +1,507 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.binding;
+
+import static dagger.internal.codegen.base.Preconditions.checkArgument;
+
+import dagger.internal.codegen.collect.ImmutableSet;
+import dagger.spi.model.BindingGraph.Edge;
+import dagger.spi.model.BindingGraph.Node;
+import io.jbock.common.graph.EndpointPair;
+import io.jbock.common.graph.ImmutableNetwork;
+import io.jbock.common.graph.MutableNetwork;
+import io.jbock.common.graph.NetworkBuilder;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable directed network of binding graph nodes and edges, which may have parallel edges
+ * and self loops, stored in arrays.
+ *
+ * <p>Nodes and edges are numbered in insertion order. The edges of each node are stored in
+ * compressed sparse row form: the out-edges of node {@code n} are {@code
+ * outEdges[outOffsets[n]]} to {@code outEdges[outOffsets[n + 1] - 1]}, and likewise for in-edges.
+ * This needs a fraction of the memory of an {@code ImmutableNetwork}, which is only built by
+ * {@code #asNetwork()} when a plugin asks for it.
+ */
+final class CompactNetwork {
+  private final Node[] nodes;
+  private final Edge[] edges;
+  private final int[] sources;
+  private final int[] targets;
+  private final int[] outOffsets;
+  private final int[] outEdges;
+  private final int[] inOffsets;
+  private final int[] inEdges;
+  private final IndexTable nodeIndex;
+  private final IndexTable edgeIndex;
+
+  private CompactNetwork(Node[] nodes, Edge[] edges, int[] sources, int[] targets) {
+    this.nodes = nodes;
+    this.edges = edges;
+    this.sources = sources;
+    this.targets = targets;
+    this.outOffsets = new int[nodes.length + 1];
+    this.outEdges = new int[edges.length];
+    this.inOffsets = new int[nodes.length + 1];
+    this.inEdges = new int[edges.length];
+    fillAdjacency(sources, outOffsets, outEdges);
+    fillAdjacency(targets, inOffsets, inEdges);
+    this.nodeIndex = IndexTable.of(nodes);
+    this.edgeIndex = IndexTable.of(edges);
+  }
+
+  /** Buckets the edges by {@code endpoints}, keeping them in insertion order within a bucket. */
+  private static void fillAdjacency(int[] endpoints, int[] offsets, int[] adjacentEdges) {
+    for (int endpoint : endpoints) {
+      offsets[endpoint + 1]++;
+    }
+    for (int i = 1; i < offsets.length; i++) {
+      offsets[i] += offsets[i - 1];
+    }
+    int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+    for (int edge = 0; edge < endpoints.length; edge++) {
+      adjacentEdges[next[endpoints[edge]]++] = edge;
+    }
+  }
+
+  /** Returns the number of nodes. */
+  int nodeCount() {
+    return nodes.length;
+  }
+
+  /** Returns the node numbered {@code id}. */
+  Node node(int id) {
+    return nodes[id];
+  }
+
+  /** Returns the number of {@code node}, which is its position in {@code #nodes()}. */
+  int nodeId(Node node) {
+    int id = nodeIndex.get(nodes, node);
+    checkArgument(id >= 0, "Node %s is not an element of this graph.", node);
+    return id;
+  }
+
+  /** Returns all nodes, in insertion order. */
+  Set<Node> nodes() {
+    return new ArraySet<>(nodes, nodeIndex, 0, nodes.length, null);
+  }
+
+  /** Returns all edges, in insertion order. */
+  Set<Edge> edges() {
+    return new ArraySet<>(edges, edgeIndex, 0, edges.length, null);
+  }
+
+  /** Returns the edges whose source is {@code node}, in insertion order. */
+  Set<Edge> outEdges(Node node) {
+    int id = nodeId(node);
+    return new ArraySet<>(edges, null, outOffsets[id], outOffsets[id + 1], outEdges);
+  }
+
+  /** Returns the edges whose target is {@code node}, in insertion order. */
+  Set<Edge> inEdges(Node node) {
+    int id = nodeId(node);
+    return new ArraySet<>(edges, null, inOffsets[id], inOffsets[id + 1], inEdges);
+  }
+
+  /** Returns the targets of the out-edges of {@code node}. */
+  ImmutableSet<Node> successors(Node node) {
+    int id = nodeId(node);
+    Set<Node> successors = new LinkedHashSet<>();
+    for (int i = outOffsets[id]; i < outOffsets[id + 1]; i++) {
+      successors.add(nodes[targets[outEdges[i]]]);
+    }
+    return ImmutableSet.copyOf(successors);
+  }
+
+  /** Returns the sources of the in-edges of {@code node}. */
+  ImmutableSet<Node> predecessors(Node node) {
+    int id = nodeId(node);
+    Set<Node> predecessors = new LinkedHashSet<>();
+    for (int i = inOffsets[id]; i < inOffsets[id + 1]; i++) {
+      predecessors.add(nodes[sources[inEdges[i]]]);
+    }
+    return ImmutableSet.copyOf(predecessors);
+  }
+
+  /** Returns the distinct successor ids of the node numbered {@code id}, in ascending order. */
+  int[] successorIds(int id) {
+    int from = outOffsets[id];
+    int to = outOffsets[id + 1];
+    int[] successors = new int[to - from];
+    for (int i = from; i < to; i++) {
+      successors[i - from] = targets[outEdges[i]];
+    }
+    Arrays.sort(successors);
+    int distinct = 0;
+    for (int i = 0; i < successors.length; i++) {
+      if (i == 0 || successors[i] != successors[i - 1]) {
+        successors[distinct++] = successors[i];
+      }
+    }
+    return distinct == successors.length ? successors : Arrays.copyOf(successors, distinct);
+  }
+
+  /** Returns the edges from {@code source} to {@code target}, in insertion order. */
+  ImmutableSet<Edge> edgesConnecting(Node source, Node target) {
+    int sourceId = nodeId(source);
+    int targetId = nodeId(target);
+    ImmutableSet.Builder<Edge> connecting = ImmutableSet.builder();
+    for (int i = outOffsets[sourceId]; i < outOffsets[sourceId + 1]; i++) {
+      if (targets[outEdges[i]] == targetId) {
+        connecting.add(edges[outEdges[i]]);
+      }
+    }
+    return connecting.build();
+  }
+
+  /** Returns the source and target of {@code edge}. */
+  EndpointPair<Node> incidentNodes(Edge edge) {
+    int id = edgeIndex.get(edges, edge);
+    checkArgument(id >= 0, "Edge %s is not an element of this graph.", edge);
+    return incidentNodes(id);
+  }
+
+  /** Returns an {@code ImmutableNetwork} with the same nodes and edges, in the same order. */
+  ImmutableNetwork<Node, Edge> asNetwork() {
+    MutableNetwork<Node, Edge> network =
+        NetworkBuilder.directed()
+            .allowsParallelEdges(true)
+            .allowsSelfLoops(true)
+            .expectedNodeCount(nodes.length)
+            .expectedEdgeCount(edges.length)
+            .build();
+    for (Node node : nodes) {
+      network.addNode(node);
+    }
+    for (int i = 0; i < edges.length; i++) {
+      network.addEdge(nodes[sources[i]], nodes[targets[i]], edges[i]);
+    }
+    return ImmutableNetwork.copyOf(network);
+  }
+
+  /**
+   * Returns true if {@code o} is a {@code CompactNetwork} with the same nodes and the same edges
+   * between them, like {@code Network#equals(Object)}. Insertion order doesn't matter.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof CompactNetwork)) {
+      return false;
+    }
+    CompactNetwork that = (CompactNetwork) o;
+    if (nodes.length != that.nodes.length || edges.length != that.edges.length) {
+      return false;
+    }
+    for (Node node : nodes) {
+      if (that.nodeIndex.get(that.nodes, node) < 0) {
+        return false;
+      }
+    }
+    for (int edge = 0; edge < edges.length; edge++) {
+      int thatEdge = that.edgeIndex.get(that.edges, edges[edge]);
+      if (thatEdge < 0
+          || !nodes[sources[edge]].equals(that.nodes[that.sources[thatEdge]])
+          || !nodes[targets[edge]].equals(that.nodes[that.targets[thatEdge]])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the hash code of the map from each edge to its endpoints, like {@code Network}. */
+  @Override
+  public int hashCode() {
+    int hashCode = 0;
+    for (int edge = 0; edge < edges.length; edge++) {
+      hashCode += edges[edge].hashCode() ^ incidentNodes(edge).hashCode();
+    }
+    return hashCode;
+  }
+
+  private EndpointPair<Node> incidentNodes(int edge) {
+    return EndpointPair.ordered(nodes[sources[edge]], nodes[targets[edge]]);
+  }
+
+  /** Accumulates nodes and edges for a {@code CompactNetwork}. */
+  static final class Builder {
+    private Node[] nodes = new Node[16];
+    private int nodeCount;
+    private IndexTable nodeIndex = new IndexTable(16);
+    /** The most recently added out-edge of each node, or {@code -1}. */
+    private int[] lastOutEdge = new int[16];
+
+    private Edge[] edges = new Edge[16];
+    private int edgeCount;
+    private int[] sources = new int[16];
+    private int[] targets = new int[16];
+    /** The previously added out-edge of the source of each edge, or {@code -1}. */
+    private int[] previousOutEdge = new int[16];
+
+    /** Adds {@code node} if it's not in the network yet. */
+    void addNode(Node node) {
+      if (nodeIndex.get(nodes, node) < 0) {
+        if (nodeCount == nodes.length) {
+          nodes = Arrays.copyOf(nodes, nodeCount * 2);
+          lastOutEdge = Arrays.copyOf(lastOutEdge, nodeCount * 2);
+        }
+        nodes[nodeCount] = node;
+        lastOutEdge[nodeCount] = -1;
+        nodeIndex = nodeIndex.put(nodes, nodeCount, node);
+        nodeCount++;
+      }
+    }
+
+    /** Adds {@code edge} from {@code source} to {@code target}, adding the nodes if necessary. */
+    void addEdge(Node source, Node target, Edge edge) {
+      addNode(source);
+      addNode(target);
+      if (edgeCount == edges.length) {
+        edges = Arrays.copyOf(edges, edgeCount * 2);
+        sources = Arrays.copyOf(sources, edgeCount * 2);
+        targets = Arrays.copyOf(targets, edgeCount * 2);
+        previousOutEdge = Arrays.copyOf(previousOutEdge, edgeCount * 2);
+      }
+      int sourceId = nodeIndex.get(nodes, source);
+      edges[edgeCount] = edge;
+      sources[edgeCount] = sourceId;
+      targets[edgeCount] = nodeIndex.get(nodes, target);
+      previousOutEdge[edgeCount] = lastOutEdge[sourceId];
+      lastOutEdge[sourceId] = edgeCount;
+      edgeCount++;
+    }
+
+    /** Returns the edges added so far from {@code source} to {@code target}. */
+    List<Edge> edgesConnecting(Node source, Node target) {
+      int sourceId = nodeIndex.get(nodes, source);
+      int targetId = nodeIndex.get(nodes, target);
+      List<Edge> connecting = new ArrayList<>();
+      if (sourceId >= 0 && targetId >= 0) {
+        for (int edge = lastOutEdge[sourceId]; edge >= 0; edge = previousOutEdge[edge]) {
+          if (targets[edge] == targetId) {
+            connecting.add(edges[edge]);
+          }
+        }
+      }
+      return connecting;
+    }
+
+    /** Returns a network of all nodes and edges added so far. */
+    CompactNetwork build() {
+      return new CompactNetwork(
+          Arrays.copyOf(nodes, nodeCount),
+          Arrays.copyOf(edges, edgeCount),
+          Arrays.copyOf(sources, edgeCount),
+          Arrays.copyOf(targets, edgeCount));
+    }
+
+    /**
+     * Returns a network of the nodes that are reachable from {@code root}, and the edges between
+     * them.
+     */
+    CompactNetwork buildReachableFrom(Node root) {
+      int rootId = nodeIndex.get(nodes, root);
+      checkArgument(rootId >= 0, "Node %s is not an element of this graph.", root);
+      BitSet reachable = new BitSet(nodeCount);
+      int[] queue = new int[nodeCount];
+      int head = 0;
+      int tail = 0;
+      reachable.set(rootId);
+      queue[tail++] = rootId;
+      while (head < tail) {
+        for (int edge = lastOutEdge[queue[head++]]; edge >= 0; edge = previousOutEdge[edge]) {
+          if (!reachable.get(targets[edge])) {
+            reachable.set(targets[edge]);
+            queue[tail++] = targets[edge];
+          }
+        }
+      }
+
+      int[] newIds = new int[nodeCount];
+      Node[] reachableNodes = new Node[reachable.cardinality()];
+      for (int id = 0, newId = 0; id < nodeCount; id++) {
+        if (reachable.get(id)) {
+          newIds[id] = newId;
+          reachableNodes[newId++] = nodes[id];
+        }
+      }
+      // An edge is reachable exactly when its source is.
+      int reachableEdgeCount = 0;
+      for (int edge = 0; edge < edgeCount; edge++) {
+        if (reachable.get(sources[edge])) {
+          reachableEdgeCount++;
+        }
+      }
+      Edge[] reachableEdges = new Edge[reachableEdgeCount];
+      int[] reachableSources = new int[reachableEdgeCount];
+      int[] reachableTargets = new int[reachableEdgeCount];
+      for (int edge = 0, newEdge = 0; edge < edgeCount; edge++) {
+        if (reachable.get(sources[edge])) {
+          reachableEdges[newEdge] = edges[edge];
+          reachableSources[newEdge] = newIds[sources[edge]];
+          reachableTargets[newEdge] = newIds[targets[edge]];
+          newEdge++;
+        }
+      }
+      return new CompactNetwork(
+          reachableNodes, reachableEdges, reachableSources, reachableTargets);
+    }
+  }
+
+  /**
+   * An open-addressed hash table from elements to their positions in an array, which is passed to
+   * each call so that the table doesn't have to store the elements itself.
+   */
+  private static final class IndexTable {
+    /** Positions plus one, so that zero marks an empty slot. */
+    private final int[] slots;
+    private int size;
+
+    IndexTable(int expectedSize) {
+      this.slots = new int[Math.max(Integer.highestOneBit(Math.max(expectedSize, 1)) << 2, 4)];
+    }
+
+    static IndexTable of(Object[] elements) {
+      IndexTable table = new IndexTable(elements.length);
+      for (int i = 0; i < elements.length; i++) {
+        table = table.put(elements, i, elements[i]);
+      }
+      return table;
+    }
+
+    /** Returns the position of {@code element} in {@code elements}, or {@code -1}. */
+    int get(Object[] elements, Object element) {
+      int mask = slots.length - 1;
+      for (int slot = smear(element.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+        int entry = slots[slot];
+        if (entry == 0) {
+          return -1;
+        }
+        if (elements[entry - 1].equals(element)) {
+          return entry - 1;
+        }
+      }
+    }
+
+    /**
+     * Records that {@code element} is at {@code position}, and returns this table or a larger copy
+     * of it.
+     */
+    IndexTable put(Object[] elements, int position, Object element) {
+      if ((size + 1) * 2 > slots.length) {
+        IndexTable larger = new IndexTable(slots.length);
+        for (int entry : slots) {
+          if (entry != 0) {
+            larger.insert(elements[entry - 1], entry - 1);
+          }
+        }
+        return larger.put(elements, position, element);
+      }
+      insert(element, position);
+      return this;
+    }
+
+    private void insert(Object element, int position) {
+      int mask = slots.length - 1;
+      int slot = smear(element.hashCode()) & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = position + 1;
+      size++;
+    }
+
+    private static int smear(int hashCode) {
+      return 0x1b873593 * Integer.rotateLeft(hashCode * 0xcc9e2d51, 15);
+    }
+  }
+
+  /**
+   * A read-only view of a range of an array, optionally through an array of positions, whose
+   * elements are known to be distinct.
+   */
+  private static final class ArraySet<E> extends AbstractSet<E> {
+    private final E[] elements;
+    private final IndexTable index;
+    private final int from;
+    private final int to;
+    private final int[] positions;
+
+    ArraySet(E[] elements, IndexTable index, int from, int to, int[] positions) {
+      this.elements = elements;
+      this.index = index;
+      this.from = from;
+      this.to = to;
+      this.positions = positions;
+    }
+
+    private E element(int i) {
+      return elements[positions == null ? i : positions[i]];
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (o == null) {
+        return false;
+      }
+      if (index != null) {
+        return index.get(elements, o) >= 0;
+      }
+      for (int i = from; i < to; i++) {
+        if (element(i).equals(o)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+      return new Iterator<E>() {
+        private int next = from;
+
+        @Override
+        public boolean hasNext() {
+          return next < to;
+        }
+
+        @Override
+        public E next() {
+          if (next >= to) {
+            throw new NoSuchElementException();
+          }
+          return element(next++);
+        }
+      };
+    }
+  }
+}
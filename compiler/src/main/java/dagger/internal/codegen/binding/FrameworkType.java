@@ -23,6 +23,7 @@ import static dagger.internal.codegen.xprocessing.XProcessingEnvs.unwrapTypeOrOb
 import static dagger.internal.codegen.xprocessing.XProcessingEnvs.wrapType;
 
 import dagger.internal.codegen.base.RequestKinds;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.Expression;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.xprocessing.XProcessingEnv;
@@ -209,6 +210,41 @@ public enum FrameworkType {
   public abstract Expression to(
       RequestKind requestKind, Expression from, XProcessingEnv processingEnv);
 
+  /**
+   * Same as {@code #to(RequestKind, CodeBlock)}, except that {@code Lazy} instances are {@code
+   * LockFreeCheck}s if {@code CompilerOptions#lockFreeScopedProviders()} is enabled.
+   */
+  public CodeBlock to(RequestKind requestKind, CodeBlock from, CompilerOptions compilerOptions) {
+    if (this.equals(PROVIDER) && compilerOptions.lockFreeScopedProviders()) {
+      switch (requestKind) {
+        case LAZY:
+          return CodeBlock.of("$T.lazy($L)", TypeNames.LOCK_FREE_CHECK, from);
+
+        case PROVIDER_OF_LAZY:
+          return CodeBlock.of("$T.createLockFree($L)", TypeNames.PROVIDER_OF_LAZY, from);
+
+        default:
+          break;
+      }
+    }
+    return to(requestKind, from);
+  }
+
+  /**
+   * Same as {@code #to(RequestKind, Expression, XProcessingEnv)}, except that {@code Lazy}
+   * instances are {@code LockFreeCheck}s if {@code CompilerOptions#lockFreeScopedProviders()} is
+   * enabled.
+   */
+  public Expression to(
+      RequestKind requestKind,
+      Expression from,
+      XProcessingEnv processingEnv,
+      CompilerOptions compilerOptions) {
+    Expression expression = to(requestKind, from, processingEnv);
+    return Expression.create(
+        expression.type(), to(requestKind, from.codeBlock(), compilerOptions));
+  }
+
   @Override
   public String toString() {
     return UPPER_UNDERSCORE.to(UPPER_CAMEL, super.toString());
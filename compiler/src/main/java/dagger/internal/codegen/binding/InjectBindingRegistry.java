@@ -21,6 +21,7 @@ import dagger.internal.codegen.base.SourceFileGenerator;
 import dagger.internal.codegen.xprocessing.XConstructorElement;
 import dagger.internal.codegen.xprocessing.XFieldElement;
 import dagger.internal.codegen.xprocessing.XMethodElement;
+import dagger.internal.codegen.xprocessing.XTypeElement;
 import dagger.spi.model.Key;
 import java.util.Optional;
 
@@ -55,6 +56,12 @@ public interface InjectBindingRegistry {
 
   Optional<MembersInjectionBinding> tryRegisterInjectMethod(XMethodElement methodElement);
 
+  /**
+   * Registers the members injection binding of {@code typeElement}, as if it was found from one of
+   * its {@code Inject} members.
+   */
+  Optional<MembersInjectionBinding> tryRegisterMembersInjectedType(XTypeElement typeElement);
+
   /**
    * This method ensures that sources for all registered {@code Binding bindings} (either explicitly
    * or implicitly via {@code #getOrFindMembersInjectionBinding} or {@code
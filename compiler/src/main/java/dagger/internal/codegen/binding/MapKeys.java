@@ -21,17 +21,22 @@ import static dagger.internal.codegen.base.Preconditions.checkArgument;
 import static dagger.internal.codegen.binding.SourceFiles.elementBasedClassName;
 import static dagger.internal.codegen.collect.Iterables.getOnlyElement;
 import static dagger.internal.codegen.extension.DaggerCollectors.toOptional;
+import static dagger.internal.codegen.javapoet.CodeBlocks.toParametersCodeBlock;
 import static dagger.internal.codegen.xprocessing.XElements.asExecutable;
 import static dagger.internal.codegen.xprocessing.XElements.getSimpleName;
 import static dagger.internal.codegen.xprocessing.XType.isArray;
 import static dagger.internal.codegen.xprocessing.XTypes.isDeclared;
 import static dagger.internal.codegen.xprocessing.XTypes.isPrimitive;
+import static dagger.internal.codegen.xprocessing.XTypes.isTypeOf;
+import static dagger.spi.model.BindingKind.MULTIBOUND_MAP;
 import static io.jbock.javapoet.MethodSpec.methodBuilder;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
 
+import dagger.internal.PerfectHashMap;
 import dagger.internal.codegen.base.DaggerSuperficialValidation;
 import dagger.internal.codegen.base.MapKeyAccessibility;
+import dagger.internal.codegen.base.MapType;
 import dagger.internal.codegen.collect.ImmutableSet;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.xprocessing.XAnnotation;
@@ -43,14 +48,21 @@ import dagger.internal.codegen.xprocessing.XProcessingEnv;
 import dagger.internal.codegen.xprocessing.XType;
 import dagger.internal.codegen.xprocessing.XTypeElement;
 import dagger.spi.model.DaggerAnnotation;
+import dagger.spi.model.DependencyRequest;
 import io.jbock.javapoet.ClassName;
 import io.jbock.javapoet.CodeBlock;
 import io.jbock.javapoet.MethodSpec;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
 /** Methods for extracting {@code MapKey} annotations and key code blocks from binding elements. */
 public final class MapKeys {
+  /**
+   * Maps with {@code Integer} keys are indexed if the range of their keys is at most this many
+   * times larger than the number of keys. Matches the runtime's {@code IndexedMap}.
+   */
+  private static final int MAX_SLOTS_PER_INT_KEY = 4;
 
   /**
    * If {@code bindingElement} is annotated with a {@code MapKey} annotation, returns it.
@@ -170,6 +182,78 @@ public final class MapKeys {
     }
   }
 
+  /**
+   * Returns {@code true} if the multibound map {@code binding} can be indexed by its keys at
+   * runtime, because they are the constants of an enum, or {@code Integer}s in a dense range.
+   */
+  public static boolean hasIndexableMapKeys(ContributionBinding binding, BindingGraph graph) {
+    checkArgument(binding.kind().equals(MULTIBOUND_MAP), binding.kind());
+    MapType mapType = MapType.from(binding.key());
+    if (mapType.isRawType() || binding.dependencies().isEmpty()) {
+      return false;
+    }
+    XType keyType = mapType.keyType();
+    if (isDeclared(keyType) && XElements.isEnum(keyType.getTypeElement())) {
+      return true;
+    }
+    if (!isTypeOf(keyType, ClassName.get(Integer.class))) {
+      return false;
+    }
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (DependencyRequest dependency : binding.dependencies()) {
+      XAnnotation mapKey =
+          graph.contributionBinding(dependency.key()).mapKey().get().xprocessing();
+      int value = getOnlyElement(mapKey.getAnnotationValues()).asInt();
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+    return max - min + 1 <= (long) MAX_SLOTS_PER_INT_KEY * binding.dependencies().size();
+  }
+
+  /**
+   * Returns the displacements of a collision-free {@code PerfectHashMap} for the keys of the
+   * multibound map {@code binding}, as comma-separated arguments, if the keys are {@code String}s
+   * or {@code Class}es.
+   */
+  public static Optional<CodeBlock> perfectHashDisplacements(
+      ContributionBinding binding, BindingGraph graph) {
+    checkArgument(binding.kind().equals(MULTIBOUND_MAP), binding.kind());
+    MapType mapType = MapType.from(binding.key());
+    if (mapType.isRawType() || binding.dependencies().size() < 2) {
+      return Optional.empty();
+    }
+    boolean classKeys = isTypeOf(mapType.keyType(), ClassName.get(Class.class));
+    if (!classKeys && !isTypeOf(mapType.keyType(), ClassName.get(String.class))) {
+      return Optional.empty();
+    }
+    int[] hashes = new int[binding.dependencies().size()];
+    int i = 0;
+    for (DependencyRequest dependency : binding.dependencies()) {
+      XAnnotation mapKey =
+          graph.contributionBinding(dependency.key()).mapKey().get().xprocessing();
+      if (mapKey.getQualifiedName().contentEquals("dagger.android.AndroidInjectionKey")) {
+        return Optional.empty();
+      }
+      XAnnotationValue value = getOnlyElement(mapKey.getAnnotationValues());
+      if (!classKeys) {
+        hashes[i++] = PerfectHashMap.hash(value.asString());
+      } else if (isDeclared(value.asType())) {
+        // PerfectHashMap hashes a class by its name, which is the binary name.
+        hashes[i++] = value.asType().getTypeElement().getClassName().reflectionName().hashCode();
+      } else {
+        // The names of primitive and array classes aren't worth the trouble.
+        return Optional.empty();
+      }
+    }
+    return Optional.ofNullable(PerfectHashMap.displacements(hashes))
+        .map(
+            displacements ->
+                Arrays.stream(displacements)
+                    .mapToObj(displacement -> CodeBlock.of("$L", displacement))
+                    .collect(toParametersCodeBlock()));
+  }
+
   /**
    * Returns the {@code ClassName} in which {@code #mapKeyFactoryMethod(ContributionBinding,
    * XProcessingEnv)} is generated.
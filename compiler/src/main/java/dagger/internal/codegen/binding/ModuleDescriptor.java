@@ -33,6 +33,7 @@ import static dagger.internal.codegen.xprocessing.XTypes.isDeclared;
 import dagger.internal.codegen.base.ClearableCache;
 import dagger.internal.codegen.base.DaggerSuperficialValidation;
 import dagger.internal.codegen.base.ModuleKind;
+import dagger.internal.codegen.base.ProcessorInstrumentation;
 import dagger.internal.codegen.collect.ImmutableSet;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.xprocessing.XMethodElement;
@@ -104,7 +105,11 @@ public abstract class ModuleDescriptor {
     private final SubcomponentDeclaration.Factory subcomponentDeclarationFactory;
     private final OptionalBindingDeclaration.Factory optionalBindingDeclarationFactory;
     private final DaggerSuperficialValidation superficialValidation;
+    private final ProcessorInstrumentation instrumentation;
     private final Map<XTypeElement, ModuleDescriptor> cache = new HashMap<>();
+    // Unlike the cache above, this one is not cleared at the end of a round. It only contains
+    // descriptors that were built from valid elements only.
+    private final Map<String, ModuleDescriptor> compilationCache = new HashMap<>();
 
     @Inject
     Factory(
@@ -114,7 +119,8 @@ public abstract class ModuleDescriptor {
         DelegateDeclaration.Factory bindingDelegateDeclarationFactory,
         SubcomponentDeclaration.Factory subcomponentDeclarationFactory,
         OptionalBindingDeclaration.Factory optionalBindingDeclarationFactory,
-        DaggerSuperficialValidation superficialValidation) {
+        DaggerSuperficialValidation superficialValidation,
+        ProcessorInstrumentation instrumentation) {
       this.processingEnv = processingEnv;
       this.bindingFactory = bindingFactory;
       this.multibindingDeclarationFactory = multibindingDeclarationFactory;
@@ -122,10 +128,50 @@ public abstract class ModuleDescriptor {
       this.subcomponentDeclarationFactory = subcomponentDeclarationFactory;
       this.optionalBindingDeclarationFactory = optionalBindingDeclarationFactory;
       this.superficialValidation = superficialValidation;
+      this.instrumentation = instrumentation;
     }
 
     public ModuleDescriptor create(XTypeElement moduleElement) {
-      return reentrantComputeIfAbsent(cache, moduleElement, this::createUncached);
+      return reentrantComputeIfAbsent(cache, moduleElement, this::createCompilationCached);
+    }
+
+    /**
+     * Returns the descriptor from a previous round or component if there is one, and creates a new
+     * one otherwise.
+     *
+     * <p>javac reuses the elements of a module across rounds, so a descriptor can't be invalidated
+     * by comparing elements. Instead, a descriptor is only kept if every element it is built from
+     * is valid. Such a descriptor can't change in a later round, since generating types only
+     * resolves types that were missing.
+     */
+    private ModuleDescriptor createCompilationCached(XTypeElement moduleElement) {
+      String qualifiedName = moduleElement.getQualifiedName();
+      ModuleDescriptor cached = compilationCache.get(qualifiedName);
+      if (cached != null) {
+        instrumentation.count("ModuleDescriptor.Factory.hits", 1);
+        return cached;
+      }
+      instrumentation.count("ModuleDescriptor.Factory.misses", 1);
+      ModuleDescriptor descriptor = createUncached(moduleElement);
+      if (isValid(moduleElement)) {
+        compilationCache.put(qualifiedName, descriptor);
+      }
+      return descriptor;
+    }
+
+    // A module with unresolved types may change once the missing types are generated, so its
+    // descriptor must not outlive the round. Besides the module itself, this validates the methods
+    // it inherits, since the descriptor contains their bindings too.
+    private boolean isValid(XTypeElement moduleElement) {
+      try {
+        superficialValidation.validateElement(moduleElement);
+        for (XMethodElement method : XTypeElements.getAllMethods(moduleElement)) {
+          superficialValidation.validateElement(method);
+        }
+        return true;
+      } catch (DaggerSuperficialValidation.ValidationException e) {
+        return false;
+      }
     }
 
     public ModuleDescriptor createUncached(XTypeElement moduleElement) {
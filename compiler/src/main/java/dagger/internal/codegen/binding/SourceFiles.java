@@ -21,7 +21,6 @@ import static dagger.internal.codegen.base.CaseFormat.UPPER_CAMEL;
 import static dagger.internal.codegen.base.Preconditions.checkArgument;
 import static dagger.internal.codegen.base.Preconditions.checkState;
 import static dagger.internal.codegen.base.Verify.verify;
-import static dagger.internal.codegen.javapoet.TypeNames.DOUBLE_CHECK;
 import static dagger.internal.codegen.javapoet.TypeNames.MAP_FACTORY;
 import static dagger.internal.codegen.javapoet.TypeNames.MAP_OF_PRODUCED_PRODUCER;
 import static dagger.internal.codegen.javapoet.TypeNames.MAP_OF_PRODUCER_PRODUCER;
@@ -29,7 +28,6 @@ import static dagger.internal.codegen.javapoet.TypeNames.MAP_PRODUCER;
 import static dagger.internal.codegen.javapoet.TypeNames.MAP_PROVIDER_FACTORY;
 import static dagger.internal.codegen.javapoet.TypeNames.PRODUCER;
 import static dagger.internal.codegen.javapoet.TypeNames.PROVIDER;
-import static dagger.internal.codegen.javapoet.TypeNames.PROVIDER_OF_LAZY;
 import static dagger.internal.codegen.javapoet.TypeNames.SET_FACTORY;
 import static dagger.internal.codegen.javapoet.TypeNames.SET_OF_PRODUCED_PRODUCER;
 import static dagger.internal.codegen.javapoet.TypeNames.SET_PRODUCER;
@@ -52,6 +50,7 @@ import dagger.internal.codegen.collect.ImmutableMap;
 import dagger.internal.codegen.collect.ImmutableSet;
 import dagger.internal.codegen.collect.Iterables;
 import dagger.internal.codegen.collect.Maps;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.xprocessing.XExecutableElement;
 import dagger.internal.codegen.xprocessing.XFieldElement;
@@ -100,18 +99,20 @@ public class SourceFiles {
   }
 
   public static CodeBlock frameworkTypeUsageStatement(
-      CodeBlock frameworkTypeMemberSelect, RequestKind dependencyKind) {
+      CodeBlock frameworkTypeMemberSelect,
+      RequestKind dependencyKind,
+      CompilerOptions compilerOptions) {
     switch (dependencyKind) {
       case LAZY:
-        return CodeBlock.of("$T.lazy($L)", DOUBLE_CHECK, frameworkTypeMemberSelect);
+      case PROVIDER_OF_LAZY:
+        return FrameworkType.PROVIDER.to(
+            dependencyKind, frameworkTypeMemberSelect, compilerOptions);
       case INSTANCE:
       case FUTURE:
         return CodeBlock.of("$L.get()", frameworkTypeMemberSelect);
       case PROVIDER:
       case PRODUCER:
         return frameworkTypeMemberSelect;
-      case PROVIDER_OF_LAZY:
-        return CodeBlock.of("$T.create($L)", PROVIDER_OF_LAZY, frameworkTypeMemberSelect);
       default: // including PRODUCED
         throw new AssertionError(dependencyKind);
     }
@@ -119,14 +120,17 @@ public class SourceFiles {
 
   /**
    * Returns a mapping of {@code DependencyRequest}s to {@code CodeBlock}s that {@code
-   * #frameworkTypeUsageStatement(CodeBlock, RequestKind) use them}.
+   * #frameworkTypeUsageStatement(CodeBlock, RequestKind, CompilerOptions) use them}.
    */
   public static ImmutableMap<DependencyRequest, CodeBlock> frameworkFieldUsages(
       ImmutableSet<DependencyRequest> dependencies,
-      ImmutableMap<DependencyRequest, FieldSpec> fields) {
+      ImmutableMap<DependencyRequest, FieldSpec> fields,
+      CompilerOptions compilerOptions) {
     return Maps.toMap(
         dependencies,
-        dep -> frameworkTypeUsageStatement(CodeBlock.of("$N", fields.get(dep)), dep.kind()));
+        dep ->
+            frameworkTypeUsageStatement(
+                CodeBlock.of("$N", fields.get(dep)), dep.kind(), compilerOptions));
   }
 
   /** Returns the generated factory or members injector name for a binding. */
@@ -22,6 +22,7 @@ import static dagger.internal.codegen.base.RequestKinds.getRequestKind;
 import static dagger.internal.codegen.collect.Iterables.getLast;
 import static dagger.internal.codegen.collect.Iterables.limit;
 import static dagger.internal.codegen.collect.Iterables.skip;
+import static dagger.internal.codegen.collect.Maps.newHashMapWithExpectedSize;
 import static dagger.internal.codegen.collect.Sets.newHashSetWithExpectedSize;
 import static dagger.internal.codegen.extension.DaggerGraphs.shortestPath;
 import static dagger.internal.codegen.extension.DaggerStreams.instancesOf;
@@ -32,6 +33,7 @@ import static javax.tools.Diagnostic.Kind.ERROR;
 import dagger.internal.codegen.base.Formatter;
 import dagger.internal.codegen.base.MapType;
 import dagger.internal.codegen.base.OptionalType;
+import dagger.internal.codegen.base.TarjanSCCs;
 import dagger.internal.codegen.binding.DependencyRequestFormatter;
 import dagger.internal.codegen.collect.ImmutableList;
 import dagger.internal.codegen.collect.ImmutableSet;
@@ -50,12 +52,12 @@ import dagger.spi.model.DiagnosticReporter;
 import dagger.spi.model.RequestKind;
 import io.jbock.auto.value.AutoValue;
 import io.jbock.common.graph.EndpointPair;
-import io.jbock.common.graph.Graphs;
 import io.jbock.common.graph.ImmutableNetwork;
 import io.jbock.common.graph.MutableNetwork;
 import io.jbock.common.graph.NetworkBuilder;
 import jakarta.inject.Inject;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -79,12 +81,21 @@ final class DependencyCycleValidator implements BindingGraphPlugin {
   public void visitGraph(BindingGraph bindingGraph, DiagnosticReporter diagnosticReporter) {
     ImmutableNetwork<Node, DependencyEdge> dependencyGraph =
         nonCycleBreakingDependencyGraph(bindingGraph);
-    // First check the graph for a cycle. If there is one, then we'll do more work to report where.
-    if (!Graphs.hasCycle(dependencyGraph)) {
+    // Every cycle lies within a single strongly connected component, and every edge within one lies
+    // on a cycle. So only those edges need to be checked, and if there are none there's no cycle.
+    Map<Node, Integer> componentIndexes = stronglyConnectedComponentIndexes(dependencyGraph);
+    // Check each endpoint pair only once, no matter how many parallel edges connect them.
+    ImmutableSet<EndpointPair<Node>> dependencyEndpointPairs =
+        dependencyGraph.asGraph().edges().stream()
+            .filter(
+                endpointPair ->
+                    componentIndexes
+                        .get(endpointPair.source())
+                        .equals(componentIndexes.get(endpointPair.target())))
+            .collect(toImmutableSet());
+    if (dependencyEndpointPairs.isEmpty()) {
       return;
     }
-    // Check each endpoint pair only once, no matter how many parallel edges connect them.
-    Set<EndpointPair<Node>> dependencyEndpointPairs = dependencyGraph.asGraph().edges();
     Set<EndpointPair<Node>> visited = newHashSetWithExpectedSize(dependencyEndpointPairs.size());
     for (EndpointPair<Node> endpointPair : dependencyEndpointPairs) {
       cycleContainingEndpointPair(endpointPair, dependencyGraph, visited)
@@ -92,6 +103,22 @@ final class DependencyCycleValidator implements BindingGraphPlugin {
     }
   }
 
+  /** Returns the index of the strongly connected component that each node of the graph is in. */
+  private static Map<Node, Integer> stronglyConnectedComponentIndexes(
+      ImmutableNetwork<Node, DependencyEdge> dependencyGraph) {
+    Map<Node, Integer> componentIndexes =
+        newHashMapWithExpectedSize(dependencyGraph.nodes().size());
+    int componentIndex = 0;
+    for (ImmutableSet<Node> component :
+        TarjanSCCs.compute(ImmutableSet.copyOf(dependencyGraph.nodes()), dependencyGraph)) {
+      for (Node node : component) {
+        componentIndexes.put(node, componentIndex);
+      }
+      componentIndex++;
+    }
+    return componentIndexes;
+  }
+
   private Optional<Cycle<Node>> cycleContainingEndpointPair(
       EndpointPair<Node> endpoints,
       ImmutableNetwork<Node, DependencyEdge> dependencyGraph,
@@ -158,7 +185,7 @@ final class DependencyCycleValidator implements BindingGraphPlugin {
     ComponentNode componentContainingCycle =
         bindingGraph.componentNode(someCycleNode.componentPath()).get();
     ImmutableList<Node> pathToCycle =
-        shortestPath(bindingGraph.network(), componentContainingCycle, someCycleNode);
+        shortestPath(bindingGraph::successors, componentContainingCycle, someCycleNode);
     return subpathToCycle(pathToCycle, cycle);
   }
 
@@ -200,7 +227,7 @@ final class DependencyCycleValidator implements BindingGraphPlugin {
    * #breaksCycle(DependencyEdge, BindingGraph) break} a cycle.
    */
   private DependencyEdge nonCycleBreakingEdge(EndpointPair<Node> endpointPair, BindingGraph graph) {
-    return graph.network().edgesConnecting(endpointPair.source(), endpointPair.target()).stream()
+    return graph.edgesConnecting(endpointPair.source(), endpointPair.target()).stream()
         .flatMap(instancesOf(DependencyEdge.class))
         .filter(edge -> !breaksCycle(edge, graph))
         .findFirst()
@@ -217,7 +244,7 @@ final class DependencyCycleValidator implements BindingGraphPlugin {
         edge.dependencyRequest().key().type().xprocessing(), edge.dependencyRequest().kind())) {
       return true;
     }
-    Node target = graph.network().incidentNodes(edge).target();
+    Node target = graph.incidentNodes(edge).target();
     if (target instanceof Binding && ((Binding) target).kind().equals(BindingKind.OPTIONAL)) {
       /* For @BindsOptionalOf bindings, unwrap the type inside the Optional. If the unwrapped type
        * breaks the cycle, so does the optional binding. */
@@ -248,7 +275,7 @@ final class DependencyCycleValidator implements BindingGraphPlugin {
 
   private DependencyEdge chooseDependencyEdgeConnecting(
       Node source, Node target, BindingGraph bindingGraph) {
-    return bindingGraph.network().edgesConnecting(source, target).stream()
+    return bindingGraph.edgesConnecting(source, target).stream()
         .flatMap(instancesOf(DependencyEdge.class))
         .findFirst()
         .get();
@@ -259,15 +286,17 @@ final class DependencyCycleValidator implements BindingGraphPlugin {
   private ImmutableNetwork<Node, DependencyEdge> nonCycleBreakingDependencyGraph(
       BindingGraph bindingGraph) {
     MutableNetwork<Node, DependencyEdge> dependencyNetwork =
-        NetworkBuilder.from(bindingGraph.network())
-            .expectedNodeCount(bindingGraph.network().nodes().size())
+        NetworkBuilder.directed()
+            .allowsParallelEdges(true)
+            .allowsSelfLoops(true)
+            .expectedNodeCount(bindingGraph.nodes().size())
             .expectedEdgeCount(bindingGraph.dependencyEdges().size())
             .build();
     bindingGraph.dependencyEdges().stream()
         .filter(edge -> !breaksCycle(edge, bindingGraph))
         .forEach(
             edge -> {
-              EndpointPair<Node> endpoints = bindingGraph.network().incidentNodes(edge);
+              EndpointPair<Node> endpoints = bindingGraph.incidentNodes(edge);
               dependencyNetwork.addEdge(endpoints.source(), endpoints.target(), edge);
             });
     return ImmutableNetwork.copyOf(dependencyNetwork);
@@ -180,7 +180,7 @@ final class MissingBindingValidator implements BindingGraphPlugin {
 
   private boolean allIncomingDependenciesCanUseProduction(
       MissingBinding missingBinding, BindingGraph graph) {
-    return graph.network().inEdges(missingBinding).stream()
+    return graph.inEdges(missingBinding).stream()
         .flatMap(instancesOf(DependencyEdge.class))
         .allMatch(edge -> dependencyCanBeProduction(edge, graph));
   }
@@ -188,7 +188,7 @@ final class MissingBindingValidator implements BindingGraphPlugin {
   // TODO(ronshapiro): merge with
   // ProvisionDependencyOnProduerBindingValidator.dependencyCanUseProduction
   private boolean dependencyCanBeProduction(DependencyEdge edge, BindingGraph graph) {
-    Node source = graph.network().incidentNodes(edge).source();
+    Node source = graph.incidentNodes(edge).source();
     if (source instanceof ComponentNode) {
       return canBeSatisfiedByProductionBinding(edge.dependencyRequest().kind());
     }
@@ -208,13 +208,13 @@ final class MissingBindingValidator implements BindingGraphPlugin {
 
   private static String getComponentFromDependencyEdge(
       DependencyEdge edge, BindingGraph graph, boolean completePath) {
-    ComponentPath componentPath = graph.network().incidentNodes(edge).source().componentPath();
+    ComponentPath componentPath = graph.incidentNodes(edge).source().componentPath();
     return completePath
         ? componentPath.toString()
         : componentPath.currentComponent().className().canonicalName();
   }
 
   private Node source(Edge edge, BindingGraph graph) {
-    return graph.network().incidentNodes(edge).source();
+    return graph.incidentNodes(edge).source();
   }
 }
@@ -70,7 +70,7 @@ final class NullableBindingValidator implements BindingGraphPlugin {
 
   private ImmutableSet<DependencyEdge> nonNullableDependencies(
       BindingGraph bindingGraph, Binding binding) {
-    return bindingGraph.network().inEdges(binding).stream()
+    return bindingGraph.inEdges(binding).stream()
         .flatMap(instancesOf(DependencyEdge.class))
         .filter(edge -> !edge.dependencyRequest().isNullable())
         .collect(toImmutableSet());
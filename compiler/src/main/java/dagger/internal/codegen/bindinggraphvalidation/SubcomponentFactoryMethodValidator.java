@@ -62,7 +62,7 @@ final class SubcomponentFactoryMethodValidator implements BindingGraphPlugin {
       // component, which we don't if the root component node is really a module or a subcomponent.
       return;
     }
-    bindingGraph.network().edges().stream()
+    bindingGraph.edges().stream()
         .flatMap(instancesOf(ChildFactoryMethodEdge.class))
         .forEach(
             edge -> {
@@ -78,7 +78,7 @@ final class SubcomponentFactoryMethodValidator implements BindingGraphPlugin {
       ChildFactoryMethodEdge edge, BindingGraph graph) {
     ImmutableSet<XTypeElement> factoryMethodParameters =
         subgraphFactoryMethodParameters(edge, graph);
-    ComponentNode child = (ComponentNode) graph.network().incidentNodes(edge).target();
+    ComponentNode child = (ComponentNode) graph.incidentNodes(edge).target();
     Set<XTypeElement> modulesOwnedByChild = ownedModules(child, graph);
     return graph.bindings().stream()
         // bindings owned by child
@@ -98,7 +98,7 @@ final class SubcomponentFactoryMethodValidator implements BindingGraphPlugin {
 
   private ImmutableSet<XTypeElement> subgraphFactoryMethodParameters(
       ChildFactoryMethodEdge edge, BindingGraph bindingGraph) {
-    ComponentNode parent = (ComponentNode) bindingGraph.network().incidentNodes(edge).source();
+    ComponentNode parent = (ComponentNode) bindingGraph.incidentNodes(edge).source();
     XType parentType = parent.componentPath().currentComponent().xprocessing().getType();
     XExecutableType factoryMethodType = edge.factoryMethod().xprocessing().asMemberOf(parentType);
     return factoryMethodType.getParameterTypes().stream()
@@ -138,7 +138,6 @@ final class SubcomponentFactoryMethodValidator implements BindingGraphPlugin {
         "%s requires modules which have no visible default constructors. "
             + "Add the following modules as parameters to this method: %s",
         graph
-            .network()
             .incidentNodes(edge)
             .target()
             .componentPath()
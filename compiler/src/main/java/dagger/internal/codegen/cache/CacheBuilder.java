@@ -1,13 +1,49 @@
 package dagger.internal.codegen.cache;
 
+import static dagger.internal.codegen.base.Preconditions.checkArgument;
+import static dagger.internal.codegen.base.Preconditions.checkState;
+
 public class CacheBuilder<K, V> {
 
-  public <K1 extends K, V1 extends V> LoadingCache<K1, V1> build(
-      CacheLoader<K1, V1> loader) {
-    return new LoadingCache<>(loader.computingFunction());
-  }
+  static final long UNSET = -1;
+
+  private long maximumSize = UNSET;
+  private boolean softValues;
+  private StatsCounter statsCounter;
 
   public static CacheBuilder<Object, Object> newBuilder() {
     return new CacheBuilder<>();
   }
+
+  /**
+   * Limits the number of entries. When the limit is exceeded, the least recently used entry is
+   * evicted.
+   */
+  public CacheBuilder<K, V> maximumSize(long maximumSize) {
+    checkState(this.maximumSize == UNSET, "maximum size was already set to %s", this.maximumSize);
+    checkArgument(maximumSize >= 0, "maximum size must not be negative");
+    this.maximumSize = maximumSize;
+    return this;
+  }
+
+  /** Wraps the values in soft references, so they can be collected under memory pressure. */
+  public CacheBuilder<K, V> softValues() {
+    this.softValues = true;
+    return this;
+  }
+
+  /** Records the hits, misses and evictions of the cache in {@code statsCounter}. */
+  public CacheBuilder<K, V> recordStats(StatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
+    return this;
+  }
+
+  public <K1 extends K, V1 extends V> LoadingCache<K1, V1> build(
+      CacheLoader<K1, V1> loader) {
+    return new LoadingCache<>(
+        loader.computingFunction(),
+        maximumSize,
+        softValues,
+        statsCounter != null ? statsCounter : new StatsCounter());
+  }
 }
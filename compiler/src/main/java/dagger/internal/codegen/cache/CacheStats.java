@@ -0,0 +1,65 @@
+package dagger.internal.codegen.cache;
+
+import java.util.Objects;
+
+/** A snapshot of the statistics of a cache. */
+public final class CacheStats {
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+
+  CacheStats(long hitCount, long missCount, long evictionCount) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+  }
+
+  public long hitCount() {
+    return hitCount;
+  }
+
+  public long missCount() {
+    return missCount;
+  }
+
+  public long evictionCount() {
+    return evictionCount;
+  }
+
+  public long requestCount() {
+    return hitCount + missCount;
+  }
+
+  /** Returns the ratio of requests that were hits, or {@code 1.0} if there were no requests. */
+  public double hitRate() {
+    long requestCount = requestCount();
+    return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CacheStats)) {
+      return false;
+    }
+    CacheStats other = (CacheStats) o;
+    return hitCount == other.hitCount
+        && missCount == other.missCount
+        && evictionCount == other.evictionCount;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(hitCount, missCount, evictionCount);
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{hitCount=" + hitCount
+        + ", missCount=" + missCount
+        + ", evictionCount=" + evictionCount + "}";
+  }
+}
@@ -1,19 +1,99 @@
 package dagger.internal.codegen.cache;
 
-import java.util.HashMap;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.function.Function;
 
 public class LoadingCache<K, V> implements Function<K, V> {
 
   private final Function<K, V> computingFunction;
-  private final HashMap<K, V> map = new HashMap<>();
+  private final boolean softValues;
+  private final StatsCounter statsCounter;
+  private final Map<K, Object> map;
 
-  LoadingCache(Function<K, V> computingFunction) {
+  LoadingCache(
+      Function<K, V> computingFunction,
+      long maximumSize,
+      boolean softValues,
+      StatsCounter statsCounter) {
     this.computingFunction = computingFunction;
+    this.softValues = softValues;
+    this.statsCounter = statsCounter;
+    this.map = newMap(maximumSize, statsCounter);
+  }
+
+  private static <K> Map<K, Object> newMap(long maximumSize, StatsCounter statsCounter) {
+    if (maximumSize == CacheBuilder.UNSET) {
+      return new LinkedHashMap<>();
+    }
+    // access order, so that the eldest entry is the least recently used one
+    return new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Object> eldest) {
+        if (size() > maximumSize) {
+          statsCounter.recordEviction();
+          return true;
+        }
+        return false;
+      }
+    };
   }
 
   @Override
   public V apply(K k) {
-    return map.computeIfAbsent(k, computingFunction);
+    return get(k);
+  }
+
+  /**
+   * Returns the value for {@code key}, computing it if it is not cached. The computation may
+   * itself use this cache.
+   */
+  public synchronized V get(K key) {
+    Object stored = map.get(key);
+    if (stored != null) {
+      V value = unwrap(stored);
+      if (value != null) {
+        statsCounter.recordHit();
+        return value;
+      }
+      // the soft reference was cleared
+      map.remove(key);
+      statsCounter.recordEviction();
+    }
+    statsCounter.recordMiss();
+    V value = computingFunction.apply(key);
+    if (value != null) {
+      map.put(key, softValues ? new SoftReference<>(value) : value);
+    }
+    return value;
+  }
+
+  /**
+   * Returns the value for {@code key} if it is cached, or {@code null}. Does not record any
+   * statistics, so that peeking at the cache doesn't distort its hit rate.
+   */
+  public synchronized V getIfPresent(K key) {
+    Object stored = map.get(key);
+    return stored == null ? null : unwrap(stored);
+  }
+
+  @SuppressWarnings("unchecked") // we only put V or SoftReference<V> into the map
+  private V unwrap(Object stored) {
+    return softValues ? ((SoftReference<V>) stored).get() : (V) stored;
+  }
+
+  /** Returns the number of cached entries, including soft values that were already collected. */
+  public synchronized long size() {
+    return map.size();
+  }
+
+  public synchronized void invalidateAll() {
+    map.clear();
+  }
+
+  /** Returns the statistics that were recorded for this cache. */
+  public CacheStats stats() {
+    return statsCounter.snapshot();
   }
 }
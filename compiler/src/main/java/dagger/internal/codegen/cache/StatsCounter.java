@@ -0,0 +1,27 @@
+package dagger.internal.codegen.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Accumulates the statistics of one or more caches. */
+public final class StatsCounter {
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  void recordHit() {
+    hitCount.increment();
+  }
+
+  void recordMiss() {
+    missCount.increment();
+  }
+
+  void recordEviction() {
+    evictionCount.increment();
+  }
+
+  public CacheStats snapshot() {
+    return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum());
+  }
+}
@@ -0,0 +1,234 @@
+package dagger.internal.codegen.collect;
+
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An unmodifiable set that keeps its elements in an array, in insertion order.
+ *
+ * <p>Small sets are searched linearly. Larger sets have an open-addressed table of element
+ * positions, which takes far less memory than the entries of a {@code LinkedHashSet}. The hash code
+ * is cached.
+ */
+final class ArraySet<E> extends AbstractSet<E> {
+  /** Sets up to this size don't have a table. */
+  private static final int MAX_LINEAR_SIZE = 8;
+
+  private final Object[] elements;
+  private final int size;
+  /** The position of the element in each slot plus one, or 0 for an empty slot. */
+  private final int[] table;
+  private int hashCode;
+  private boolean hashCodeIsZero;
+
+  private ArraySet(Object[] elements, int size, int[] table) {
+    this.elements = elements;
+    this.size = size;
+    this.table = table;
+  }
+
+  /** Returns a set of the distinct {@code elements}, in order. */
+  static <E> ArraySet<E> copyOf(Object[] elements) {
+    Builder<E> builder = new Builder<>(elements.length);
+    for (Object element : elements) {
+      @SuppressWarnings("unchecked") // the caller guarantees that all elements are Es
+      E e = (E) element;
+      builder.add(e);
+    }
+    return builder.build();
+  }
+
+  /** Returns a set of the distinct {@code elements}, in iteration order. */
+  static <E> ArraySet<E> copyOf(Collection<? extends E> elements) {
+    return copyOf(elements.toArray());
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return indexOf(elements, size, table, o) >= 0;
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return new Iterator<E>() {
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return next < size;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked") // only Es are added
+      public E next() {
+        if (next >= size) {
+          throw new NoSuchElementException();
+        }
+        return (E) elements[next++];
+      }
+    };
+  }
+
+  @Override
+  public Object[] toArray() {
+    return Arrays.copyOf(elements, size);
+  }
+
+  /** Returns an unmodifiable view of the elements as a list. */
+  List<E> asList() {
+    return new ElementList();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (o instanceof ArraySet) {
+      ArraySet<?> that = (ArraySet<?>) o;
+      if (size != that.size || hashCode() != that.hashCode()) {
+        return false;
+      }
+    }
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    // Racy single-check, like String#hashCode(): at worst, the hash code is computed twice.
+    int h = hashCode;
+    if (h == 0 && !hashCodeIsZero) {
+      h = super.hashCode();
+      if (h == 0) {
+        hashCodeIsZero = true;
+      } else {
+        hashCode = h;
+      }
+    }
+    return h;
+  }
+
+  private final class ElementList extends AbstractList<E> implements RandomAccess {
+    @Override
+    @SuppressWarnings("unchecked") // only Es are added
+    public E get(int index) {
+      Objects.checkIndex(index, size);
+      return (E) elements[index];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  /**
+   * Accumulates distinct elements for {@code ArraySet}s. Building shares the arrays with the set,
+   * and the builder copies them before it's changed again.
+   */
+  static final class Builder<E> {
+    private Object[] elements;
+    private int size;
+    private int[] table;
+    private boolean shared;
+
+    Builder() {
+      this(4);
+    }
+
+    Builder(int expectedSize) {
+      this.elements = new Object[Math.max(expectedSize, 1)];
+    }
+
+    /** Adds {@code element} unless the builder already has an equal element. */
+    boolean add(E element) {
+      if (indexOf(elements, size, table, element) >= 0) {
+        return false;
+      }
+      if (shared) {
+        elements = elements.clone();
+        table = table == null ? null : table.clone();
+        shared = false;
+      }
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, size * 2);
+      }
+      elements[size++] = element;
+      if (table != null && size * 2 > table.length) {
+        table = null; // rebuilt below, with more slots
+      }
+      if (table == null) {
+        if (size > MAX_LINEAR_SIZE) {
+          table = newTable(elements, size);
+        }
+      } else {
+        insert(table, element, size - 1);
+      }
+      return true;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    ArraySet<E> build() {
+      shared = true;
+      return new ArraySet<>(elements, size, table);
+    }
+  }
+
+  private static int indexOf(Object[] elements, int size, int[] table, Object o) {
+    if (table == null) {
+      for (int i = 0; i < size; i++) {
+        if (Objects.equals(elements[i], o)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    int mask = table.length - 1;
+    for (int slot = spread(Objects.hashCode(o)) & mask; ; slot = (slot + 1) & mask) {
+      int position = table[slot] - 1;
+      if (position < 0) {
+        return -1;
+      }
+      if (Objects.equals(elements[position], o)) {
+        return position;
+      }
+    }
+  }
+
+  /** Returns a table for the first {@code size} elements that is less than half full. */
+  private static int[] newTable(Object[] elements, int size) {
+    int[] table = new int[Integer.highestOneBit(size) * 4];
+    for (int i = 0; i < size; i++) {
+      insert(table, elements[i], i);
+    }
+    return table;
+  }
+
+  private static void insert(int[] table, Object element, int position) {
+    int mask = table.length - 1;
+    int slot = spread(Objects.hashCode(element)) & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = position + 1;
+  }
+
+  private static int spread(int hashCode) {
+    return hashCode ^ (hashCode >>> 16);
+  }
+}
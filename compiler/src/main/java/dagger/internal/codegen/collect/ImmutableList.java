@@ -82,6 +82,9 @@ public class ImmutableList<T> extends AbstractList<T> implements ImmutableCollec
     if (elements instanceof List) {
       return new ImmutableList<>((List<E>) elements);
     }
+    if (elements instanceof Collection) {
+      return new ImmutableList<>(new ArrayList<>((Collection<? extends E>) elements));
+    }
     return new ImmutableList<>(Util.listOf(elements));
   }
 
@@ -141,7 +144,6 @@ public class ImmutableList<T> extends AbstractList<T> implements ImmutableCollec
   public final boolean equals(Object o) {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
-    if (!super.equals(o)) return false;
     ImmutableList<?> that = (ImmutableList<?>) o;
     return delegate.equals(that.delegate);
   }
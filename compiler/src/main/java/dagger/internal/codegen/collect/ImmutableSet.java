@@ -1,11 +1,8 @@
 package dagger.internal.codegen.collect;
 
 import java.util.AbstractSet;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.Objects;
 import java.util.Set;
 
 public class ImmutableSet<T> extends AbstractSet<T> implements ImmutableCollection<T> {
@@ -18,9 +15,10 @@ public class ImmutableSet<T> extends AbstractSet<T> implements ImmutableCollecti
   }
 
   public static <E> ImmutableSet<E> copyOf(E[] elements) {
-    return copyOf(Arrays.asList(elements));
+    return elements.length == 0 ? of() : new ImmutableSet<>(ArraySet.copyOf(elements));
   }
 
+  // Sets are wrapped rather than copied, so that copying a set is cheap.
   public static <E> ImmutableSet<E> copyOf(Iterable<? extends E> elements) {
     if (elements instanceof ImmutableSet) {
       return (ImmutableSet<E>) elements;
@@ -35,11 +33,9 @@ public class ImmutableSet<T> extends AbstractSet<T> implements ImmutableCollecti
       if (((Collection<? extends E>) elements).isEmpty()) {
         return of();
       }
-      return new ImmutableSet<>(new LinkedHashSet<>((Collection<? extends E>) elements));
+      return new ImmutableSet<>(ArraySet.copyOf((Collection<? extends E>) elements));
     }
-    LinkedHashSet<E> result = new LinkedHashSet<>();
-    elements.forEach(result::add);
-    return new ImmutableSet<>(result);
+    return ImmutableSet.<E>builder().addAll(elements).build();
   }
 
   public static <E> Builder<E> builder() {
@@ -47,7 +43,7 @@ public class ImmutableSet<T> extends AbstractSet<T> implements ImmutableCollecti
   }
 
   public static final class Builder<E> {
-    private final Set<E> delegate = new LinkedHashSet<>();
+    private final ArraySet.Builder<E> delegate = new ArraySet.Builder<>();
 
     public Builder<E> add(E element) {
       delegate.add(element);
@@ -55,13 +51,14 @@ public class ImmutableSet<T> extends AbstractSet<T> implements ImmutableCollecti
     }
 
     public Builder<E> addAll(Iterable<? extends E> elements) {
-      elements.forEach(delegate::add);
+      for (E element : elements) {
+        delegate.add(element);
+      }
       return this;
     }
 
-
     public ImmutableSet<E> build() {
-      return new ImmutableSet(delegate);
+      return delegate.isEmpty() ? of() : new ImmutableSet<>(delegate.build());
     }
   }
 
@@ -74,35 +71,39 @@ public class ImmutableSet<T> extends AbstractSet<T> implements ImmutableCollecti
   }
 
   public static <E> ImmutableSet<E> of(E e1, E e2) {
-    return copyOf(Arrays.asList(e1, e2));
+    return ofElements(e1, e2);
   }
 
   public static <E> ImmutableSet<E> of(E e1, E e2, E e3) {
-    return copyOf(Arrays.asList(e1, e2, e3));
+    return ofElements(e1, e2, e3);
   }
 
   public static <E> ImmutableSet<E> of(E e1, E e2, E e3, E e4) {
-    return copyOf(Arrays.asList(e1, e2, e3, e4));
+    return ofElements(e1, e2, e3, e4);
   }
 
   public static <E> ImmutableSet<E> of(E e1, E e2, E e3, E e4, E e5) {
-    return copyOf(Arrays.asList(e1, e2, e3, e4, e5));
+    return ofElements(e1, e2, e3, e4, e5);
   }
 
   public static <E> ImmutableSet<E> of(E e1, E e2, E e3, E e4, E e5, E e6) {
-    return copyOf(Arrays.asList(e1, e2, e3, e4, e5, e6));
+    return ofElements(e1, e2, e3, e4, e5, e6);
   }
 
   public static <E> ImmutableSet<E> of(E e1, E e2, E e3, E e4, E e5, E e6, E e7) {
-    return copyOf(Arrays.asList(e1, e2, e3, e4, e5, e6, e7));
+    return ofElements(e1, e2, e3, e4, e5, e6, e7);
   }
 
   public static <E> ImmutableSet<E> of(E e1, E e2, E e3, E e4, E e5, E e6, E e7, E e8) {
-    return copyOf(Arrays.asList(e1, e2, e3, e4, e5, e6, e7, e8));
+    return ofElements(e1, e2, e3, e4, e5, e6, e7, e8);
   }
 
   public static <E> ImmutableSet<E> of(E e1, E e2, E e3, E e4, E e5, E e6, E e7, E e8, E e9) {
-    return copyOf(Arrays.asList(e1, e2, e3, e4, e5, e6, e7, e8, e9));
+    return ofElements(e1, e2, e3, e4, e5, e6, e7, e8, e9);
+  }
+
+  private static <E> ImmutableSet<E> ofElements(Object... elements) {
+    return new ImmutableSet<>(ArraySet.copyOf(elements));
   }
 
   @Override
@@ -117,6 +118,9 @@ public class ImmutableSet<T> extends AbstractSet<T> implements ImmutableCollecti
 
   @Override
   public final ImmutableList<T> asList() {
+    if (delegate instanceof ArraySet) {
+      return ImmutableList.copyOf(((ArraySet<T>) delegate).asList());
+    }
     return ImmutableList.copyOf(delegate);
   }
 
@@ -128,16 +132,17 @@ public class ImmutableSet<T> extends AbstractSet<T> implements ImmutableCollecti
   public final boolean equals(Object o) {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
-    if (!super.equals(o)) return false;
     ImmutableSet<?> that = (ImmutableSet<?>) o;
     return delegate.equals(that.delegate);
   }
 
   @Override
   public final int hashCode() {
-    return Objects.hash(super.hashCode(), delegate);
+    // Same as Objects.hash(super.hashCode(), delegate), hashing the elements only once.
+    int h = delegate.hashCode();
+    return 31 * (31 + h) + h;
   }
-  
+
   @Override
   public final String toString() {
     return delegate.toString();
@@ -2,6 +2,7 @@ package dagger.internal.codegen.collect;
 
 import dagger.internal.codegen.extension.DaggerStreams;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -22,22 +23,25 @@ public final class ImmutableSetMultimap<K, V> extends SetMultimap<K, V> {
   }
 
   public static final class Builder<X, Y> {
-    private final ImmutableSetMultimap<X, Y> map = new ImmutableSetMultimap<>();
+    private final Map<X, ArraySet.Builder<Y>> map = new LinkedHashMap<>();
 
     public Builder<X, Y> put(X x, Y y) {
-      map.put(x, y);
+      map.computeIfAbsent(x, k -> new ArraySet.Builder<>()).add(y);
       return this;
     }
 
     public Builder<X, Y> putAll(X x, Iterable<Y> values) {
+      ArraySet.Builder<Y> builder = map.computeIfAbsent(x, k -> new ArraySet.Builder<>());
       for (Y y : values) {
-        map.put(x, y);
+        builder.add(y);
       }
       return this;
     }
 
     public ImmutableSetMultimap<X, Y> build() {
-      return map;
+      Map<X, Set<Y>> result = new LinkedHashMap<>(Maps.capacity(map.size()));
+      map.forEach((x, builder) -> result.put(x, builder.build()));
+      return new ImmutableSetMultimap<>(result);
     }
   }
 
@@ -1,9 +1,9 @@
 package dagger.internal.codegen.collect;
 
-import dagger.internal.codegen.base.Util;
 import dagger.internal.codegen.extension.DaggerStreams;
 import java.util.AbstractMap;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -25,9 +25,22 @@ public abstract class SetMultimap<K, V> implements ImmutableMultimap<K, V> {
   }
 
   public boolean put(K key, V value) {
-    int oldSize = map.getOrDefault(key, Set.of()).size();
-    Set<V> newSet = map.merge(key, Set.of(value), Util::mutableUnion);
-    return newSet.size() != oldSize;
+    Set<V> values = map.get(key);
+    if (values == null) {
+      map.put(key, Set.of(value));
+      return true;
+    }
+    if (values instanceof HashSet) {
+      return values.add(value);
+    }
+    if (values.contains(value)) {
+      return false;
+    }
+    // Copy an unmodifiable set once, so that later puts for the key add in place.
+    Set<V> newValues = new LinkedHashSet<>(values);
+    newValues.add(value);
+    map.put(key, newValues);
+    return true;
   }
 
   public void putAll(K key, Iterable<? extends V> values) {
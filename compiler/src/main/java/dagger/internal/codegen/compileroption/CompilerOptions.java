@@ -17,6 +17,8 @@
 package dagger.internal.codegen.compileroption;
 
 import dagger.internal.codegen.xprocessing.XTypeElement;
+import java.nio.file.Path;
+import java.util.Optional;
 import javax.tools.Diagnostic;
 
 /** A collection of options that dictate how the compiler will run. */
@@ -150,4 +152,92 @@ public abstract class CompilerOptions {
    * eventually become the default and enforced.
    */
   public abstract boolean strictMultibindingValidation();
+
+  /**
+   * Returns {@code true} if the processor should record the wall time and allocated bytes of its
+   * phases for each component, as well as the hits, misses and evictions of its caches, and write
+   * a JSON report to the class output at the end of processing.
+   *
+   * <p>The default for this option is {@code false}.
+   */
+  public abstract boolean processorInstrumentation();
+
+  /**
+   * Returns {@code true} if the framework instances of scoped bindings are memoized by {@code
+   * LockFreeCheck} instead of {@code DoubleCheck}, so that threads racing to create a scoped
+   * instance wait on a latch instead of a monitor. {@code Lazy} and {@code Provider<Lazy>}
+   * requests are memoized the same way.
+   *
+   * <p>The default for this option is {@code false}.
+   */
+  public abstract boolean lockFreeScopedProviders();
+
+  /**
+   * Returns {@code true} if multibound sets and maps whose contributions are all scoped are
+   * computed once per component, as a {@code CompactSet} or {@code CompactMap}, and then returned
+   * without allocating on each request.
+   *
+   * <p>The default for this option is {@code false}.
+   */
+  public abstract boolean precomputedMultibindings();
+
+  /**
+   * Returns {@code true} if generated Java files are rendered to text on a fork-join pool.
+   *
+   * <p>The source files are still created, and the text written to them, on the processing thread
+   * before the end of the round in which they were generated, in the order in which they were
+   * generated. The text is the same as when the files are rendered serially. A file whose code
+   * blocks have {@code $L} arguments that might be formatted by javac is rendered on the processing
+   * thread.
+   *
+   * <p>The default for this option is {@code false}.
+   */
+  public abstract boolean parallelSourceRendering();
+
+  /**
+   * Returns {@code true} if the shards of a component are created when one of their bindings is
+   * first used instead of when the component is created, so that the cost of creating a component
+   * with many shards depends on the bindings that are actually requested.
+   *
+   * <p>Shards are created with double-checked locking on the component. The shards of production
+   * components are always created eagerly.
+   *
+   * <p>The default for this option is {@code false}.
+   */
+  public abstract boolean lazyComponentShards();
+
+  /**
+   * Returns {@code true} if generated components report the time spent in each {@code initialize}
+   * method, shard constructor and first {@code get()} of a scoped provider to the {@code
+   * dagger.internal.StartupListener} set on {@code dagger.internal.StartupProfiler}.
+   *
+   * <p>Without a listener, each report is a single volatile read.
+   *
+   * <p>The default for this option is {@code false}.
+   */
+  public abstract boolean startupProfiling();
+
+  /**
+   * Returns {@code true} if requests for a multibound {@code Map<K, V>} return a {@code
+   * dagger.internal.LazyMapView} that only invokes the providers of the entries that are read,
+   * instead of a map of every value.
+   *
+   * <p>Precomputed multibound maps are still built eagerly.
+   *
+   * <p>The default for this option is {@code false}.
+   */
+  public abstract boolean lazyMultiboundMaps();
+
+  /**
+   * Returns the directory in which the generated sources of root components are cached between
+   * compilations, if any. A cached component is written again without resolving its binding graph
+   * if none of the types that the graph was resolved from changed.
+   *
+   * <p>Binding graph plugins are not run again for a cached component, but the diagnostics that
+   * were reported when its graph was resolved are reported again. A component is not cached if
+   * one of them is an error or is reported on another element.
+   */
+  public Optional<Path> bindingGraphCacheDirectory() {
+    return Optional.empty();
+  }
 }
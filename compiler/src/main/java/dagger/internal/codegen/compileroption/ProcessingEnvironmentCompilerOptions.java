@@ -32,7 +32,14 @@ import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompil
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.GENERATED_CLASS_EXTENDS_COMPONENT;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.IGNORE_PRIVATE_AND_STATIC_INJECTION_FOR_COMPONENT;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.INCLUDE_STACKTRACE_WITH_DEFERRED_ERROR_MESSAGES;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.LAZY_COMPONENT_SHARDS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.LAZY_MULTIBOUND_MAPS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.LOCK_FREE_SCOPED_PROVIDERS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PARALLEL_SOURCE_RENDERING;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PLUGINS_VISIT_FULL_BINDING_GRAPHS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PRECOMPUTED_MULTIBINDINGS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PROCESSOR_INSTRUMENTATION;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.STARTUP_PROFILING;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.STRICT_MULTIBINDING_VALIDATION;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.STRICT_SUPERFICIAL_VALIDATION;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.VALIDATE_TRANSITIVE_COMPONENT_DEPENDENCIES;
@@ -63,6 +70,7 @@ import dagger.internal.codegen.xprocessing.XMessager;
 import dagger.internal.codegen.xprocessing.XProcessingEnv;
 import dagger.internal.codegen.xprocessing.XTypeElement;
 import jakarta.inject.Inject;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -76,6 +84,7 @@ import javax.tools.Diagnostic;
 public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions {
   // EnumOption<T> doesn't support integer inputs so just doing this as a 1-off for now.
   private static final String KEYS_PER_COMPONENT_SHARD = "dagger.keysPerComponentShard";
+  private static final String BINDING_GRAPH_CACHE_DIRECTORY = "dagger.bindingGraphCacheDirectory";
 
   private final XProcessingEnv processingEnv;
   private final XMessager messager;
@@ -227,6 +236,41 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
     return isEnabled(GENERATED_CLASS_EXTENDS_COMPONENT);
   }
 
+  @Override
+  public boolean processorInstrumentation() {
+    return isEnabled(PROCESSOR_INSTRUMENTATION);
+  }
+
+  @Override
+  public boolean lockFreeScopedProviders() {
+    return isEnabled(LOCK_FREE_SCOPED_PROVIDERS);
+  }
+
+  @Override
+  public boolean precomputedMultibindings() {
+    return isEnabled(PRECOMPUTED_MULTIBINDINGS);
+  }
+
+  @Override
+  public boolean parallelSourceRendering() {
+    return isEnabled(PARALLEL_SOURCE_RENDERING);
+  }
+
+  @Override
+  public boolean lazyComponentShards() {
+    return isEnabled(LAZY_COMPONENT_SHARDS);
+  }
+
+  @Override
+  public boolean startupProfiling() {
+    return isEnabled(STARTUP_PROFILING);
+  }
+
+  @Override
+  public boolean lazyMultiboundMaps() {
+    return isEnabled(LAZY_MULTIBOUND_MAPS);
+  }
+
   @Override
   public int keysPerComponentShard(XTypeElement component) {
     if (options.containsKey(KEYS_PER_COMPONENT_SHARD)) {
@@ -238,6 +282,21 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
     return super.keysPerComponentShard(component);
   }
 
+  @Override
+  public Optional<Path> bindingGraphCacheDirectory() {
+    return bindingGraphCacheDirectory(options);
+  }
+
+  /**
+   * Returns the {@code #bindingGraphCacheDirectory()} of the processor {@code options}, for the
+   * bindings that the compiler options depend on.
+   */
+  public static Optional<Path> bindingGraphCacheDirectory(Map<String, String> options) {
+    return Optional.ofNullable(options.get(BINDING_GRAPH_CACHE_DIRECTORY))
+        .filter(directory -> !directory.isEmpty())
+        .map(Path::of);
+  }
+
   private boolean isEnabled(KeyOnlyOption keyOnlyOption) {
     return options.containsKey(keyOnlyOption.toString());
   }
@@ -353,7 +412,21 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
 
     GENERATED_CLASS_EXTENDS_COMPONENT,
 
-    VALIDATE_TRANSITIVE_COMPONENT_DEPENDENCIES(ENABLED)
+    VALIDATE_TRANSITIVE_COMPONENT_DEPENDENCIES(ENABLED),
+
+    PROCESSOR_INSTRUMENTATION,
+
+    LOCK_FREE_SCOPED_PROVIDERS,
+
+    PRECOMPUTED_MULTIBINDINGS,
+
+    PARALLEL_SOURCE_RENDERING,
+
+    LAZY_COMPONENT_SHARDS,
+
+    STARTUP_PROFILING,
+
+    LAZY_MULTIBOUND_MAPS,
     ;
 
     final FeatureStatus defaultValue;
@@ -456,6 +529,7 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
             .flatMap(CommandLineOption::allNames)
             .collect(toImmutableSet()))
         .add(KEYS_PER_COMPONENT_SHARD)
+        .add(BINDING_GRAPH_CACHE_DIRECTORY)
         .build();
   }
 
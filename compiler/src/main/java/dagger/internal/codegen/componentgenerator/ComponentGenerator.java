@@ -16,8 +16,10 @@
 
 package dagger.internal.codegen.componentgenerator;
 
+import dagger.internal.codegen.base.SourceFileGenerationException;
 import dagger.internal.codegen.base.SourceFileGenerator;
 import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.BindingGraphCache;
 import dagger.internal.codegen.collect.ImmutableList;
 import dagger.internal.codegen.writing.ComponentImplementation;
 import dagger.internal.codegen.xprocessing.XElement;
@@ -30,14 +32,17 @@ import java.util.Optional;
 /** Generates the implementation of the abstract types annotated with {@code Component}. */
 final class ComponentGenerator extends SourceFileGenerator<BindingGraph> {
   private final TopLevelImplementationComponent.Factory topLevelImplementationComponentFactory;
+  private final BindingGraphCache bindingGraphCache;
 
   @Inject
   ComponentGenerator(
       XFiler filer,
       XProcessingEnv processingEnv,
-      TopLevelImplementationComponent.Factory topLevelImplementationComponentFactory) {
+      TopLevelImplementationComponent.Factory topLevelImplementationComponentFactory,
+      BindingGraphCache bindingGraphCache) {
     super(filer, processingEnv);
     this.topLevelImplementationComponentFactory = topLevelImplementationComponentFactory;
+    this.bindingGraphCache = bindingGraphCache;
   }
 
   @Override
@@ -45,6 +50,20 @@ final class ComponentGenerator extends SourceFileGenerator<BindingGraph> {
     return input.componentTypeElement();
   }
 
+  @Override
+  public void generate(BindingGraph bindingGraph) throws SourceFileGenerationException {
+    if (!bindingGraphCache.isEnabled()) {
+      super.generate(bindingGraph);
+      return;
+    }
+    for (TypeSpec.Builder type : topLevelTypes(bindingGraph)) {
+      write(
+          bindingGraph,
+          type,
+          javaFile -> bindingGraphCache.writeAndStore(bindingGraph, javaFile, javaFile::writeTo));
+    }
+  }
+
   @Override
   public ImmutableList<TypeSpec.Builder> topLevelTypes(BindingGraph bindingGraph) {
     ComponentImplementation componentImplementation =
@@ -57,6 +57,9 @@ public final class TypeNames {
   public static final ClassName FACTORY = ClassName.get("dagger.internal", "Factory");
   public static final ClassName INJECTED_FIELD_SIGNATURE =
       ClassName.get("dagger.internal", "InjectedFieldSignature");
+  public static final ClassName LOCK_FREE_CHECK =
+      ClassName.get("dagger.internal", "LockFreeCheck");
+  public static final ClassName LAZY_MAP_VIEW = ClassName.get("dagger.internal", "LazyMapView");
   public static final ClassName INSTANCE_FACTORY =
       ClassName.get("dagger.internal", "InstanceFactory");
   public static final ClassName MAP_FACTORY = ClassName.get("dagger.internal", "MapFactory");
@@ -73,6 +76,8 @@ public final class TypeNames {
       ClassName.get("dagger.internal", "QualifierMetadata");
   public static final ClassName SET_FACTORY = ClassName.get("dagger.internal", "SetFactory");
   public static final ClassName SINGLE_CHECK = ClassName.get("dagger.internal", "SingleCheck");
+  public static final ClassName STARTUP_PROFILER =
+      ClassName.get("dagger.internal", "StartupProfiler");
   public static final ClassName LAZY = ClassName.get("dagger", "Lazy");
 
   // Dagger Producers classnames
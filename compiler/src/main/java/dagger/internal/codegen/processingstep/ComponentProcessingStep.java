@@ -23,8 +23,10 @@ import static dagger.internal.codegen.base.ComponentCreatorAnnotation.allCreator
 import static dagger.internal.codegen.collect.Sets.union;
 import static java.util.Collections.disjoint;
 
+import dagger.internal.codegen.base.ProcessorInstrumentation;
 import dagger.internal.codegen.base.SourceFileGenerator;
 import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.BindingGraphCache;
 import dagger.internal.codegen.binding.BindingGraphFactory;
 import dagger.internal.codegen.binding.ComponentDescriptor;
 import dagger.internal.codegen.binding.ComponentDescriptorFactory;
@@ -51,8 +53,10 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
   private final ComponentDescriptorValidator componentDescriptorValidator;
   private final ComponentDescriptorFactory componentDescriptorFactory;
   private final BindingGraphFactory bindingGraphFactory;
+  private final BindingGraphCache bindingGraphCache;
   private final SourceFileGenerator<BindingGraph> componentGenerator;
   private final BindingGraphValidator bindingGraphValidator;
+  private final ProcessorInstrumentation instrumentation;
 
   @Inject
   ComponentProcessingStep(
@@ -62,16 +66,20 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
       ComponentDescriptorValidator componentDescriptorValidator,
       ComponentDescriptorFactory componentDescriptorFactory,
       BindingGraphFactory bindingGraphFactory,
+      BindingGraphCache bindingGraphCache,
       SourceFileGenerator<BindingGraph> componentGenerator,
-      BindingGraphValidator bindingGraphValidator) {
+      BindingGraphValidator bindingGraphValidator,
+      ProcessorInstrumentation instrumentation) {
     this.messager = messager;
     this.componentValidator = componentValidator;
     this.creatorValidator = creatorValidator;
     this.componentDescriptorValidator = componentDescriptorValidator;
     this.componentDescriptorFactory = componentDescriptorFactory;
     this.bindingGraphFactory = bindingGraphFactory;
+    this.bindingGraphCache = bindingGraphCache;
     this.componentGenerator = componentGenerator;
     this.bindingGraphValidator = bindingGraphValidator;
+    this.instrumentation = instrumentation;
   }
 
   @Override
@@ -104,10 +112,17 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
     if (!validateFullBindingGraph(componentDescriptor)) {
       return;
     }
-    BindingGraph bindingGraph = bindingGraphFactory.create(componentDescriptor, false);
-    if (bindingGraphValidator.isValid(bindingGraph.topLevelBindingGraph())) {
-      generateComponent(bindingGraph);
+    if (bindingGraphCache.restore(componentDescriptor)) {
+      return;
     }
+    bindingGraphCache.record(
+        componentDescriptor,
+        () -> {
+          BindingGraph bindingGraph = bindingGraphFactory.create(componentDescriptor, false);
+          if (bindingGraphValidator.isValid(bindingGraph.topLevelBindingGraph())) {
+            generateComponent(bindingGraph);
+          }
+        });
   }
 
   private void processSubcomponent(XTypeElement subcomponent) {
@@ -121,7 +136,10 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
   }
 
   private void generateComponent(BindingGraph bindingGraph) {
-    componentGenerator.generate(bindingGraph, messager);
+    instrumentation.time(
+        bindingGraph.componentTypeElement(),
+        "ComponentGenerator",
+        () -> componentGenerator.generate(bindingGraph, messager));
   }
 
   private void processCreator(XTypeElement creator) {
@@ -57,4 +57,8 @@ public interface ProcessingStepsModule {
   @Binds
   @IntoSet
   ClearableCache superficialValidator(SuperficialValidator cache);
+
+  @Binds
+  @IntoSet
+  ClearableCache roundTypes(RoundTypes cache);
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.processingstep;
+
+import static io.jbock.auto.common.MoreElements.asType;
+import static io.jbock.auto.common.MoreElements.isType;
+import static javax.lang.model.util.ElementFilter.typesIn;
+
+import dagger.internal.codegen.base.ClearableCache;
+import dagger.internal.codegen.xprocessing.XRoundEnv;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.HashSet;
+import java.util.Set;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The types that are new in the current processing round: the sources in the first round, and the
+ * types generated in the previous round in later rounds.
+ *
+ * <p>The types are only known if the round was {@linkplain #startRound started}. The cache is
+ * cleared at the end of each round, so a processor that doesn't start the next round sees every
+ * simple name as new.
+ */
+@Singleton
+public final class RoundTypes implements ClearableCache {
+  /** The current round, or {@code null} if the round wasn't started. */
+  private XRoundEnv round;
+  private Set<String> simpleNames;
+
+  @Inject
+  RoundTypes() {}
+
+  /**
+   * Starts tracking the types of {@code round}. The root elements of the round are only read when a
+   * simple name is first {@linkplain #containsSimpleName looked up}.
+   */
+  public void startRound(XRoundEnv round) {
+    this.round = round;
+    simpleNames = null;
+  }
+
+  /**
+   * Returns {@code true} if a new type, or a type nested in one, has the simple name {@code
+   * simpleName}, or if the types of the current round are not known.
+   */
+  boolean containsSimpleName(String simpleName) {
+    if (round == null) {
+      return true;
+    }
+    if (simpleNames == null) {
+      simpleNames = new HashSet<>();
+      // The root elements also include packages and modules, from package-info and module-info
+      // sources, which have no types to add.
+      for (Element rootElement : round.toJavac().getRootElements()) {
+        if (isType(rootElement)) {
+          addSimpleNames(asType(rootElement));
+        }
+      }
+    }
+    return simpleNames.contains(simpleName);
+  }
+
+  @Override
+  public void clearCache() {
+    round = null;
+    simpleNames = null;
+  }
+
+  private void addSimpleNames(TypeElement type) {
+    simpleNames.add(type.getSimpleName().toString());
+    typesIn(type.getEnclosedElements()).forEach(this::addSimpleNames);
+  }
+}
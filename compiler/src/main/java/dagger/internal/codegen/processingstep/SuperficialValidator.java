@@ -21,32 +21,45 @@ import static dagger.internal.codegen.xprocessing.XElements.closestEnclosingType
 import dagger.internal.codegen.base.ClearableCache;
 import dagger.internal.codegen.base.DaggerSuperficialValidation;
 import dagger.internal.codegen.base.DaggerSuperficialValidation.ValidationException;
+import dagger.internal.codegen.base.ProcessorInstrumentation;
+import dagger.internal.codegen.cache.CacheBuilder;
+import dagger.internal.codegen.cache.CacheLoader;
+import dagger.internal.codegen.cache.LoadingCache;
 import dagger.internal.codegen.xprocessing.XElement;
 import dagger.internal.codegen.xprocessing.XTypeElement;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 
-/** Validates enclosing type elements in a round. */
+/**
+ * Validates enclosing type elements in a round.
+ *
+ * <p>The result for each type, including the exception with the trace to the invalid type, is
+ * cached until the end of the round and shared by all processing steps. Its statistics are recorded
+ * in {@code ProcessorInstrumentation#cacheStatsCounter(String)} as {@code SuperficialValidator}.
+ */
 @Singleton
 public final class SuperficialValidator implements ClearableCache {
 
   private final DaggerSuperficialValidation superficialValidation;
-  private final Map<XTypeElement, Optional<ValidationException>> validationExceptions =
-      new HashMap<>();
+  private final ProcessorInstrumentation instrumentation;
+  private final LoadingCache<XTypeElement, Optional<ValidationException>> validationExceptions;
 
   @Inject
-  SuperficialValidator(DaggerSuperficialValidation superficialValidation) {
+  SuperficialValidator(
+      DaggerSuperficialValidation superficialValidation,
+      ProcessorInstrumentation instrumentation) {
     this.superficialValidation = superficialValidation;
+    this.instrumentation = instrumentation;
+    this.validationExceptions =
+        CacheBuilder.newBuilder()
+            .recordStats(instrumentation.cacheStatsCounter("SuperficialValidator"))
+            .build(CacheLoader.from(this::validationExceptionsUncached));
   }
 
   public void throwIfNearestEnclosingTypeNotValid(XElement element) {
     Optional<ValidationException> validationException =
-        validationExceptions.computeIfAbsent(
-            closestEnclosingTypeElement(element),
-            this::validationExceptionsUncached);
+        validationExceptions.get(closestEnclosingTypeElement(element));
 
     if (validationException.isPresent()) {
       throw validationException.get();
@@ -54,6 +67,24 @@ public final class SuperficialValidator implements ClearableCache {
   }
 
   private Optional<ValidationException> validationExceptionsUncached(XTypeElement element) {
+    // Validating a type also validates everything it encloses, including nested types, so a type
+    // enclosed by a type that is already known to be valid doesn't need to be walked again.
+    for (XTypeElement enclosing = element.getEnclosingTypeElement();
+        enclosing != null;
+        enclosing = enclosing.getEnclosingTypeElement()) {
+      Optional<ValidationException> enclosingValidation =
+          validationExceptions.getIfPresent(enclosing);
+      if (enclosingValidation != null && enclosingValidation.isEmpty()) {
+        return Optional.empty();
+      }
+    }
+    return instrumentation.time(
+        element.getQualifiedName(),
+        "superficialValidation",
+        () -> validationExceptionsUninstrumented(element));
+  }
+
+  private Optional<ValidationException> validationExceptionsUninstrumented(XTypeElement element) {
     try {
       superficialValidation.validateElement(element);
     } catch (ValidationException validationException) {
@@ -64,6 +95,6 @@ public final class SuperficialValidator implements ClearableCache {
 
   @Override
   public void clearCache() {
-    validationExceptions.clear();
+    validationExceptions.invalidateAll();
   }
 }
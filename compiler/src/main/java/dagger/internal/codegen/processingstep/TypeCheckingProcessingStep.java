@@ -24,6 +24,7 @@ import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
 import static javax.tools.Diagnostic.Kind.ERROR;
 
 import dagger.internal.codegen.base.DaggerSuperficialValidation.ValidationException;
+import dagger.internal.codegen.base.ProcessorInstrumentation;
 import dagger.internal.codegen.collect.ImmutableMap;
 import dagger.internal.codegen.collect.ImmutableSet;
 import dagger.internal.codegen.collect.ImmutableSetMultimap;
@@ -35,21 +36,35 @@ import dagger.internal.codegen.xprocessing.XProcessingEnv;
 import dagger.internal.codegen.xprocessing.XProcessingStep;
 import io.jbock.javapoet.ClassName;
 import jakarta.inject.Inject;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 
 /**
  * A {@code XProcessingStep} that processes one element at a time and defers any for which {@code
  * TypeNotPresentException} is thrown.
+ *
+ * <p>A deferred element that was blocked by a missing type is only processed again in a later round
+ * once a type with the same simple name is new in that round. Until then, it stays deferred with
+ * the same error message.
  */
 public abstract class TypeCheckingProcessingStep<E extends XElement> implements XProcessingStep {
 
-  private final List<String> lastDeferredErrorMessages = new ArrayList<>();
+  /**
+   * The elements deferred in the last round in which this step processed elements, by {@code
+   * #elementKey(XElement)}. Only the deferred error messages from the final round of processing
+   * are reported.
+   */
+  private Map<String, DeferredElement> deferredElements = new LinkedHashMap<>();
   @Inject XMessager messager;
   @Inject CompilerOptions compilerOptions;
   @Inject SuperficialValidator superficialValidator;
+  @Inject ProcessorInstrumentation instrumentation;
+  @Inject RoundTypes roundTypes;
 
   @Override
   public final ImmutableSet<String> annotations() {
@@ -60,41 +75,117 @@ public abstract class TypeCheckingProcessingStep<E extends XElement> implements
   @Override
   public ImmutableSet<XElement> process(
       XProcessingEnv env, Map<String, ? extends Set<? extends XElement>> elementsByAnnotation) {
-    // We only really care about the deferred error messages from the final round of processing.
-    // Thus, we can clear the values stored from the previous processing round since that clearly
-    // wasn't the final round, and we replace it with any deferred error messages from this round.
-    lastDeferredErrorMessages.clear();
-    ImmutableSet.Builder<XElement> deferredElements = ImmutableSet.builder();
-    inverse(elementsByAnnotation)
-        .forEach(
-            (element, annotations) -> {
-              try {
-                // The XBasicAnnotationProcessor only validates the element itself. However, we
-                // validate the enclosing type here to keep the previous behavior of
-                // BasicAnnotationProcessor, since Dagger still relies on this behavior.
-                // TODO(b/201479062): It's inefficient to require validation of the entire enclosing
-                //  type, we should try to remove this and handle any additional validation into the
-                //  steps that need it.
-                superficialValidator.throwIfNearestEnclosingTypeNotValid(element);
-                process((E) element, annotations);
-              } catch (TypeNotPresentException e) {
-                // TODO(bcorso): We should be able to remove this once we replace all calls to
-                // SuperficialValidation with DaggerSuperficialValidation.
-                deferredElements.add(element);
-                cacheErrorMessage(typeNotPresentErrorMessage(element, e), e);
-              } catch (ValidationException.UnexpectedException unexpectedException) {
-                // Rethrow since the exception was created from an unexpected throwable so
-                // deferring to another round is unlikely to help.
-                throw unexpectedException;
-              } catch (ValidationException.KnownErrorType e) {
-                deferredElements.add(element);
-                cacheErrorMessage(knownErrorTypeErrorMessage(element, e), e);
-              } catch (ValidationException.UnknownErrorType e) {
-                deferredElements.add(element);
-                cacheErrorMessage(unknownErrorTypeErrorMessage(element, e), e);
-              }
-            });
-    return deferredElements.build();
+    Map<String, DeferredElement> previouslyDeferredElements = deferredElements;
+    deferredElements = new LinkedHashMap<>();
+    ImmutableSet.Builder<XElement> deferred = ImmutableSet.builder();
+    long skippedRetries = 0;
+    for (Map.Entry<XElement, ImmutableSet<ClassName>> entry :
+        inverse(elementsByAnnotation).entrySet()) {
+      XElement element = entry.getKey();
+      ImmutableSet<ClassName> annotations = entry.getValue();
+      String elementKey = elementKey(element);
+      DeferredElement previouslyDeferred = previouslyDeferredElements.get(elementKey);
+      if (previouslyDeferred != null && !previouslyDeferred.mayBeResolved()) {
+        deferred.add(element);
+        deferredElements.put(elementKey, previouslyDeferred);
+        skippedRetries++;
+        continue;
+      }
+      processOrDefer(
+          element,
+          deferred,
+          () -> {
+            // The XBasicAnnotationProcessor only validates the element itself. However, we
+            // validate the enclosing type here to keep the previous behavior of
+            // BasicAnnotationProcessor, since Dagger still relies on this behavior.
+            // TODO(b/201479062): It's inefficient to require validation of the entire enclosing
+            //  type, we should try to remove this and handle any additional validation into the
+            //  steps that need it.
+            superficialValidator.throwIfNearestEnclosingTypeNotValid(element);
+            instrumentation.time(
+                element, getClass().getSimpleName(), () -> process((E) element, annotations));
+          });
+    }
+    if (skippedRetries > 0) {
+      instrumentation.count(getClass().getSimpleName() + ".skippedRetries", skippedRetries);
+    }
+    return deferred.build();
+  }
+
+  private void processOrDefer(
+      XElement element, ImmutableSet.Builder<XElement> deferred, Runnable work) {
+    try {
+      work.run();
+    } catch (TypeNotPresentException e) {
+      // TODO(bcorso): We should be able to remove this once we replace all calls to
+      // SuperficialValidation with DaggerSuperficialValidation.
+      defer(element, deferred, Optional.of(e.typeName()), typeNotPresentErrorMessage(element, e), e);
+    } catch (ValidationException.UnexpectedException unexpectedException) {
+      // Rethrow since the exception was created from an unexpected throwable so
+      // deferring to another round is unlikely to help.
+      throw unexpectedException;
+    } catch (ValidationException.KnownErrorType e) {
+      defer(
+          element,
+          deferred,
+          Optional.of(e.getErrorTypeName()),
+          knownErrorTypeErrorMessage(element, e),
+          e);
+    } catch (ValidationException.UnknownErrorType e) {
+      defer(element, deferred, Optional.empty(), unknownErrorTypeErrorMessage(element, e), e);
+    }
+  }
+
+  private void defer(
+      XElement element,
+      ImmutableSet.Builder<XElement> deferred,
+      Optional<String> missingTypeName,
+      String errorMessage,
+      Exception exception) {
+    deferred.add(element);
+    deferredElements.put(
+        elementKey(element),
+        new DeferredElement(
+            missingTypeName.flatMap(TypeCheckingProcessingStep::simpleName),
+            compilerOptions.includeStacktraceWithDeferredErrorMessages()
+                ? String.format("%s\n\n%s", errorMessage, getStackTraceAsString(exception))
+                : errorMessage));
+  }
+
+  /** Returns a name for {@code element} that is the same in every round. */
+  private static String elementKey(XElement element) {
+    StringBuilder key = new StringBuilder();
+    for (Element e = element.toJavac();
+        e != null && e.getKind() != ElementKind.PACKAGE;
+        e = e.getEnclosingElement()) {
+      key.insert(0, e).insert(0, '/');
+    }
+    return key.toString();
+  }
+
+  /** Returns the simple name in {@code typeName}, unless it isn't the name of a type. */
+  private static Optional<String> simpleName(String typeName) {
+    int typeArguments = typeName.indexOf('<');
+    String rawTypeName = typeArguments < 0 ? typeName : typeName.substring(0, typeArguments);
+    String simpleName = rawTypeName.substring(rawTypeName.lastIndexOf('.') + 1);
+    return SourceVersion.isIdentifier(simpleName) ? Optional.of(simpleName) : Optional.empty();
+  }
+
+  /** An element that was deferred, and why. */
+  private final class DeferredElement {
+    /** The simple name of the missing type that blocked the element, if known. */
+    private final Optional<String> missingTypeSimpleName;
+    private final String errorMessage;
+
+    DeferredElement(Optional<String> missingTypeSimpleName, String errorMessage) {
+      this.missingTypeSimpleName = missingTypeSimpleName;
+      this.errorMessage = errorMessage;
+    }
+
+    /** Returns {@code true} if processing the element again in this round may succeed. */
+    boolean mayBeResolved() {
+      return missingTypeSimpleName.map(roundTypes::containsSimpleName).orElse(true);
+    }
   }
 
   @Override
@@ -102,15 +193,10 @@ public abstract class TypeCheckingProcessingStep<E extends XElement> implements
       XProcessingEnv env, Map<String, ? extends Set<? extends XElement>> elementsByAnnotation) {
     // We avoid doing any actual processing here since this is run in the same round as the last
     // call to process(). Instead, we just report the last deferred error messages, if any.
-    lastDeferredErrorMessages.forEach(errorMessage -> messager.printMessage(ERROR, errorMessage));
-    lastDeferredErrorMessages.clear();
-  }
-
-  private void cacheErrorMessage(String errorMessage, Exception exception) {
-    lastDeferredErrorMessages.add(
-        compilerOptions.includeStacktraceWithDeferredErrorMessages()
-            ? String.format("%s\n\n%s", errorMessage, getStackTraceAsString(exception))
-            : errorMessage);
+    deferredElements
+        .values()
+        .forEach(deferredElement -> messager.printMessage(ERROR, deferredElement.errorMessage));
+    deferredElements.clear();
   }
 
   private String typeNotPresentErrorMessage(XElement element, TypeNotPresentException exception) {
@@ -40,9 +40,11 @@ import static java.util.Comparator.comparingInt;
 
 import dagger.internal.codegen.base.ElementFormatter;
 import dagger.internal.codegen.base.Formatter;
+import dagger.internal.codegen.base.ProcessorInstrumentation;
 import dagger.internal.codegen.binding.DependencyRequestFormatter;
 import dagger.internal.codegen.cache.CacheBuilder;
 import dagger.internal.codegen.cache.CacheLoader;
+import dagger.internal.codegen.cache.StatsCounter;
 import dagger.internal.codegen.collect.HashBasedTable;
 import dagger.internal.codegen.collect.ImmutableList;
 import dagger.internal.codegen.collect.ImmutableSet;
@@ -67,23 +69,30 @@ import java.util.function.Function;
 
 /** Helper class for generating diagnostic messages. */
 public final class DiagnosticMessageGenerator {
+  /** The most supertype hierarchies that one generator keeps in memory. */
+  private static final int MAXIMUM_CACHED_SUPERTYPES = 1_000;
 
   /** Injectable factory for {@code DiagnosticMessageGenerator}. */
   public static final class Factory {
     private final DependencyRequestFormatter dependencyRequestFormatter;
     private final ElementFormatter elementFormatter;
+    private final StatsCounter supertypesStats;
 
     @Inject
     Factory(
         DependencyRequestFormatter dependencyRequestFormatter,
-        ElementFormatter elementFormatter) {
+        ElementFormatter elementFormatter,
+        ProcessorInstrumentation instrumentation) {
       this.dependencyRequestFormatter = dependencyRequestFormatter;
       this.elementFormatter = elementFormatter;
+      this.supertypesStats =
+          instrumentation.cacheStatsCounter("DiagnosticMessageGenerator.supertypes");
     }
 
     /** Creates a {@code DiagnosticMessageGenerator} for the given binding graph. */
     public DiagnosticMessageGenerator create(BindingGraph graph) {
-      return new DiagnosticMessageGenerator(graph, dependencyRequestFormatter, elementFormatter);
+      return new DiagnosticMessageGenerator(
+          graph, dependencyRequestFormatter, elementFormatter, supertypesStats);
     }
   }
 
@@ -98,24 +107,32 @@ public final class DiagnosticMessageGenerator {
   private final Table<MaybeBinding, DependencyEdge, ImmutableList<Node>> shortestPaths =
       HashBasedTable.create();
 
-  private static <K, V> Function<K, V> memoize(Function<K, V> uncached) {
+  private static <K, V> Function<K, V> memoize(
+      Function<K, V> uncached, StatsCounter statsCounter) {
     // If Android Guava is on the processor path, then c.g.c.b.Function (which LoadingCache
     // implements) does not extend j.u.f.Function.
     // TODO(erichang): Fix current breakages and try to remove this to enforce not having this on
     // processor path.
 
-    return CacheBuilder.newBuilder().build(CacheLoader.from(uncached));
+    return CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_CACHED_SUPERTYPES)
+        .softValues()
+        .recordStats(statsCounter)
+        .build(CacheLoader.from(uncached));
   }
 
   private DiagnosticMessageGenerator(
       BindingGraph graph,
       DependencyRequestFormatter dependencyRequestFormatter,
-      ElementFormatter elementFormatter) {
+      ElementFormatter elementFormatter,
+      StatsCounter supertypesStats) {
     this.graph = graph;
     this.dependencyRequestFormatter = dependencyRequestFormatter;
     this.elementFormatter = elementFormatter;
     supertypes =
-        memoize(component -> transform(component.getType().getSuperTypes(), XType::getTypeElement));
+        memoize(
+            component -> transform(component.getType().getSuperTypes(), XType::getTypeElement),
+            supertypesStats);
   }
 
   public String getMessage(MaybeBinding binding) {
@@ -286,9 +303,7 @@ public final class DiagnosticMessageGenerator {
     dependencyTrace.add(entryPointForTrace);
     for (int i = 0; i < shortestBindingPath.size() - 1; i++) {
       Set<Edge> dependenciesBetween =
-          graph
-              .network()
-              .edgesConnecting(shortestBindingPath.get(i), shortestBindingPath.get(i + 1));
+          graph.edgesConnecting(shortestBindingPath.get(i), shortestBindingPath.get(i + 1));
       // If a binding requests a key more than once, any of them should be fine to get to the
       // shortest path
       dependencyTrace.add((DependencyEdge) Iterables.get(dependenciesBetween, 0));
@@ -298,7 +313,7 @@ public final class DiagnosticMessageGenerator {
 
   /** Returns all the nonsynthetic dependency requests for a binding. */
   public ImmutableSet<DependencyEdge> requests(MaybeBinding binding) {
-    return graph.network().inEdges(binding).stream()
+    return graph.inEdges(binding).stream()
         .flatMap(instancesOf(DependencyEdge.class))
         .filter(edge -> edge.dependencyRequest().requestElement().isPresent())
         .sorted(requestEnclosingTypeName().thenComparing(requestElementDeclarationOrder()))
@@ -330,8 +345,8 @@ public final class DiagnosticMessageGenerator {
             ep ->
                 shortestPath(
                     node ->
-                        filter(graph.network().successors(node), MaybeBinding.class::isInstance),
-                    graph.network().incidentNodes(ep).target(),
+                        filter(graph.successors(node), MaybeBinding.class::isInstance),
+                    graph.incidentNodes(ep).target(),
                     binding));
   }
 
@@ -400,6 +415,6 @@ public final class DiagnosticMessageGenerator {
   }
 
   private Node source(Edge edge) {
-    return graph.network().incidentNodes(edge).source();
+    return graph.incidentNodes(edge).source();
   }
 }
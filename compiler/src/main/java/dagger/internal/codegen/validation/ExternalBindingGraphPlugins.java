@@ -17,8 +17,10 @@
 package dagger.internal.codegen.validation;
 
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
+import static dagger.internal.codegen.validation.ValidationBindingGraphPlugins.pluginPhase;
 import static javax.tools.Diagnostic.Kind.ERROR;
 
+import dagger.internal.codegen.base.ProcessorInstrumentation;
 import dagger.internal.codegen.collect.ImmutableSet;
 import dagger.internal.codegen.compileroption.ProcessingOptions;
 import dagger.internal.codegen.validation.DiagnosticReporterFactory.DiagnosticReporterImpl;
@@ -36,6 +38,7 @@ public final class ExternalBindingGraphPlugins {
   private final XFiler filer;
   private final XProcessingEnv processingEnv;
   private final Map<String, String> processingOptions;
+  private final ProcessorInstrumentation instrumentation;
 
   @Inject
   ExternalBindingGraphPlugins(
@@ -43,12 +46,14 @@ public final class ExternalBindingGraphPlugins {
       DiagnosticReporterFactory diagnosticReporterFactory,
       XFiler filer,
       XProcessingEnv processingEnv,
-      @ProcessingOptions Map<String, String> processingOptions) {
+      @ProcessingOptions Map<String, String> processingOptions,
+      ProcessorInstrumentation instrumentation) {
     this.plugins = plugins;
     this.diagnosticReporterFactory = diagnosticReporterFactory;
     this.filer = filer;
     this.processingEnv = processingEnv;
     this.processingOptions = processingOptions;
+    this.instrumentation = instrumentation;
   }
 
   /** Returns {@code BindingGraphPlugin#supportedOptions()} from all the plugins. */
@@ -79,7 +84,10 @@ public final class ExternalBindingGraphPlugins {
       DiagnosticReporterImpl spiReporter =
           diagnosticReporterFactory.reporter(
               graph, plugin.pluginName(), /* reportErrorsAsWarnings= */ false);
-      plugin.visitGraph(graph, spiReporter);
+      instrumentation.time(
+          graph.rootComponentNode().componentPath().currentComponent().xprocessing(),
+          pluginPhase(plugin, graph),
+          () -> plugin.visitGraph(graph, spiReporter));
       if (spiReporter.reportedDiagnosticKinds().contains(ERROR)) {
         isClean = false;
       }
@@ -294,6 +294,12 @@ final class InjectBindingRegistryImpl implements InjectBindingRegistry {
         asTypeElement(methodElement.getEnclosingElement()), Optional.empty(), false);
   }
 
+  @Override
+  public Optional<MembersInjectionBinding> tryRegisterMembersInjectedType(
+      XTypeElement typeElement) {
+    return tryRegisterMembersInjectedType(typeElement, Optional.empty(), false);
+  }
+
   private Optional<MembersInjectionBinding> tryRegisterMembersInjectedType(
       XTypeElement typeElement, Optional<XType> resolvedType, boolean warnIfNotAlreadyGenerated) {
     // Validating here shouldn't have a performance penalty because the validator caches its reports
@@ -19,6 +19,7 @@ package dagger.internal.codegen.validation;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
 import static javax.tools.Diagnostic.Kind.ERROR;
 
+import dagger.internal.codegen.base.ProcessorInstrumentation;
 import dagger.internal.codegen.collect.ImmutableMap;
 import dagger.internal.codegen.collect.ImmutableSet;
 import dagger.internal.codegen.collect.Maps;
@@ -41,6 +42,7 @@ public final class ValidationBindingGraphPlugins {
   private final XProcessingEnv processingEnv;
   private final CompilerOptions compilerOptions;
   private final Map<String, String> processingOptions;
+  private final ProcessorInstrumentation instrumentation;
 
   @Inject
   ValidationBindingGraphPlugins(
@@ -48,12 +50,14 @@ public final class ValidationBindingGraphPlugins {
       DiagnosticReporterFactory diagnosticReporterFactory,
       XProcessingEnv processingEnv,
       CompilerOptions compilerOptions,
-      @ProcessingOptions Map<String, String> processingOptions) {
+      @ProcessingOptions Map<String, String> processingOptions,
+      ProcessorInstrumentation instrumentation) {
     this.plugins = plugins;
     this.diagnosticReporterFactory = diagnosticReporterFactory;
     this.processingEnv = processingEnv;
     this.compilerOptions = compilerOptions;
     this.processingOptions = processingOptions;
+    this.instrumentation = instrumentation;
   }
 
   /** Returns {@code BindingGraphPlugin#supportedOptions()} from all the plugins. */
@@ -88,7 +92,10 @@ public final class ValidationBindingGraphPlugins {
     for (BindingGraphPlugin plugin : plugins) {
       DiagnosticReporterImpl reporter =
           diagnosticReporterFactory.reporter(graph, plugin.pluginName(), errorsAsWarnings);
-      plugin.visitGraph(graph, reporter);
+      instrumentation.time(
+          graph.rootComponentNode().componentPath().currentComponent().xprocessing(),
+          pluginPhase(plugin, graph),
+          () -> plugin.visitGraph(graph, reporter));
       if (reporter.reportedDiagnosticKinds().contains(ERROR)) {
         isClean = false;
       }
@@ -96,6 +103,11 @@ public final class ValidationBindingGraphPlugins {
     return isClean;
   }
 
+  /** Returns the name of the phase in which {@code plugin} visits {@code graph}. */
+  static String pluginPhase(BindingGraphPlugin plugin, BindingGraph graph) {
+    return "plugin:" + plugin.pluginName() + (graph.isFullBindingGraph() ? "(full)" : "");
+  }
+
   public void endPlugins() {
     plugins.forEach(BindingGraphPlugin::onPluginEnd);
   }
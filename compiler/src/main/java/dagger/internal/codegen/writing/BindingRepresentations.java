@@ -16,22 +16,26 @@
 
 package dagger.internal.codegen.writing;
 
-import static dagger.internal.codegen.javapoet.TypeNames.DOUBLE_CHECK;
-import static dagger.internal.codegen.javapoet.TypeNames.SINGLE_CHECK;
-
 import dagger.internal.codegen.binding.Binding;
+import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
 import io.jbock.javapoet.CodeBlock;
 
 /** Holds common methods for BindingRepresentations. */
 final class BindingRepresentations {
   static FrameworkInstanceCreationExpression scope(
-      Binding binding, FrameworkInstanceCreationExpression unscoped) {
+      ComponentImplementation componentImplementation,
+      Binding binding,
+      FrameworkInstanceCreationExpression unscoped) {
     return () ->
         CodeBlock.of(
             "$T.provider($L)",
-            binding.scope().get().isReusable() ? SINGLE_CHECK : DOUBLE_CHECK,
-            unscoped.creationExpression());
+            // Precomputed multibindings are unscoped, and memoized like @Reusable bindings.
+            binding.scope().isPresent()
+                ? componentImplementation.scopedProviderType(binding.scope().get())
+                : TypeNames.SINGLE_CHECK,
+            componentImplementation.startupProfiledProvider(
+                binding, unscoped.creationExpression()));
   }
 
   private BindingRepresentations() {}
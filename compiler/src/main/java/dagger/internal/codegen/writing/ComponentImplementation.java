@@ -40,15 +40,18 @@ import static javax.lang.model.element.Modifier.FINAL;
 import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
+import static javax.lang.model.element.Modifier.VOLATILE;
 import static javax.tools.Diagnostic.Kind.ERROR;
 
 import dagger.internal.Preconditions;
 import dagger.internal.codegen.base.ComponentCreatorKind;
+import dagger.internal.codegen.base.MapType;
 import dagger.internal.codegen.base.UniqueNameSet;
 import dagger.internal.codegen.binding.Binding;
 import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.binding.BindingNode;
 import dagger.internal.codegen.binding.BindingRequest;
+import dagger.internal.codegen.binding.BindingType;
 import dagger.internal.codegen.binding.ComponentCreatorDescriptor;
 import dagger.internal.codegen.binding.ComponentDescriptor;
 import dagger.internal.codegen.binding.ComponentDescriptor.ComponentMethodDescriptor;
@@ -78,6 +81,7 @@ import dagger.internal.codegen.xprocessing.XVariableElement;
 import dagger.spi.model.BindingGraph.Node;
 import dagger.spi.model.Key;
 import dagger.spi.model.RequestKind;
+import dagger.spi.model.Scope;
 import io.jbock.javapoet.ClassName;
 import io.jbock.javapoet.CodeBlock;
 import io.jbock.javapoet.FieldSpec;
@@ -152,6 +156,9 @@ public final class ComponentImplementation {
     /** An initialization method that initializes component requirements and framework types. */
     INITIALIZE_METHOD,
 
+    /** A method that creates a component shard the first time it's called. */
+    SHARD_ACCESSOR_METHOD,
+
     /** An implementation of a component interface method. */
     COMPONENT_METHOD,
 
@@ -252,6 +259,8 @@ public final class ComponentImplementation {
   private final ShardImplementation componentShard;
   private final Supplier<ImmutableMap<Binding, ShardImplementation>> shardsByBinding;
   private final Map<ShardImplementation, FieldSpec> shardFieldsByImplementation = new HashMap<>();
+  private final Map<ShardImplementation, String> shardAccessorNamesByImplementation =
+      new HashMap<>();
   private final List<CodeBlock> shardInitializations = new ArrayList<>();
   private final List<CodeBlock> shardCancellations = new ArrayList<>();
   private final Optional<ComponentImplementation> parent;
@@ -327,6 +336,45 @@ public final class ComponentImplementation {
     return shardsByBinding.get().get(binding);
   }
 
+  /**
+   * Returns {@code true} if the shards other than the component shard are created when they're
+   * first used, rather than in the component's constructor.
+   */
+  private boolean hasLazyShards() {
+    return compilerOptions.lazyComponentShards() && !graph.componentDescriptor().isProduction();
+  }
+
+  /**
+   * Returns {@code statement} wrapped in calls to {@code StartupProfiler} that report it as {@code
+   * section}, if {@code CompilerOptions#startupProfiling()} is enabled.
+   */
+  private CodeBlock startupProfiled(String section, CodeBlock statement) {
+    if (!compilerOptions.startupProfiling()) {
+      return CodeBlock.of("$L;\n", statement);
+    }
+    return CodeBlock.builder()
+        .addStatement("$T.enter($S)", TypeNames.STARTUP_PROFILER, section)
+        .beginControlFlow("try")
+        .addStatement("$L", statement)
+        .nextControlFlow("finally")
+        .addStatement("$T.exit($S)", TypeNames.STARTUP_PROFILER, section)
+        .endControlFlow()
+        .build();
+  }
+
+  /**
+   * Returns an expression for the provider that a scoped provider of {@code binding} delegates to.
+   * If {@code CompilerOptions#startupProfiling()} is enabled, the first {@code get()} of the scoped
+   * provider is reported as the creation of the binding's key.
+   */
+  public CodeBlock startupProfiledProvider(Binding binding, CodeBlock unscoped) {
+    if (!compilerOptions.startupProfiling()) {
+      return unscoped;
+    }
+    return CodeBlock.of(
+        "$T.provider($S, $L)", TypeNames.STARTUP_PROFILER, binding.key().toString(), unscoped);
+  }
+
   /** Returns the {@code GeneratedImplementation} for the top-level generated class. */
   private GeneratedImplementation topLevelImplementation() {
     return topLevelImplementationProvider.get();
@@ -415,6 +463,48 @@ public final class ComponentImplementation {
     return compilerMode;
   }
 
+  /**
+   * Returns the class whose {@code provider()} method memoizes the framework instances of bindings
+   * with the given scope.
+   */
+  public ClassName scopedProviderType(Scope scope) {
+    if (scope.isReusable()) {
+      return TypeNames.SINGLE_CHECK;
+    }
+    return compilerOptions.lockFreeScopedProviders()
+        ? TypeNames.LOCK_FREE_CHECK
+        : TypeNames.DOUBLE_CHECK;
+  }
+
+  /**
+   * Returns {@code true} if {@code binding} is a multibound set or map that is computed once and
+   * then memoized, because {@code CompilerOptions#precomputedMultibindings()} is enabled and all of
+   * its contributions are scoped.
+   *
+   * <p>Maps of {@code Provider}s are excluded since their factories don't allocate anyway.
+   */
+  public boolean isPrecomputedMultibinding(Binding binding) {
+    if (!compilerOptions.precomputedMultibindings()
+        || !binding.bindingType().equals(BindingType.PROVISION)
+        || binding.scope().isPresent()
+        || binding.dependencies().isEmpty()) {
+      return false;
+    }
+    switch (binding.kind()) {
+      case MULTIBOUND_SET:
+        break;
+      case MULTIBOUND_MAP:
+        if (MapType.from(binding.key()).valuesAreFrameworkType()) {
+          return false;
+        }
+        break;
+      default:
+        return false;
+    }
+    return binding.dependencies().stream()
+        .allMatch(dependency -> graph.contributionBinding(dependency.key()).scope().isPresent());
+  }
+
   /** Returns whether or not the implementation is nested within another class. */
   private boolean isNested() {
     return name().enclosingClassName() != null;
@@ -537,15 +627,33 @@ public final class ComponentImplementation {
         // Add the shard if this is the first time it's requested by something.
         String shardFieldName =
             componentShard.getUniqueFieldName(UPPER_CAMEL.to(LOWER_CAMEL, name.simpleName()));
-        FieldSpec shardField = FieldSpec.builder(name, shardFieldName, PRIVATE).build();
+        FieldSpec.Builder shardField;
+        if (hasLazyShards() && compilerOptions.lockFreeScopedProviders()) {
+          // The shard is created by a LockFreeCheck, which is created in the constructor.
+          shardField =
+              FieldSpec.builder(TypeNames.providerOf(name), shardFieldName, PRIVATE, FINAL);
+        } else {
+          shardField = FieldSpec.builder(name, shardFieldName, PRIVATE);
+        }
+        if (hasLazyShards()) {
+          if (!compilerOptions.lockFreeScopedProviders()) {
+            shardField.addModifiers(VOLATILE);
+          }
+          shardAccessorNamesByImplementation.put(
+              this, componentShard.getUniqueMethodName(shardFieldName));
+        }
 
-        shardFieldsByImplementation.put(this, shardField);
+        shardFieldsByImplementation.put(this, shardField.build());
       }
       // TODO(bcorso): This currently relies on all requesting classes having a reference to the
       // component with the same name, which is kind of sketchy. Try to think of a better way that
       // can accomodate the component missing in some classes if it's not used.
-      return isComponentShard()
-          ? componentFieldReference()
+      if (isComponentShard()) {
+        return componentFieldReference();
+      }
+      return hasLazyShards()
+          ? CodeBlock.of(
+              "$L.$N()", componentFieldReference(), shardAccessorNamesByImplementation.get(this))
           : CodeBlock.of("$L.$N", componentFieldReference(), shardFieldsByImplementation.get(this));
     }
 
@@ -926,6 +1034,15 @@ public final class ComponentImplementation {
         constructor.addCode(CodeBlocks.concat(componentRequirementInitializations));
       }
       constructor.addParameters(parameters);
+      if (isComponentShard() && hasLazyShards() && !shardFieldsByImplementation.isEmpty()) {
+        // The shards are created after the constructor returns, so they need the parameters too.
+        for (ParameterSpec parameter : parameters) {
+          addField(
+              FieldSpecKind.COMPONENT_REQUIREMENT_FIELD,
+              FieldSpec.builder(parameter.type, parameter.name, PRIVATE, FINAL).build());
+          constructor.addStatement("this.$1N = $1N", parameter);
+        }
+      }
 
       // TODO(cgdecker): It's not the case that each initialize() method has need for all of the
       // given parameters. In some cases, those parameters may have already been assigned to fields
@@ -955,7 +1072,10 @@ public final class ComponentImplementation {
                       .addAnnotation(suppressWarnings(UNCHECKED)));
 
       for (MethodSpec initializationMethod : initializationMethods) {
-        constructor.addStatement("$N($L)", initializationMethod, args);
+        constructor.addCode(
+            startupProfiled(
+                name.canonicalName() + "." + initializationMethod.name,
+                CodeBlock.of("$N($L)", initializationMethod, args)));
         addMethod(MethodSpecKind.INITIALIZE_METHOD, initializationMethod);
       }
 
@@ -969,15 +1089,66 @@ public final class ComponentImplementation {
             componentFieldsByImplementation().values().stream()
                 .map(field -> CodeBlock.of("$N", field))
                 .collect(CodeBlocks.toParametersCodeBlock());
-        shardInitializations.add(
-            CodeBlock.of(
-                "$N = new $T($L);",
-                shardFieldsByImplementation.get(this),
-                name,
-                componentArgs.isEmpty()
-                    ? componentFields
-                    : CodeBlocks.makeParametersCodeBlock(
-                        ImmutableList.of(componentFields, componentArgs))));
+        CodeBlock shardArgs =
+            componentArgs.isEmpty()
+                ? componentFields
+                : CodeBlocks.makeParametersCodeBlock(
+                    ImmutableList.of(componentFields, componentArgs));
+        FieldSpec shardField = shardFieldsByImplementation.get(this);
+        String shardSection = name.canonicalName() + ".<init>";
+        if (hasLazyShards() && compilerOptions.lockFreeScopedProviders()) {
+          // Like a scoped binding, the shard is memoized without holding a monitor while it's
+          // created.
+          CodeBlock newShard = CodeBlock.of("new $T($L)", name, shardArgs);
+          CodeBlock createShard =
+              compilerOptions.startupProfiling()
+                  ? CodeBlock.of(
+                      "{\n$>$L$<}",
+                      startupProfiled(shardSection, CodeBlock.of("return $L", newShard)))
+                  : newShard;
+          shardInitializations.add(
+              CodeBlock.of(
+                  "$N = $T.provider(() -> $L);",
+                  shardField,
+                  TypeNames.LOCK_FREE_CHECK,
+                  createShard));
+          componentShard.addMethod(
+              MethodSpecKind.SHARD_ACCESSOR_METHOD,
+              methodBuilder(shardAccessorNamesByImplementation.get(this))
+                  .addModifiers(PRIVATE)
+                  .returns(name)
+                  .addStatement("return $N.get()", shardField)
+                  .build());
+        } else if (hasLazyShards()) {
+          componentShard.addMethod(
+              MethodSpecKind.SHARD_ACCESSOR_METHOD,
+              methodBuilder(shardAccessorNamesByImplementation.get(this))
+                  .addModifiers(PRIVATE)
+                  .returns(name)
+                  .addStatement("$T shard = this.$N", name, shardField)
+                  .beginControlFlow("if (shard == null)")
+                  .beginControlFlow("synchronized (this)")
+                  .addStatement("shard = this.$N", shardField)
+                  .beginControlFlow("if (shard == null)")
+                  .addCode(
+                      startupProfiled(
+                          shardSection, CodeBlock.of("shard = new $T($L)", name, shardArgs)))
+                  .addStatement("this.$N = shard", shardField)
+                  .endControlFlow()
+                  .endControlFlow()
+                  .endControlFlow()
+                  .addStatement("return shard")
+                  .build());
+        } else {
+          CodeBlock shardInitialization =
+              CodeBlock.of("$N = new $T($L)", shardField, name, shardArgs);
+          // The shard initializations are separated by newlines, so unprofiled ones don't end in
+          // one.
+          shardInitializations.add(
+              compilerOptions.startupProfiling()
+                  ? startupProfiled(shardSection, shardInitialization)
+                  : CodeBlock.of("$L;", shardInitialization));
+        }
       }
 
       addMethod(MethodSpecKind.CONSTRUCTOR, constructor.build());
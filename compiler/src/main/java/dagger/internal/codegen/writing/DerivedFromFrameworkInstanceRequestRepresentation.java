@@ -26,6 +26,7 @@ import dagger.internal.codegen.binding.BindsTypeChecker;
 import dagger.internal.codegen.binding.ComponentDescriptor.ComponentMethodDescriptor;
 import dagger.internal.codegen.binding.ContributionBinding;
 import dagger.internal.codegen.binding.FrameworkType;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.Expression;
 import dagger.internal.codegen.xprocessing.XProcessingEnv;
 import dagger.spi.model.BindingKind;
@@ -40,6 +41,7 @@ final class DerivedFromFrameworkInstanceRequestRepresentation extends RequestRep
   private final FrameworkType frameworkType;
   private final XProcessingEnv processingEnv;
   private final BindsTypeChecker bindsTypeChecker;
+  private final CompilerOptions compilerOptions;
 
   @AssistedInject
   DerivedFromFrameworkInstanceRequestRepresentation(
@@ -48,13 +50,15 @@ final class DerivedFromFrameworkInstanceRequestRepresentation extends RequestRep
       @Assisted RequestKind requestKind,
       @Assisted FrameworkType frameworkType,
       XProcessingEnv processingEnv,
-      BindsTypeChecker bindsTypeChecker) {
+      BindsTypeChecker bindsTypeChecker,
+      CompilerOptions compilerOptions) {
     this.binding = binding;
     this.frameworkRequestRepresentation = checkNotNull(frameworkRequestRepresentation);
     this.requestKind = requestKind;
     this.frameworkType = checkNotNull(frameworkType);
     this.processingEnv = processingEnv;
     this.bindsTypeChecker = bindsTypeChecker;
+    this.compilerOptions = compilerOptions;
   }
 
   @Override
@@ -63,7 +67,8 @@ final class DerivedFromFrameworkInstanceRequestRepresentation extends RequestRep
         frameworkType.to(
             requestKind,
             frameworkRequestRepresentation.getDependencyExpression(requestingClass),
-            processingEnv);
+            processingEnv,
+            compilerOptions);
     return requiresTypeCast(expression, requestingClass)
         ? expression.castTo(binding.contributedType())
         : expression;
@@ -77,7 +82,8 @@ final class DerivedFromFrameworkInstanceRequestRepresentation extends RequestRep
             requestKind,
             frameworkRequestRepresentation.getDependencyExpressionForComponentMethod(
                 componentMethod, component),
-            processingEnv);
+            processingEnv,
+            compilerOptions);
     return requiresTypeCast(expression, component.name())
         ? expression.castTo(binding.contributedType())
         : expression;
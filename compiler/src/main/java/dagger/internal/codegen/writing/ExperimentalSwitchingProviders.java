@@ -193,7 +193,7 @@ final class ExperimentalSwitchingProviders {
 
       return CodeBlock.builder()
           // TODO(bcorso): Is there something else more useful than the key?
-          .add("case $L: // $L \n", switchIds.get(key), key)
+          .add("case $L: // $L \n", switchIds.get(key), key.toString())
           .addStatement("return ($T) $L", T, instanceCodeBlock)
           .build();
     }
@@ -260,7 +260,9 @@ public final class FactoryGenerator extends SourceFileGenerator<ProvisionBinding
             binding,
             request ->
                 frameworkTypeUsageStatement(
-                    CodeBlock.of("$N", frameworkFields.get(request)), request.kind()),
+                    CodeBlock.of("$N", frameworkFields.get(request)),
+                    request.kind(),
+                    compilerOptions),
             param -> assistedParameters.get(param).name,
             generatedClassNameForBinding(binding),
             moduleParameter(binding).map(module -> CodeBlock.of("$N", module)),
@@ -283,7 +285,8 @@ public final class FactoryGenerator extends SourceFileGenerator<ProvisionBinding
                   generatedClassNameForBinding(binding),
                   instance,
                   binding.key().type().xprocessing(),
-                  frameworkFieldUsages(binding.dependencies(), frameworkFields)::get,
+                  frameworkFieldUsages(binding.dependencies(), frameworkFields, compilerOptions)
+                      ::get,
                   processingEnv))
           .addStatement("return $L", instance);
     } else {
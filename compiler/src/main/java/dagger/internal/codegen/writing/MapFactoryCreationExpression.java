@@ -18,6 +18,8 @@ package dagger.internal.codegen.writing;
 
 import static dagger.internal.codegen.base.Preconditions.checkNotNull;
 import static dagger.internal.codegen.binding.MapKeys.getMapKeyExpression;
+import static dagger.internal.codegen.binding.MapKeys.hasIndexableMapKeys;
+import static dagger.internal.codegen.binding.MapKeys.perfectHashDisplacements;
 import static dagger.internal.codegen.binding.SourceFiles.mapFactoryClassName;
 import static dagger.internal.codegen.extension.DaggerCollectors.toOptional;
 
@@ -26,12 +28,14 @@ import dagger.assisted.AssistedFactory;
 import dagger.assisted.AssistedInject;
 import dagger.internal.codegen.base.MapType;
 import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.BindingType;
 import dagger.internal.codegen.binding.ContributionBinding;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.xprocessing.XProcessingEnv;
 import dagger.internal.codegen.xprocessing.XType;
 import dagger.spi.model.DependencyRequest;
 import io.jbock.javapoet.CodeBlock;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 /** A factory creation expression for a multibound map. */
@@ -81,7 +85,20 @@ final class MapFactoryCreationExpression extends MultibindingFactoryCreationExpr
           getMapKeyExpression(contributionBinding, componentImplementation.name(), processingEnv),
           multibindingDependencyExpression(dependency));
     }
-    builder.add(".build()");
+    // MapFactory and MapProviderFactory can index enum and dense int keys, and look up String and
+    // Class keys without collisions.
+    boolean isProvision = binding.bindingType().equals(BindingType.PROVISION);
+    Optional<CodeBlock> perfectHashDisplacements =
+        isProvision ? perfectHashDisplacements(binding, graph) : Optional.empty();
+    if (isProvision && hasIndexableMapKeys(binding, graph)) {
+      builder.add(".buildIndexed()");
+    } else if (perfectHashDisplacements.isPresent()) {
+      builder.add(".buildPerfectHash($L)", perfectHashDisplacements.get());
+    } else if (componentImplementation.isPrecomputedMultibinding(binding)) {
+      builder.add(".buildCompact()");
+    } else {
+      builder.add(".build()");
+    }
 
     return builder.build();
   }
@@ -19,6 +19,8 @@ package dagger.internal.codegen.writing;
 import static dagger.internal.codegen.base.Preconditions.checkArgument;
 import static dagger.internal.codegen.binding.BindingRequest.bindingRequest;
 import static dagger.internal.codegen.binding.MapKeys.getMapKeyExpression;
+import static dagger.internal.codegen.binding.MapKeys.hasIndexableMapKeys;
+import static dagger.internal.codegen.binding.MapKeys.perfectHashDisplacements;
 import static dagger.internal.codegen.collect.Iterables.getOnlyElement;
 import static dagger.internal.codegen.javapoet.CodeBlocks.toParametersCodeBlock;
 import static dagger.internal.codegen.langmodel.Accessibility.isTypeAccessibleFrom;
@@ -32,9 +34,11 @@ import dagger.internal.MapBuilder;
 import dagger.internal.codegen.base.MapType;
 import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.binding.ContributionBinding;
+import dagger.internal.codegen.binding.FrameworkType;
 import dagger.internal.codegen.binding.ProvisionBinding;
 import dagger.internal.codegen.collect.ImmutableMap;
 import dagger.internal.codegen.collect.Maps;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.Expression;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.xprocessing.XProcessingEnv;
@@ -43,7 +47,9 @@ import dagger.spi.model.BindingKind;
 import dagger.spi.model.DependencyRequest;
 import io.jbock.javapoet.ClassName;
 import io.jbock.javapoet.CodeBlock;
+import io.jbock.javapoet.ParameterizedTypeName;
 import java.util.Collections;
+import java.util.Optional;
 
 /** A {@code RequestRepresentation} for multibound maps. */
 final class MapRequestRepresentation extends RequestRepresentation {
@@ -55,6 +61,10 @@ final class MapRequestRepresentation extends RequestRepresentation {
   private final ImmutableMap<DependencyRequest, ContributionBinding> dependencies;
   private final ComponentRequestRepresentations componentRequestRepresentations;
   private final boolean isExperimentalMergedMode;
+  private final boolean isPrecomputedMultibinding;
+  private final boolean hasIndexableMapKeys;
+  private final Optional<CodeBlock> perfectHashDisplacements;
+  private final boolean isLazyMap;
 
   @AssistedInject
   MapRequestRepresentation(
@@ -62,7 +72,8 @@ final class MapRequestRepresentation extends RequestRepresentation {
       XProcessingEnv processingEnv,
       BindingGraph graph,
       ComponentImplementation componentImplementation,
-      ComponentRequestRepresentations componentRequestRepresentations) {
+      ComponentRequestRepresentations componentRequestRepresentations,
+      CompilerOptions compilerOptions) {
     this.binding = binding;
     this.processingEnv = processingEnv;
     BindingKind bindingKind = this.binding.kind();
@@ -72,10 +83,22 @@ final class MapRequestRepresentation extends RequestRepresentation {
         Maps.toMap(binding.dependencies(), dep -> graph.contributionBinding(dep.key()));
     this.isExperimentalMergedMode =
         componentImplementation.compilerMode().isExperimentalMergedMode();
+    this.isPrecomputedMultibinding = componentImplementation.isPrecomputedMultibinding(binding);
+    this.hasIndexableMapKeys = hasIndexableMapKeys(binding, graph);
+    this.perfectHashDisplacements = perfectHashDisplacements(binding, graph);
+    // Precomputed maps are only built once anyway.
+    this.isLazyMap =
+        compilerOptions.lazyMultiboundMaps()
+            && !isPrecomputedMultibinding
+            && !isExperimentalMergedMode
+            && !binding.dependencies().isEmpty();
   }
 
   @Override
   Expression getDependencyExpression(ClassName requestingClass) {
+    if (isLazyMap) {
+      return lazyMapExpression(requestingClass);
+    }
     // TODO(ronshapiro): We should also make an ImmutableMap version of MapFactory
     boolean isImmutableMapAvailable = isImmutableMapAvailable();
     // TODO(ronshapiro, gak): Use Maps.immutableEnumMap() if it's available?
@@ -120,10 +143,55 @@ final class MapRequestRepresentation extends RequestRepresentation {
         }
         return Expression.create(
             isImmutableMapAvailable ? immutableMapType() : binding.key().type().xprocessing(),
-            instantiation.add(".build()").build());
+            instantiation
+                .add(isImmutableMapAvailable ? CodeBlock.of(".build()") : mapBuilderBuildMethod())
+                .build());
     }
   }
 
+  /**
+   * Returns a {@code LazyMapView} of the providers of the contributions, which only invokes the
+   * providers of the entries that are read.
+   */
+  private Expression lazyMapExpression(ClassName requestingClass) {
+    CodeBlock.Builder providers =
+        CodeBlock.builder()
+            .add("$T.", MapBuilder.class)
+            .add(maybeProviderTypeParameters(requestingClass))
+            .add("newMapBuilder($L)", dependencies.size());
+    for (DependencyRequest dependency : dependencies.keySet()) {
+      providers.add(
+          ".put($L, $L)",
+          getMapKeyExpression(dependencies.get(dependency), requestingClass, processingEnv),
+          componentRequestRepresentations
+              .getDependencyExpression(
+                  bindingRequest(dependency.key(), FrameworkType.PROVIDER), requestingClass)
+              .codeBlock());
+    }
+    providers.add(mapBuilderBuildMethod());
+    return Expression.create(
+        binding.key().type().xprocessing(),
+        CodeBlock.builder()
+            .add("$T.", TypeNames.LAZY_MAP_VIEW)
+            .add(maybeTypeParameters(requestingClass))
+            .add("of($L)", providers.build())
+            .build());
+  }
+
+  /** Returns the invocation that builds the map from a {@code MapBuilder}. */
+  private CodeBlock mapBuilderBuildMethod() {
+    if (hasIndexableMapKeys) {
+      // Maps with enum or dense int keys are looked up by index.
+      return CodeBlock.of(".buildIndexed()");
+    }
+    if (perfectHashDisplacements.isPresent()) {
+      // Maps with String or Class keys get a lookup table without collisions.
+      return CodeBlock.of(".buildPerfectHash($L)", perfectHashDisplacements.get());
+    }
+    // Precomputed maps are built once and memoized, so make them cheap to query.
+    return CodeBlock.of(isPrecomputedMultibinding ? ".buildCompact()" : ".build()");
+  }
+
   private XType immutableMapType() {
     MapType mapType = MapType.from(binding.key());
     return processingEnv.getDeclaredType(
@@ -167,6 +235,17 @@ final class MapRequestRepresentation extends RequestRepresentation {
         : CodeBlock.of("");
   }
 
+  private CodeBlock maybeProviderTypeParameters(ClassName requestingClass) {
+    XType bindingKeyType = binding.key().type().xprocessing();
+    MapType mapType = MapType.from(binding.key());
+    return isTypeAccessibleFrom(bindingKeyType, requestingClass.packageName())
+        ? CodeBlock.of(
+            "<$T, $T>",
+            mapType.keyType().getTypeName(),
+            ParameterizedTypeName.get(TypeNames.PROVIDER, mapType.valueType().getTypeName()))
+        : CodeBlock.of("");
+  }
+
   private boolean isImmutableMapBuilderWithExpectedSizeAvailable() {
     return false;
   }
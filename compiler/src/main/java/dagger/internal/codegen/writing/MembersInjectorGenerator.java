@@ -47,6 +47,7 @@ import dagger.internal.codegen.binding.MembersInjectionBinding;
 import dagger.internal.codegen.binding.MembersInjectionBinding.InjectionSite;
 import dagger.internal.codegen.collect.ImmutableList;
 import dagger.internal.codegen.collect.ImmutableMap;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.writing.InjectionMethods.InjectionSiteMethod;
 import dagger.internal.codegen.xprocessing.XElement;
@@ -72,13 +73,16 @@ import java.util.Map.Entry;
  */
 public final class MembersInjectorGenerator extends SourceFileGenerator<MembersInjectionBinding> {
   private final XProcessingEnv processingEnv;
+  private final CompilerOptions compilerOptions;
 
   @Inject
   MembersInjectorGenerator(
       XFiler filer,
-      XProcessingEnv processingEnv) {
+      XProcessingEnv processingEnv,
+      CompilerOptions compilerOptions) {
     super(filer, processingEnv);
     this.processingEnv = processingEnv;
+    this.compilerOptions = compilerOptions;
   }
 
   @Override
@@ -197,7 +201,7 @@ public final class MembersInjectorGenerator extends SourceFileGenerator<MembersI
             generatedTypeName,
             CodeBlock.of("instance"),
             binding.key().type().xprocessing(),
-            frameworkFieldUsages(binding.dependencies(), dependencyFields)::get,
+            frameworkFieldUsages(binding.dependencies(), dependencyFields, compilerOptions)::get,
             processingEnv));
 
     if (usesRawFrameworkTypes) {
@@ -43,6 +43,7 @@ import dagger.internal.codegen.base.OptionalType.OptionalKind;
 import dagger.internal.codegen.binding.BindingType;
 import dagger.internal.codegen.binding.ContributionBinding;
 import dagger.internal.codegen.binding.FrameworkType;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.AnnotationSpecs;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.spi.model.RequestKind;
@@ -98,13 +99,16 @@ final class OptionalFactories {
 
   private final PerGeneratedFileCache perGeneratedFileCache;
   private final GeneratedImplementation topLevelImplementation;
+  private final CompilerOptions compilerOptions;
 
   @Inject
   OptionalFactories(
       PerGeneratedFileCache perGeneratedFileCache,
-      @TopLevel GeneratedImplementation topLevelImplementation) {
+      @TopLevel GeneratedImplementation topLevelImplementation,
+      CompilerOptions compilerOptions) {
     this.perGeneratedFileCache = perGeneratedFileCache;
     this.topLevelImplementation = topLevelImplementation;
+    this.compilerOptions = compilerOptions;
   }
 
   /**
@@ -365,7 +369,9 @@ final class OptionalFactories {
                 spec.optionalKind()
                     .presentExpression(
                         FrameworkType.PROVIDER.to(
-                            spec.valueKind(), CodeBlock.of("$N", delegateField))))
+                            spec.valueKind(),
+                            CodeBlock.of("$N", delegateField),
+                            compilerOptions)))
             .build();
     }
     throw new AssertionError(spec.frameworkType());
@@ -40,8 +40,8 @@ final class ProviderInstanceSupplier implements FrameworkInstanceSupplier {
         new FrameworkFieldInitializer(
             componentImplementation,
             binding,
-            binding.scope().isPresent()
-                ? scope(binding, frameworkInstanceCreationExpression)
+            binding.scope().isPresent() || componentImplementation.isPrecomputedMultibinding(binding)
+                ? scope(componentImplementation, binding, frameworkInstanceCreationExpression)
                 : frameworkInstanceCreationExpression);
   }
 
@@ -36,6 +36,7 @@ import dagger.spi.model.RequestKind;
 final class ProvisionBindingRepresentation implements BindingRepresentation {
   private final BindingGraph graph;
   private final CompilerMode compilerMode;
+  private final boolean isPrecomputedMultibinding;
   private final ProvisionBinding binding;
   private final DirectInstanceBindingRepresentation directInstanceBindingRepresentation;
   private final FrameworkInstanceBindingRepresentation frameworkInstanceBindingRepresentation;
@@ -54,6 +55,7 @@ final class ProvisionBindingRepresentation implements BindingRepresentation {
     this.binding = binding;
     this.graph = graph;
     this.compilerMode = componentImplementation.compilerMode();
+    this.isPrecomputedMultibinding = componentImplementation.isPrecomputedMultibinding(binding);
     this.directInstanceBindingRepresentation =
         directInstanceBindingRepresentationFactory.create(binding);
     FrameworkInstanceSupplier frameworkInstanceSupplier = null;
@@ -116,7 +118,7 @@ final class ProvisionBindingRepresentation implements BindingRepresentation {
         // We don't need to use Provider#get() if there's no caching, so use a direct instance.
         // TODO(bcorso): This can be optimized in cases where we know a Provider field already
         // exists, in which case even if it's not scoped we might as well call Provider#get().
-        return !needsCaching(binding, graph);
+        return !needsCaching(binding, graph) && !isPrecomputedMultibinding;
     }
   }
 
@@ -35,6 +35,7 @@ import io.jbock.javapoet.CodeBlock;
 final class SetFactoryCreationExpression extends MultibindingFactoryCreationExpression {
   private final BindingGraph graph;
   private final ContributionBinding binding;
+  private final boolean isPrecomputedMultibinding;
 
   @AssistedInject
   SetFactoryCreationExpression(
@@ -45,6 +46,7 @@ final class SetFactoryCreationExpression extends MultibindingFactoryCreationExpr
     super(binding, componentImplementation, componentRequestRepresentations);
     this.binding = checkNotNull(binding);
     this.graph = graph;
+    this.isPrecomputedMultibinding = componentImplementation.isPrecomputedMultibinding(binding);
   }
 
   @Override
@@ -91,7 +93,7 @@ final class SetFactoryCreationExpression extends MultibindingFactoryCreationExpr
     builder.add("builder($L, $L)", individualProviders, setProviders);
     builder.add(builderMethodCalls.build());
 
-    return builder.add(".build()").build();
+    return builder.add(isPrecomputedMultibinding ? ".buildCompact()" : ".build()").build();
   }
 
   @AssistedFactory
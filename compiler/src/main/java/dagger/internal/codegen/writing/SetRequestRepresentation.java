@@ -48,6 +48,7 @@ final class SetRequestRepresentation extends RequestRepresentation {
   private final ComponentRequestRepresentations componentRequestRepresentations;
   private final XProcessingEnv processingEnv;
   private final boolean isExperimentalMergedMode;
+  private final boolean isPrecomputedMultibinding;
 
   @AssistedInject
   SetRequestRepresentation(
@@ -62,6 +63,7 @@ final class SetRequestRepresentation extends RequestRepresentation {
     this.processingEnv = processingEnv;
     this.isExperimentalMergedMode =
         componentImplementation.compilerMode().isExperimentalMergedMode();
+    this.isPrecomputedMultibinding = componentImplementation.isPrecomputedMultibinding(binding);
   }
 
   @Override
@@ -122,7 +124,9 @@ final class SetRequestRepresentation extends RequestRepresentation {
           instantiation.add(
               ".$L($L)", builderMethod, getContributionExpression(dependency, requestingClass));
         }
-        instantiation.add(".build()");
+        // Precomputed sets are built once and memoized, so make them cheap to query.
+        instantiation.add(
+            isPrecomputedMultibinding && !isImmutableSetAvailable ? ".buildCompact()" : ".build()");
         return Expression.create(
             isImmutableSetAvailable ? immutableSetType() : binding.key().type().xprocessing(),
             instantiation.build());
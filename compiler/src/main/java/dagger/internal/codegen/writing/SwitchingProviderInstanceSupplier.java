@@ -16,7 +16,6 @@
 
 package dagger.internal.codegen.writing;
 
-import static dagger.internal.codegen.javapoet.TypeNames.DOUBLE_CHECK;
 import static dagger.internal.codegen.javapoet.TypeNames.SINGLE_CHECK;
 
 import dagger.assisted.Assisted;
@@ -54,7 +53,9 @@ final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSuppli
                 binding, unscopedDirectInstanceRequestRepresentationFactory.create(binding));
     this.frameworkInstanceSupplier =
         new FrameworkFieldInitializer(
-            componentImplementation, binding, scope(binding, frameworkInstanceCreationExpression));
+            componentImplementation,
+            binding,
+            scope(componentImplementation, binding, frameworkInstanceCreationExpression));
   }
 
   @Override
@@ -62,20 +63,25 @@ final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSuppli
     return frameworkInstanceSupplier.memberSelect();
   }
 
-  private FrameworkInstanceCreationExpression scope(
-      Binding binding, FrameworkInstanceCreationExpression unscoped) {
+  private static FrameworkInstanceCreationExpression scope(
+      ComponentImplementation componentImplementation,
+      Binding binding,
+      FrameworkInstanceCreationExpression unscoped) {
     // Caching assisted factory provider, so that there won't be new factory created for each
     // provider.get() call.
-    if (!binding.scope().isPresent() && !binding.kind().equals(BindingKind.ASSISTED_FACTORY)) {
+    if (!binding.scope().isPresent()
+        && !binding.kind().equals(BindingKind.ASSISTED_FACTORY)
+        && !componentImplementation.isPrecomputedMultibinding(binding)) {
       return unscoped;
     }
     return () ->
         CodeBlock.of(
             "$T.provider($L)",
             binding.scope().isPresent()
-                ? (binding.scope().get().isReusable() ? SINGLE_CHECK : DOUBLE_CHECK)
+                ? componentImplementation.scopedProviderType(binding.scope().get())
                 : SINGLE_CHECK,
-            unscoped.creationExpression());
+            componentImplementation.startupProfiledProvider(
+                binding, unscoped.creationExpression()));
   }
 
   @AssistedFactory
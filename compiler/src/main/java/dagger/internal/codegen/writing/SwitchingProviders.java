@@ -133,7 +133,11 @@ final class SwitchingProviders {
           // Add the type parameter explicitly when the binding is scoped because Java can't resolve
           // the type when wrapped. For example, the following will error:
           //   fooProvider = DoubleCheck.provider(new SwitchingProvider<>(1));
-          (binding.scope().isPresent() || binding.kind().equals(BindingKind.ASSISTED_FACTORY))
+          (binding.scope().isPresent()
+                  || binding.kind().equals(BindingKind.ASSISTED_FACTORY)
+                  || shardImplementation
+                      .getComponentImplementation()
+                      .isPrecomputedMultibinding(binding))
               ? CodeBlock.of(
                   "$T", shardImplementation.accessibleType(binding.contributedType()).getTypeName())
               : "",
@@ -156,7 +160,7 @@ final class SwitchingProviders {
 
       return CodeBlock.builder()
           // TODO(bcorso): Is there something else more useful than the key?
-          .add("case $L: // $L \n", switchIds.get(key), key)
+          .add("case $L: // $L \n", switchIds.get(key), key.toString())
           .addStatement("return ($T) $L", T, instanceCodeBlock)
           .build();
     }
@@ -103,6 +103,11 @@ class JavacAnnotationValue implements XAnnotationValue {
     return (Float) valueProvider.get();
   }
 
+  @Override
+  public int asInt() {
+    return (int) valueProvider.get();
+  }
+
   @Override
   public Long asLong() {
     return (Long) valueProvider.get();
@@ -93,6 +93,7 @@ public abstract class JavacBasicAnnotationProcessor extends AbstractProcessor
   @Override
   public final boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
     JavacRoundEnv xRoundEnv = new JavacRoundEnv(xEnv.get(), roundEnv);
+    preRound(xEnv(), xRoundEnv);
     if (roundEnv.processingOver()) {
       List<String> missingElements = commonDelegate.get().processLastRound();
       postRound(xEnv(), xRoundEnv);
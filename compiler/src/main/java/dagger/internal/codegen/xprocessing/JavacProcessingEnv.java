@@ -127,6 +127,11 @@ public class JavacProcessingEnv implements XProcessingEnv {
     return typeElementStore.get(typeElement);
   }
 
+  @Override
+  public Map<String, Long> typeElementStoreCounters() {
+    return typeElementStore.counters();
+  }
+
   void clearCache() {
     typeElementStore.clear();
   }
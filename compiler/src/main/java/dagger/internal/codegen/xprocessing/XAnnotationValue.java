@@ -51,6 +51,9 @@ public interface XAnnotationValue {
   /** Returns the value as a {@code Float}. */
   Float asFloat();
 
+  /** Returns the value as an {@code int}. */
+  int asInt();
+
   /** Returns the value as a {@code Long}. */
   Long asLong();
 
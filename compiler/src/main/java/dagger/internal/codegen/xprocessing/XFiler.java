@@ -1,7 +1,12 @@
 package dagger.internal.codegen.xprocessing;
 
 import io.jbock.javapoet.JavaFile;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
 import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.JavaFileObject;
 
 public interface XFiler {
 
@@ -11,8 +16,29 @@ public interface XFiler {
     write(javaFile);
   }
 
+  /**
+   * Writes the Java source file {@code qualifiedName} with the text that {@code text} appends, for a
+   * file that is not rendered from a single {@code JavaFile}. The file is deleted if writing it
+   * fails.
+   */
+  default void writeSource(String qualifiedName, SourceText text, Element... originatingElements)
+      throws IOException {
+    JavaFileObject sourceFile = toJavac().createSourceFile(qualifiedName, originatingElements);
+    try (Writer writer = new BufferedWriter(sourceFile.openWriter())) {
+      text.appendTo(writer);
+    } catch (IOException | RuntimeException e) {
+      sourceFile.delete();
+      throw e;
+    }
+  }
+
   Filer toJavac();
 
+  /** The text of a source file, which is appended to the file as it's written. */
+  interface SourceText {
+    void appendTo(Appendable out) throws IOException;
+  }
+
   /**
    * Specifies whether a file represents aggregating or isolating inputs for incremental
    * build purposes. This does not apply in Javac processing because aggregating vs isolating
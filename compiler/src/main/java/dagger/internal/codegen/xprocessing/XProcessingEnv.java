@@ -136,6 +136,13 @@ public interface XProcessingEnv {
     return result;
   }
 
+  /**
+   * Returns the number of lookups in the cache of type element wrappers that found a wrapper
+   * ({@code hits}), that didn't ({@code misses}), and that created a wrapper again after an earlier
+   * one was garbage collected ({@code rewraps}).
+   */
+  Map<String, Long> typeElementStoreCounters();
+
   enum Backend {
     JAVAC,
     KSP
@@ -1,26 +1,55 @@
 package dagger.internal.codegen.xprocessing;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import javax.lang.model.element.TypeElement;
 
 /**
  * Utility class to cache type element wrappers.
+ *
+ * <p>The most recently used wrappers are kept strongly reachable, so that they survive garbage
+ * collections between lookups. All other wrappers are only weakly reachable, and their entries are
+ * removed once they are collected.
  */
 final class XTypeElementStore {
+  /** The number of most recently used wrappers that are strongly reachable. */
+  private static final int STRONG_CACHE_SIZE = 256;
 
   private final Function<String, TypeElement> findElement;
   private final Function<TypeElement, String> getQName;
   private final Function<TypeElement, XTypeElement> wrap;
 
+  private final Map<String, XTypeElement> strongCache =
+      new LinkedHashMap<String, XTypeElement>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, XTypeElement> eldest) {
+          return size() > STRONG_CACHE_SIZE;
+        }
+      };
 
   // instead of something like a Guava cache, we use a map of weak references here because our
   // main goal is avoiding to re-parse type elements as we go up & down in the hierarchy while
   // not necessarily wanting to preserve type elements after we are done with them. Doing that
   // could possibly hold a lot more information than we desire.
-  private final Map<String, WeakReference<XTypeElement>> typeCache = new HashMap<>();
+  private final Map<String, NamedReference> typeCache = new HashMap<>();
+  private final ReferenceQueue<XTypeElement> collected = new ReferenceQueue<>();
+
+  /**
+   * The names whose wrappers were collected since the last {@code #clear()}, so that wrapping them
+   * again is counted as a re-wrap.
+   */
+  private final Set<String> collectedNames = new HashSet<>();
+
+  private long hits;
+  private long misses;
+  private long rewraps;
 
   XTypeElementStore(
       Function<String, TypeElement> findElement,
@@ -46,13 +75,20 @@ final class XTypeElementStore {
   }
 
   XTypeElement get(String qName) {
-    WeakReference<XTypeElement> ref = typeCache.get(qName);
-    if (ref != null) {
-      XTypeElement it = ref.get();
-      if (it != null) {
-        return it;
+    removeCollectedEntries();
+    XTypeElement cached = strongCache.get(qName);
+    if (cached == null) {
+      NamedReference ref = typeCache.get(qName);
+      cached = ref == null ? null : ref.get();
+      if (cached != null) {
+        strongCache.put(qName, cached);
       }
     }
+    if (cached != null) {
+      hits++;
+      return cached;
+    }
+    misses++;
     TypeElement it = findElement.apply(qName);
     if (it == null) {
       return null;
@@ -62,12 +98,52 @@ final class XTypeElementStore {
   }
 
   private XTypeElement cache(String qName, XTypeElement element) {
-    typeCache.put(qName, new WeakReference<>(element));
+    NamedReference previous = typeCache.put(qName, new NamedReference(qName, element, collected));
+    // A previous reference is only replaced once its wrapper was collected.
+    if (previous != null || collectedNames.remove(qName)) {
+      rewraps++;
+    }
+    strongCache.put(qName, element);
     return element;
   }
 
+  private void removeCollectedEntries() {
+    for (Reference<?> ref = collected.poll(); ref != null; ref = collected.poll()) {
+      NamedReference named = (NamedReference) ref;
+      // The entry may already have been replaced by a new wrapper, or cleared.
+      if (typeCache.remove(named.qName, named)) {
+        collectedNames.add(named.qName);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of lookups that found a cached wrapper, the number of lookups that didn't,
+   * and the number of wrappers that were created again after an earlier one was collected, by
+   * name. The counts are not reset by {@code #clear()}.
+   */
+  Map<String, Long> counters() {
+    Map<String, Long> counters = new LinkedHashMap<>();
+    counters.put("hits", hits);
+    counters.put("misses", misses);
+    counters.put("rewraps", rewraps);
+    return counters;
+  }
+
   void clear() {
+    strongCache.clear();
     typeCache.clear();
+    collectedNames.clear();
+    while (collected.poll() != null) {}
   }
-}
 
+  /** A weak reference to a wrapper that knows its key in {@code #typeCache}. */
+  private static final class NamedReference extends WeakReference<XTypeElement> {
+    private final String qName;
+
+    NamedReference(String qName, XTypeElement element, ReferenceQueue<XTypeElement> queue) {
+      super(element, queue);
+      this.qName = qName;
+    }
+  }
+}
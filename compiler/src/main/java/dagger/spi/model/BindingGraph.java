@@ -16,22 +16,19 @@
 
 package dagger.spi.model;
 
-import static dagger.internal.codegen.collect.Sets.intersection;
 import static dagger.internal.codegen.extension.DaggerStreams.instancesOf;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSetMultimap;
-import static io.jbock.common.graph.Graphs.inducedSubgraph;
-import static io.jbock.common.graph.Graphs.reachableNodes;
-import static io.jbock.common.graph.Graphs.transpose;
 
 import dagger.internal.codegen.collect.ImmutableSet;
 import dagger.internal.codegen.collect.ImmutableSetMultimap;
 import io.jbock.common.graph.EndpointPair;
 import io.jbock.common.graph.ImmutableNetwork;
-import io.jbock.common.graph.MutableNetwork;
-import io.jbock.common.graph.Network;
-import io.jbock.common.graph.NetworkBuilder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 /**
@@ -84,9 +81,54 @@ import java.util.stream.Stream;
  * <p><b>Note that this API is experimental and will change.</b>
  */
 public abstract class BindingGraph {
-  /** Returns the graph in its {@code Network} representation. */
+  /**
+   * Returns the graph in its {@code Network} representation.
+   *
+   * <p>Implementations may build the network on demand, so prefer the methods below, such as
+   * {@code #inEdges(Node)} and {@code #incidentNodes(Edge)}, where they suffice.
+   */
   public abstract ImmutableNetwork<Node, Edge> network();
 
+  /** Returns all nodes in the graph. */
+  public Set<Node> nodes() {
+    return network().nodes();
+  }
+
+  /** Returns all edges in the graph. */
+  public Set<Edge> edges() {
+    return network().edges();
+  }
+
+  /** Returns the edges whose source is {@code node}. */
+  public Set<Edge> outEdges(Node node) {
+    return network().outEdges(node);
+  }
+
+  /** Returns the edges whose target is {@code node}. */
+  public Set<Edge> inEdges(Node node) {
+    return network().inEdges(node);
+  }
+
+  /** Returns the targets of the out-edges of {@code node}. */
+  public Set<Node> successors(Node node) {
+    return network().successors(node);
+  }
+
+  /** Returns the sources of the in-edges of {@code node}. */
+  public Set<Node> predecessors(Node node) {
+    return network().predecessors(node);
+  }
+
+  /** Returns the edges from {@code source} to {@code target}. */
+  public Set<Edge> edgesConnecting(Node source, Node target) {
+    return network().edgesConnecting(source, target);
+  }
+
+  /** Returns the source and target of {@code edge}. */
+  public EndpointPair<Node> incidentNodes(Edge edge) {
+    return network().incidentNodes(edge);
+  }
+
   @Override
   public String toString() {
     return network().toString();
@@ -206,7 +248,7 @@ public abstract class BindingGraph {
   }
 
   private Stream<DependencyEdge> dependencyEdgeStream(Node node) {
-    return network().outEdges(node).stream().flatMap(instancesOf(DependencyEdge.class));
+    return outEdges(node).stream().flatMap(instancesOf(DependencyEdge.class));
   }
 
   /**
@@ -220,7 +262,7 @@ public abstract class BindingGraph {
   /** Returns the binding or missing binding nodes that directly satisfy entry points. */
   public ImmutableSet<MaybeBinding> entryPointBindings() {
     return entryPointEdgeStream()
-        .map(edge -> (MaybeBinding) network().incidentNodes(edge).target())
+        .map(edge -> (MaybeBinding) incidentNodes(edge).target())
         .collect(toImmutableSet());
   }
 
@@ -230,16 +272,30 @@ public abstract class BindingGraph {
    */
   public ImmutableSet<DependencyEdge> entryPointEdgesDependingOnBinding(
       MaybeBinding binding) {
-    ImmutableNetwork<Node, DependencyEdge> dependencyGraph = dependencyGraph();
-    Network<Node, DependencyEdge> subgraphDependingOnBinding =
-        inducedSubgraph(
-            dependencyGraph, reachableNodes(transpose(dependencyGraph).asGraph(), binding));
-    return intersection(entryPointEdges(), subgraphDependingOnBinding.edges()).immutableCopy();
+    // Walk the dependency edges backwards from the binding. An entry point depends on the binding
+    // if its target is one of the nodes found.
+    Set<Node> dependingOnBinding = new HashSet<>();
+    Deque<Node> queue = new ArrayDeque<>();
+    dependingOnBinding.add(binding);
+    queue.add(binding);
+    while (!queue.isEmpty()) {
+      for (Edge edge : inEdges(queue.remove())) {
+        if (edge instanceof DependencyEdge) {
+          Node source = incidentNodes(edge).source();
+          if (dependingOnBinding.add(source)) {
+            queue.add(source);
+          }
+        }
+      }
+    }
+    return entryPointEdgeStream()
+        .filter(edge -> dependingOnBinding.contains(incidentNodes(edge).target()))
+        .collect(toImmutableSet());
   }
 
   /** Returns the bindings that directly request a given binding as a dependency. */
   public ImmutableSet<Binding> requestingBindings(MaybeBinding binding) {
-    return network().predecessors(binding).stream()
+    return predecessors(binding).stream()
         .flatMap(instancesOf(Binding.class))
         .collect(toImmutableSet());
   }
@@ -251,7 +307,7 @@ public abstract class BindingGraph {
    * @see #requestedMaybeMissingBindings(Binding)
    */
   public ImmutableSet<Binding> requestedBindings(Binding binding) {
-    return network().successors(binding).stream()
+    return successors(binding).stream()
         .flatMap(instancesOf(Binding.class))
         .collect(toImmutableSet());
   }
@@ -263,29 +319,11 @@ public abstract class BindingGraph {
    * @see #requestedBindings(Binding)
    */
   public ImmutableSet<MaybeBinding> requestedMaybeMissingBindings(Binding binding) {
-    return network().successors(binding).stream()
+    return successors(binding).stream()
         .flatMap(instancesOf(MaybeBinding.class))
         .collect(toImmutableSet());
   }
 
-  /** Returns a subnetwork that contains all nodes but only {@code DependencyEdge}s. */
-  // TODO(dpb): Make public. Cache.
-  private ImmutableNetwork<Node, DependencyEdge> dependencyGraph() {
-    MutableNetwork<Node, DependencyEdge> dependencyGraph =
-        NetworkBuilder.from(network())
-            .expectedNodeCount(network().nodes().size())
-            .expectedEdgeCount((int) dependencyEdgeStream().count())
-            .build();
-    network().nodes().forEach(dependencyGraph::addNode); // include disconnected nodes
-    dependencyEdgeStream()
-        .forEach(
-            edge -> {
-              EndpointPair<Node> endpoints = network().incidentNodes(edge);
-              dependencyGraph.addEdge(endpoints.source(), endpoints.target(), edge);
-            });
-    return ImmutableNetwork.copyOf(dependencyGraph);
-  }
-
   @SuppressWarnings({"rawtypes", "unchecked"})
   private <N extends Node> ImmutableSet<N> nodes(Class<N> clazz) {
     return (ImmutableSet) nodesByClass().get(clazz);
@@ -295,7 +333,7 @@ public abstract class BindingGraph {
       ImmutableSet.of(Binding.class, MissingBinding.class, ComponentNode.class);
 
   protected ImmutableSetMultimap<Class<? extends Node>, ? extends Node> nodesByClass() {
-    return network().nodes().stream()
+    return nodes().stream()
         .collect(
             toImmutableSetMultimap(
                 node ->
@@ -304,7 +342,7 @@ public abstract class BindingGraph {
   }
 
   private Stream<DependencyEdge> dependencyEdgeStream() {
-    return network().edges().stream().flatMap(instancesOf(DependencyEdge.class));
+    return edges().stream().flatMap(instancesOf(DependencyEdge.class));
   }
 
   private Stream<DependencyEdge> entryPointEdgeStream() {
@@ -7,6 +7,7 @@ module dagger.compiler {
   requires dagger;
   requires java.compiler;
   requires java.logging;
+  requires jdk.management;
   requires io.jbock.common.graph;
   requires io.jbock.auto.common;
   requires io.jbock.javapoet;
@@ -0,0 +1,373 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static dagger.internal.codegen.CompilerMode.DEFAULT_MODE;
+import static dagger.internal.codegen.CompilerMode.FAST_INIT_MODE;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+import static dagger.internal.codegen.TestUtils.callEntryPoint;
+import static dagger.internal.codegen.TestUtils.createComponent;
+import static dagger.internal.codegen.TestUtils.generatedSource;
+import static io.jbock.common.truth.Truth.assertThat;
+import static io.jbock.testing.compile.CompilationSubject.assertThat;
+import static io.jbock.testing.compile.Compiler.javac;
+
+import dagger.internal.codegen.base.ProcessorInstrumentation;
+import io.jbock.testing.compile.Compilation;
+import io.jbock.testing.compile.Compiler;
+import io.jbock.testing.compile.JavaFileObjects;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class BindingGraphCacheTest {
+  @TempDir Path cacheDirectory;
+  @TempDir Path libraryDirectory;
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void unchangedComponentIsRestoredFromCache(CompilerMode compilerMode) throws Exception {
+    JavaFileObject component = component("@Provides static String string() { return \"\"; }");
+    Compilation first = compiler(compilerMode).compile(component);
+    assertThat(first).succeededWithoutWarnings();
+    assertThat(Files.exists(cacheDirectory.resolve("test.TestComponent.graph"))).isTrue();
+    assertThat(report(first)).contains("{\"counter\": \"BindingGraphCache.misses\", \"count\": 1}");
+
+    Compilation second = compiler(compilerMode).compile(component);
+    assertThat(second).succeededWithoutWarnings();
+    assertThat(report(second)).contains("{\"counter\": \"BindingGraphCache.hits\", \"count\": 1}");
+    assertThat(second)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    @Override",
+                    "    public Foo foo() {",
+                    "      return new Foo(TestModule.string());",
+                    "    }",
+                    "}")
+                .build());
+    assertThat(generatedSource(second, "test.DaggerTestComponent"))
+        .isEqualTo(generatedSource(first, "test.DaggerTestComponent"));
+
+    Object testComponent = createComponent(second, "test.TestComponent");
+    assertThat(callEntryPoint(testComponent, "foo").getClass().getName()).isEqualTo("test.Foo");
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void changedModuleIsResolvedAgain(CompilerMode compilerMode) throws Exception {
+    assertThat(
+            compiler(compilerMode)
+                .compile(component("@Provides static String string() { return \"\"; }")))
+        .succeededWithoutWarnings();
+
+    Compilation compilation =
+        compiler(compilerMode)
+            .compile(
+                component("@Provides @Singleton static String string() { return new String(); }"));
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(report(compilation))
+        .contains("{\"counter\": \"BindingGraphCache.misses\", \"count\": 1}");
+    assertThat(report(compilation)).doesNotContain("BindingGraphCache.hits");
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      this.stringProvider = DoubleCheck.provider(TestModule_StringFactory.create());")
+                .addLinesIn(
+                    FAST_INIT_MODE,
+                    "      this.stringProvider = DoubleCheck.provider(new SwitchingProvider<String>(testComponentImpl, 0));")
+                .addLines(
+                    "    @Override",
+                    "    public Foo foo() {",
+                    "      return new Foo(stringProvider.get());",
+                    "    }",
+                    "}")
+                .build());
+
+    Object testComponent = createComponent(compilation, "test.TestComponent");
+    Object foo = callEntryPoint(testComponent, "foo");
+    assertThat(foo.getClass().getName()).isEqualTo("test.Foo");
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void changedInheritedEntryPointIsResolvedAgain(CompilerMode compilerMode) throws Exception {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent extends BaseComponent {}");
+    assertThat(
+            compiler(compilerMode)
+                .compile(component, module(), baseComponent("String string();")))
+        .succeededWithoutWarnings();
+
+    // Only the super-interface changes, so the component's own declaration is the same.
+    Compilation compilation =
+        compiler(compilerMode)
+            .compile(component, module(), baseComponent("String string();", "Integer number();"));
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(report(compilation))
+        .contains("{\"counter\": \"BindingGraphCache.misses\", \"count\": 1}");
+    assertThat(report(compilation)).doesNotContain("BindingGraphCache.hits");
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    @Override",
+                    "    public String string() {",
+                    "      return TestModule.string();",
+                    "    }",
+                    "    @Override",
+                    "    public Integer number() {",
+                    "      return TestModule.number();",
+                    "    }",
+                    "}")
+                .build());
+
+    Object testComponent = createComponent(compilation, "test.TestComponent");
+    assertThat(callEntryPoint(testComponent, "number")).isEqualTo(1);
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void injectBindingsFromTheClasspathAreGeneratedForRestoredComponent(CompilerMode compilerMode)
+      throws IOException {
+    // Bar and Baz are compiled without Dagger, so the factory and members injector that the
+    // component uses are only generated if the cached component registers their bindings.
+    compileLibrary(
+        JavaFileObjects.forSourceLines(
+            "test.Bar",
+            "package test;",
+            "",
+            "import jakarta.inject.Inject;",
+            "",
+            "public final class Bar {",
+            "  @Inject",
+            "  public Bar() {}",
+            "}"),
+        JavaFileObjects.forSourceLines(
+            "test.Baz",
+            "package test;",
+            "",
+            "import jakarta.inject.Inject;",
+            "",
+            "public class Baz {",
+            "  @Inject public String string;",
+            "}"));
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import jakarta.inject.Provider;",
+            "",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent {",
+            "  Provider<Bar> bar();",
+            "  void inject(Baz baz);",
+            "}",
+            "",
+            "@Module",
+            "interface TestModule {",
+            "  @Provides static String string() { return \"\"; }",
+            "}");
+    Compilation first = compilerWithLibrary(compilerMode).compile(component);
+    assertThat(first).succeededWithoutWarnings();
+    assertThat(first).generatedSourceFile("test.Bar_Factory");
+    assertThat(first).generatedSourceFile("test.Baz_MembersInjector");
+
+    Compilation second = compilerWithLibrary(compilerMode).compile(component);
+    assertThat(second).succeededWithoutWarnings();
+    assertThat(report(second)).contains("{\"counter\": \"BindingGraphCache.hits\", \"count\": 1}");
+    assertThat(second).generatedSourceFile("test.Bar_Factory");
+    assertThat(second).generatedSourceFile("test.Baz_MembersInjector");
+    assertThat(second)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "    public Provider<Bar> bar() {",
+                    "      return Bar_Factory.create();")
+                .addLines(
+                    "    private Baz injectBaz(Baz instance) {",
+                    "      Baz_MembersInjector.injectString(instance, TestModule.string());",
+                    "      return instance;",
+                    "}")
+                .build());
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void diagnosticsAreReportedAgainForRestoredComponent(CompilerMode compilerMode)
+      throws IOException {
+    JavaFileObject component =
+        component("@Provides @Nullable static String string() { return null; }");
+    JavaFileObject nullable =
+        JavaFileObjects.forSourceLines(
+            "test.Nullable", "package test;", "", "@interface Nullable {}");
+    Compilation first =
+        compiler(compilerMode, "-Adagger.nullableValidation=WARNING")
+            .compile(component, nullable);
+    assertThat(first).succeeded();
+    assertThat(first).hadWarningCount(1);
+    assertThat(first).hadWarningContaining("is not nullable, but is being provided by");
+
+    Compilation second =
+        compiler(compilerMode, "-Adagger.nullableValidation=WARNING")
+            .compile(component, nullable);
+    assertThat(second).succeeded();
+    assertThat(report(second)).contains("{\"counter\": \"BindingGraphCache.hits\", \"count\": 1}");
+    assertThat(second).hadWarningCount(1);
+    assertThat(second).hadWarningContaining("is not nullable, but is being provided by");
+    assertThat(generatedSource(second, "test.DaggerTestComponent"))
+        .isEqualTo(generatedSource(first, "test.DaggerTestComponent"));
+  }
+
+  private Compiler compiler(CompilerMode compilerMode, String... extraOptions) {
+    List<String> options = new ArrayList<>(compilerMode.javacopts(false));
+    options.add("-Adagger.bindingGraphCacheDirectory=" + cacheDirectory);
+    options.add("-Adagger.processorInstrumentation=enabled");
+    options.addAll(List.of(extraOptions));
+    return compilerWithOptions(options);
+  }
+
+  /** Returns a compiler that has the classes of {@code #compileLibrary} on its classpath. */
+  private Compiler compilerWithLibrary(CompilerMode compilerMode) {
+    List<File> classpath = new ArrayList<>();
+    classpath.add(libraryDirectory.toFile());
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      classpath.add(new File(entry));
+    }
+    return compiler(compilerMode).withClasspath(classpath);
+  }
+
+  /** Compiles {@code sources} without Dagger, and writes their classes to the library directory. */
+  private void compileLibrary(JavaFileObject... sources) throws IOException {
+    Compilation compilation = javac().compile(sources);
+    assertThat(compilation).succeededWithoutWarnings();
+    for (JavaFileObject file : compilation.generatedFiles()) {
+      if (file.getKind() == JavaFileObject.Kind.CLASS) {
+        String path = file.toUri().getPath();
+        Path classFile = libraryDirectory.resolve(path.substring(path.indexOf("/test/") + 1));
+        Files.createDirectories(classFile.getParent());
+        try (InputStream in = file.openInputStream()) {
+          Files.copy(in, classFile);
+        }
+      }
+    }
+  }
+
+  private static JavaFileObject component(String provisionMethod) {
+    return JavaFileObjects.forSourceLines(
+        "test.TestComponent",
+        "package test;",
+        "",
+        "import dagger.Component;",
+        "import dagger.Module;",
+        "import dagger.Provides;",
+        "import jakarta.inject.Inject;",
+        "import jakarta.inject.Singleton;",
+        "",
+        "@Singleton",
+        "@Component(modules = TestModule.class)",
+        "interface TestComponent {",
+        "  Foo foo();",
+        "}",
+        "",
+        "@Module",
+        "interface TestModule {",
+        "  " + provisionMethod,
+        "}",
+        "",
+        "final class Foo {",
+        "  @Inject Foo(String string) {}",
+        "}");
+  }
+
+  private static JavaFileObject module() {
+    return JavaFileObjects.forSourceLines(
+        "test.TestModule",
+        "package test;",
+        "",
+        "import dagger.Module;",
+        "import dagger.Provides;",
+        "",
+        "@Module",
+        "interface TestModule {",
+        "  @Provides static String string() { return \"\"; }",
+        "  @Provides static Integer number() { return 1; }",
+        "}");
+  }
+
+  private static JavaFileObject baseComponent(String... entryPoints) {
+    List<String> lines = new ArrayList<>(List.of("package test;", "", "interface BaseComponent {"));
+    for (String entryPoint : entryPoints) {
+      lines.add("  " + entryPoint);
+    }
+    lines.add("}");
+    return JavaFileObjects.forSourceLines("test.BaseComponent", lines);
+  }
+
+  private static String report(Compilation compilation) throws IOException {
+    return compilation
+        .generatedFile(StandardLocation.CLASS_OUTPUT, ProcessorInstrumentation.REPORT_NAME)
+        .get()
+        .getCharContent(true)
+        .toString();
+  }
+}
@@ -65,6 +65,28 @@ public final class Compilers {
     return daggerCompiler().withOptions(Util.concat(DEFAULT_JAVACOPTS, Util.listOf(options)));
   }
 
+  /**
+   * Returns a compiler with the options of {@code compilerMode}, without {@code
+   * generatedClassExtendsComponent}, and with {@code extraOptions}.
+   */
+  public static Compiler compiler(CompilerMode compilerMode, String... extraOptions) {
+    List<String> options = new ArrayList<>(compilerMode.javacopts(false));
+    Collections.addAll(options, extraOptions);
+    return compilerWithOptions(options);
+  }
+
+  /**
+   * Returns a compiler like {@link #compiler(CompilerMode, String...)} that splits components into
+   * shards of two keys each.
+   */
+  public static Compiler shardingCompiler(CompilerMode compilerMode, String... extraOptions) {
+    List<String> options = new ArrayList<>(compilerMode.javacopts(false));
+    options.add("-Adagger.generatedClassExtendsComponent=DISABLED");
+    options.add("-Adagger.keysPerComponentShard=2");
+    Collections.addAll(options, extraOptions);
+    return compilerWithOptions(options);
+  }
+
   private Compilers() {
   }
 }
@@ -617,6 +617,63 @@ class ComponentProcessorTest {
         .succeeded();
   }
 
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void moduleWithGeneratedDependencySharedByComponents(CompilerMode compilerMode) {
+    JavaFileObject module =
+        JavaFileObjects.forSourceLines(
+            "test.SharedModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "",
+            "@Module",
+            "final class SharedModule {",
+            "  @Provides static String string(GeneratedType generatedType) {",
+            "    return generatedType.toString();",
+            "  }",
+            "}");
+    JavaFileObject firstComponent =
+        JavaFileObjects.forSourceLines(
+            "test.FirstComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component(modules = SharedModule.class)",
+            "interface FirstComponent {",
+            "  String string();",
+            "}");
+    JavaFileObject secondComponent =
+        JavaFileObjects.forSourceLines(
+            "test.SecondComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component(modules = SharedModule.class)",
+            "interface SecondComponent {",
+            "  String string();",
+            "}");
+    Compilation compilation =
+        daggerCompiler(
+                new GeneratingProcessor(
+                    "test.GeneratedType",
+                    "package test;",
+                    "",
+                    "import jakarta.inject.Inject;",
+                    "",
+                    "final class GeneratedType {",
+                    "  @Inject GeneratedType() {}",
+                    "}"))
+            .withOptions(compilerMode.javacopts())
+            .compile(module, firstComponent, secondComponent);
+    assertThat(compilation).succeeded();
+    assertThat(compilation).generatedSourceFile("test.DaggerFirstComponent");
+    assertThat(compilation).generatedSourceFile("test.DaggerSecondComponent");
+  }
+
   @EnumSource(CompilerMode.class)
   @ParameterizedTest
   void generatedModuleInSubcomponent(CompilerMode compilerMode) {
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static dagger.internal.codegen.CompilerMode.DEFAULT_MODE;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+import static dagger.internal.codegen.TestUtils.callEntryPoint;
+import static dagger.internal.codegen.TestUtils.createComponent;
+import static io.jbock.common.truth.Truth.assertThat;
+import static io.jbock.testing.compile.CompilationSubject.assertThat;
+
+import io.jbock.testing.compile.Compilation;
+import io.jbock.testing.compile.JavaFileObjects;
+import jakarta.inject.Provider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.tools.JavaFileObject;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class IndexedMapTest {
+  private static final String INDEXED_MAP = "dagger.internal.IndexedMap";
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void enumAndDenseIntKeysAreIndexed(CompilerMode compilerMode) throws Exception {
+    JavaFileObject color =
+        JavaFileObjects.forSourceLines(
+            "test.Color", //
+            "package test;",
+            "",
+            "enum Color { RED, GREEN, BLUE }");
+    JavaFileObject colorKey =
+        JavaFileObjects.forSourceLines(
+            "test.ColorKey",
+            "package test;",
+            "",
+            "import dagger.MapKey;",
+            "",
+            "@MapKey",
+            "@interface ColorKey {",
+            "  Color value();",
+            "}");
+    JavaFileObject module =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import dagger.multibindings.IntKey;",
+            "import dagger.multibindings.IntoMap;",
+            "import dagger.multibindings.LongKey;",
+            "",
+            "@Module",
+            "interface TestModule {",
+            "  @Provides @IntoMap @ColorKey(Color.BLUE) static String blue() { return \"blue\"; }",
+            "  @Provides @IntoMap @ColorKey(Color.RED) static String red() { return \"red\"; }",
+            "",
+            "  @Provides @IntoMap @IntKey(-1) static Long minusOne() { return -1L; }",
+            "  @Provides @IntoMap @IntKey(2) static Long two() { return 2L; }",
+            "",
+            "  @Provides @IntoMap @IntKey(1) static Short small() { return 1; }",
+            "  @Provides @IntoMap @IntKey(1000) static Short large() { return 1000; }",
+            "",
+            "  @Provides @IntoMap @LongKey(1) static Integer oneInt() { return 1; }",
+            "  @Provides @IntoMap @LongKey(2) static Integer twoInt() { return 2; }",
+            "}");
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import jakarta.inject.Provider;",
+            "import java.util.Map;",
+            "",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent {",
+            "  Map<Color, String> colors();",
+            "  Provider<Map<Color, Provider<String>>> colorProviders();",
+            "  Map<Integer, Long> denseInts();",
+            "  Map<Integer, Short> sparseInts();",
+            "  Map<Long, Integer> longs();",
+            "}");
+
+    Compilation compilation =
+        compilerWithOptions(compilerMode.javacopts(false))
+            .compile(color, colorKey, module, component);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    @Override",
+                    "    public Map<Color, String> colors() {",
+                    "      return MapBuilder.<Color, String>newMapBuilder(2).put(Color.BLUE, TestModule.blue()).put(Color.RED, TestModule.red()).buildIndexed();",
+                    "    }")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "    @Override",
+                    "    public Provider<Map<Color, Provider<String>>> colorProviders() {",
+                    "      return mapOfColorAndProviderOfStringProvider;",
+                    "    }")
+                .addLines(
+                    "    @Override",
+                    "    public Map<Integer, Long> denseInts() {",
+                    "      return MapBuilder.<Integer, Long>newMapBuilder(2).put(-1, TestModule.minusOne()).put(2, TestModule.two()).buildIndexed();",
+                    "    }",
+                    "    @Override",
+                    "    public Map<Integer, Short> sparseInts() {",
+                    "      return MapBuilder.<Integer, Short>newMapBuilder(2).put(1, TestModule.small()).put(1000, TestModule.large()).build();",
+                    "    }",
+                    "    @Override",
+                    "    public Map<Long, Integer> longs() {",
+                    "      return MapBuilder.<Long, Integer>newMapBuilder(2).put(1L, TestModule.oneInt()).put(2L, TestModule.twoInt()).build();",
+                    "    }")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      this.mapOfColorAndProviderOfStringProvider = MapProviderFactory.<Color, String>builder(2).put(Color.BLUE, TestModule_BlueFactory.create()).put(Color.RED, TestModule_RedFactory.create()).buildIndexed();")
+                .addLines("}")
+                .build());
+
+    Object testComponent = createComponent(compilation, "test.TestComponent");
+    Map<?, ?> colors = (Map<?, ?>) callEntryPoint(testComponent, "colors");
+    assertThat(colors.getClass().getName()).isEqualTo(INDEXED_MAP);
+    // The entries are in the order of their contributions, not in the order of the constants.
+    assertThat(colors.toString()).isEqualTo("{BLUE=blue, RED=red}");
+
+    Provider<?> colorProviders = (Provider<?>) callEntryPoint(testComponent, "colorProviders");
+    Map<?, ?> providers = (Map<?, ?>) colorProviders.get();
+    assertThat(providers.getClass().getName()).isEqualTo(INDEXED_MAP);
+    assertThat(providers.keySet().toString()).isEqualTo("[BLUE, RED]");
+    List<Object> values = new ArrayList<>();
+    for (Object provider : providers.values()) {
+      values.add(((Provider<?>) provider).get());
+    }
+    assertThat(values).containsExactly("blue", "red").inOrder();
+
+    Map<?, ?> denseInts = (Map<?, ?>) callEntryPoint(testComponent, "denseInts");
+    assertThat(denseInts.getClass().getName()).isEqualTo(INDEXED_MAP);
+    assertThat(denseInts).containsExactly(-1, -1L, 2, 2L).inOrder();
+    assertThat(denseInts.get(0)).isNull();
+    assertThat(denseInts.get(2L)).isNull();
+
+    Map<?, ?> sparseInts = (Map<?, ?>) callEntryPoint(testComponent, "sparseInts");
+    assertThat(sparseInts.getClass().getName()).isNotEqualTo(INDEXED_MAP);
+    assertThat(sparseInts).containsExactly(1, (short) 1, 1000, (short) 1000).inOrder();
+
+    Map<?, ?> longs = (Map<?, ?>) callEntryPoint(testComponent, "longs");
+    assertThat(longs.getClass().getName()).isNotEqualTo(INDEXED_MAP);
+    assertThat(longs).containsExactly(1L, 1, 2L, 2).inOrder();
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static dagger.internal.codegen.CompilerMode.DEFAULT_MODE;
+import static dagger.internal.codegen.CompilerMode.FAST_INIT_MODE;
+import static dagger.internal.codegen.Compilers.shardingCompiler;
+import static dagger.internal.codegen.TestUtils.callEntryPoint;
+import static dagger.internal.codegen.TestUtils.createComponent;
+import static io.jbock.common.truth.Truth.assertThat;
+import static io.jbock.testing.compile.CompilationSubject.assertThat;
+
+import io.jbock.testing.compile.Compilation;
+import io.jbock.testing.compile.JavaFileObjects;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class LazyComponentShardsTest {
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void shardsAreCreatedOnFirstUse(CompilerMode compilerMode) throws Exception {
+    Compilation compilation =
+        shardingCompiler(compilerMode, "-Adagger.lazyComponentShards=enabled").compile(sources());
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("dagger.internal.codegen.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("dagger.internal.codegen.DaggerTestComponent")
+                .addLines(
+                    "package dagger.internal.codegen;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImplShard2 {")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      this.binding1Provider = DoubleCheck.provider(Binding1_Factory.create(testComponentImpl.testComponentImplShard().binding2Provider));")
+                .addLinesIn(
+                    FAST_INIT_MODE,
+                    "          return (T) new Binding1(testComponentImpl.testComponentImplShard().binding2Provider.get());")
+                .addLines(
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    private volatile TestComponentImplShard testComponentImplShard;",
+                    "    private volatile TestComponentImplShard2 testComponentImplShard2;",
+                    "    private TestComponentImpl() {",
+                    "      initialize();",
+                    "    }",
+                    "    private TestComponentImplShard testComponentImplShard() {",
+                    "      TestComponentImplShard shard = this.testComponentImplShard;",
+                    "      if (shard == null) {",
+                    "        synchronized (this) {",
+                    "          shard = this.testComponentImplShard;",
+                    "          if (shard == null) {",
+                    "            shard = new TestComponentImplShard(testComponentImpl);",
+                    "            this.testComponentImplShard = shard;",
+                    "          }",
+                    "        }",
+                    "      }",
+                    "      return shard;",
+                    "    }",
+                    "    private TestComponentImplShard2 testComponentImplShard2() {",
+                    "            shard = new TestComponentImplShard2(testComponentImpl);",
+                    "    @Override",
+                    "    public Binding1 binding1() {",
+                    "      return testComponentImpl.testComponentImplShard2().binding1Provider.get();",
+                    "    }",
+                    "}")
+                .build());
+
+    Object component = createComponent(compilation, "dagger.internal.codegen.TestComponent");
+    List<Field> shardFields = shardFields(component);
+    assertThat(shardFields).hasSize(2);
+    for (Field shardField : shardFields) {
+      assertThat(shardField.get(component)).isNull();
+    }
+    // Binding1 is in the second shard, and depends on bindings in the first one.
+    Object binding1 = callEntryPoint(component, "binding1");
+    assertThat(callEntryPoint(component, "binding1")).isSameInstanceAs(binding1);
+    for (Field shardField : shardFields) {
+      assertThat(shardField.get(component)).isNotNull();
+    }
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void shardsAreCreatedEagerlyByDefault(CompilerMode compilerMode) throws Exception {
+    Compilation compilation = shardingCompiler(compilerMode).compile(sources());
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("dagger.internal.codegen.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("dagger.internal.codegen.DaggerTestComponent")
+                .addLines(
+                    "package dagger.internal.codegen;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    private TestComponentImplShard testComponentImplShard;",
+                    "    private TestComponentImplShard2 testComponentImplShard2;",
+                    "    private TestComponentImpl() {",
+                    "      initialize();",
+                    "      testComponentImplShard = new TestComponentImplShard(testComponentImpl);",
+                    "      testComponentImplShard2 = new TestComponentImplShard2(testComponentImpl);",
+                    "    }",
+                    "    @Override",
+                    "    public Binding1 binding1() {",
+                    "      return testComponentImpl.testComponentImplShard2.binding1Provider.get();",
+                    "    }",
+                    "}")
+                .build());
+
+    Object component = createComponent(compilation, "dagger.internal.codegen.TestComponent");
+    for (Field shardField : shardFields(component)) {
+      assertThat(shardField.get(component)).isNotNull();
+    }
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void lazyShardsAreCreatedByLockFreeCheck(CompilerMode compilerMode) throws Exception {
+    Compilation compilation =
+        shardingCompiler(
+                compilerMode,
+                "-Adagger.lazyComponentShards=enabled",
+                "-Adagger.lockFreeScopedProviders=enabled")
+            .compile(sources());
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("dagger.internal.codegen.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("dagger.internal.codegen.DaggerTestComponent")
+                .addLines(
+                    "package dagger.internal.codegen;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    private final Provider<TestComponentImplShard> testComponentImplShard;",
+                    "    private final Provider<TestComponentImplShard2> testComponentImplShard2;",
+                    "    private TestComponentImpl() {",
+                    "      initialize();",
+                    "      testComponentImplShard = LockFreeCheck.provider(() -> new TestComponentImplShard(testComponentImpl));",
+                    "      testComponentImplShard2 = LockFreeCheck.provider(() -> new TestComponentImplShard2(testComponentImpl));",
+                    "    }",
+                    "    private TestComponentImplShard testComponentImplShard() {",
+                    "      return testComponentImplShard.get();",
+                    "    }",
+                    "    private TestComponentImplShard2 testComponentImplShard2() {",
+                    "      return testComponentImplShard2.get();",
+                    "    }",
+                    "    @Override",
+                    "    public Binding1 binding1() {",
+                    "      return testComponentImpl.testComponentImplShard2().binding1Provider.get();",
+                    "    }",
+                    "}")
+                .build());
+
+    Object component = createComponent(compilation, "dagger.internal.codegen.TestComponent");
+    Object binding1 = callEntryPoint(component, "binding1");
+    assertThat(binding1).isNotNull();
+    assertThat(callEntryPoint(component, "binding1")).isSameInstanceAs(binding1);
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void lazyShardsGetTheModulesOfTheComponent(CompilerMode compilerMode) throws Exception {
+    Compilation compilation =
+        shardingCompiler(compilerMode, "-Adagger.lazyComponentShards=enabled")
+            .compile(sourcesWithModule());
+    assertThat(compilation).succeededWithoutWarnings();
+    // The module parameter is kept for the shards that are created after the constructor.
+    assertThat(compilation)
+        .generatedSourceFile("dagger.internal.codegen.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("dagger.internal.codegen.DaggerTestComponent")
+                .addLines(
+                    "package dagger.internal.codegen;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    private final TestModule testModuleParam;",
+                    "    private TestComponentImplShard testComponentImplShard() {",
+                    "            shard = new TestComponentImplShard(testComponentImpl, testModuleParam);",
+                    "}")
+                .build());
+
+    Object component = createComponent(compilation, "dagger.internal.codegen.TestComponent");
+    List<Field> shardFields = shardFields(component);
+    assertThat(shardFields).isNotEmpty();
+    for (Field shardField : shardFields) {
+      assertThat(shardField.get(component)).isNull();
+    }
+    Object binding1 = callEntryPoint(component, "binding1");
+    assertThat(binding1.getClass().getName()).isEqualTo("dagger.internal.codegen.Binding1");
+    for (Field shardField : shardFields) {
+      assertThat(shardField.get(component)).isNotNull();
+    }
+  }
+
+  /** Returns the fields of {@code component} that hold its shards. */
+  private static List<Field> shardFields(Object component) {
+    List<Field> shardFields = new ArrayList<>();
+    for (Field field : component.getClass().getDeclaredFields()) {
+      if (field.getType().getSimpleName().startsWith("TestComponentImplShard")) {
+        field.setAccessible(true);
+        shardFields.add(field);
+      }
+    }
+    return shardFields;
+  }
+
+  /**
+   * Returns the sources of a component whose bindings are spread over the component and two
+   * shards.
+   *
+   * <pre>
+   *     1 -> 2 -> 3 -> 4 -> 5 -> 6 -> 7
+   *          ^--------/
+   * </pre>
+   */
+  private static List<JavaFileObject> sources() {
+    List<JavaFileObject> sources = new ArrayList<>();
+    // Shard 2: Bindings (1)
+    sources.add(binding("Binding1", "Binding2 binding2"));
+    // Shard 1: Bindings (2, 3, 4, 5). Contains more than 2 bindings due to cycle.
+    sources.add(binding("Binding2", "Binding3 binding3"));
+    sources.add(binding("Binding3", "Binding4 binding4"));
+    sources.add(binding("Binding4", "Binding5 binding5, Provider<Binding2> binding2Provider"));
+    sources.add(binding("Binding5", "Binding6 binding6"));
+    // Component shard: Bindings (6, 7)
+    sources.add(binding("Binding6", "Binding7 binding7"));
+    sources.add(binding("Binding7"));
+    sources.add(
+        JavaFileObjects.forSourceLines(
+            "dagger.internal.codegen.TestComponent",
+            "package dagger.internal.codegen;",
+            "",
+            "import dagger.Component;",
+            "import jakarta.inject.Provider;",
+            "import jakarta.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component",
+            "interface TestComponent {",
+            "  Binding1 binding1();",
+            "  Binding2 binding2();",
+            "  Binding3 binding3();",
+            "  Binding4 binding4();",
+            "  Binding5 binding5();",
+            "  Binding6 binding6();",
+            "  Binding7 binding7();",
+            "  Provider<Binding1> providerBinding1();",
+            "  Provider<Binding2> providerBinding2();",
+            "  Provider<Binding3> providerBinding3();",
+            "  Provider<Binding4> providerBinding4();",
+            "  Provider<Binding5> providerBinding5();",
+            "  Provider<Binding6> providerBinding6();",
+            "  Provider<Binding7> providerBinding7();",
+            "}"));
+    return sources;
+  }
+
+  /**
+   * Returns the sources of a component whose chain of bindings ends in a binding of its module
+   * instance, so that the shards that are created on first use need the module.
+   */
+  private static List<JavaFileObject> sourcesWithModule() {
+    List<JavaFileObject> sources = new ArrayList<>();
+    for (int i = 1; i < 6; i++) {
+      sources.add(binding("Binding" + i, "Binding" + (i + 1) + " next"));
+    }
+    sources.add(binding("Binding6", "String string"));
+    sources.add(
+        JavaFileObjects.forSourceLines(
+            "dagger.internal.codegen.TestModule",
+            "package dagger.internal.codegen;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "",
+            "@Module",
+            "final class TestModule {",
+            "  @Provides String string() { return \"\"; }",
+            "}"));
+    sources.add(
+        JavaFileObjects.forSourceLines(
+            "dagger.internal.codegen.TestComponent",
+            "package dagger.internal.codegen;",
+            "",
+            "import dagger.Component;",
+            "import jakarta.inject.Provider;",
+            "import jakarta.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent {",
+            "  Binding1 binding1();",
+            "  Provider<Binding2> binding2Provider();",
+            "}"));
+    return sources;
+  }
+
+  private static JavaFileObject binding(String bindingName, String... deps) {
+    return JavaFileObjects.forSourceLines(
+        "dagger.internal.codegen." + bindingName,
+        "package dagger.internal.codegen;",
+        "",
+        "import jakarta.inject.Inject;",
+        "import jakarta.inject.Provider;",
+        "import jakarta.inject.Singleton;",
+        "",
+        "@Singleton",
+        "final class " + bindingName + " {",
+        "  @Inject",
+        "  " + bindingName + "(" + String.join(", ", deps) + ") {}",
+        "}");
+  }
+}
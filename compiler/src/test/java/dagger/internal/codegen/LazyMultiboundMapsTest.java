@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static dagger.internal.codegen.CompilerMode.DEFAULT_MODE;
+import static dagger.internal.codegen.CompilerMode.FAST_INIT_MODE;
+import static dagger.internal.codegen.Compilers.compiler;
+import static dagger.internal.codegen.TestUtils.callEntryPoint;
+import static dagger.internal.codegen.TestUtils.createComponent;
+import static io.jbock.common.truth.Truth.assertThat;
+import static io.jbock.testing.compile.CompilationSubject.assertThat;
+
+import dagger.internal.LazyMapView;
+import io.jbock.testing.compile.Compilation;
+import io.jbock.testing.compile.JavaFileObjects;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import javax.tools.JavaFileObject;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class LazyMultiboundMapsTest {
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void mapsAreLazyViews(CompilerMode compilerMode) throws Exception {
+    Compilation compilation = compile(compilerMode, "-Adagger.lazyMultiboundMaps=enabled");
+    assertThat(compilation).succeededWithoutWarnings();
+    // The map of providers is built like a map of values with the same keys.
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    @Override",
+                    "    public Map<Integer, Long> longs() {")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      return LazyMapView.<Integer, Long>of(MapBuilder.<Integer, Provider<Long>>newMapBuilder(2).put(1, TestModule_OneFactory.create()).put(100, TestModule_HundredFactory.create()).build());")
+                .addLinesIn(
+                    FAST_INIT_MODE,
+                    "      return LazyMapView.<Integer, Long>of(MapBuilder.<Integer, Provider<Long>>newMapBuilder(2).put(1, oneProvider).put(100, hundredProvider).build());")
+                .addLines(
+                    "    }",
+                    "    @Override",
+                    "    public Map<String, Integer> strings() {")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      return LazyMapView.<String, Integer>of(MapBuilder.<String, Provider<Integer>>newMapBuilder(2).put(\"a\", TestModule_AFactory.create()).put(\"b\", TestModule_BFactory.create()).buildPerfectHash(0));")
+                .addLinesIn(
+                    FAST_INIT_MODE,
+                    "      return LazyMapView.<String, Integer>of(MapBuilder.<String, Provider<Integer>>newMapBuilder(2).put(\"a\", aProvider).put(\"b\", bProvider).buildPerfectHash(0));")
+                .addLines(
+                    "    }",
+                    "}")
+                .build());
+
+    Object component = createComponent(compilation, "test.TestComponent");
+    List<String> calls = calls(component);
+    Map<?, ?> longs = (Map<?, ?>) callEntryPoint(component, "longs");
+    assertThat(longs).isInstanceOf(LazyMapView.class);
+    assertThat(longs).hasSize(2);
+    assertThat(longs.containsKey(1)).isTrue();
+    assertThat(longs.containsKey(2)).isFalse();
+    assertThat(calls).isEmpty();
+
+    Object hundred = longs.get(100);
+    assertThat(hundred).isEqualTo(100L);
+    assertThat(longs.get(100)).isSameInstanceAs(hundred);
+    assertThat(calls).containsExactly("hundred");
+
+    Map<?, ?> strings = (Map<?, ?>) callEntryPoint(component, "strings");
+    assertThat(strings.get("b")).isEqualTo(2);
+    assertThat(calls).containsExactly("hundred", "b").inOrder();
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void mapsAreNotLazyByDefault(CompilerMode compilerMode) throws Exception {
+    Compilation compilation = compile(compilerMode);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    @Override",
+                    "    public Map<Integer, Long> longs() {",
+                    "      return MapBuilder.<Integer, Long>newMapBuilder(2).put(1, TestModule.one()).put(100, TestModule.hundred()).build();",
+                    "    }",
+                    "}")
+                .build());
+
+    Object component = createComponent(compilation, "test.TestComponent");
+    List<String> calls = calls(component);
+    Map<?, ?> longs = (Map<?, ?>) callEntryPoint(component, "longs");
+    assertThat(longs).isNotInstanceOf(LazyMapView.class);
+    assertThat(calls).containsExactly("one", "hundred").inOrder();
+  }
+
+  /** Returns the list to which the providers of {@code component}'s module add their names. */
+  @SuppressWarnings("unchecked")
+  private static List<String> calls(Object component) throws ReflectiveOperationException {
+    Field calls =
+        Class.forName("test.TestModule", true, component.getClass().getClassLoader())
+            .getDeclaredField("CALLS");
+    calls.setAccessible(true);
+    return (List<String>) calls.get(null);
+  }
+
+  private static Compilation compile(CompilerMode compilerMode, String... extraOptions) {
+    JavaFileObject module =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import dagger.multibindings.IntKey;",
+            "import dagger.multibindings.IntoMap;",
+            "import dagger.multibindings.StringKey;",
+            "import java.util.ArrayList;",
+            "import java.util.List;",
+            "",
+            "@Module",
+            "interface TestModule {",
+            "  List<String> CALLS = new ArrayList<>();",
+            "",
+            "  @Provides @IntoMap @IntKey(1)",
+            "  static Long one() {",
+            "    CALLS.add(\"one\");",
+            "    return 1L;",
+            "  }",
+            "",
+            "  @Provides @IntoMap @IntKey(100)",
+            "  static Long hundred() {",
+            "    CALLS.add(\"hundred\");",
+            "    return 100L;",
+            "  }",
+            "",
+            "  @Provides @IntoMap @StringKey(\"a\")",
+            "  static Integer a() {",
+            "    CALLS.add(\"a\");",
+            "    return 1;",
+            "  }",
+            "",
+            "  @Provides @IntoMap @StringKey(\"b\")",
+            "  static Integer b() {",
+            "    CALLS.add(\"b\");",
+            "    return 2;",
+            "  }",
+            "}");
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import java.util.Map;",
+            "",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent {",
+            "  Map<Integer, Long> longs();",
+            "  Map<String, Integer> strings();",
+            "}");
+
+    return compiler(compilerMode, extraOptions).compile(module, component);
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static dagger.internal.codegen.CompilerMode.DEFAULT_MODE;
+import static dagger.internal.codegen.CompilerMode.FAST_INIT_MODE;
+import static dagger.internal.codegen.Compilers.compiler;
+import static dagger.internal.codegen.TestUtils.callEntryPoint;
+import static dagger.internal.codegen.TestUtils.createComponent;
+import static io.jbock.common.truth.Truth.assertThat;
+import static io.jbock.testing.compile.CompilationSubject.assertThat;
+
+import dagger.Lazy;
+import dagger.internal.DoubleCheck;
+import dagger.internal.LockFreeCheck;
+import io.jbock.testing.compile.Compilation;
+import io.jbock.testing.compile.JavaFileObjects;
+import jakarta.inject.Provider;
+import javax.tools.JavaFileObject;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class LockFreeScopedProvidersTest {
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "import dagger.Reusable;",
+          "import jakarta.inject.Inject;",
+          "import jakarta.inject.Provider;",
+          "import jakarta.inject.Singleton;",
+          "",
+          "@Singleton",
+          "@Component",
+          "interface TestComponent {",
+          "  Provider<Scoped> scoped();",
+          "  Provider<Cached> cached();",
+          "}",
+          "",
+          "@Singleton",
+          "final class Scoped {",
+          "  @Inject Scoped() {}",
+          "}",
+          "",
+          "@Reusable",
+          "final class Cached {",
+          "  @Inject Cached() {}",
+          "}");
+
+  private static final JavaFileObject LAZY_COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.LazyComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "import dagger.Lazy;",
+          "import jakarta.inject.Inject;",
+          "import jakarta.inject.Provider;",
+          "",
+          "@Component",
+          "interface LazyComponent {",
+          "  Lazy<Dep> lazyDep();",
+          "  Consumer consumer();",
+          "}",
+          "",
+          "final class Dep {",
+          "  @Inject Dep() {}",
+          "}",
+          "",
+          "final class Consumer {",
+          "  @Inject Consumer(Lazy<Dep> lazyDep, Provider<Lazy<Dep>> providerOfLazyDep) {}",
+          "}");
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void scopedBindingsUseLockFreeCheck(CompilerMode compilerMode) throws Exception {
+    Compilation compilation =
+        compiler(compilerMode, "-Adagger.lockFreeScopedProviders=enabled").compile(COMPONENT);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    @SuppressWarnings(\"unchecked\")",
+                    "    private void initialize() {")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      this.scopedProvider = LockFreeCheck.provider(Scoped_Factory.create());",
+                    "      this.cachedProvider = SingleCheck.provider(Cached_Factory.create());")
+                .addLinesIn(
+                    FAST_INIT_MODE,
+                    "      this.scopedProvider = LockFreeCheck.provider(new SwitchingProvider<Scoped>(testComponentImpl, 0));",
+                    "      this.cachedProvider = SingleCheck.provider(new SwitchingProvider<Cached>(testComponentImpl, 1));")
+                .build());
+
+    Object component = createComponent(compilation, "test.TestComponent");
+    Provider<?> scoped = (Provider<?>) callEntryPoint(component, "scoped");
+    assertThat(scoped).isInstanceOf(LockFreeCheck.class);
+    assertThat(scoped.get()).isSameInstanceAs(scoped.get());
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void scopedBindingsUseDoubleCheckByDefault(CompilerMode compilerMode) throws Exception {
+    Compilation compilation = compiler(compilerMode).compile(COMPONENT);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    @SuppressWarnings(\"unchecked\")",
+                    "    private void initialize() {")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      this.scopedProvider = DoubleCheck.provider(Scoped_Factory.create());")
+                .addLinesIn(
+                    FAST_INIT_MODE,
+                    "      this.scopedProvider = DoubleCheck.provider(new SwitchingProvider<Scoped>(testComponentImpl, 0));")
+                .build());
+
+    Object component = createComponent(compilation, "test.TestComponent");
+    assertThat(callEntryPoint(component, "scoped")).isInstanceOf(DoubleCheck.class);
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void lazyRequestsUseLockFreeCheck(CompilerMode compilerMode) throws Exception {
+    Compilation compilation =
+        compiler(compilerMode, "-Adagger.lockFreeScopedProviders=enabled")
+            .compile(LAZY_COMPONENT);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("test.Consumer_Factory")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.Consumer_Factory")
+                .addLines(
+                    "package test;",
+                    "  @Override",
+                    "  public Consumer get() {",
+                    "    return newInstance(LockFreeCheck.lazy(lazyDepProvider), ProviderOfLazy.createLockFree(providerOfLazyDepProvider));",
+                    "  }")
+                .build());
+    if (compilerMode == DEFAULT_MODE) {
+      assertThat(compilation)
+          .generatedSourceFile("test.DaggerLazyComponent")
+          .containsLines(
+              compilerMode
+                  .javaFileBuilder("test.DaggerLazyComponent")
+                  .addLines(
+                      "package test;",
+                      "    @Override",
+                      "    public Lazy<Dep> lazyDep() {",
+                      "      return LockFreeCheck.lazy(Dep_Factory.create());",
+                      "    }")
+                  .build());
+    }
+
+    Object component = createComponent(compilation, "test.LazyComponent");
+    Lazy<?> lazyDep = (Lazy<?>) callEntryPoint(component, "lazyDep");
+    assertThat(lazyDep).isInstanceOf(LockFreeCheck.class);
+    assertThat(lazyDep.get()).isSameInstanceAs(lazyDep.get());
+  }
+}
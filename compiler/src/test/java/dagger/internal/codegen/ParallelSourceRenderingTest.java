@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static dagger.internal.codegen.CompilerMode.DEFAULT_MODE;
+import static dagger.internal.codegen.CompilerMode.FAST_INIT_MODE;
+import static dagger.internal.codegen.Compilers.compiler;
+import static dagger.internal.codegen.TestUtils.callEntryPoint;
+import static dagger.internal.codegen.TestUtils.createComponent;
+import static dagger.internal.codegen.TestUtils.generatedSource;
+import static io.jbock.common.truth.Truth.assertThat;
+import static io.jbock.testing.compile.CompilationSubject.assertThat;
+
+import io.jbock.javapoet.AnnotationSpec;
+import io.jbock.javapoet.ClassName;
+import io.jbock.javapoet.CodeBlock;
+import io.jbock.javapoet.FieldSpec;
+import io.jbock.javapoet.JavaFile;
+import io.jbock.javapoet.MethodSpec;
+import io.jbock.javapoet.TypeName;
+import io.jbock.javapoet.TypeSpec;
+import io.jbock.testing.compile.Compilation;
+import io.jbock.testing.compile.JavaFileObjects;
+import jakarta.inject.Provider;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class ParallelSourceRenderingTest {
+  private static final JavaFileObject SOURCES =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "import dagger.Module;",
+          "import dagger.Provides;",
+          "import jakarta.inject.Inject;",
+          "import jakarta.inject.Provider;",
+          "import jakarta.inject.Singleton;",
+          "",
+          "@Singleton",
+          "@Component(modules = TestModule.class)",
+          "interface TestComponent {",
+          "  Provider<Foo> foo();",
+          "  void inject(Bar bar);",
+          "}",
+          "",
+          "@Module",
+          "interface TestModule {",
+          "  @Provides static String string() { return \"\"; }",
+          "}",
+          "",
+          "@Singleton",
+          "final class Foo {",
+          "  @Inject Foo(String string) {}",
+          "}",
+          "",
+          "class Bar {",
+          "  @Inject Foo foo;",
+          "}");
+
+  private static final List<String> GENERATED_FILES =
+      List.of(
+          "test.DaggerTestComponent",
+          "test.TestModule_StringFactory",
+          "test.Foo_Factory",
+          "test.Bar_MembersInjector");
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void rendersSameSourcesAsSerialRendering(CompilerMode compilerMode) throws Exception {
+    Compilation serial = compiler(compilerMode).compile(SOURCES);
+    Compilation parallel =
+        compiler(compilerMode, "-Adagger.parallelSourceRendering=enabled").compile(SOURCES);
+    assertThat(serial).succeededWithoutWarnings();
+    assertThat(parallel).succeededWithoutWarnings();
+    assertThat(parallel)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    @Override",
+                    "    public Provider<Foo> foo() {",
+                    "      return fooProvider;",
+                    "    }")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      this.fooProvider = DoubleCheck.provider(Foo_Factory.create(TestModule_StringFactory.create()));")
+                .addLinesIn(
+                    FAST_INIT_MODE,
+                    "          return (T) new Foo(TestModule.string());")
+                .build());
+
+    for (String file : GENERATED_FILES) {
+      assertThat(generatedSource(parallel, file)).isEqualTo(generatedSource(serial, file));
+    }
+
+    Object component = createComponent(parallel, "test.TestComponent");
+    Provider<?> fooProvider = (Provider<?>) callEntryPoint(component, "foo");
+    assertThat(fooProvider.get()).isSameInstanceAs(fooProvider.get());
+  }
+
+  @Test
+  void onlyFilesWithSafeLiteralArgumentsAreRenderedOnThePool() {
+    CodeBlock safe =
+        CodeBlock.of(
+            "$T.of($S, $L, $L, $L)",
+            ClassName.get(List.class),
+            "string",
+            1,
+            true,
+            CodeBlock.of("$N", "name"));
+    assertThat(ParallelRenderingFiler.rendersWithoutJavac(javaFile(safe))).isTrue();
+    assertThat(
+            ParallelRenderingFiler.rendersWithoutJavac(
+                javaFile(CodeBlock.of("$L", TypeSpec.anonymousClassBuilder("").build()))))
+        .isTrue();
+
+    // Literal arguments other than strings, primitives and JavaPoet specs are formatted when the
+    // file is rendered, which might call javac.
+    Object key = new Object();
+    assertThat(ParallelRenderingFiler.rendersWithoutJavac(javaFile(CodeBlock.of("$L", key))))
+        .isFalse();
+    assertThat(
+            ParallelRenderingFiler.rendersWithoutJavac(
+                javaFile(CodeBlock.of("$L", CodeBlock.of("get($L)", key)))))
+        .isFalse();
+    JavaFile annotated =
+        JavaFile.builder(
+                "test",
+                TypeSpec.classBuilder("Test")
+                    .addAnnotation(
+                        AnnotationSpec.builder(ClassName.get("test", "Annotation"))
+                            .addMember("value", "$L", key)
+                            .build())
+                    .build())
+            .build();
+    assertThat(ParallelRenderingFiler.rendersWithoutJavac(annotated)).isFalse();
+  }
+
+  private static JavaFile javaFile(CodeBlock code) {
+    return JavaFile.builder(
+            "test",
+            TypeSpec.classBuilder("Test")
+                .addField(FieldSpec.builder(TypeName.INT, "field").initializer("0").build())
+                .addMethod(MethodSpec.methodBuilder("method").addStatement(code).build())
+                .build())
+        .build();
+  }
+}
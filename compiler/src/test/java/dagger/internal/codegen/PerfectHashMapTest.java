@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static dagger.internal.codegen.CompilerMode.DEFAULT_MODE;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+import static dagger.internal.codegen.TestUtils.callEntryPoint;
+import static dagger.internal.codegen.TestUtils.createComponent;
+import static io.jbock.common.truth.Truth.assertThat;
+import static io.jbock.testing.compile.CompilationSubject.assertThat;
+
+import dagger.internal.PerfectHashMap;
+import io.jbock.testing.compile.Compilation;
+import io.jbock.testing.compile.JavaFileObjects;
+import jakarta.inject.Provider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.tools.JavaFileObject;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class PerfectHashMapTest {
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void stringAndClassKeysArePerfectlyHashed(CompilerMode compilerMode) throws Exception {
+    JavaFileObject module =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import dagger.multibindings.ClassKey;",
+            "import dagger.multibindings.IntoMap;",
+            "import dagger.multibindings.StringKey;",
+            "import java.util.Map;",
+            "",
+            "@Module",
+            "interface TestModule {",
+            "  @Provides @IntoMap @StringKey(\"a\") static String a() { return \"a\"; }",
+            "  @Provides @IntoMap @StringKey(\"b\") static String b() { return \"b\"; }",
+            "  @Provides @IntoMap @StringKey(\"c\") static String c() { return \"c\"; }",
+            "",
+            "  @Provides @IntoMap @ClassKey(Map.Entry.class) static Integer entry() { return 1; }",
+            "  @Provides @IntoMap @ClassKey(Thread.State.class) static Integer state() { return 2; }",
+            "",
+            "  @Provides @IntoMap @ClassKey(int.class) static Long intKey() { return 1L; }",
+            "  @Provides @IntoMap @ClassKey(Long.class) static Long longKey() { return 2L; }",
+            "}");
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import jakarta.inject.Provider;",
+            "import java.util.Map;",
+            "",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent {",
+            "  Map<String, String> strings();",
+            "  Provider<Map<String, Provider<String>>> stringProviders();",
+            "  Map<Class<?>, Integer> classes();",
+            "  Map<Class<?>, Long> primitiveClasses();",
+            "}");
+
+    Compilation compilation =
+        compilerWithOptions(compilerMode.javacopts(false)).compile(module, component);
+    assertThat(compilation).succeededWithoutWarnings();
+    // The displacements of the nested classes are only collision-free for their binary names,
+    // which PerfectHashMap hashes at runtime.
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    @Override",
+                    "    public Map<String, String> strings() {",
+                    "      return MapBuilder.<String, String>newMapBuilder(3).put(\"a\", TestModule.a()).put(\"b\", TestModule.b()).put(\"c\", TestModule.c()).buildPerfectHash(0, 0);",
+                    "    }")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "    @Override",
+                    "    public Provider<Map<String, Provider<String>>> stringProviders() {",
+                    "      return mapOfStringAndProviderOfStringProvider;",
+                    "    }")
+                .addLines(
+                    "    @Override",
+                    "    public Map<Class<?>, Integer> classes() {",
+                    "      return MapBuilder.<Class<?>, Integer>newMapBuilder(2).put(Map.Entry.class, TestModule.entry()).put(Thread.State.class, TestModule.state()).buildPerfectHash(1);",
+                    "    }",
+                    "    @Override",
+                    "    public Map<Class<?>, Long> primitiveClasses() {",
+                    "      return MapBuilder.<Class<?>, Long>newMapBuilder(2).put(int.class, TestModule.intKey()).put(Long.class, TestModule.longKey()).build();",
+                    "    }")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      this.mapOfStringAndProviderOfStringProvider = MapProviderFactory.<String, String>builder(3).put(\"a\", TestModule_AFactory.create()).put(\"b\", TestModule_BFactory.create()).put(\"c\", TestModule_CFactory.create()).buildPerfectHash(0, 0);")
+                .addLines("}")
+                .build());
+
+    Object testComponent = createComponent(compilation, "test.TestComponent");
+    Object strings = callEntryPoint(testComponent, "strings");
+    assertThat(strings).isInstanceOf(PerfectHashMap.class);
+    assertThat(strings).isEqualTo(Map.of("a", "a", "b", "b", "c", "c"));
+
+    Provider<?> stringProviders = (Provider<?>) callEntryPoint(testComponent, "stringProviders");
+    Map<?, ?> providers = (Map<?, ?>) stringProviders.get();
+    assertThat(providers).isInstanceOf(PerfectHashMap.class);
+    List<Object> values = new ArrayList<>();
+    for (Object provider : providers.values()) {
+      values.add(((Provider<?>) provider).get());
+    }
+    assertThat(values).containsExactly("a", "b", "c").inOrder();
+
+    Map<?, ?> classes = (Map<?, ?>) callEntryPoint(testComponent, "classes");
+    assertThat(classes).isInstanceOf(PerfectHashMap.class);
+    assertThat(classes).containsExactly(Map.Entry.class, 1, Thread.State.class, 2).inOrder();
+
+    Object primitiveClasses = callEntryPoint(testComponent, "primitiveClasses");
+    assertThat(primitiveClasses).isNotInstanceOf(PerfectHashMap.class);
+    assertThat(primitiveClasses).isEqualTo(Map.of(int.class, 1L, Long.class, 2L));
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static dagger.internal.codegen.CompilerMode.DEFAULT_MODE;
+import static dagger.internal.codegen.CompilerMode.FAST_INIT_MODE;
+import static dagger.internal.codegen.Compilers.compiler;
+import static dagger.internal.codegen.TestUtils.callEntryPoint;
+import static dagger.internal.codegen.TestUtils.createComponent;
+import static io.jbock.common.truth.Truth.assertThat;
+import static io.jbock.testing.compile.CompilationSubject.assertThat;
+
+import dagger.internal.CompactSet;
+import io.jbock.testing.compile.Compilation;
+import io.jbock.testing.compile.JavaFileObjects;
+import java.util.Map;
+import java.util.Set;
+import javax.tools.JavaFileObject;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class PrecomputedMultibindingsTest {
+  private static final JavaFileObject MODULE =
+      JavaFileObjects.forSourceLines(
+          "test.TestModule",
+          "package test;",
+          "",
+          "import dagger.Module;",
+          "import dagger.Provides;",
+          "import dagger.Reusable;",
+          "import dagger.multibindings.ElementsIntoSet;",
+          "import dagger.multibindings.IntoMap;",
+          "import dagger.multibindings.IntoSet;",
+          "import dagger.multibindings.StringKey;",
+          "import jakarta.inject.Singleton;",
+          "import java.util.Collections;",
+          "import java.util.Set;",
+          "",
+          "@Module",
+          "interface TestModule {",
+          "  @Provides @IntoSet @Singleton static String singleton() { return \"a\"; }",
+          "  @Provides @IntoSet @Reusable static String reusable() { return \"b\"; }",
+          "  @Provides @ElementsIntoSet @Singleton",
+          "  static Set<String> elements() { return Collections.singleton(\"c\"); }",
+          "",
+          "  @Provides @IntoMap @StringKey(\"one\") @Singleton static Integer one() { return 1; }",
+          "  @Provides @IntoMap @StringKey(\"two\") @Singleton static Integer two() { return 2; }",
+          "",
+          "  @Provides @IntoSet @Singleton static Object scoped() { return \"x\"; }",
+          "  @Provides @IntoSet static Object unscoped() { return new Object(); }",
+          "}");
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "import jakarta.inject.Singleton;",
+          "import java.util.Map;",
+          "import java.util.Set;",
+          "",
+          "@Singleton",
+          "@Component(modules = TestModule.class)",
+          "interface TestComponent {",
+          "  Set<String> strings();",
+          "  Map<String, Integer> integers();",
+          "  Set<Object> objects();",
+          "}");
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void multibindingsOfScopedContributionsArePrecomputed(CompilerMode compilerMode)
+      throws Exception {
+    Compilation compilation =
+        compiler(compilerMode, "-Adagger.precomputedMultibindings=enabled")
+            .compile(MODULE, COMPONENT);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    @Override",
+                    "    public Set<String> strings() {",
+                    "      return setOfStringProvider.get();",
+                    "    }",
+                    "    @Override",
+                    "    public Map<String, Integer> integers() {",
+                    "      return mapOfStringAndIntegerProvider.get();",
+                    "    }")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      this.setOfStringProvider = SingleCheck.provider(SetFactory.<String>builder(2, 1).addProvider(singletonProvider).addProvider(reusableProvider).addCollectionProvider(elementsProvider).buildCompact());")
+                .addLinesIn(
+                    FAST_INIT_MODE,
+                    "          return (T) SetBuilder.<String>newSetBuilder(3).add(testComponentImpl.singletonProvider.get()).add(testComponentImpl.reusableProvider.get()).addAll(testComponentImpl.elementsProvider.get()).buildCompact();")
+                .build());
+
+    Object component = createComponent(compilation, "test.TestComponent");
+    Object strings = callEntryPoint(component, "strings");
+    assertThat(strings).isInstanceOf(CompactSet.class);
+    assertThat(strings).isEqualTo(Set.of("a", "b", "c"));
+    assertThat(callEntryPoint(component, "strings")).isSameInstanceAs(strings);
+    Object integers = callEntryPoint(component, "integers");
+    assertThat(integers).isEqualTo(Map.of("one", 1, "two", 2));
+    assertThat(callEntryPoint(component, "integers")).isSameInstanceAs(integers);
+    // Set<Object> has an unscoped contribution, so it's built on each request.
+    assertThat(callEntryPoint(component, "objects"))
+        .isNotSameInstanceAs(callEntryPoint(component, "objects"));
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void multibindingsAreNotPrecomputedByDefault(CompilerMode compilerMode) throws Exception {
+    Compilation compilation = compiler(compilerMode).compile(MODULE, COMPONENT);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    @Override",
+                    "    public Set<String> strings() {",
+                    "      return SetBuilder.<String>newSetBuilder(3).add(singletonProvider.get()).add(reusableProvider.get()).addAll(elementsProvider.get()).build();",
+                    "    }")
+                .build());
+
+    Object component = createComponent(compilation, "test.TestComponent");
+    assertThat(callEntryPoint(component, "strings"))
+        .isNotSameInstanceAs(callEntryPoint(component, "strings"));
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+import static dagger.internal.codegen.Compilers.daggerCompiler;
+import static dagger.internal.codegen.TestUtils.callEntryPoint;
+import static dagger.internal.codegen.TestUtils.createComponent;
+import static io.jbock.common.truth.Truth.assertThat;
+import static io.jbock.testing.compile.CompilationSubject.assertThat;
+
+import dagger.internal.codegen.base.ProcessorInstrumentation;
+import io.jbock.testing.compile.Compilation;
+import io.jbock.testing.compile.JavaFileObjects;
+import java.io.IOException;
+import java.util.Optional;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import org.junit.jupiter.api.Test;
+
+class ProcessorInstrumentationTest {
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "import jakarta.inject.Inject;",
+          "",
+          "@Component",
+          "interface TestComponent {",
+          "  Foo foo();",
+          "}",
+          "",
+          "final class Foo {",
+          "  @Inject Foo() {}",
+          "}");
+
+  @Test
+  void reportWrittenWhenEnabled() throws IOException {
+    Compilation compilation =
+        compilerWithOptions("-Adagger.processorInstrumentation=enabled").compile(COMPONENT);
+    assertThat(compilation).succeededWithoutWarnings();
+
+    Optional<JavaFileObject> report =
+        compilation.generatedFile(
+            StandardLocation.CLASS_OUTPUT, ProcessorInstrumentation.REPORT_NAME);
+    assertThat(report.isPresent()).isTrue();
+    String json = report.get().getCharContent(true).toString();
+    assertThat(json)
+        .contains(
+            "{\"element\": \"test.TestComponent\", \"phase\": \"BindingGraphFactory.create\"");
+    assertThat(json)
+        .contains("{\"element\": \"test.TestComponent\", \"phase\": \"ComponentGenerator\"");
+    assertThat(json)
+        .contains("{\"element\": \"test.TestComponent\", \"phase\": \"superficialValidation\"");
+    assertThat(json)
+        .contains("{\"element\": \"test.TestComponent\", \"phase\": \"ComponentProcessingStep\"");
+    assertThat(json).contains("{\"element\": \"test.Foo\", \"phase\": \"InjectProcessingStep\"");
+    assertThat(json).contains("\"phase\": \"plugin:Dagger/DependencyCycle\"");
+    assertThat(json)
+        .contains("{\"cache\": \"DiagnosticMessageGenerator.supertypes\", \"hits\": ");
+    assertThat(json).contains("{\"cache\": \"SuperficialValidator\", \"hits\": ");
+    assertThat(json).contains("{\"counter\": \"XTypeElementStore.hits\", \"count\": ");
+    assertThat(json).contains("{\"counter\": \"XTypeElementStore.misses\", \"count\": ");
+    assertThat(json).contains("{\"counter\": \"XTypeElementStore.rewraps\", \"count\": ");
+  }
+
+  @Test
+  void deferredElementRetriedOnlyAfterMissingTypeIsGenerated() throws IOException {
+    JavaFileObject foo =
+        JavaFileObjects.forSourceLines(
+            "test.Foo",
+            "package test;",
+            "",
+            "import jakarta.inject.Inject;",
+            "",
+            "final class Foo {",
+            "  @Inject Foo() {}",
+            "",
+            "  Unrelated_Factory unrelatedFactory() {",
+            "    return null;",
+            "  }",
+            "}");
+    Compilation compilation =
+        daggerCompiler(
+                new GeneratingProcessor(
+                    "test.Unrelated",
+                    "package test;",
+                    "",
+                    "import jakarta.inject.Inject;",
+                    "",
+                    "final class Unrelated {",
+                    "  @Inject Unrelated() {}",
+                    "}"))
+            .withOptions("-Adagger.processorInstrumentation=enabled")
+            .compile(foo);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation).generatedSourceFile("test.Foo_Factory");
+
+    // Foo is deferred until Unrelated_Factory is generated, so it's not retried in the round in
+    // which only Unrelated is new.
+    assertThat(report(compilation))
+        .contains("{\"counter\": \"InjectProcessingStep.skippedRetries\", \"count\": 1}");
+  }
+
+  @Test
+  void deferredElementRetriedWithPackageInfoSources() throws IOException {
+    JavaFileObject packageInfo =
+        JavaFileObjects.forSourceLines("test.package-info", "package test;");
+    JavaFileObject foo =
+        JavaFileObjects.forSourceLines(
+            "test.Foo",
+            "package test;",
+            "",
+            "import jakarta.inject.Inject;",
+            "",
+            "final class Foo {",
+            "  @Inject Foo() {}",
+            "",
+            "  Unrelated_Factory unrelatedFactory() {",
+            "    return null;",
+            "  }",
+            "}");
+    // The package-info sources are root elements of the first and the second round, which are not
+    // types.
+    Compilation compilation =
+        daggerCompiler(
+                new GeneratingProcessor(
+                    "test.Unrelated",
+                    "package test;",
+                    "",
+                    "import jakarta.inject.Inject;",
+                    "",
+                    "final class Unrelated {",
+                    "  @Inject Unrelated() {}",
+                    "}"),
+                new GeneratingProcessor("other.package-info", "package other;"))
+            .withOptions("-Adagger.processorInstrumentation=enabled")
+            .compile(packageInfo, foo);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation).generatedSourceFile("test.Foo_Factory");
+    assertThat(report(compilation))
+        .contains("{\"counter\": \"InjectProcessingStep.skippedRetries\", \"count\": 1}");
+  }
+
+  @Test
+  void moduleDescriptorReusedInLaterRound() throws Exception {
+    JavaFileObject module =
+        JavaFileObjects.forSourceLines(
+            "test.SharedModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "",
+            "@Module",
+            "final class SharedModule {",
+            "  @Provides static String string() {",
+            "    return \"shared\";",
+            "  }",
+            "}");
+    JavaFileObject firstComponent =
+        JavaFileObjects.forSourceLines(
+            "test.FirstComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component(modules = SharedModule.class)",
+            "interface FirstComponent {",
+            "  String string();",
+            "}");
+    Compilation compilation =
+        daggerCompiler(
+                new GeneratingProcessor(
+                    "test.SecondComponent",
+                    "package test;",
+                    "",
+                    "import dagger.Component;",
+                    "",
+                    "@Component(modules = SharedModule.class)",
+                    "interface SecondComponent {",
+                    "  String string();",
+                    "}"))
+            .withOptions("-Adagger.processorInstrumentation=enabled")
+            .compile(module, firstComponent);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(callEntryPoint(createComponent(compilation, "test.SecondComponent"), "string"))
+        .isEqualTo("shared");
+
+    // The descriptor of SharedModule is created for FirstComponent, and SecondComponent uses it in
+    // the next round.
+    String json = report(compilation);
+    assertThat(json)
+        .contains("{\"counter\": \"ModuleDescriptor.Factory.misses\", \"count\": 1}");
+    assertThat(json)
+        .contains("{\"counter\": \"ModuleDescriptor.Factory.hits\", \"count\": 1}");
+  }
+
+  @Test
+  void moduleDescriptorRebuiltAfterInheritedTypeIsGenerated() throws Exception {
+    JavaFileObject parentModule =
+        JavaFileObjects.forSourceLines(
+            "test.ParentModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "",
+            "@Module",
+            "class ParentModule {",
+            "  @Provides static String string(GeneratedType generatedType) {",
+            "    return generatedType.toString();",
+            "  }",
+            "}");
+    // SharedModule itself is valid in the first round, but the binding it inherits is not.
+    JavaFileObject module =
+        JavaFileObjects.forSourceLines(
+            "test.SharedModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "",
+            "@Module",
+            "final class SharedModule extends ParentModule {}");
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component(modules = SharedModule.class)",
+            "interface TestComponent {",
+            "  String string();",
+            "}");
+    Compilation compilation =
+        daggerCompiler(
+                new GeneratingProcessor(
+                    "test.GeneratedType",
+                    "package test;",
+                    "",
+                    "import jakarta.inject.Inject;",
+                    "",
+                    "final class GeneratedType {",
+                    "  @Inject GeneratedType() {}",
+                    "",
+                    "  @Override",
+                    "  public String toString() {",
+                    "    return \"generated\";",
+                    "  }",
+                    "}"))
+            .withOptions("-Adagger.processorInstrumentation=enabled")
+            .compile(parentModule, module, component);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(callEntryPoint(createComponent(compilation, "test.TestComponent"), "string"))
+        .isEqualTo("generated");
+
+    // A descriptor created before GeneratedType existed is never used again.
+    assertThat(report(compilation)).doesNotContain("\"ModuleDescriptor.Factory.hits\"");
+  }
+
+  @Test
+  void noReportByDefault() {
+    Compilation compilation = daggerCompiler().compile(COMPONENT);
+    assertThat(compilation).succeededWithoutWarnings();
+
+    assertThat(
+            compilation
+                .generatedFile(StandardLocation.CLASS_OUTPUT, ProcessorInstrumentation.REPORT_NAME)
+                .isPresent())
+        .isFalse();
+  }
+
+  private static String report(Compilation compilation) throws IOException {
+    return compilation
+        .generatedFile(StandardLocation.CLASS_OUTPUT, ProcessorInstrumentation.REPORT_NAME)
+        .get()
+        .getCharContent(true)
+        .toString();
+  }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static dagger.internal.codegen.CompilerMode.DEFAULT_MODE;
+import static dagger.internal.codegen.CompilerMode.FAST_INIT_MODE;
+import static dagger.internal.codegen.Compilers.shardingCompiler;
+import static dagger.internal.codegen.TestUtils.callEntryPoint;
+import static dagger.internal.codegen.TestUtils.createComponent;
+import static dagger.internal.codegen.TestUtils.generatedSource;
+import static io.jbock.common.truth.Truth.assertThat;
+import static io.jbock.testing.compile.CompilationSubject.assertThat;
+
+import dagger.internal.StartupListener;
+import dagger.internal.StartupProfiler;
+import io.jbock.testing.compile.Compilation;
+import io.jbock.testing.compile.JavaFileObjects;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class StartupProfilingTest {
+  private static final String COMPONENT =
+      "dagger.internal.codegen.DaggerTestComponent.TestComponentImpl";
+  private static final String SHARD =
+      "dagger.internal.codegen.DaggerTestComponent.TestComponentImplShard";
+  private static final String SHARD2 =
+      "dagger.internal.codegen.DaggerTestComponent.TestComponentImplShard2";
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void startupIsProfiled(CompilerMode compilerMode) throws Exception {
+    Compilation compilation =
+        shardingCompiler(compilerMode, "-Adagger.startupProfiling=enabled").compile(sources());
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("dagger.internal.codegen.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("dagger.internal.codegen.DaggerTestComponent")
+                .addLines(
+                    "package dagger.internal.codegen;",
+                    "import dagger.internal.StartupProfiler;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImplShard {",
+                    "    private TestComponentImplShard(TestComponentImpl testComponentImpl) {",
+                    "      this.testComponentImpl = testComponentImpl;",
+                    "      StartupProfiler.enter(\"" + SHARD + ".initialize\");",
+                    "      try {",
+                    "        initialize();",
+                    "      } finally {",
+                    "        StartupProfiler.exit(\"" + SHARD + ".initialize\");",
+                    "      }",
+                    "    }")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      this.binding5Provider = DoubleCheck.provider(StartupProfiler.provider(\"dagger.internal.codegen.Binding5\", Binding5_Factory.create(testComponentImpl.binding6Provider)));")
+                .addLinesIn(
+                    FAST_INIT_MODE,
+                    "      this.binding5Provider = DoubleCheck.provider(StartupProfiler.provider(\"dagger.internal.codegen.Binding5\", new SwitchingProvider<Binding5>(testComponentImpl, 3)));")
+                .addLines(
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    private TestComponentImpl() {",
+                    "      StartupProfiler.enter(\"" + COMPONENT + ".initialize\");",
+                    "      try {",
+                    "        initialize();",
+                    "      } finally {",
+                    "        StartupProfiler.exit(\"" + COMPONENT + ".initialize\");",
+                    "      }",
+                    "      StartupProfiler.enter(\"" + SHARD + ".<init>\");",
+                    "      try {",
+                    "        testComponentImplShard = new TestComponentImplShard(testComponentImpl);",
+                    "      } finally {",
+                    "        StartupProfiler.exit(\"" + SHARD + ".<init>\");",
+                    "      }",
+                    "      StartupProfiler.enter(\"" + SHARD2 + ".<init>\");",
+                    "      try {",
+                    "        testComponentImplShard2 = new TestComponentImplShard2(testComponentImpl);",
+                    "      } finally {",
+                    "        StartupProfiler.exit(\"" + SHARD2 + ".<init>\");",
+                    "      }",
+                    "    }")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      this.binding7Provider = DoubleCheck.provider(StartupProfiler.provider(\"dagger.internal.codegen.Binding7\", Binding7_Factory.create()));")
+                .addLinesIn(
+                    FAST_INIT_MODE,
+                    "      this.binding7Provider = DoubleCheck.provider(StartupProfiler.provider(\"dagger.internal.codegen.Binding7\", new SwitchingProvider<Binding7>(testComponentImpl, 1)));")
+                .addLines("}")
+                .build());
+
+    List<String> events = new ArrayList<>();
+    Object component =
+        withListener(
+            events, () -> createComponent(compilation, "dagger.internal.codegen.TestComponent"));
+    assertThat(events)
+        .containsExactly(
+            "enter " + COMPONENT + ".initialize",
+            "exit " + COMPONENT + ".initialize",
+            "enter " + SHARD + ".<init>",
+            "enter " + SHARD + ".initialize",
+            "exit " + SHARD + ".initialize",
+            "exit " + SHARD + ".<init>",
+            "enter " + SHARD2 + ".<init>",
+            "enter " + SHARD2 + ".initialize",
+            "exit " + SHARD2 + ".initialize",
+            "exit " + SHARD2 + ".<init>")
+        .inOrder();
+
+    // Only the first call of a scoped binding creates its instance, which is profiled.
+    events.clear();
+    withListener(events, () -> callEntryPoint(component, "binding7"));
+    withListener(events, () -> callEntryPoint(component, "binding7"));
+    withListener(events, () -> callEntryPoint(component, "binding6"));
+    assertThat(events)
+        .containsExactly(
+            "enter dagger.internal.codegen.Binding7",
+            "exit dagger.internal.codegen.Binding7",
+            "enter dagger.internal.codegen.Binding6",
+            "exit dagger.internal.codegen.Binding6")
+        .inOrder();
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void lazyShardsAreProfiled(CompilerMode compilerMode) throws Exception {
+    Compilation compilation =
+        shardingCompiler(
+                compilerMode,
+                "-Adagger.startupProfiling=enabled",
+                "-Adagger.lazyComponentShards=enabled")
+            .compile(sources());
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("dagger.internal.codegen.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("dagger.internal.codegen.DaggerTestComponent")
+                .addLines(
+                    "package dagger.internal.codegen;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    private TestComponentImpl() {",
+                    "      StartupProfiler.enter(\"" + COMPONENT + ".initialize\");",
+                    "      try {",
+                    "        initialize();",
+                    "      } finally {",
+                    "        StartupProfiler.exit(\"" + COMPONENT + ".initialize\");",
+                    "      }",
+                    "    }",
+                    "    private TestComponentImplShard testComponentImplShard() {",
+                    "      TestComponentImplShard shard = this.testComponentImplShard;",
+                    "      if (shard == null) {",
+                    "        synchronized (this) {",
+                    "          shard = this.testComponentImplShard;",
+                    "          if (shard == null) {",
+                    "            StartupProfiler.enter(\"" + SHARD + ".<init>\");",
+                    "            try {",
+                    "              shard = new TestComponentImplShard(testComponentImpl);",
+                    "            } finally {",
+                    "              StartupProfiler.exit(\"" + SHARD + ".<init>\");",
+                    "            }",
+                    "            this.testComponentImplShard = shard;",
+                    "          }",
+                    "        }",
+                    "      }",
+                    "      return shard;",
+                    "    }",
+                    "}")
+                .build());
+
+    List<String> events = new ArrayList<>();
+    Object component =
+        withListener(
+            events, () -> createComponent(compilation, "dagger.internal.codegen.TestComponent"));
+    assertThat(events)
+        .containsExactly("enter " + COMPONENT + ".initialize", "exit " + COMPONENT + ".initialize")
+        .inOrder();
+
+    // The shards are created, and profiled, by the first call that needs them.
+    events.clear();
+    withListener(events, () -> callEntryPoint(component, "binding1"));
+    assertThat(events).contains("enter " + SHARD + ".<init>");
+    assertThat(events).contains("enter " + SHARD2 + ".<init>");
+    assertThat(events).contains("enter dagger.internal.codegen.Binding1");
+    assertThat(events.get(0)).isEqualTo("enter " + SHARD2 + ".<init>");
+    assertThat(events.get(events.size() - 1)).isEqualTo("exit dagger.internal.codegen.Binding1");
+  }
+
+  @EnumSource(CompilerMode.class)
+  @ParameterizedTest
+  void startupIsNotProfiledByDefault(CompilerMode compilerMode) throws IOException {
+    Compilation compilation = shardingCompiler(compilerMode).compile(sources());
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("dagger.internal.codegen.DaggerTestComponent")
+        .containsLines(
+            compilerMode
+                .javaFileBuilder("dagger.internal.codegen.DaggerTestComponent")
+                .addLines(
+                    "package dagger.internal.codegen;",
+                    "final class DaggerTestComponent {",
+                    "  private static final class TestComponentImpl implements TestComponent {",
+                    "    private TestComponentImpl() {",
+                    "      initialize();",
+                    "      testComponentImplShard = new TestComponentImplShard(testComponentImpl);",
+                    "      testComponentImplShard2 = new TestComponentImplShard2(testComponentImpl);",
+                    "    }")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "      this.binding7Provider = DoubleCheck.provider(Binding7_Factory.create());")
+                .addLinesIn(
+                    FAST_INIT_MODE,
+                    "      this.binding7Provider = DoubleCheck.provider(new SwitchingProvider<Binding7>(testComponentImpl, 1));")
+                .addLines("}")
+                .build());
+    assertThat(generatedSource(compilation, "dagger.internal.codegen.DaggerTestComponent"))
+        .doesNotContain("StartupProfiler");
+  }
+
+  /**
+   * Calls {@code action} with a {@code StartupListener} that adds the sections it's told about to
+   * {@code events}, and returns its result.
+   */
+  private static Object withListener(List<String> events, ThrowingSupplier action)
+      throws Exception {
+    StartupProfiler.setListener(
+        new StartupListener() {
+          @Override
+          public void enter(String section, long nanoTime) {
+            events.add("enter " + section);
+          }
+
+          @Override
+          public void exit(String section, long nanoTime) {
+            events.add("exit " + section);
+          }
+        });
+    try {
+      return action.get();
+    } finally {
+      StartupProfiler.setListener(null);
+    }
+  }
+
+  private interface ThrowingSupplier {
+    Object get() throws Exception;
+  }
+
+  /**
+   * Returns the sources of a component whose bindings are spread over the component and two
+   * shards.
+   *
+   * <pre>
+   *     1 -> 2 -> 3 -> 4 -> 5 -> 6 -> 7
+   *          ^--------/
+   * </pre>
+   */
+  private static List<JavaFileObject> sources() {
+    List<JavaFileObject> sources = new ArrayList<>();
+    // Shard 2: Bindings (1)
+    sources.add(binding("Binding1", "Binding2 binding2"));
+    // Shard 1: Bindings (2, 3, 4, 5). Contains more than 2 bindings due to cycle.
+    sources.add(binding("Binding2", "Binding3 binding3"));
+    sources.add(binding("Binding3", "Binding4 binding4"));
+    sources.add(binding("Binding4", "Binding5 binding5, Provider<Binding2> binding2Provider"));
+    sources.add(binding("Binding5", "Binding6 binding6"));
+    // Component shard: Bindings (6, 7)
+    sources.add(binding("Binding6", "Binding7 binding7"));
+    sources.add(binding("Binding7"));
+    sources.add(
+        JavaFileObjects.forSourceLines(
+            "dagger.internal.codegen.TestComponent",
+            "package dagger.internal.codegen;",
+            "",
+            "import dagger.Component;",
+            "import jakarta.inject.Provider;",
+            "import jakarta.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component",
+            "interface TestComponent {",
+            "  Binding1 binding1();",
+            "  Binding2 binding2();",
+            "  Binding3 binding3();",
+            "  Binding4 binding4();",
+            "  Binding5 binding5();",
+            "  Binding6 binding6();",
+            "  Binding7 binding7();",
+            "  Provider<Binding1> providerBinding1();",
+            "  Provider<Binding2> providerBinding2();",
+            "  Provider<Binding3> providerBinding3();",
+            "  Provider<Binding4> providerBinding4();",
+            "  Provider<Binding5> providerBinding5();",
+            "  Provider<Binding6> providerBinding6();",
+            "  Provider<Binding7> providerBinding7();",
+            "}"));
+    return sources;
+  }
+
+  private static JavaFileObject binding(String bindingName, String... deps) {
+    return JavaFileObjects.forSourceLines(
+        "dagger.internal.codegen." + bindingName,
+        "package dagger.internal.codegen;",
+        "",
+        "import jakarta.inject.Inject;",
+        "import jakarta.inject.Provider;",
+        "import jakarta.inject.Singleton;",
+        "",
+        "@Singleton",
+        "final class " + bindingName + " {",
+        "  @Inject",
+        "  " + bindingName + "(" + String.join(", ", deps) + ") {}",
+        "}");
+  }
+}
@@ -16,8 +16,14 @@
 
 package dagger.internal.codegen;
 
+import io.jbock.testing.compile.Compilation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.regex.Pattern;
+import javax.tools.JavaFileObject;
 
 /** Utility methods useful for codegen tests. */
 final class TestUtils {
@@ -38,4 +44,72 @@ final class TestUtils {
   static Pattern endsWithMessage(String... lines) {
     return Pattern.compile(Pattern.quote(message(lines)) + "$");
   }
+
+  /**
+   * Returns the text of the source file named {@code qualifiedName} that {@code compilation}
+   * generated. Useful for checking that two compilations generated the same file.
+   */
+  static String generatedSource(Compilation compilation, String qualifiedName) {
+    try {
+      return compilation
+          .generatedSourceFile(qualifiedName)
+          .get()
+          .getCharContent(true)
+          .toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Creates the root component {@code componentName} that {@code compilation} generated, by calling
+   * {@code create()} on its {@code Dagger} class. The generated classes are loaded by a new class
+   * loader, which delegates to the test's class loader for the dapper runtime.
+   */
+  static Object createComponent(Compilation compilation, String componentName)
+      throws ReflectiveOperationException {
+    int lastDot = componentName.lastIndexOf('.');
+    String daggerComponentName =
+        componentName.substring(0, lastDot + 1) + "Dagger" + componentName.substring(lastDot + 1);
+    Method create =
+        new GeneratedClassLoader(compilation)
+            .loadClass(daggerComponentName)
+            .getDeclaredMethod("create");
+    create.setAccessible(true);
+    return create.invoke(null);
+  }
+
+  /** Calls the entry point {@code methodName}, which has no parameters, on {@code component}. */
+  static Object callEntryPoint(Object component, String methodName)
+      throws ReflectiveOperationException {
+    Method entryPoint = component.getClass().getMethod(methodName);
+    entryPoint.setAccessible(true);
+    return entryPoint.invoke(component);
+  }
+
+  /** Loads the classes that a compilation wrote. */
+  private static final class GeneratedClassLoader extends ClassLoader {
+    private final Compilation compilation;
+
+    GeneratedClassLoader(Compilation compilation) {
+      super(TestUtils.class.getClassLoader());
+      this.compilation = compilation;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      String path = "/" + name.replace('.', '/') + ".class";
+      for (JavaFileObject file : compilation.generatedFiles()) {
+        if (file.getKind() == JavaFileObject.Kind.CLASS && file.toUri().getPath().endsWith(path)) {
+          try (InputStream in = file.openInputStream()) {
+            byte[] bytes = in.readAllBytes();
+            return defineClass(name, bytes, 0, bytes.length);
+          } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+          }
+        }
+      }
+      throw new ClassNotFoundException(name);
+    }
+  }
 }
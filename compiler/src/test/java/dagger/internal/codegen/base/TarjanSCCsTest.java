@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.base;
+
+import static io.jbock.common.truth.Truth.assertThat;
+import static java.lang.Math.min;
+
+import dagger.internal.codegen.collect.ImmutableList;
+import dagger.internal.codegen.collect.ImmutableSet;
+import io.jbock.common.graph.SuccessorsFunction;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class TarjanSCCsTest {
+
+  @Test
+  void componentsAreInReverseTopologicalOrder() {
+    // 0 -> 1 <-> 2 -> 3
+    Map<Integer, List<Integer>> graph = new HashMap<>();
+    graph.put(0, List.of(1));
+    graph.put(1, List.of(2));
+    graph.put(2, List.of(1, 3));
+    graph.put(3, List.of());
+
+    assertThat(components(ImmutableList.of(0, 1, 2, 3), graph))
+        .containsExactly(List.of(3), List.of(2, 1), List.of(0))
+        .inOrder();
+  }
+
+  @Test
+  void selfLoop() {
+    Map<Integer, List<Integer>> graph = new HashMap<>();
+    graph.put(0, List.of(0, 1));
+    graph.put(1, List.of(1));
+
+    assertThat(components(ImmutableList.of(0, 1), graph))
+        .containsExactly(List.of(1), List.of(0))
+        .inOrder();
+  }
+
+  @Test
+  void successorsOutsideOfTheNodes() {
+    // Only 0 is given, but 1 and 2 are reachable from it, and 2 is in a cycle with 0.
+    Map<Integer, List<Integer>> graph = new HashMap<>();
+    graph.put(0, List.of(1));
+    graph.put(1, List.of(2));
+    graph.put(2, List.of(0));
+
+    assertThat(components(ImmutableList.of(0), graph)).containsExactly(List.of(2, 1, 0));
+    assertThat(components(ImmutableList.of(0), graph))
+        .isEqualTo(recursiveComponents(ImmutableList.of(0), graph));
+  }
+
+  @Test
+  void sameComponentsAsRecursiveSearch() {
+    Random random = new Random(0);
+    for (int i = 0; i < 200; i++) {
+      int nodeCount = 1 + random.nextInt(30);
+      Map<Integer, List<Integer>> graph = new HashMap<>();
+      for (int node = 0; node < nodeCount; node++) {
+        List<Integer> successors = new ArrayList<>();
+        int edges = random.nextInt(4);
+        for (int edge = 0; edge < edges; edge++) {
+          successors.add(random.nextInt(nodeCount));
+        }
+        graph.put(node, successors);
+      }
+      // Leave out some nodes so that they're only found as successors.
+      List<Integer> nodes = new ArrayList<>();
+      for (int node = 0; node < nodeCount; node++) {
+        if (random.nextInt(4) != 0) {
+          nodes.add(node);
+        }
+      }
+
+      assertThat(components(ImmutableList.copyOf(nodes), graph))
+          .isEqualTo(recursiveComponents(ImmutableList.copyOf(nodes), graph));
+    }
+  }
+
+  @Test
+  void deepChain() {
+    // Deep enough to overflow the stack with one frame per node.
+    int nodeCount = 200_000;
+    List<Integer> nodes = new ArrayList<>(nodeCount);
+    for (int node = 0; node < nodeCount; node++) {
+      nodes.add(node);
+    }
+    SuccessorsFunction<Integer> successors =
+        node -> node + 1 < nodeCount ? List.of(node + 1) : List.of();
+
+    ImmutableSet<ImmutableSet<Integer>> components =
+        TarjanSCCs.compute(ImmutableList.copyOf(nodes), successors);
+
+    assertThat(components).hasSize(nodeCount);
+    assertThat(components.iterator().next()).containsExactly(nodeCount - 1);
+  }
+
+  @Test
+  void denseIds() {
+    // 0 -> 1 -> 2 -> 0, 3 -> 0
+    int[][] successors = {{1}, {2}, {0}, {0}};
+
+    int[][] components = TarjanSCCs.compute(4, node -> successors[node]);
+
+    assertThat(components).hasLength(2);
+    assertThat(components[0]).asList().containsExactly(2, 1, 0).inOrder();
+    assertThat(components[1]).asList().containsExactly(3);
+  }
+
+  private static List<List<Integer>> components(
+      ImmutableList<Integer> nodes, Map<Integer, List<Integer>> graph) {
+    List<List<Integer>> components = new ArrayList<>();
+    for (ImmutableSet<Integer> component : TarjanSCCs.compute(nodes, graph::get)) {
+      components.add(new ArrayList<>(component));
+    }
+    return components;
+  }
+
+  /** The components found by the recursive search that {@code TarjanSCCs} used to do. */
+  private static List<List<Integer>> recursiveComponents(
+      ImmutableList<Integer> nodes, Map<Integer, List<Integer>> graph) {
+    Map<Integer, Integer> indexes = new HashMap<>();
+    Map<Integer, Integer> lowLinks = new HashMap<>();
+    Deque<Integer> stack = new ArrayDeque<>();
+    Set<Integer> onStack = new HashSet<>();
+    List<List<Integer>> components = new ArrayList<>();
+    for (Integer node : nodes) {
+      if (!indexes.containsKey(node)) {
+        stronglyConnect(node, graph, indexes, lowLinks, stack, onStack, components);
+      }
+    }
+    return components;
+  }
+
+  private static void stronglyConnect(
+      Integer node,
+      Map<Integer, List<Integer>> graph,
+      Map<Integer, Integer> indexes,
+      Map<Integer, Integer> lowLinks,
+      Deque<Integer> stack,
+      Set<Integer> onStack,
+      List<List<Integer>> components) {
+    lowLinks.put(node, indexes.size());
+    indexes.put(node, indexes.size());
+    stack.push(node);
+    onStack.add(node);
+    for (Integer successor : graph.get(node)) {
+      if (!indexes.containsKey(successor)) {
+        stronglyConnect(successor, graph, indexes, lowLinks, stack, onStack, components);
+        lowLinks.put(node, min(lowLinks.get(node), lowLinks.get(successor)));
+      } else if (onStack.contains(successor)) {
+        lowLinks.put(node, min(lowLinks.get(node), indexes.get(successor)));
+      }
+    }
+    if (lowLinks.get(node).equals(indexes.get(node))) {
+      List<Integer> component = new ArrayList<>();
+      Integer current;
+      do {
+        current = stack.pop();
+        onStack.remove(current);
+        component.add(current);
+      } while (!node.equals(current));
+      components.add(component);
+    }
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.binding;
+
+import static io.jbock.common.truth.Truth.assertThat;
+
+import dagger.spi.model.BindingGraph.Edge;
+import dagger.spi.model.BindingGraph.Node;
+import dagger.spi.model.ComponentPath;
+import io.jbock.common.graph.ImmutableNetwork;
+import io.jbock.common.graph.MutableNetwork;
+import io.jbock.common.graph.NetworkBuilder;
+import io.jbock.common.graph.Traverser;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class CompactNetworkTest {
+
+  @Test
+  void parallelEdgesAndSelfLoops() {
+    // a -> b twice, b -> b, b -> c, c -> a
+    Node a = new TestNode("a");
+    Node b = new TestNode("b");
+    Node c = new TestNode("c");
+    List<TestEdge> edges =
+        List.of(
+            new TestEdge(a, b),
+            new TestEdge(a, b),
+            new TestEdge(b, b),
+            new TestEdge(b, c),
+            new TestEdge(c, a));
+    CompactNetwork.Builder builder = new CompactNetwork.Builder();
+    edges.forEach(edge -> builder.addEdge(edge.source, edge.target, edge));
+    CompactNetwork network = builder.build();
+
+    assertSameAs(network(List.of(a, b, c), edges), network);
+    assertThat(network.edgesConnecting(a, b))
+        .containsExactly(edges.get(0), edges.get(1))
+        .inOrder();
+    assertThat(network.edgesConnecting(b, a)).isEmpty();
+    assertThat(network.edgesConnecting(b, b)).containsExactly(edges.get(2));
+    assertThat(network.successors(b)).containsExactly(b, c).inOrder();
+    assertThat(network.predecessors(b)).containsExactly(a, b).inOrder();
+    assertThat(builder.edgesConnecting(a, b)).containsExactly(edges.get(0), edges.get(1));
+  }
+
+  @Test
+  void isolatedNodes() {
+    Node a = new TestNode("a");
+    Node b = new TestNode("b");
+    CompactNetwork.Builder builder = new CompactNetwork.Builder();
+    builder.addNode(a);
+    builder.addNode(b);
+    builder.addNode(a);
+    CompactNetwork network = builder.build();
+
+    assertSameAs(network(List.of(a, b), List.of()), network);
+    assertThat(network.nodeCount()).isEqualTo(2);
+    assertThat(builder.edgesConnecting(a, new TestNode("c"))).isEmpty();
+  }
+
+  @Test
+  void buildReachableFrom() {
+    // root -> a -> b -> a, root -> root, c -> a, c -> d, d -> d
+    Node root = new TestNode("root");
+    Node a = new TestNode("a");
+    Node b = new TestNode("b");
+    Node c = new TestNode("c");
+    Node d = new TestNode("d");
+    TestEdge rootToA = new TestEdge(root, a);
+    TestEdge aToB = new TestEdge(a, b);
+    TestEdge bToA = new TestEdge(b, a);
+    TestEdge rootToRoot = new TestEdge(root, root);
+    CompactNetwork.Builder builder = new CompactNetwork.Builder();
+    builder.addNode(c);
+    for (TestEdge edge :
+        List.of(
+            new TestEdge(c, a),
+            rootToA,
+            aToB,
+            new TestEdge(c, d),
+            bToA,
+            new TestEdge(d, d),
+            rootToRoot)) {
+      builder.addEdge(edge.source, edge.target, edge);
+    }
+
+    CompactNetwork reachable = builder.buildReachableFrom(root);
+    assertSameAs(
+        network(List.of(a, root, b), List.of(rootToA, aToB, bToA, rootToRoot)), reachable);
+    // The nodes keep their relative order.
+    assertThat(reachable.nodes()).containsExactly(a, root, b).inOrder();
+    assertThat(reachable.edges()).containsExactly(rootToA, aToB, bToA, rootToRoot).inOrder();
+    assertThat(builder.buildReachableFrom(d).nodes()).containsExactly(d);
+  }
+
+  @Test
+  void randomNetworksMatchImmutableNetwork() {
+    Random random = new Random(0);
+    for (int round = 0; round < 50; round++) {
+      List<Node> nodes = new ArrayList<>();
+      for (int i = 0, count = 1 + random.nextInt(30); i < count; i++) {
+        nodes.add(new TestNode("n" + i));
+      }
+      List<TestEdge> edges = new ArrayList<>();
+      for (int i = 0, count = random.nextInt(60); i < count; i++) {
+        edges.add(
+            new TestEdge(
+                nodes.get(random.nextInt(nodes.size())), nodes.get(random.nextInt(nodes.size()))));
+      }
+      CompactNetwork.Builder builder = new CompactNetwork.Builder();
+      nodes.forEach(builder::addNode);
+      edges.forEach(edge -> builder.addEdge(edge.source, edge.target, edge));
+      ImmutableNetwork<Node, Edge> expected = network(nodes, edges);
+      assertSameAs(expected, builder.build());
+
+      Node root = nodes.get(random.nextInt(nodes.size()));
+      Set<Node> reachableNodes = setOf(Traverser.forGraph(expected).breadthFirst(root));
+      List<Node> expectedNodes = new ArrayList<>(nodes);
+      expectedNodes.retainAll(reachableNodes);
+      List<TestEdge> expectedEdges = new ArrayList<>(edges);
+      expectedEdges.removeIf(edge -> !reachableNodes.contains(edge.source));
+      assertSameAs(network(expectedNodes, expectedEdges), builder.buildReachableFrom(root));
+    }
+  }
+
+  @Test
+  void equalNetworks() {
+    Node a = new TestNode("a");
+    Node b = new TestNode("b");
+    TestEdge aToB = new TestEdge(a, b);
+    TestEdge bToA = new TestEdge(b, a);
+    CompactNetwork.Builder builder = new CompactNetwork.Builder();
+    builder.addEdge(a, b, aToB);
+    builder.addEdge(b, a, bToA);
+    CompactNetwork network = builder.build();
+
+    // Insertion order doesn't matter, and nodes are compared with equals().
+    CompactNetwork.Builder reversed = new CompactNetwork.Builder();
+    reversed.addEdge(new TestNode("b"), new TestNode("a"), bToA);
+    reversed.addEdge(new TestNode("a"), new TestNode("b"), aToB);
+    assertThat(reversed.build()).isEqualTo(network);
+    assertThat(reversed.build().hashCode()).isEqualTo(network.hashCode());
+
+    CompactNetwork.Builder other = new CompactNetwork.Builder();
+    other.addEdge(a, b, aToB);
+    assertThat(other.build()).isNotEqualTo(network);
+    other.addEdge(b, a, new TestEdge(b, a));
+    assertThat(other.build()).isNotEqualTo(network);
+    CompactNetwork.Builder flipped = new CompactNetwork.Builder();
+    flipped.addEdge(a, b, aToB);
+    flipped.addEdge(a, b, bToA);
+    assertThat(flipped.build()).isNotEqualTo(network);
+    CompactNetwork.Builder extraNode = new CompactNetwork.Builder();
+    extraNode.addEdge(a, b, aToB);
+    extraNode.addEdge(b, a, bToA);
+    extraNode.addNode(new TestNode("c"));
+    assertThat(extraNode.build()).isNotEqualTo(network);
+  }
+
+  /** Asserts that every query of {@code actual} gives the same answer as {@code expected}. */
+  private static void assertSameAs(ImmutableNetwork<Node, Edge> expected, CompactNetwork actual) {
+    assertThat(actual.nodes()).containsExactlyElementsIn(expected.nodes()).inOrder();
+    assertThat(actual.edges()).containsExactlyElementsIn(expected.edges());
+    for (Node node : expected.nodes()) {
+      assertThat(actual.outEdges(node)).containsExactlyElementsIn(expected.outEdges(node));
+      assertThat(actual.inEdges(node)).containsExactlyElementsIn(expected.inEdges(node));
+      assertThat(actual.successors(node)).containsExactlyElementsIn(expected.successors(node));
+      assertThat(actual.predecessors(node)).containsExactlyElementsIn(expected.predecessors(node));
+      for (Node other : expected.nodes()) {
+        assertThat(actual.edgesConnecting(node, other))
+            .containsExactlyElementsIn(expected.edgesConnecting(node, other));
+      }
+    }
+    for (Edge edge : expected.edges()) {
+      assertThat(actual.incidentNodes(edge)).isEqualTo(expected.incidentNodes(edge));
+    }
+    assertThat(actual.asNetwork()).isEqualTo(expected);
+    assertThat(actual.hashCode()).isEqualTo(expected.hashCode());
+  }
+
+  private static ImmutableNetwork<Node, Edge> network(List<Node> nodes, List<TestEdge> edges) {
+    MutableNetwork<Node, Edge> network =
+        NetworkBuilder.directed().allowsParallelEdges(true).allowsSelfLoops(true).build();
+    nodes.forEach(network::addNode);
+    edges.forEach(edge -> network.addEdge(edge.source, edge.target, edge));
+    return ImmutableNetwork.copyOf(network);
+  }
+
+  private static Set<Node> setOf(Iterable<Node> nodes) {
+    Set<Node> set = new HashSet<>();
+    nodes.forEach(set::add);
+    return set;
+  }
+
+  /** A node that is equal to the nodes with the same name. */
+  private static final class TestNode implements Node {
+    private final String name;
+
+    TestNode(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public ComponentPath componentPath() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof TestNode && ((TestNode) o).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+      return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  /** An edge that is only equal to itself, like the edges of binding graphs. */
+  private static final class TestEdge implements Edge {
+    private final Node source;
+    private final Node target;
+
+    TestEdge(Node source, Node target) {
+      this.source = source;
+      this.target = target;
+    }
+
+    @Override
+    public String toString() {
+      return source + " -> " + target;
+    }
+  }
+}
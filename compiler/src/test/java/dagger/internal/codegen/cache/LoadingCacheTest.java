@@ -0,0 +1,83 @@
+package dagger.internal.codegen.cache;
+
+import static io.jbock.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+final class LoadingCacheTest {
+
+  private final List<Integer> loaded = new ArrayList<>();
+
+  private String load(Integer key) {
+    loaded.add(key);
+    return "v" + key;
+  }
+
+  @Test
+  void computesOnce() {
+    LoadingCache<Integer, String> cache =
+        CacheBuilder.newBuilder().build(CacheLoader.from(this::load));
+
+    assertThat(cache.apply(1)).isEqualTo("v1");
+    assertThat(cache.apply(1)).isEqualTo("v1");
+    assertThat(loaded).containsExactly(1);
+    assertThat(cache.stats()).isEqualTo(new CacheStats(1, 1, 0));
+  }
+
+  @Test
+  void evictsLeastRecentlyUsed() {
+    LoadingCache<Integer, String> cache =
+        CacheBuilder.newBuilder().maximumSize(2).build(CacheLoader.from(this::load));
+
+    cache.apply(1);
+    cache.apply(2);
+    cache.apply(1);
+    cache.apply(3); // evicts 2
+    cache.apply(1);
+    cache.apply(2);
+
+    assertThat(loaded).containsExactly(1, 2, 3, 2).inOrder();
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.stats()).isEqualTo(new CacheStats(2, 4, 2));
+  }
+
+  private final LoadingCache<Integer, Integer> fibonacci =
+      CacheBuilder.newBuilder().maximumSize(100).build(CacheLoader.from(this::fibonacci));
+
+  private Integer fibonacci(Integer n) {
+    return n < 2 ? n : fibonacci.apply(n - 1) + fibonacci.apply(n - 2);
+  }
+
+  @Test
+  void recursiveLoad() {
+    assertThat(fibonacci.apply(30)).isEqualTo(832040);
+    assertThat(fibonacci.stats().missCount()).isEqualTo(31);
+  }
+
+  @Test
+  void sharedStatsCounter() {
+    StatsCounter statsCounter = new StatsCounter();
+    LoadingCache<Integer, String> first =
+        CacheBuilder.newBuilder().recordStats(statsCounter).build(CacheLoader.from(this::load));
+    LoadingCache<Integer, String> second =
+        CacheBuilder.newBuilder().recordStats(statsCounter).build(CacheLoader.from(this::load));
+
+    first.apply(1);
+    second.apply(1);
+    second.apply(1);
+
+    assertThat(statsCounter.snapshot()).isEqualTo(new CacheStats(1, 2, 0));
+    assertThat(first.stats()).isEqualTo(statsCounter.snapshot());
+  }
+
+  @Test
+  void softValues() {
+    LoadingCache<Integer, String> cache =
+        CacheBuilder.newBuilder().softValues().build(CacheLoader.from(this::load));
+
+    assertThat(cache.apply(1)).isEqualTo("v1");
+    assertThat(cache.apply(1)).isEqualTo("v1");
+  }
+}
@@ -0,0 +1,182 @@
+package dagger.internal.codegen.collect;
+
+import static io.jbock.common.truth.Truth.assertThat;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+final class ArraySetTest {
+
+  private int equalsCalls;
+
+  /** A key with a chosen hash code that counts how often it's compared. */
+  private final class Key {
+    private final int id;
+    private final int hashCode;
+
+    Key(int id, int hashCode) {
+      this.id = id;
+      this.hashCode = hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      equalsCalls++;
+      return o instanceof Key && ((Key) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return "Key" + id;
+    }
+  }
+
+  private ArraySet<Key> keys(int count) {
+    ArraySet.Builder<Key> builder = new ArraySet.Builder<>();
+    for (int i = 0; i < count; i++) {
+      builder.add(new Key(i, i));
+    }
+    return builder.build();
+  }
+
+  @Test
+  void smallSetsAreSearchedLinearly() {
+    ArraySet<Key> set = keys(8);
+
+    equalsCalls = 0;
+    assertThat(set.contains(new Key(100, 31))).isFalse();
+    assertThat(equalsCalls).isEqualTo(8);
+  }
+
+  @Test
+  void largerSetsAreSearchedInTheTable() {
+    ArraySet<Key> set = keys(9);
+
+    // The table has 32 slots and the elements are in slots 0 to 8, so slot 31 is empty.
+    equalsCalls = 0;
+    assertThat(set.contains(new Key(100, 31))).isFalse();
+    assertThat(equalsCalls).isEqualTo(0);
+
+    equalsCalls = 0;
+    assertThat(set.contains(new Key(8, 8))).isTrue();
+    assertThat(equalsCalls).isEqualTo(1);
+  }
+
+  @Test
+  void tableIsRebuiltAsTheSetGrows() {
+    ArraySet.Builder<Key> builder = new ArraySet.Builder<>();
+    for (int i = 0; i < 100; i++) {
+      assertThat(builder.add(new Key(i, i))).isTrue();
+      assertThat(builder.add(new Key(i, i))).isFalse();
+    }
+    ArraySet<Key> set = builder.build();
+
+    assertThat(set).hasSize(100);
+    for (int i = 0; i < 100; i++) {
+      assertThat(set.contains(new Key(i, i))).isTrue();
+    }
+    // After the last rebuild, the table has 256 slots.
+    equalsCalls = 0;
+    assertThat(set.contains(new Key(1000, 255))).isFalse();
+    assertThat(equalsCalls).isEqualTo(0);
+  }
+
+  @Test
+  void equalHashCodes() {
+    ArraySet.Builder<Key> builder = new ArraySet.Builder<>();
+    for (int i = 0; i < 20; i++) {
+      builder.add(new Key(i, 7));
+    }
+    ArraySet<Key> set = builder.build();
+
+    assertThat(set).hasSize(20);
+    for (int i = 0; i < 20; i++) {
+      assertThat(set.contains(new Key(i, 7))).isTrue();
+    }
+    assertThat(set.contains(new Key(20, 7))).isFalse();
+  }
+
+  @Test
+  void keepsInsertionOrder() {
+    ArraySet<String> set = ArraySet.copyOf(List.of("c", "a", "b", "a", "c"));
+
+    assertThat(set).containsExactly("c", "a", "b").inOrder();
+    assertThat(set.asList()).containsExactly("c", "a", "b").inOrder();
+  }
+
+  @Test
+  void builderIsReusableAfterBuild() {
+    ArraySet.Builder<Key> builder = new ArraySet.Builder<>();
+    for (int i = 0; i < 9; i++) {
+      builder.add(new Key(i, i));
+    }
+    ArraySet<Key> first = builder.build();
+    builder.add(new Key(9, 9));
+    builder.add(new Key(10, 1)); // probes into the slot after element 1
+    ArraySet<Key> second = builder.build();
+
+    assertThat(first).hasSize(9);
+    assertThat(first.contains(new Key(9, 9))).isFalse();
+    assertThat(first.contains(new Key(10, 1))).isFalse();
+    assertThat(first.asList()).hasSize(9);
+    assertThat(second).hasSize(11);
+    assertThat(second.contains(new Key(9, 9))).isTrue();
+    assertThat(second.contains(new Key(10, 1))).isTrue();
+  }
+
+  @Test
+  void builderIsReusableAfterBuildOfSmallSet() {
+    ArraySet.Builder<String> builder = new ArraySet.Builder<>(2);
+    builder.add("a");
+    builder.add("b");
+    ArraySet<String> first = builder.build();
+    builder.add("c");
+
+    assertThat(first).containsExactly("a", "b").inOrder();
+    assertThat(builder.build()).containsExactly("a", "b", "c").inOrder();
+  }
+
+  @Test
+  void equalsAndHashCodeMatchLinkedHashSet() {
+    for (int count : new int[] {0, 1, 8, 9, 50}) {
+      Set<Integer> expected = new LinkedHashSet<>();
+      ArraySet.Builder<Integer> builder = new ArraySet.Builder<>();
+      for (int i = 0; i < count; i++) {
+        expected.add(i * 31);
+        builder.add(i * 31);
+      }
+      ArraySet<Integer> set = builder.build();
+
+      assertThat(set).isEqualTo(expected);
+      assertThat(expected).isEqualTo(set);
+      assertThat(set.hashCode()).isEqualTo(expected.hashCode());
+      assertThat(set).isEqualTo(ArraySet.copyOf(expected));
+    }
+  }
+
+  @Test
+  void setsWithEqualHashCodesAreNotEqual() {
+    ArraySet<Integer> set = ArraySet.copyOf(List.of(0, 3));
+    ArraySet<Integer> other = ArraySet.copyOf(List.of(1, 2));
+
+    assertThat(set.hashCode()).isEqualTo(other.hashCode());
+    assertThat(set).isNotEqualTo(other);
+    assertThat(set).isNotEqualTo(Set.of(1, 2));
+  }
+
+  @Test
+  void zeroHashCode() {
+    ArraySet<Integer> set = ArraySet.copyOf(List.of(0));
+
+    assertThat(set.hashCode()).isEqualTo(0);
+    assertThat(set.hashCode()).isEqualTo(0);
+    assertThat(set).isEqualTo(Set.of(0));
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.xprocessing;
+
+import static io.jbock.common.truth.Truth.assertThat;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.element.TypeElement;
+import org.junit.jupiter.api.Test;
+
+class XTypeElementStoreTest {
+  private static final int STRONG_CACHE_SIZE = 256;
+
+  /** The names that were looked up with {@code findElement}, in order. */
+  private final List<String> found = new ArrayList<>();
+
+  /** The names of the elements that were wrapped, in order. */
+  private final List<String> wrapped = new ArrayList<>();
+
+  private final XTypeElementStore store =
+      new XTypeElementStore(
+          qName -> {
+            found.add(qName);
+            return qName.startsWith("missing") ? null : fake(TypeElement.class, qName);
+          },
+          Object::toString,
+          element -> {
+            wrapped.add(element.toString());
+            return fake(XTypeElement.class, element.toString());
+          });
+
+  @Test
+  void cachedWrappersAreHits() {
+    XTypeElement a = store.get("a");
+    assertThat(store.get("a")).isSameInstanceAs(a);
+    assertThat(store.get(fake(TypeElement.class, "a"))).isSameInstanceAs(a);
+    assertThat(store.get("missing")).isNull();
+
+    assertThat(found).containsExactly("a", "missing").inOrder();
+    assertThat(wrapped).containsExactly("a");
+    assertThat(store.counters()).isEqualTo(Map.of("hits", 2L, "misses", 2L, "rewraps", 0L));
+  }
+
+  @Test
+  void leastRecentlyUsedWrapperIsEvicted() {
+    WeakReference<XTypeElement> first = getWeakly("0");
+    WeakReference<XTypeElement> second = getWeakly("1");
+    for (int i = 2; i < STRONG_CACHE_SIZE; i++) {
+      store.get(Integer.toString(i));
+    }
+    // Using "0" again makes "1" the least recently used wrapper.
+    assertThat(store.get("0")).isSameInstanceAs(first.get());
+    store.get(Integer.toString(STRONG_CACHE_SIZE));
+
+    awaitClear(second);
+    assertThat(first.get()).isNotNull();
+    assertThat(store.get("0")).isSameInstanceAs(first.get());
+    assertThat(wrapped).hasSize(STRONG_CACHE_SIZE + 1);
+  }
+
+  @Test
+  void collectedWrappersAreRemovedAndCountedAsRewraps() {
+    WeakReference<XTypeElement> evicted = getWeakly("evicted");
+    for (int i = 0; i < STRONG_CACHE_SIZE; i++) {
+      store.get(Integer.toString(i));
+    }
+    awaitClear(evicted);
+    found.clear();
+    wrapped.clear();
+
+    // The collected entry is removed, so the name is looked up and wrapped again.
+    XTypeElement rewrapped = store.get("evicted");
+    assertThat(rewrapped).isNotNull();
+    assertThat(found).containsExactly("evicted");
+    assertThat(wrapped).containsExactly("evicted");
+    assertThat(store.counters().get("rewraps")).isEqualTo(1L);
+
+    // The new wrapper is cached like any other.
+    assertThat(store.get("evicted")).isSameInstanceAs(rewrapped);
+    assertThat(store.counters().get("rewraps")).isEqualTo(1L);
+  }
+
+  @Test
+  void wrappingAgainAfterClearIsNotARewrap() {
+    store.get("a");
+    store.clear();
+    store.get("a");
+
+    assertThat(wrapped).containsExactly("a", "a");
+    assertThat(store.counters()).isEqualTo(Map.of("hits", 0L, "misses", 2L, "rewraps", 0L));
+  }
+
+  /** Returns a weak reference to the wrapper of {@code qName}, without keeping it on the stack. */
+  private WeakReference<XTypeElement> getWeakly(String qName) {
+    return new WeakReference<>(store.get(qName));
+  }
+
+  private static void awaitClear(WeakReference<?> ref) {
+    for (int i = 0; i < 100 && ref.get() != null; i++) {
+      System.gc();
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    assertThat(ref.get()).isNull();
+  }
+
+  /**
+   * Returns an instance of {@code type} whose {@code toString()} is {@code name}, and that throws
+   * on any other method except {@code equals} and {@code hashCode}.
+   */
+  private static <T> T fake(Class<T> type, String name) {
+    return type.cast(
+        Proxy.newProxyInstance(
+            XTypeElementStoreTest.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "toString":
+                  return name;
+                case "equals":
+                  return proxy == args[0];
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            }));
+  }
+}
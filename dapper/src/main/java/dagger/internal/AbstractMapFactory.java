@@ -35,7 +35,8 @@ abstract class AbstractMapFactory<K, V, V2> implements Factory<Map<K, V2>> {
   private final Map<K, Provider<V>> contributingMap;
 
   AbstractMapFactory(Map<K, Provider<V>> map) {
-    this.contributingMap = unmodifiableMap(map);
+    this.contributingMap =
+        map instanceof IndexedMap || map instanceof PerfectHashMap ? map : unmodifiableMap(map);
   }
 
   /** The map of {@code Provider}s that contribute to this map binding. */
@@ -77,5 +78,23 @@ abstract class AbstractMapFactory<K, V, V2> implements Factory<Map<K, V2>> {
       map.putAll(asAbstractMapFactory.contributingMap);
       return this;
     }
+
+    /**
+     * Returns the contributions indexed by the ordinals of their enum keys, or by their {@code
+     * Integer} keys, if they are dense enough. Otherwise returns {@code #map}.
+     */
+    final Map<K, Provider<V>> indexedMap() {
+      Map<K, Provider<V>> indexedMap = IndexedMap.copyOf(map);
+      return indexedMap != null ? indexedMap : map;
+    }
+
+    /**
+     * Returns the contributions in a {@code PerfectHashMap} with the given displacements, if they
+     * fit its keys. Otherwise returns {@code #map}.
+     */
+    final Map<K, Provider<V>> perfectHashMap(int[] displacements) {
+      Map<K, Provider<V>> perfectHashMap = PerfectHashMap.copyOf(map, displacements);
+      return perfectHashMap != null ? perfectHashMap : map;
+    }
   }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static dagger.internal.CompactSet.indexOf;
+import static dagger.internal.CompactSet.insert;
+import static dagger.internal.CompactSet.newTable;
+import static dagger.internal.Preconditions.checkNotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable {@code Map} backed by parallel arrays of its keys and values, in insertion order,
+ * and an open-addressed table of indices into those arrays. Used for multibound maps that are
+ * computed once and then shared by every request.
+ */
+public final class CompactMap<K, V> extends AbstractMap<K, V> {
+  private final Object[] keys;
+  private final Object[] values;
+  private final int[] table;
+
+  private CompactMap(Object[] keys, Object[] values) {
+    this.keys = keys;
+    this.values = values;
+    this.table = newTable(keys.length);
+    if (table != null) {
+      for (int i = 0; i < keys.length; i++) {
+        insert(table, keys[i], i);
+      }
+    }
+  }
+
+  /**
+   * Returns an immutable copy of {@code map}, in iteration order.
+   *
+   * @throws NullPointerException if any of the keys is {@code null}
+   */
+  public static <K, V> Map<K, V> copyOf(Map<? extends K, ? extends V> map) {
+    if (map.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Object[] keys = new Object[map.size()];
+    Object[] values = new Object[keys.length];
+    int i = 0;
+    for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+      keys[i] = checkNotNull(entry.getKey(), "key");
+      values[i] = entry.getValue();
+      i++;
+    }
+    return new CompactMap<K, V>(keys, values);
+  }
+
+  @Override
+  public int size() {
+    return keys.length;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key != null && indexOf(keys, keys.length, table, key) >= 0;
+  }
+
+  @SuppressWarnings("unchecked") // only values of type V are stored
+  @Override
+  public V get(Object key) {
+    if (key == null) {
+      return null;
+    }
+    int index = indexOf(keys, keys.length, table, key);
+    return index < 0 ? null : (V) values[index];
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new EntrySet();
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<K, V>> {
+    @Override
+    public int size() {
+      return keys.length;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      return new Iterator<Entry<K, V>>() {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+          return next < keys.length;
+        }
+
+        @SuppressWarnings("unchecked") // only keys of type K and values of type V are stored
+        @Override
+        public Entry<K, V> next() {
+          if (next >= keys.length) {
+            throw new NoSuchElementException();
+          }
+          int index = next++;
+          return new SimpleImmutableEntry<K, V>((K) keys[index], (V) values[index]);
+        }
+      };
+    }
+  }
+}
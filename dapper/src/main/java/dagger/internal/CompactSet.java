@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable {@code Set} backed by an array of its elements, in insertion order, and an
+ * open-addressed table of indices into that array. Used for multibound sets that are computed once
+ * and then shared by every request.
+ */
+public final class CompactSet<E> extends AbstractSet<E> {
+  /** Sets with at most this many elements are searched linearly and don't have an index table. */
+  private static final int MAX_LINEAR_SCAN_SIZE = 8;
+
+  private final Object[] elements;
+  private final int[] table;
+
+  private CompactSet(Object[] elements, int[] table) {
+    this.elements = elements;
+    this.table = table;
+  }
+
+  /**
+   * Returns an immutable set of the distinct elements of {@code collection}, in iteration order.
+   *
+   * @throws NullPointerException if any of the elements is {@code null}
+   */
+  public static <E> Set<E> copyOf(Collection<? extends E> collection) {
+    Object[] elements = new Object[collection.size()];
+    int[] table = newTable(elements.length);
+    int size = 0;
+    for (E element : collection) {
+      checkNotNull(element, "Set contributions cannot be null");
+      if (indexOf(elements, size, table, element) < 0) {
+        elements[size] = element;
+        if (table != null) {
+          insert(table, element, size);
+        }
+        size++;
+      }
+    }
+    if (size == 0) {
+      return Collections.emptySet();
+    }
+    if (size < elements.length) {
+      // The table only refers to the first size slots, so it stays valid.
+      elements = Arrays.copyOf(elements, size);
+    }
+    return new CompactSet<E>(elements, table);
+  }
+
+  @Override
+  public int size() {
+    return elements.length;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o != null && indexOf(elements, elements.length, table, o) >= 0;
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return new ArrayIterator<E>(elements);
+  }
+
+  /** Returns a new index table for {@code size} elements, or {@code null} if none is needed. */
+  static int[] newTable(int size) {
+    if (size <= MAX_LINEAR_SCAN_SIZE) {
+      return null;
+    }
+    // A power of two that is at least twice the size, so that probe sequences stay short.
+    return new int[Integer.highestOneBit(size - 1) << 2];
+  }
+
+  /** Returns the index of {@code o} in the first {@code size} {@code elements}, or {@code -1}. */
+  static int indexOf(Object[] elements, int size, int[] table, Object o) {
+    if (table == null) {
+      for (int i = 0; i < size; i++) {
+        if (elements[i].equals(o)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    int mask = table.length - 1;
+    for (int slot = smear(o.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+      int entry = table[slot];
+      if (entry == 0) {
+        return -1;
+      }
+      if (elements[entry - 1].equals(o)) {
+        return entry - 1;
+      }
+    }
+  }
+
+  /** Records that {@code o} is stored at {@code index}. {@code o} must not be in the table yet. */
+  static void insert(int[] table, Object o, int index) {
+    int mask = table.length - 1;
+    int slot = smear(o.hashCode()) & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    // Slots hold index + 1 so that 0 can mark an empty slot.
+    table[slot] = index + 1;
+  }
+
+  private static int smear(int hashCode) {
+    return 0x1b873593 * Integer.rotateLeft(hashCode * 0xcc9e2d51, 15);
+  }
+
+  /** A read-only iterator over an array. */
+  private static final class ArrayIterator<E> implements Iterator<E> {
+    private final Object[] array;
+    private int next;
+
+    ArrayIterator(Object[] array) {
+      this.array = array;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < array.length;
+    }
+
+    @SuppressWarnings("unchecked") // only elements of type E are stored
+    @Override
+    public E next() {
+      if (next >= array.length) {
+        throw new NoSuchElementException();
+      }
+      return (E) array[next++];
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import jakarta.inject.Provider;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable {@code Map} whose keys are the constants of one enum, or {@code Integer}s in a dense
+ * range. The keys and values are kept in parallel arrays, in insertion order, and a table indexed
+ * by the key's ordinal or value holds the index into those arrays, so {@code get} doesn't hash or
+ * allocate.
+ *
+ * <p>Unlike {@code java.util.EnumMap}, iteration follows the order in which the entries were added,
+ * like the other multibound maps.
+ */
+final class IndexedMap<K, V> extends AbstractMap<K, V> {
+  /**
+   * Maps with {@code Integer} keys are only indexed if the table isn't larger than this many slots
+   * per key.
+   */
+  static final int MAX_SLOTS_PER_INT_KEY = 4;
+
+  private final Object[] keys;
+  private final Object[] values;
+  /** The enum class of the keys, or {@code null} if the keys are {@code Integer}s. */
+  private final Class<?> enumType;
+  /** The ordinal or value of the key in the first slot of the table. */
+  private final int offset;
+  /** The index of the key in each slot plus one, or 0 for an empty slot. */
+  private final int[] table;
+
+  private IndexedMap(Object[] keys, Object[] values, Class<?> enumType, int offset, int[] table) {
+    this.keys = keys;
+    this.values = values;
+    this.enumType = enumType;
+    this.offset = offset;
+    this.table = table;
+  }
+
+  /**
+   * Returns an immutable copy of {@code map}, in iteration order, or {@code null} if its keys are
+   * not all constants of the same enum, or are {@code Integer}s that are too sparse to index.
+   */
+  static <K, V> IndexedMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+    if (map.isEmpty()) {
+      return null;
+    }
+    Object[] keys = new Object[map.size()];
+    Object[] values = new Object[keys.length];
+    int i = 0;
+    for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+      keys[i] = entry.getKey();
+      values[i] = entry.getValue();
+      i++;
+    }
+
+    Class<?> enumType =
+        keys[0] instanceof Enum ? ((Enum<?>) keys[0]).getDeclaringClass() : null;
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (Object key : keys) {
+      int slotKey;
+      if (enumType != null) {
+        if (!(key instanceof Enum) || ((Enum<?>) key).getDeclaringClass() != enumType) {
+          return null;
+        }
+        slotKey = ((Enum<?>) key).ordinal();
+      } else if (key instanceof Integer) {
+        slotKey = (Integer) key;
+      } else {
+        return null;
+      }
+      min = Math.min(min, slotKey);
+      max = Math.max(max, slotKey);
+    }
+    long slots = (long) max - min + 1;
+    // Enum tables are never larger than the number of constants of the enum.
+    if (enumType == null && slots > (long) MAX_SLOTS_PER_INT_KEY * keys.length) {
+      return null;
+    }
+
+    int[] table = new int[(int) slots];
+    IndexedMap<K, V> indexedMap = new IndexedMap<>(keys, values, enumType, min, table);
+    for (i = 0; i < keys.length; i++) {
+      table[indexedMap.slot(keys[i])] = i + 1;
+    }
+    return indexedMap;
+  }
+
+  /**
+   * Returns a map with the same keys as {@code providers} and the values returned from each of the
+   * providers, which are invoked in iteration order.
+   */
+  static <K, V> IndexedMap<K, V> getAll(IndexedMap<K, Provider<V>> providers) {
+    Object[] values = new Object[providers.values.length];
+    for (int i = 0; i < values.length; i++) {
+      @SuppressWarnings("unchecked") // only values of type Provider<V> are stored
+      Provider<V> provider = (Provider<V>) providers.values[i];
+      values[i] = provider.get();
+    }
+    // The keys and the table are never modified, so they can be shared.
+    return new IndexedMap<>(
+        providers.keys, values, providers.enumType, providers.offset, providers.table);
+  }
+
+  /** Returns the slot of {@code key} in the table, or {@code -1} if it can't be in the map. */
+  private int slot(Object key) {
+    long slotKey;
+    if (enumType != null) {
+      if (!(key instanceof Enum) || ((Enum<?>) key).getDeclaringClass() != enumType) {
+        return -1;
+      }
+      slotKey = ((Enum<?>) key).ordinal();
+    } else if (key instanceof Integer) {
+      slotKey = (Integer) key;
+    } else {
+      return -1;
+    }
+    long slot = slotKey - offset;
+    return slot >= 0 && slot < table.length ? (int) slot : -1;
+  }
+
+  private int indexOf(Object key) {
+    int slot = slot(key);
+    return slot < 0 ? -1 : table[slot] - 1;
+  }
+
+  @Override
+  public int size() {
+    return keys.length;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  @SuppressWarnings("unchecked") // only values of type V are stored
+  @Override
+  public V get(Object key) {
+    int index = indexOf(key);
+    return index < 0 ? null : (V) values[index];
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new EntrySet();
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<K, V>> {
+    @Override
+    public int size() {
+      return keys.length;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      return new Iterator<Entry<K, V>>() {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+          return next < keys.length;
+        }
+
+        @SuppressWarnings("unchecked") // only keys of type K and values of type V are stored
+        @Override
+        public Entry<K, V> next() {
+          if (next >= keys.length) {
+            throw new NoSuchElementException();
+          }
+          int index = next++;
+          return new SimpleImmutableEntry<K, V>((K) keys[index], (V) values[index]);
+        }
+      };
+    }
+  }
+}
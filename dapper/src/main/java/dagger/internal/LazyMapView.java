@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+import jakarta.inject.Provider;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable {@code Map<K, V>} view of a {@code Map<K, Provider<V>>} that only invokes the
+ * providers of the entries that are read. Each value is memoized for the lifetime of the view, so
+ * reading an entry again returns the same value.
+ *
+ * <p>{@code size()} and {@code containsKey()} don't invoke any provider. Iterating over the
+ * entries or values invokes the providers that haven't been invoked yet, in iteration order.
+ */
+public final class LazyMapView<K, V> extends AbstractMap<K, V> {
+  /** Stands in for a {@code null} value, which {@code ConcurrentHashMap} can't hold. */
+  private static final Object NULL = new Object();
+
+  private final Map<K, Provider<V>> providers;
+  private final ConcurrentHashMap<Object, Object> values = new ConcurrentHashMap<>();
+
+  private LazyMapView(Map<K, Provider<V>> providers) {
+    this.providers = providers;
+  }
+
+  /** Returns a view of the values of {@code providers}, which must not be modified. */
+  public static <K, V> Map<K, V> of(Map<K, Provider<V>> providers) {
+    checkNotNull(providers);
+    return providers.isEmpty() ? Collections.emptyMap() : new LazyMapView<>(providers);
+  }
+
+  @Override
+  public int size() {
+    return providers.size();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return providers.containsKey(key);
+  }
+
+  @Override
+  public V get(Object key) {
+    Provider<V> provider = providers.get(key);
+    return provider == null ? null : value(key, provider);
+  }
+
+  @SuppressWarnings("unchecked") // only values returned by a Provider<V> are stored
+  private V value(Object key, Provider<V> provider) {
+    Object value = values.get(key);
+    if (value == null) {
+      // The provider is invoked without holding a lock. If two threads race, the first value that
+      // is stored wins, so that every read returns the same value.
+      Object newValue = provider.get();
+      value = values.putIfAbsent(key, newValue == null ? NULL : newValue);
+      if (value == null) {
+        value = newValue == null ? NULL : newValue;
+      }
+    }
+    return value == NULL ? null : (V) value;
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new EntrySet();
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<K, V>> {
+    @Override
+    public int size() {
+      return providers.size();
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      Iterator<Entry<K, Provider<V>>> entries = providers.entrySet().iterator();
+      return new Iterator<Entry<K, V>>() {
+        @Override
+        public boolean hasNext() {
+          return entries.hasNext();
+        }
+
+        @Override
+        public Entry<K, V> next() {
+          Entry<K, Provider<V>> entry = entries.next();
+          return new SimpleImmutableEntry<K, V>(
+              entry.getKey(), value(entry.getKey(), entry.getValue()));
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+import dagger.Lazy;
+import jakarta.inject.Provider;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A {@code Lazy} and {@code Provider} implementation that memoizes the value returned from a
+ * delegate, like {@code DoubleCheck}, but without holding a monitor while the value is created.
+ *
+ * <p>The first thread to call {@code get()} claims the initialization with a compare-and-set, and
+ * other threads wait on a latch until the value has been published. Since no monitor is held, a
+ * virtual thread that creates the value, or waits for it, does not pin its carrier thread.
+ */
+public final class LockFreeCheck<T> implements Provider<T>, Lazy<T> {
+  private static final Object UNINITIALIZED = new Object();
+  private static final Initialization DONE = new Initialization(null);
+  private static final VarHandle INITIALIZATION;
+
+  static {
+    DONE.latch.countDown();
+    try {
+      INITIALIZATION =
+          MethodHandles.lookup()
+              .findVarHandle(LockFreeCheck.class, "initialization", Initialization.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private volatile Provider<T> provider;
+  private volatile Object instance = UNINITIALIZED;
+  private volatile Initialization initialization;
+
+  private LockFreeCheck(Provider<T> provider) {
+    assert provider != null;
+    this.provider = provider;
+  }
+
+  @SuppressWarnings("unchecked") // cast only happens when result comes from the provider
+  @Override
+  public T get() {
+    Object result = instance;
+    if (result == UNINITIALIZED) {
+      result = initialize();
+    }
+    return (T) result;
+  }
+
+  private Object initialize() {
+    while (true) {
+      Initialization current = initialization;
+      if (current == null) {
+        Initialization claimed = new Initialization(Thread.currentThread());
+        if (INITIALIZATION.compareAndSet(this, null, claimed)) {
+          return initializeClaimed(claimed);
+        }
+      } else if (current.owner == Thread.currentThread()) {
+        // A recursive call while creating the instance, like the reentrant call into the
+        // synchronized block of DoubleCheck.
+        Object result = provider.get();
+        instance = reentrantCheck(instance, result);
+        return result;
+      } else {
+        current.await();
+        Object result = instance;
+        if (result != UNINITIALIZED) {
+          return result;
+        }
+        // The owner failed to create the instance. Try again, like the next caller of DoubleCheck.
+      }
+    }
+  }
+
+  private Object initializeClaimed(Initialization claimed) {
+    boolean initialized = false;
+    try {
+      Object result = instance;
+      if (result == UNINITIALIZED) {
+        result = provider.get();
+        instance = reentrantCheck(instance, result);
+        /* Null out the reference to the provider. We are never going to need it again, so we
+         * can make it eligible for GC. */
+        provider = null;
+      }
+      initialized = true;
+      return instance;
+    } finally {
+      // Don't keep a reference to the owner thread once the instance is published.
+      initialization = initialized ? DONE : null;
+      claimed.latch.countDown();
+    }
+  }
+
+  /**
+   * Checks to see if creating the new instance has resulted in a recursive call. If it has, and the
+   * new instance is the same as the current instance, return the instance. However, if the new
+   * instance differs from the current instance, an {@code IllegalStateException} is thrown.
+   */
+  private static Object reentrantCheck(Object currentInstance, Object newInstance) {
+    boolean isReentrant = currentInstance != UNINITIALIZED;
+    if (isReentrant && currentInstance != newInstance) {
+      throw new IllegalStateException("Scoped provider was invoked recursively returning "
+          + "different results: " + currentInstance + " & " + newInstance + ". This is likely "
+          + "due to a circular dependency.");
+    }
+    return newInstance;
+  }
+
+  private static final class Initialization {
+    final Thread owner;
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    Initialization(Thread owner) {
+      this.owner = owner;
+    }
+
+    void await() {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          latch.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /** Returns a {@code Provider} that caches the value from the given delegate provider. */
+  // This method is declared this way instead of "<T> Provider<T> provider(Provider<T> delegate)"
+  // to work around an Eclipse type inference bug: https://github.com/google/dagger/issues/949.
+  public static <P extends Provider<T>, T> Provider<T> provider(P delegate) {
+    checkNotNull(delegate);
+    if (delegate instanceof LockFreeCheck || delegate instanceof DoubleCheck) {
+      /* This should be a rare case, but if we have a scoped @Binds that delegates to a scoped
+       * binding, we shouldn't cache the value again. */
+      return delegate;
+    }
+    return new LockFreeCheck<T>(delegate);
+  }
+
+  /** Returns a {@code Lazy} that caches the value from the given provider. */
+  // This method is declared this way instead of "<T> Lazy<T> lazy(Provider<T> delegate)"
+  // to work around an Eclipse type inference bug: https://github.com/google/dagger/issues/949.
+  public static <P extends Provider<T>, T> Lazy<T> lazy(P provider) {
+    if (provider instanceof Lazy) {
+      @SuppressWarnings("unchecked")
+      final Lazy<T> lazy = (Lazy<T>) provider;
+      // Avoids memoizing a value that is already memoized.
+      return lazy;
+    }
+    return new LockFreeCheck<T>(checkNotNull(provider));
+  }
+}
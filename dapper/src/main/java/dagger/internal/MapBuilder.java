@@ -55,4 +55,27 @@ public final class MapBuilder<K, V> {
     }
     return Collections.unmodifiableMap(contributions);
   }
+
+  /** Same as {@code #build()}, except that the map is a {@code CompactMap}. */
+  public Map<K, V> buildCompact() {
+    return CompactMap.copyOf(contributions);
+  }
+
+  /**
+   * Same as {@code #build()}, except that the map is indexed by the ordinals of its enum keys, or
+   * by its {@code Integer} keys, if they are dense enough.
+   */
+  public Map<K, V> buildIndexed() {
+    Map<K, V> indexedMap = IndexedMap.copyOf(contributions);
+    return indexedMap != null ? indexedMap : build();
+  }
+
+  /**
+   * Same as {@code #build()}, except that the map is a {@code PerfectHashMap} with the given
+   * displacements, if they fit its keys.
+   */
+  public Map<K, V> buildPerfectHash(int... displacements) {
+    Map<K, V> perfectHashMap = PerfectHashMap.copyOf(contributions, displacements);
+    return perfectHashMap != null ? perfectHashMap : build();
+  }
 }
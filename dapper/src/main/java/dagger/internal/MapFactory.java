@@ -43,8 +43,11 @@ public final class MapFactory<K, V> extends AbstractMapFactory<K, V, V> {
     return (Provider<Map<K, V>>) (Provider) EMPTY;
   }
 
-  private MapFactory(Map<K, Provider<V>> map) {
+  private final boolean compact;
+
+  private MapFactory(Map<K, Provider<V>> map, boolean compact) {
     super(map);
+    this.compact = compact;
   }
 
   /**
@@ -53,11 +56,22 @@ public final class MapFactory<K, V> extends AbstractMapFactory<K, V, V> {
    */
   @Override
   public Map<K, V> get() {
+    if (contributingMap() instanceof IndexedMap) {
+      @SuppressWarnings("unchecked") // built from a Map<K, Provider<V>>
+      IndexedMap<K, Provider<V>> providers = (IndexedMap<K, Provider<V>>) contributingMap();
+      return IndexedMap.getAll(providers);
+    }
+    if (contributingMap() instanceof PerfectHashMap) {
+      @SuppressWarnings("unchecked") // built from a Map<K, Provider<V>>
+      PerfectHashMap<K, Provider<V>> providers =
+          (PerfectHashMap<K, Provider<V>>) contributingMap();
+      return PerfectHashMap.getAll(providers);
+    }
     Map<K, V> result = newLinkedHashMapWithExpectedSize(contributingMap().size());
     for (Entry<K, Provider<V>> entry : contributingMap().entrySet()) {
       result.put(entry.getKey(), entry.getValue().get());
     }
-    return unmodifiableMap(result);
+    return compact ? CompactMap.copyOf(result) : unmodifiableMap(result);
   }
 
   /** A builder for {@code MapFactory}. */
@@ -80,7 +94,31 @@ public final class MapFactory<K, V> extends AbstractMapFactory<K, V, V> {
 
     /** Returns a new {@code MapProviderFactory}. */
     public MapFactory<K, V> build() {
-      return new MapFactory<>(map);
+      return new MapFactory<>(map, false);
+    }
+
+    /**
+     * Same as {@code #build()}, except that the factory returns {@code CompactMap}s. Used for maps
+     * whose contributions are all scoped, so that the memoized map is cheap to query.
+     */
+    public MapFactory<K, V> buildCompact() {
+      return new MapFactory<>(map, true);
+    }
+
+    /**
+     * Same as {@code #build()}, except that the factory and the maps it returns are indexed by the
+     * ordinals of their enum keys, or by their {@code Integer} keys, if they are dense enough.
+     */
+    public MapFactory<K, V> buildIndexed() {
+      return new MapFactory<>(indexedMap(), false);
+    }
+
+    /**
+     * Same as {@code #build()}, except that the factory and the maps it returns are {@code
+     * PerfectHashMap}s with the given displacements, if they fit their keys.
+     */
+    public MapFactory<K, V> buildPerfectHash(int... displacements) {
+      return new MapFactory<>(perfectHashMap(displacements), false);
     }
   }
 }
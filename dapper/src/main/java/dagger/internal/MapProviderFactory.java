@@ -67,5 +67,21 @@ public final class MapProviderFactory<K, V> extends AbstractMapFactory<K, V, Pro
     public MapProviderFactory<K, V> build() {
       return new MapProviderFactory<>(map);
     }
+
+    /**
+     * Same as {@code #build()}, except that the map is indexed by the ordinals of its enum keys, or
+     * by its {@code Integer} keys, if they are dense enough.
+     */
+    public MapProviderFactory<K, V> buildIndexed() {
+      return new MapProviderFactory<>(indexedMap());
+    }
+
+    /**
+     * Same as {@code #build()}, except that the map is a {@code PerfectHashMap} with the given
+     * displacements, if they fit its keys.
+     */
+    public MapProviderFactory<K, V> buildPerfectHash(int... displacements) {
+      return new MapProviderFactory<>(perfectHashMap(displacements));
+    }
   }
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import jakarta.inject.Provider;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable {@code Map} with {@code String} or {@code Class} keys and a collision-free lookup
+ * table. Used for {@code @StringKey} and {@code @ClassKey} multibound maps, whose keys are known
+ * when the component is compiled.
+ *
+ * <p>The keys and values are kept in parallel arrays, in insertion order. Each key hashes to a
+ * bucket, and each bucket has a displacement, chosen by the compiler, that moves its keys to slots
+ * of the table that no other key uses. A lookup reads one displacement and one slot, and compares
+ * one key.
+ *
+ * <p>{@code Class} keys are hashed by their names, since their hash codes differ between runs.
+ */
+public final class PerfectHashMap<K, V> extends AbstractMap<K, V> {
+  /** The largest displacement that {@code #displacements(int[])} tries for a bucket. */
+  private static final int MAX_DISPLACEMENT = 1 << 16;
+
+  private final Object[] keys;
+  private final Object[] values;
+  private final int[] displacements;
+  /** The index of the key in each slot plus one, or 0 for an empty slot. */
+  private final int[] table;
+
+  private PerfectHashMap(Object[] keys, Object[] values, int[] displacements, int[] table) {
+    this.keys = keys;
+    this.values = values;
+    this.displacements = displacements;
+    this.table = table;
+  }
+
+  /**
+   * Returns an immutable copy of {@code map}, in iteration order, or {@code null} if {@code
+   * displacements} don't give each of its keys a distinct slot.
+   */
+  static <K, V> PerfectHashMap<K, V> copyOf(
+      Map<? extends K, ? extends V> map, int[] displacements) {
+    if (map.isEmpty() || displacements.length != bucketCount(map.size())) {
+      return null;
+    }
+    Object[] keys = new Object[map.size()];
+    Object[] values = new Object[keys.length];
+    int[] table = new int[tableSize(keys.length)];
+    int i = 0;
+    for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+      int slot = slot(hash(entry.getKey()), displacements, table.length);
+      if (table[slot] != 0) {
+        return null;
+      }
+      keys[i] = entry.getKey();
+      values[i] = entry.getValue();
+      table[slot] = ++i;
+    }
+    return new PerfectHashMap<>(keys, values, displacements, table);
+  }
+
+  /**
+   * Returns a map with the same keys as {@code providers} and the values returned from each of the
+   * providers, which are invoked in iteration order.
+   */
+  static <K, V> PerfectHashMap<K, V> getAll(PerfectHashMap<K, Provider<V>> providers) {
+    Object[] values = new Object[providers.values.length];
+    for (int i = 0; i < values.length; i++) {
+      @SuppressWarnings("unchecked") // only values of type Provider<V> are stored
+      Provider<V> provider = (Provider<V>) providers.values[i];
+      values[i] = provider.get();
+    }
+    // The keys and the table are never modified, so they can be shared.
+    return new PerfectHashMap<>(
+        providers.keys, values, providers.displacements, providers.table);
+  }
+
+  /**
+   * Returns the hash code of a key. This is the same in every run, so that the compiler can choose
+   * the displacements.
+   */
+  public static int hash(Object key) {
+    return key instanceof Class ? ((Class<?>) key).getName().hashCode() : key.hashCode();
+  }
+
+  /**
+   * Returns displacements that give each of the keys with the given {@code hashes} a distinct slot,
+   * or {@code null} if there are none, for example because two of the hashes are equal. Called by
+   * the compiler.
+   */
+  public static int[] displacements(int[] hashes) {
+    int bucketCount = bucketCount(hashes.length);
+    int tableSize = tableSize(hashes.length);
+    int[][] buckets = new int[bucketCount][];
+    for (int hash : hashes) {
+      int bucket = bucket(hash, bucketCount);
+      int[] keys = buckets[bucket];
+      keys = keys == null ? new int[1] : Arrays.copyOf(keys, keys.length + 1);
+      keys[keys.length - 1] = hash;
+      buckets[bucket] = keys;
+    }
+    // Place the largest buckets first, while most of the slots are free.
+    Integer[] order = new Integer[bucketCount];
+    for (int i = 0; i < bucketCount; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Integer.compare(length(buckets[b]), length(buckets[a])));
+
+    int[] displacements = new int[bucketCount];
+    boolean[] used = new boolean[tableSize];
+    int[] slots = new int[hashes.length];
+    for (int bucket : order) {
+      int[] keys = buckets[bucket];
+      if (keys == null) {
+        break;
+      }
+      int displacement = 0;
+      while (!fits(keys, displacement, used, slots)) {
+        if (++displacement > MAX_DISPLACEMENT) {
+          return null;
+        }
+      }
+      for (int i = 0; i < keys.length; i++) {
+        used[slots[i]] = true;
+      }
+      displacements[bucket] = displacement;
+    }
+    return displacements;
+  }
+
+  /**
+   * Returns {@code true} if {@code displacement} moves each of the {@code keys} of one bucket to a
+   * distinct unused slot, and stores those slots in {@code slots}.
+   */
+  private static boolean fits(int[] keys, int displacement, boolean[] used, int[] slots) {
+    for (int i = 0; i < keys.length; i++) {
+      int slot = mix(keys[i] ^ displacement) & (used.length - 1);
+      if (used[slot]) {
+        return false;
+      }
+      for (int j = 0; j < i; j++) {
+        if (slots[j] == slot) {
+          return false;
+        }
+      }
+      slots[i] = slot;
+    }
+    return true;
+  }
+
+  private static int length(int[] keys) {
+    return keys == null ? 0 : keys.length;
+  }
+
+  /** Returns the number of buckets, and displacements, for {@code size} keys. */
+  private static int bucketCount(int size) {
+    return (size + 1) / 2;
+  }
+
+  /** Returns the size of the table for {@code size} keys: a power of two at least twice as big. */
+  private static int tableSize(int size) {
+    return size <= 1 ? 2 : Integer.highestOneBit(size - 1) << 2;
+  }
+
+  private static int bucket(int hash, int bucketCount) {
+    return (int) (((mix(hash) & 0xffffffffL) * bucketCount) >>> 32);
+  }
+
+  private static int slot(int hash, int[] displacements, int tableSize) {
+    int displacement = displacements[bucket(hash, displacements.length)];
+    return mix(hash ^ displacement) & (tableSize - 1);
+  }
+
+  /** The finalizer of MurmurHash3, which spreads every bit of {@code h} over the result. */
+  private static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  private int indexOf(Object key) {
+    if (key == null) {
+      return -1;
+    }
+    int index = table[slot(hash(key), displacements, table.length)] - 1;
+    return index >= 0 && keys[index].equals(key) ? index : -1;
+  }
+
+  @Override
+  public int size() {
+    return keys.length;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  @SuppressWarnings("unchecked") // only values of type V are stored
+  @Override
+  public V get(Object key) {
+    int index = indexOf(key);
+    return index < 0 ? null : (V) values[index];
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new EntrySet();
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<K, V>> {
+    @Override
+    public int size() {
+      return keys.length;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      return new Iterator<Entry<K, V>>() {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+          return next < keys.length;
+        }
+
+        @SuppressWarnings("unchecked") // only keys of type K and values of type V are stored
+        @Override
+        public Entry<K, V> next() {
+          if (next >= keys.length) {
+            throw new NoSuchElementException();
+          }
+          int index = next++;
+          return new SimpleImmutableEntry<K, V>((K) keys[index], (V) values[index]);
+        }
+      };
+    }
+  }
+}
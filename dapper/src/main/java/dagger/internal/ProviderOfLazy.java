@@ -27,10 +27,12 @@ import jakarta.inject.Provider;
 public final class ProviderOfLazy<T> implements Provider<Lazy<T>> {
 
   private final Provider<T> provider;
+  private final boolean lockFree;
 
-  private ProviderOfLazy(Provider<T> provider) {
+  private ProviderOfLazy(Provider<T> provider, boolean lockFree) {
     assert provider != null;
     this.provider = provider;
+    this.lockFree = lockFree;
   }
 
   /**
@@ -39,7 +41,7 @@ public final class ProviderOfLazy<T> implements Provider<Lazy<T>> {
    */
   @Override
   public Lazy<T> get() {
-    return DoubleCheck.lazy(provider);
+    return lockFree ? LockFreeCheck.lazy(provider) : DoubleCheck.lazy(provider);
   }
 
   /**
@@ -49,6 +51,14 @@ public final class ProviderOfLazy<T> implements Provider<Lazy<T>> {
    * @see #get()
    */
   public static <T> Provider<Lazy<T>> create(Provider<T> provider) {
-    return new ProviderOfLazy<T>(checkNotNull(provider));
+    return new ProviderOfLazy<T>(checkNotNull(provider), false);
+  }
+
+  /**
+   * Same as {@code #create(Provider)}, but the {@code Lazy} instances are {@code LockFreeCheck}s
+   * instead of {@code DoubleCheck}s.
+   */
+  public static <T> Provider<Lazy<T>> createLockFree(Provider<T> provider) {
+    return new ProviderOfLazy<T>(checkNotNull(provider), true);
   }
 }
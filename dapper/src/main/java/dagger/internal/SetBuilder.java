@@ -69,4 +69,14 @@ public final class SetBuilder<T> {
       return Collections.unmodifiableSet(new HashSet<>(contributions));
     }
   }
+
+  /**
+   * Same as {@code #build()}, except that sets with more than one element are {@code CompactSet}s.
+   */
+  public Set<T> buildCompact() {
+    if (contributions.size() <= 1) {
+      return build();
+    }
+    return CompactSet.copyOf(contributions);
+  }
 }
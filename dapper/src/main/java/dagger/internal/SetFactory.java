@@ -87,17 +87,34 @@ public final class SetFactory<T> implements Factory<Set<T>> {
       assert !hasDuplicates(collectionProviders)
           : "Codegen error?  Duplicates in the provider list";
 
-      return new SetFactory<T>(individualProviders, collectionProviders);
+      return new SetFactory<T>(individualProviders, collectionProviders, false);
+    }
+
+    /**
+     * Same as {@code #build()}, except that the factory returns {@code CompactSet}s. Used for sets
+     * whose contributions are all scoped, so that the memoized set is cheap to query.
+     */
+    public SetFactory<T> buildCompact() {
+      assert !hasDuplicates(individualProviders)
+          : "Codegen error?  Duplicates in the provider list";
+      assert !hasDuplicates(collectionProviders)
+          : "Codegen error?  Duplicates in the provider list";
+
+      return new SetFactory<T>(individualProviders, collectionProviders, true);
     }
   }
 
   private final List<Provider<T>> individualProviders;
   private final List<Provider<Collection<T>>> collectionProviders;
+  private final boolean compact;
 
   private SetFactory(
-      List<Provider<T>> individualProviders, List<Provider<Collection<T>>> collectionProviders) {
+      List<Provider<T>> individualProviders,
+      List<Provider<Collection<T>>> collectionProviders,
+      boolean compact) {
     this.individualProviders = individualProviders;
     this.collectionProviders = collectionProviders;
+    this.compact = compact;
   }
 
   /**
@@ -131,6 +148,6 @@ public final class SetFactory<T> implements Factory<Set<T>> {
       }
     }
 
-    return unmodifiableSet(providedValues);
+    return compact ? CompactSet.copyOf(providedValues) : unmodifiableSet(providedValues);
   }
 }
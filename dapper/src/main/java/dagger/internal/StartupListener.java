@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+/**
+ * Receives the startup sections of generated components that were compiled with {@code
+ * -Adagger.startupProfiling=enabled}.
+ *
+ * <p>A section is an {@code initialize} method of a component, the construction of a component
+ * shard or the first {@code get()} of a scoped provider. Sections nest on the calling thread, so
+ * the {@code enter} and {@code exit} events of one thread form a flame profile of the startup of
+ * a component. Listeners are called on the thread that creates the component or requests the
+ * binding and should be cheap and thread-safe.
+ *
+ * @see StartupProfiler#setListener(StartupListener)
+ */
+public interface StartupListener {
+  /** Called when {@code section} is entered, at the given {@link System#nanoTime()}. */
+  void enter(String section, long nanoTime);
+
+  /**
+   * Called when {@code section} is exited, at the given {@link System#nanoTime()}. This is also
+   * called if the section throws.
+   */
+  void exit(String section, long nanoTime);
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+import jakarta.inject.Provider;
+
+/**
+ * The timing hooks that generated components call when they are compiled with {@code
+ * -Adagger.startupProfiling=enabled}.
+ *
+ * <p>Without a listener each hook is a single volatile read, so profiled components can be shipped
+ * and profiled on demand.
+ */
+public final class StartupProfiler {
+  private static volatile StartupListener listener;
+
+  /**
+   * Sets the listener that receives the startup sections of all profiled components, or removes it
+   * if {@code listener} is {@code null}.
+   */
+  public static void setListener(StartupListener listener) {
+    StartupProfiler.listener = listener;
+  }
+
+  /** Reports that {@code section} is entered. */
+  public static void enter(String section) {
+    StartupListener current = listener;
+    if (current != null) {
+      current.enter(section, System.nanoTime());
+    }
+  }
+
+  /** Reports that {@code section} is exited. */
+  public static void exit(String section) {
+    StartupListener current = listener;
+    if (current != null) {
+      current.exit(section, System.nanoTime());
+    }
+  }
+
+  /**
+   * Returns a {@code Provider} that reports each call to the given delegate provider as {@code
+   * section}. Scoped providers call their delegate once, so this reports their first {@code get()}.
+   */
+  public static <T> Provider<T> provider(String section, Provider<T> delegate) {
+    checkNotNull(section);
+    checkNotNull(delegate);
+    if (delegate instanceof DoubleCheck
+        || delegate instanceof LockFreeCheck
+        || delegate instanceof SingleCheck) {
+      /* A scoped @Binds that delegates to a scoped binding doesn't create anything itself, and the
+       * scoped provider shouldn't cache the value again. */
+      return delegate;
+    }
+    return new ProfiledProvider<T>(section, delegate);
+  }
+
+  private static final class ProfiledProvider<T> implements Provider<T> {
+    private final String section;
+    private final Provider<T> delegate;
+
+    ProfiledProvider(String section, Provider<T> delegate) {
+      this.section = section;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public T get() {
+      enter(section);
+      try {
+        return delegate.get();
+      } finally {
+        exit(section);
+      }
+    }
+  }
+
+  private StartupProfiler() {}
+}
@@ -0,0 +1,124 @@
+package dagger.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+
+final class CompactMapTest {
+
+  @Test
+  void smallMapsAreScannedLinearly() {
+    Map<String, Integer> contributions = new LinkedHashMap<>();
+    contributions.put("c", 3);
+    contributions.put("a", 1);
+    contributions.put("b", 2);
+    Map<String, Integer> map = CompactMap.copyOf(contributions);
+    assertTrue(map instanceof CompactMap);
+    assertEquals(List.of("c", "a", "b"), new ArrayList<>(map.keySet()));
+    assertEquals(List.of(3, 1, 2), new ArrayList<>(map.values()));
+    assertEquals(Integer.valueOf(1), map.get("a"));
+    assertTrue(map.containsKey("b"));
+    assertNull(map.get("d"));
+    assertFalse(map.containsKey("d"));
+    assertNull(map.get(1));
+  }
+
+  @Test
+  void largeMapsAreLookedUpInTheTable() {
+    for (int size = 1; size <= 100; size++) {
+      Map<Integer, String> contributions = new LinkedHashMap<>();
+      for (int i = 0; i < size; i++) {
+        contributions.put(size - i, "v" + (size - i));
+      }
+      Map<Integer, String> map = CompactMap.copyOf(contributions);
+      assertEquals(new ArrayList<>(contributions.keySet()), new ArrayList<>(map.keySet()));
+      assertEquals(new ArrayList<>(contributions.values()), new ArrayList<>(map.values()));
+      for (int key : contributions.keySet()) {
+        assertEquals("v" + key, map.get(key));
+        assertTrue(map.containsKey(key));
+      }
+      assertNull(map.get(0));
+      assertNull(map.get(size + 1));
+      assertNull(map.get((long) size));
+      assertFalse(map.containsKey(size + 1));
+    }
+  }
+
+  @Test
+  void valuesOfEqualKeysAreFound() {
+    // Keys that are equal to the contributed keys, but not the same instances.
+    Map<String, Integer> contributions = new LinkedHashMap<>();
+    for (int i = 0; i < 12; i++) {
+      contributions.put(new String("key" + i), i);
+    }
+    Map<String, Integer> map = CompactMap.copyOf(contributions);
+    for (int i = 0; i < 12; i++) {
+      assertEquals(Integer.valueOf(i), map.get("key" + i));
+    }
+  }
+
+  @Test
+  void nullKeysAreRejected() {
+    Map<String, Integer> contributions = new HashMap<>();
+    contributions.put("a", 1);
+    contributions.put(null, 2);
+    assertThrows(NullPointerException.class, () -> CompactMap.copyOf(contributions));
+
+    Map<String, Integer> map = CompactMap.copyOf(Map.of("a", 1));
+    assertNull(map.get(null));
+    assertFalse(map.containsKey(null));
+  }
+
+  @Test
+  void emptyMapIsShared() {
+    assertSame(Collections.emptyMap(), CompactMap.copyOf(Map.of()));
+  }
+
+  @Test
+  void equalsAndHashCodeMatchOtherMaps() {
+    Map<String, Integer> contributions = new LinkedHashMap<>();
+    contributions.put("b", 2);
+    contributions.put("a", 1);
+    Map<String, Integer> small = CompactMap.copyOf(contributions);
+    assertEquals(Map.of("a", 1, "b", 2), small);
+    assertEquals(small, Map.of("a", 1, "b", 2));
+    assertEquals(Map.of("a", 1, "b", 2).hashCode(), small.hashCode());
+    assertNotEquals(Map.of("a", 1, "b", 3), small);
+    assertEquals("{b=2, a=1}", small.toString());
+
+    Map<Integer, Integer> large = new LinkedHashMap<>();
+    for (int i = 0; i < 30; i++) {
+      large.put(i, i * i);
+    }
+    assertEquals(Map.copyOf(large), CompactMap.copyOf(large));
+    assertEquals(CompactMap.copyOf(large), Map.copyOf(large));
+    assertEquals(Map.copyOf(large).hashCode(), CompactMap.copyOf(large).hashCode());
+  }
+
+  @Test
+  void mapIsUnmodifiable() {
+    Map<String, Integer> map = CompactMap.copyOf(Map.of("a", 1));
+    assertThrows(UnsupportedOperationException.class, () -> map.put("b", 2));
+    assertThrows(UnsupportedOperationException.class, () -> map.remove("a"));
+    Iterator<Map.Entry<String, Integer>> iterator = map.entrySet().iterator();
+    Map.Entry<String, Integer> entry = iterator.next();
+    assertThrows(UnsupportedOperationException.class, () -> entry.setValue(2));
+    assertThrows(UnsupportedOperationException.class, iterator::remove);
+    assertFalse(iterator.hasNext());
+    assertThrows(NoSuchElementException.class, iterator::next);
+  }
+}
@@ -0,0 +1,158 @@
+package dagger.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+final class CompactSetTest {
+
+  /** A key whose hash code is chosen by the test, so that keys can collide in the table. */
+  private static final class Key {
+    private final String name;
+    private final int hashCode;
+
+    Key(String name, int hashCode) {
+      this.name = name;
+      this.hashCode = hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  @Test
+  void smallSetsAreScannedLinearly() {
+    Set<String> set = CompactSet.copyOf(List.of("c", "a", "b"));
+    assertTrue(set instanceof CompactSet);
+    assertEquals(List.of("c", "a", "b"), new ArrayList<>(set));
+    assertEquals(3, set.size());
+    assertTrue(set.contains("a"));
+    assertFalse(set.contains("d"));
+    assertFalse(set.contains(1));
+  }
+
+  @Test
+  void largeSetsAreLookedUpInTheTable() {
+    for (int size = 1; size <= 100; size++) {
+      List<Integer> elements = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+        elements.add(size - i);
+      }
+      Set<Integer> set = CompactSet.copyOf(elements);
+      assertEquals(elements, new ArrayList<>(set));
+      for (int element : elements) {
+        assertTrue(set.contains(element));
+      }
+      assertFalse(set.contains(0));
+      assertFalse(set.contains(size + 1));
+      assertFalse(set.contains((long) size));
+    }
+  }
+
+  @Test
+  void collidingElementsAreProbed() {
+    List<Key> elements = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      elements.add(new Key("key" + i, i % 2));
+    }
+    Set<Key> set = CompactSet.copyOf(elements);
+    assertEquals(elements, new ArrayList<>(set));
+    for (Key element : elements) {
+      assertTrue(set.contains(new Key(element.name, element.hashCode)));
+    }
+    assertFalse(set.contains(new Key("key12", 0)));
+    assertFalse(set.contains(new Key("key13", 1)));
+  }
+
+  @Test
+  void duplicatesAreKeptOnceInFirstOccurrenceOrder() {
+    Set<String> small = CompactSet.copyOf(List.of("b", "a", "b", "c", "a"));
+    assertEquals(List.of("b", "a", "c"), new ArrayList<>(small));
+    assertEquals(3, small.size());
+
+    List<Integer> elements = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      elements.add(i % 10);
+    }
+    Set<Integer> large = CompactSet.copyOf(elements);
+    assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), new ArrayList<>(large));
+    for (int i = 0; i < 10; i++) {
+      assertTrue(large.contains(i));
+    }
+    assertFalse(large.contains(10));
+  }
+
+  @Test
+  void nullElementsAreRejected() {
+    assertThrows(NullPointerException.class, () -> CompactSet.copyOf(Arrays.asList("a", null)));
+    List<String> elements = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      elements.add("e" + i);
+    }
+    elements.add(null);
+    assertThrows(NullPointerException.class, () -> CompactSet.copyOf(elements));
+
+    Set<String> set = CompactSet.copyOf(elements.subList(0, 10));
+    assertFalse(set.contains(null));
+  }
+
+  @Test
+  void emptySetIsShared() {
+    assertSame(Collections.emptySet(), CompactSet.copyOf(List.of()));
+  }
+
+  @Test
+  void equalsAndHashCodeMatchOtherSets() {
+    Set<String> small = CompactSet.copyOf(List.of("a", "b", "c"));
+    assertEquals(Set.of("c", "b", "a"), small);
+    assertEquals(small, Set.of("c", "b", "a"));
+    assertEquals(Set.of("a", "b", "c").hashCode(), small.hashCode());
+    assertNotEquals(Set.of("a", "b"), small);
+
+    List<Integer> elements = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      elements.add(i);
+    }
+    Set<Integer> large = CompactSet.copyOf(elements);
+    assertEquals(Set.copyOf(elements), large);
+    assertEquals(large, Set.copyOf(elements));
+    assertEquals(Set.copyOf(elements).hashCode(), large.hashCode());
+  }
+
+  @Test
+  void setIsUnmodifiable() {
+    Set<String> set = CompactSet.copyOf(List.of("a", "b"));
+    assertThrows(UnsupportedOperationException.class, () -> set.add("c"));
+    assertThrows(UnsupportedOperationException.class, () -> set.remove("a"));
+    Iterator<String> iterator = set.iterator();
+    assertEquals("a", iterator.next());
+    assertThrows(UnsupportedOperationException.class, iterator::remove);
+    assertEquals("b", iterator.next());
+    assertFalse(iterator.hasNext());
+    assertThrows(NoSuchElementException.class, iterator::next);
+  }
+}
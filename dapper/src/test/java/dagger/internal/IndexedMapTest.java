@@ -0,0 +1,223 @@
+package dagger.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.inject.Provider;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+final class IndexedMapTest {
+
+  private enum Color {
+    RED,
+    GREEN,
+    BLUE,
+  }
+
+  private enum Shape {
+    CIRCLE,
+    SQUARE,
+  }
+
+  /** An enum whose constants are subclasses of it, because they have bodies. */
+  private enum Size {
+    SMALL {
+      @Override
+      public String toString() {
+        return "small";
+      }
+    },
+    LARGE {
+      @Override
+      public String toString() {
+        return "large";
+      }
+    },
+  }
+
+  @Test
+  void enumKeysAreIndexedInInsertionOrder() {
+    Map<Color, String> map =
+        MapBuilder.<Color, String>newMapBuilder(2)
+            .put(Color.BLUE, "blue")
+            .put(Color.RED, "red")
+            .buildIndexed();
+    assertTrue(map instanceof IndexedMap);
+    assertEquals(List.of(Color.BLUE, Color.RED), new ArrayList<>(map.keySet()));
+    assertEquals(List.of("blue", "red"), new ArrayList<>(map.values()));
+    assertEquals("blue", map.get(Color.BLUE));
+    assertEquals("red", map.get(Color.RED));
+    assertNull(map.get(Color.GREEN));
+    assertFalse(map.containsKey(Color.GREEN));
+    assertEquals(Map.of(Color.RED, "red", Color.BLUE, "blue"), map);
+  }
+
+  @Test
+  void enumConstantsWithBodiesAreIndexed() {
+    Map<Size, String> map =
+        MapBuilder.<Size, String>newMapBuilder(2)
+            .put(Size.LARGE, "large")
+            .put(Size.SMALL, "small")
+            .buildIndexed();
+    assertTrue(map instanceof IndexedMap);
+    assertEquals("small", map.get(Size.SMALL));
+    assertEquals("large", map.get(Size.LARGE));
+  }
+
+  @Test
+  void keysOfDifferentEnumsAreNotIndexed() {
+    Map<Enum<?>, String> contributions = new LinkedHashMap<>();
+    contributions.put(Color.RED, "red");
+    contributions.put(Shape.SQUARE, "square");
+    assertNull(IndexedMap.copyOf(contributions));
+
+    Map<Enum<?>, String> map =
+        MapBuilder.<Enum<?>, String>newMapBuilder(2)
+            .put(Color.RED, "red")
+            .put(Shape.SQUARE, "square")
+            .buildIndexed();
+    assertFalse(map instanceof IndexedMap);
+    assertEquals(contributions, map);
+    assertEquals(List.of(Color.RED, Shape.SQUARE), new ArrayList<>(map.keySet()));
+  }
+
+  @Test
+  void denseIntegerKeysAreIndexed() {
+    // Two keys may be spread over up to 8 slots.
+    Map<Integer, String> map =
+        MapBuilder.<Integer, String>newMapBuilder(2).put(7, "seven").put(0, "zero").buildIndexed();
+    assertTrue(map instanceof IndexedMap);
+    assertEquals(List.of(7, 0), new ArrayList<>(map.keySet()));
+    assertEquals("zero", map.get(0));
+    assertEquals("seven", map.get(7));
+    for (int key = 1; key < 7; key++) {
+      assertNull(map.get(key));
+      assertFalse(map.containsKey(key));
+    }
+    assertNull(map.get(8));
+    assertNull(map.get(-1));
+  }
+
+  @Test
+  void sparseIntegerKeysFallBackToBuild() {
+    Map<Integer, String> contributions = new LinkedHashMap<>();
+    contributions.put(8, "eight");
+    contributions.put(0, "zero");
+    assertNull(IndexedMap.copyOf(contributions));
+
+    Map<Integer, String> map =
+        MapBuilder.<Integer, String>newMapBuilder(2).put(8, "eight").put(0, "zero").buildIndexed();
+    assertFalse(map instanceof IndexedMap);
+    assertEquals(contributions, map);
+    assertEquals(List.of(8, 0), new ArrayList<>(map.keySet()));
+  }
+
+  @Test
+  void integerKeysAtTheEndsOfTheRangeAreNotIndexed() {
+    Map<Integer, String> contributions = new LinkedHashMap<>();
+    contributions.put(Integer.MIN_VALUE, "min");
+    contributions.put(Integer.MAX_VALUE, "max");
+    assertNull(IndexedMap.copyOf(contributions));
+  }
+
+  @Test
+  void negativeIntegerKeysAreIndexed() {
+    Map<Integer, String> map =
+        MapBuilder.<Integer, String>newMapBuilder(3)
+            .put(-1, "minus one")
+            .put(-3, "minus three")
+            .put(-2, "minus two")
+            .buildIndexed();
+    assertTrue(map instanceof IndexedMap);
+    assertEquals(List.of(-1, -3, -2), new ArrayList<>(map.keySet()));
+    assertEquals("minus three", map.get(-3));
+    assertEquals("minus two", map.get(-2));
+    assertEquals("minus one", map.get(-1));
+    assertNull(map.get(-4));
+    assertNull(map.get(0));
+    assertNull(map.get(Integer.MIN_VALUE));
+    assertNull(map.get(Integer.MAX_VALUE));
+  }
+
+  @Test
+  void integerKeysNearMaxValueAreIndexed() {
+    Map<Integer, String> map =
+        MapBuilder.<Integer, String>newMapBuilder(2)
+            .put(Integer.MAX_VALUE, "max")
+            .put(Integer.MAX_VALUE - 1, "max - 1")
+            .buildIndexed();
+    assertTrue(map instanceof IndexedMap);
+    assertEquals("max", map.get(Integer.MAX_VALUE));
+    assertEquals("max - 1", map.get(Integer.MAX_VALUE - 1));
+    assertNull(map.get(Integer.MIN_VALUE));
+    assertNull(map.get(0));
+  }
+
+  @Test
+  void keysOfTheWrongTypeAreNotFoundInEnumKeyedMap() {
+    Map<Color, String> map =
+        MapBuilder.<Color, String>newMapBuilder(2)
+            .put(Color.RED, "red")
+            .put(Color.GREEN, "green")
+            .buildIndexed();
+    // Shape.CIRCLE and Shape.SQUARE have the same ordinals as the keys.
+    assertNull(map.get(Shape.CIRCLE));
+    assertFalse(map.containsKey(Shape.SQUARE));
+    assertNull(map.get(0));
+    assertFalse(map.containsKey(1));
+    assertNull(map.get("RED"));
+    assertNull(map.get(null));
+    assertFalse(map.containsKey(null));
+  }
+
+  @Test
+  void keysOfTheWrongTypeAreNotFoundInIntegerKeyedMap() {
+    Map<Integer, String> map =
+        MapBuilder.<Integer, String>newMapBuilder(2).put(0, "zero").put(1, "one").buildIndexed();
+    assertNull(map.get(1L));
+    assertFalse(map.containsKey((short) 1));
+    assertNull(map.get('\u0001'));
+    assertNull(map.get(Color.GREEN));
+    assertNull(map.get("1"));
+    assertNull(map.get(null));
+    assertFalse(map.containsKey(null));
+  }
+
+  @Test
+  void factoryReturnsIndexedMapsOfTheProvidedValues() {
+    List<String> invoked = new ArrayList<>();
+    Provider<Map<Color, String>> factory =
+        MapFactory.<Color, String>builder(2)
+            .put(Color.BLUE, provider("blue", invoked))
+            .put(Color.RED, provider("red", invoked))
+            .buildIndexed();
+    Map<Color, String> map = factory.get();
+    assertTrue(map instanceof IndexedMap);
+    assertEquals(List.of("blue", "red"), invoked);
+    assertEquals(List.of(Color.BLUE, Color.RED), new ArrayList<>(map.keySet()));
+    assertEquals("red", map.get(Color.RED));
+    assertNull(map.get(Color.GREEN));
+
+    Map<Color, Provider<String>> providers =
+        MapProviderFactory.<Color, String>builder(2)
+            .put(Color.BLUE, provider("blue", invoked))
+            .buildIndexed()
+            .get();
+    assertTrue(providers instanceof IndexedMap);
+    assertNull(providers.get(Color.RED));
+    assertEquals("blue", providers.get(Color.BLUE).get());
+  }
+
+  private static Provider<String> provider(String value, List<String> invoked) {
+    return () -> {
+      invoked.add(value);
+      return value;
+    };
+  }
+}
@@ -0,0 +1,121 @@
+package dagger.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.inject.Provider;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+final class LazyMapViewTest {
+
+  /** The keys of the providers that were invoked, in order. */
+  private final List<String> invoked = new ArrayList<>();
+
+  @Test
+  void onlyTheProvidersOfReadEntriesAreInvoked() {
+    Map<String, Object> map = LazyMapView.of(providers("a", "b", "c"));
+    assertEquals(List.of(), invoked);
+
+    Object b = map.get("b");
+    assertEquals(List.of("b"), invoked);
+    assertEquals("b", b.toString());
+    assertNull(map.get("d"));
+    assertEquals(List.of("b"), invoked);
+  }
+
+  @Test
+  void valuesAreMemoized() {
+    Map<String, Object> map = LazyMapView.of(providers("a", "b"));
+    Object a = map.get("a");
+    assertSame(a, map.get("a"));
+    assertEquals(List.of("a"), invoked);
+
+    // Iterating invokes the other providers, and returns the values that were already read.
+    List<Object> values = new ArrayList<>(map.values());
+    assertEquals(List.of("a", "b"), invoked);
+    assertSame(a, values.get(0));
+    assertSame(values.get(1), map.get("b"));
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      assertSame(map.get(entry.getKey()), entry.getValue());
+    }
+    assertEquals(List.of("a", "b"), invoked);
+
+    // Each view memoizes its own values.
+    Map<String, Object> other = LazyMapView.of(providers("a", "b"));
+    assertNotSame(a, other.get("a"));
+  }
+
+  @Test
+  void nullValuesAreMemoized() {
+    Map<String, Provider<Object>> providers = providers("a");
+    providers.put(
+        "null",
+        () -> {
+          invoked.add("null");
+          return null;
+        });
+    Map<String, Object> map = LazyMapView.of(providers);
+    assertNull(map.get("null"));
+    assertNull(map.get("null"));
+    assertTrue(map.containsKey("null"));
+    assertEquals(List.of("null"), invoked);
+  }
+
+  @Test
+  void sizeAndContainsKeyInvokeNoProviders() {
+    Map<String, Object> map = LazyMapView.of(providers("a", "b", "c"));
+    assertEquals(3, map.size());
+    assertFalse(map.isEmpty());
+    assertTrue(map.containsKey("a"));
+    assertTrue(map.containsKey("c"));
+    assertFalse(map.containsKey("d"));
+    assertFalse(map.containsKey(null));
+    assertEquals(3, map.entrySet().size());
+    assertEquals(List.of(), invoked);
+  }
+
+  @Test
+  void iterationInvokesProvidersInIterationOrder() {
+    Map<String, Object> map = LazyMapView.of(providers("c", "a", "b"));
+    map.get("a");
+    assertEquals(List.of("c", "a", "b"), new ArrayList<>(map.keySet()));
+    assertEquals(List.of("a", "c", "b"), invoked);
+  }
+
+  @Test
+  void emptyMapIsNotAView() {
+    Map<String, Object> map = LazyMapView.of(Collections.<String, Provider<Object>>emptyMap());
+    assertSame(Collections.emptyMap(), map);
+  }
+
+  /**
+   * Returns providers of new objects whose {@code toString()} is their key, which record their key
+   * when they're invoked.
+   */
+  private Map<String, Provider<Object>> providers(String... keys) {
+    Map<String, Provider<Object>> providers = new LinkedHashMap<>();
+    for (String key : keys) {
+      providers.put(
+          key,
+          () -> {
+            invoked.add(key);
+            return new Object() {
+              @Override
+              public String toString() {
+                return key;
+              }
+            };
+          });
+    }
+    return providers;
+  }
+}
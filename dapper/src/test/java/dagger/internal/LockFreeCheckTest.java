@@ -0,0 +1,237 @@
+package dagger.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dagger.Lazy;
+import jakarta.inject.Provider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+final class LockFreeCheckTest {
+  private final AtomicInteger invocations = new AtomicInteger();
+
+  @Test
+  void contendedThreadsGetTheSameInstance() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    Provider<Object> lockFreeCheck =
+        LockFreeCheck.provider(
+            () -> {
+              invocations.incrementAndGet();
+              awaitUninterruptibly(release);
+              return new Object();
+            });
+    List<Caller> callers = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      callers.add(new Caller(lockFreeCheck));
+    }
+    for (Caller caller : callers) {
+      caller.start();
+    }
+    // One caller waits in the provider, and the others wait for it.
+    for (Caller caller : callers) {
+      awaitWaiting(caller);
+    }
+    release.countDown();
+
+    Object instance = callers.get(0).result();
+    for (Caller caller : callers) {
+      assertSame(instance, caller.result());
+    }
+    assertSame(instance, lockFreeCheck.get());
+    assertEquals(1, invocations.get());
+  }
+
+  @Test
+  void failedProviderIsInvokedAgain() {
+    Provider<Object> lockFreeCheck =
+        LockFreeCheck.provider(
+            () -> {
+              if (invocations.incrementAndGet() == 1) {
+                throw new IllegalArgumentException("first");
+              }
+              return "second";
+            });
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class, lockFreeCheck::get);
+    assertEquals("first", e.getMessage());
+    assertEquals("second", lockFreeCheck.get());
+    assertEquals("second", lockFreeCheck.get());
+    assertEquals(2, invocations.get());
+  }
+
+  @Test
+  void waitingThreadRetriesAfterTheOwnerFails() throws InterruptedException {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Provider<Object> lockFreeCheck =
+        LockFreeCheck.provider(
+            () -> {
+              if (invocations.incrementAndGet() == 1) {
+                entered.countDown();
+                awaitUninterruptibly(release);
+                throw new IllegalArgumentException("owner");
+              }
+              return "retried";
+            });
+    Caller owner = new Caller(lockFreeCheck);
+    owner.start();
+    entered.await();
+    Caller waiting = new Caller(lockFreeCheck);
+    waiting.start();
+    awaitWaiting(waiting);
+    release.countDown();
+
+    assertEquals("owner", owner.failure().getMessage());
+    assertEquals("retried", waiting.result());
+    assertEquals("retried", lockFreeCheck.get());
+    assertEquals(2, invocations.get());
+  }
+
+  @Test
+  void reentranceReturningSameInstance() {
+    Object object = new Object();
+    AtomicReference<Provider<Object>> lockFreeCheckReference = new AtomicReference<>();
+    Provider<Object> lockFreeCheck =
+        LockFreeCheck.provider(
+            () -> {
+              if (invocations.incrementAndGet() == 1) {
+                lockFreeCheckReference.get().get();
+              }
+              return object;
+            });
+    lockFreeCheckReference.set(lockFreeCheck);
+    assertSame(object, lockFreeCheck.get());
+    assertSame(object, lockFreeCheck.get());
+    assertEquals(2, invocations.get());
+  }
+
+  @Test
+  void reentranceReturningDifferentInstancesThrowsIllegalStateException() {
+    AtomicReference<Provider<Object>> lockFreeCheckReference = new AtomicReference<>();
+    Provider<Object> lockFreeCheck =
+        LockFreeCheck.provider(
+            () -> {
+              if (invocations.incrementAndGet() == 1) {
+                lockFreeCheckReference.get().get();
+              }
+              return new Object();
+            });
+    lockFreeCheckReference.set(lockFreeCheck);
+    assertThrows(IllegalStateException.class, lockFreeCheck::get);
+  }
+
+  @Test
+  void interruptedWaitingThreadKeepsItsInterruptFlag() throws InterruptedException {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Object object = new Object();
+    Provider<Object> lockFreeCheck =
+        LockFreeCheck.provider(
+            () -> {
+              entered.countDown();
+              awaitUninterruptibly(release);
+              return object;
+            });
+    Caller owner = new Caller(lockFreeCheck);
+    owner.start();
+    entered.await();
+    Caller waiting = new Caller(lockFreeCheck);
+    waiting.start();
+    awaitWaiting(waiting);
+    waiting.interrupt();
+    // The interrupt doesn't end the wait.
+    Thread.sleep(10);
+    assertTrue(waiting.isAlive());
+    release.countDown();
+
+    assertSame(object, waiting.result());
+    assertTrue(waiting.interruptedAfterGet);
+    assertSame(object, owner.result());
+    assertFalse(owner.interruptedAfterGet);
+  }
+
+  @Test
+  void scopedDelegatesAreNotWrappedAgain() {
+    Provider<Object> lockFreeCheck = LockFreeCheck.provider(Object::new);
+    assertSame(lockFreeCheck, LockFreeCheck.provider(lockFreeCheck));
+    Provider<Object> doubleCheck = DoubleCheck.provider(Object::new);
+    assertSame(doubleCheck, LockFreeCheck.provider(doubleCheck));
+
+    Lazy<Object> lazy = LockFreeCheck.lazy(lockFreeCheck);
+    assertSame(lockFreeCheck, lazy);
+    assertSame(lazy.get(), lockFreeCheck.get());
+  }
+
+  @Test
+  void nullIsMemoized() {
+    Provider<Object> lockFreeCheck =
+        LockFreeCheck.provider(
+            () -> {
+              invocations.incrementAndGet();
+              return null;
+            });
+    assertNull(lockFreeCheck.get());
+    assertNull(lockFreeCheck.get());
+    assertEquals(1, invocations.get());
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    while (true) {
+      try {
+        latch.await();
+        return;
+      } catch (InterruptedException e) {
+        // Keep waiting; the tests interrupt the callers, not the provider.
+      }
+    }
+  }
+
+  private static void awaitWaiting(Thread thread) throws InterruptedException {
+    while (thread.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+  }
+
+  /** A thread that calls {@code get()} once, and records the outcome. */
+  private static final class Caller extends Thread {
+    private final Provider<Object> provider;
+    private volatile Object result;
+    private volatile RuntimeException failure;
+    private volatile boolean interruptedAfterGet;
+
+    Caller(Provider<Object> provider) {
+      this.provider = provider;
+    }
+
+    @Override
+    public void run() {
+      try {
+        result = provider.get();
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+      interruptedAfterGet = isInterrupted();
+    }
+
+    Object result() throws InterruptedException {
+      join();
+      if (failure != null) {
+        throw failure;
+      }
+      return result;
+    }
+
+    RuntimeException failure() throws InterruptedException {
+      join();
+      return failure;
+    }
+  }
+}
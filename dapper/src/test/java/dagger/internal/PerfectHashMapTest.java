@@ -0,0 +1,176 @@
+package dagger.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.inject.Provider;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+final class PerfectHashMapTest {
+
+  @Test
+  void stringKeysAreLookedUpInInsertionOrder() {
+    Map<String, Integer> contributions = new LinkedHashMap<>();
+    contributions.put("one", 1);
+    contributions.put("two", 2);
+    contributions.put("three", 3);
+    contributions.put("four", 4);
+    contributions.put("five", 5);
+    Map<String, Integer> map =
+        PerfectHashMap.copyOf(contributions, displacements(contributions.keySet()));
+    assertNotNull(map);
+    assertEquals(List.of("one", "two", "three", "four", "five"), new ArrayList<>(map.keySet()));
+    assertEquals(List.of(1, 2, 3, 4, 5), new ArrayList<>(map.values()));
+    assertEquals(contributions, map);
+    for (Map.Entry<String, Integer> entry : contributions.entrySet()) {
+      assertEquals(entry.getValue(), map.get(entry.getKey()));
+      assertTrue(map.containsKey(entry.getKey()));
+    }
+    assertNull(map.get("six"));
+    assertFalse(map.containsKey(""));
+    assertNull(map.get(1));
+    assertNull(map.get(null));
+    assertFalse(map.containsKey(null));
+  }
+
+  @Test
+  void keysWithEqualHashesHaveNoDisplacements() {
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    // The search gives up on the bucket of the equal hashes after the largest displacement.
+    assertNull(PerfectHashMap.displacements(new int[] {"Aa".hashCode(), "BB".hashCode()}));
+    assertNull(
+        PerfectHashMap.displacements(
+            new int[] {"c".hashCode(), "Aa".hashCode(), "d".hashCode(), "BB".hashCode()}));
+
+    Map<String, Integer> map =
+        MapBuilder.<String, Integer>newMapBuilder(2)
+            .put("Aa", 1)
+            .put("BB", 2)
+            .buildPerfectHash(0);
+    assertFalse(map instanceof PerfectHashMap);
+    assertEquals(List.of("Aa", "BB"), new ArrayList<>(map.keySet()));
+    assertEquals(List.of(1, 2), new ArrayList<>(map.values()));
+  }
+
+  @Test
+  void displacementsStayWithinTheLimit() {
+    for (int size = 1; size <= 300; size++) {
+      Map<String, Integer> contributions = new LinkedHashMap<>();
+      for (int i = 0; i < size; i++) {
+        contributions.put("key" + i, i);
+      }
+      int[] displacements = displacements(contributions.keySet());
+      assertNotNull(displacements);
+      assertEquals((size + 1) / 2, displacements.length);
+      for (int displacement : displacements) {
+        assertTrue(displacement >= 0 && displacement <= 1 << 16);
+      }
+      Map<String, Integer> map = PerfectHashMap.copyOf(contributions, displacements);
+      assertNotNull(map);
+      for (int i = 0; i < size; i++) {
+        assertEquals(Integer.valueOf(i), map.get("key" + i));
+      }
+      assertNull(map.get("key" + size));
+    }
+  }
+
+  @Test
+  void copyOfRejectsDisplacementsThatDontFit() {
+    Map<String, Integer> contributions = new LinkedHashMap<>();
+    contributions.put("a", 1);
+    contributions.put("b", 2);
+    contributions.put("c", 3);
+    // Three keys have two buckets.
+    assertNull(PerfectHashMap.copyOf(contributions, new int[] {0}));
+    assertNull(PerfectHashMap.copyOf(contributions, new int[] {0, 0, 0}));
+    assertNull(PerfectHashMap.copyOf(new LinkedHashMap<String, Integer>(), new int[0]));
+
+    Map<String, Integer> map =
+        MapBuilder.<String, Integer>newMapBuilder(3)
+            .put("a", 1)
+            .put("b", 2)
+            .put("c", 3)
+            .buildPerfectHash(0);
+    assertFalse(map instanceof PerfectHashMap);
+    assertEquals(contributions, map);
+  }
+
+  @Test
+  void classKeysAreHashedByBinaryName() {
+    assertEquals("java.lang.Thread$State".hashCode(), PerfectHashMap.hash(Thread.State.class));
+    assertEquals("java.util.Map$Entry".hashCode(), PerfectHashMap.hash(Map.Entry.class));
+    assertEquals("java.lang.String".hashCode(), PerfectHashMap.hash(String.class));
+    assertNotEquals(
+        Thread.State.class.getCanonicalName().hashCode(), PerfectHashMap.hash(Thread.State.class));
+
+    Map<Class<?>, String> contributions = new LinkedHashMap<>();
+    contributions.put(Map.Entry.class, "entry");
+    contributions.put(Thread.State.class, "state");
+    int[] binaryNameDisplacements =
+        PerfectHashMap.displacements(
+            new int[] {"java.util.Map$Entry".hashCode(), "java.lang.Thread$State".hashCode()});
+    Map<Class<?>, String> map = PerfectHashMap.copyOf(contributions, binaryNameDisplacements);
+    assertNotNull(map);
+    assertEquals("entry", map.get(Map.Entry.class));
+    assertEquals("state", map.get(Thread.State.class));
+    assertNull(map.get(Thread.class));
+    assertNull(map.get("java.lang.Thread$State"));
+
+    // The keys of these two classes collide with the displacements for their canonical names.
+    int[] canonicalNameDisplacements =
+        PerfectHashMap.displacements(
+            new int[] {"java.util.Map.Entry".hashCode(), "java.lang.Thread.State".hashCode()});
+    assertNotNull(canonicalNameDisplacements);
+    assertNull(PerfectHashMap.copyOf(contributions, canonicalNameDisplacements));
+  }
+
+  @Test
+  void factoryReturnsPerfectHashMapsOfTheProvidedValues() {
+    List<String> invoked = new ArrayList<>();
+    int[] displacements = displacements(List.of("b", "a"));
+    Provider<Map<String, String>> factory =
+        MapFactory.<String, String>builder(2)
+            .put("b", provider("b", invoked))
+            .put("a", provider("a", invoked))
+            .buildPerfectHash(displacements);
+    Map<String, String> map = factory.get();
+    assertTrue(map instanceof PerfectHashMap);
+    assertEquals(List.of("b", "a"), invoked);
+    assertEquals(List.of("b", "a"), new ArrayList<>(map.keySet()));
+    assertEquals("a", map.get("a"));
+    assertNull(map.get("c"));
+
+    Map<String, Provider<String>> providers =
+        MapProviderFactory.<String, String>builder(2)
+            .put("b", provider("b", invoked))
+            .put("a", provider("a", invoked))
+            .buildPerfectHash(displacements)
+            .get();
+    assertTrue(providers instanceof PerfectHashMap);
+    assertEquals("b", providers.get("b").get());
+    assertNull(providers.get("c"));
+  }
+
+  private static int[] displacements(Iterable<?> keys) {
+    List<Integer> hashes = new ArrayList<>();
+    for (Object key : keys) {
+      hashes.add(PerfectHashMap.hash(key));
+    }
+    return PerfectHashMap.displacements(hashes.stream().mapToInt(Integer::intValue).toArray());
+  }
+
+  private static Provider<String> provider(String value, List<String> invoked) {
+    return () -> {
+      invoked.add(value);
+      return value;
+    };
+  }
+}
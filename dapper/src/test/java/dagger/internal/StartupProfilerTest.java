@@ -0,0 +1,109 @@
+package dagger.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.inject.Provider;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+final class StartupProfilerTest {
+
+  /** The events that the listener received, in order. */
+  private final List<String> events = new ArrayList<>();
+
+  /** The times of the events that the listener received, in order. */
+  private final List<Long> times = new ArrayList<>();
+
+  private final StartupListener listener =
+      new StartupListener() {
+        @Override
+        public void enter(String section, long nanoTime) {
+          events.add("enter " + section);
+          times.add(nanoTime);
+        }
+
+        @Override
+        public void exit(String section, long nanoTime) {
+          events.add("exit " + section);
+          times.add(nanoTime);
+        }
+      };
+
+  @AfterEach
+  void removeListener() {
+    StartupProfiler.setListener(null);
+  }
+
+  @Test
+  void eachGetIsReported() {
+    StartupProfiler.setListener(listener);
+    Provider<Object> provider =
+        StartupProfiler.provider(
+            "section",
+            () -> {
+              events.add("get");
+              return "value";
+            });
+    assertEquals("value", provider.get());
+    assertEquals("value", provider.get());
+    assertEquals(
+        List.of("enter section", "get", "exit section", "enter section", "get", "exit section"),
+        events);
+    for (int i = 1; i < times.size(); i++) {
+      assertTrue(times.get(i - 1) <= times.get(i));
+    }
+  }
+
+  @Test
+  void exitIsReportedWhenTheDelegateThrows() {
+    StartupProfiler.setListener(listener);
+    Provider<Object> provider =
+        StartupProfiler.provider(
+            "section",
+            () -> {
+              throw new IllegalStateException("failed");
+            });
+    IllegalStateException e = assertThrows(IllegalStateException.class, provider::get);
+    assertEquals("failed", e.getMessage());
+    assertEquals(List.of("enter section", "exit section"), events);
+  }
+
+  @Test
+  void sectionsNest() {
+    StartupProfiler.setListener(listener);
+    Provider<Object> inner = StartupProfiler.provider("inner", () -> "inner");
+    Provider<Object> outer = StartupProfiler.provider("outer", inner::get);
+    outer.get();
+    assertEquals(List.of("enter outer", "enter inner", "exit inner", "exit outer"), events);
+  }
+
+  @Test
+  void scopedDelegatesAreNotWrapped() {
+    Provider<Object> doubleCheck = DoubleCheck.provider(Object::new);
+    assertSame(doubleCheck, StartupProfiler.provider("section", doubleCheck));
+    Provider<Object> lockFreeCheck = LockFreeCheck.provider(Object::new);
+    assertSame(lockFreeCheck, StartupProfiler.provider("section", lockFreeCheck));
+    Provider<Object> singleCheck = SingleCheck.provider(Object::new);
+    assertSame(singleCheck, StartupProfiler.provider("section", singleCheck));
+
+    Provider<Object> unscoped = Object::new;
+    assertNotSame(unscoped, StartupProfiler.provider("section", unscoped));
+  }
+
+  @Test
+  void nothingIsReportedWithoutAListener() {
+    StartupProfiler.setListener(listener);
+    StartupProfiler.setListener(null);
+    Provider<Object> provider = StartupProfiler.provider("section", () -> "value");
+    assertEquals("value", provider.get());
+    StartupProfiler.enter("section");
+    StartupProfiler.exit("section");
+    assertEquals(List.of(), events);
+  }
+}